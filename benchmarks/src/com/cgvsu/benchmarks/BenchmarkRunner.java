@@ -0,0 +1,45 @@
+package com.cgvsu.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Запуск всех замеров с профилировщиком gc (скорость выделения памяти) и сохранением результатов в JSON.
+// Аргументы (необязательные): регулярное выражение для имен замеров и список моделей через запятую, например
+//   BenchmarkRunner Reader WrapHead,synthetic-1M
+// Результаты пишутся в benchmarks/results/jmh-<дата>.json, файл задается свойством objtools.results
+public class BenchmarkRunner {
+    public static final String RESULTS_PROPERTY = "objtools.results";
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = args.length > 0 ? args[0] : ".*";
+        Path data = Path.of(System.getProperty(MeshFile.DATA_PROPERTY, "data")).toAbsolutePath();
+        Path results = Path.of(System.getProperty(RESULTS_PROPERTY, "benchmarks/results/jmh-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json"));
+        if (results.getParent() != null) {
+            Files.createDirectories(results.getParent());
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(BenchmarkRunner.class.getPackageName() + ".*" + include)
+                .addProfiler(GCProfiler.class)
+                .jvmArgsPrepend("-D" + MeshFile.DATA_PROPERTY + "=" + data)
+                .resultFormat(ResultFormatType.JSON)
+                .result(results.toString());
+        if (args.length > 1) {
+            options.param("mesh", args[1].split(","));
+        }
+
+        new Runner(options.build()).run();
+        System.out.println("Results: " + results.toAbsolutePath());
+    }
+}
@@ -0,0 +1,20 @@
+package com.cgvsu.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Дополнительная метрика "bytes": сколько байт OBJ обработано. В режиме Throughput JMH выводит ее
+// как байты в секунду рядом с ops/s, MB/s = bytes / 1e6
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ByteCounter {
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        bytes = 0;
+    }
+}
@@ -0,0 +1,93 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.util.FileCompareObj;
+import com.cgvsu.util.FileComparison;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение исходного файла с записанным. FileCompareObj печатает отчет в System.out,
+// на время замера вывод уходит в пустой поток, чтобы не мерить консоль.
+// FileCompareObj запоминает результат, поэтому в замерах чтения он создается заново на каждый вызов;
+// попадание в запомненный результат меряет отдельный метод cachedComparison (без счетчика байтов)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CompareBenchmark {
+    private Path source;
+    private Path output;
+    private FileCompareObj cached;
+    private long bytes;
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void setUp(MeshFile file) throws IOException {
+        source = file.getSource();
+        output = file.getOutput();
+        cached = new FileCompareObj(source, output);
+        cached.getComparison();
+        bytes = file.getSize() + Files.size(output);
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public FileComparison compare(ByteCounter counter) throws IOException {
+        counter.bytes += bytes;
+        return FileComparison.compare(source, output);
+    }
+
+    @Benchmark
+    public boolean areFilesIdentical(ByteCounter counter) throws IOException {
+        counter.bytes += bytes;
+        return new FileCompareObj(source, output).areFilesIdentical();
+    }
+
+    @Benchmark
+    public void compareFiles(ByteCounter counter) throws IOException {
+        counter.bytes += bytes;
+        new FileCompareObj(source, output).compareFiles();
+    }
+
+    @Benchmark
+    public void printDifferenceSummary(ByteCounter counter) throws IOException {
+        counter.bytes += bytes;
+        new FileCompareObj(source, output).printDifferenceSummary();
+    }
+
+    @Benchmark
+    public void compareFilesContent(ByteCounter counter) throws IOException {
+        counter.bytes += bytes;
+        new FileCompareObj(source, output).compareFilesContent();
+    }
+
+    // Проверка актуальности запомненного результата: только атрибуты файлов, без чтения
+    @Benchmark
+    public boolean cachedComparison() throws IOException {
+        return cached.areFilesIdentical();
+    }
+}
@@ -0,0 +1,77 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objwriter.ObjWriter;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// Файл модели, на котором идет замер: модели из data или синтетическая сетка.
+// Каталог с моделями задается свойством objtools.data, по умолчанию - data в текущем каталоге.
+// Для сравнения нужен второй файл: для моделей из data это готовый *_output.obj,
+// для синтетической сетки - ее копия, записанная через ObjReader и ObjWriter.
+@State(Scope.Benchmark)
+public class MeshFile {
+    public static final String DATA_PROPERTY = "objtools.data";
+
+    @Param({"WrapBody", "WrapFemaleBody", "WrapHead", "WrapJaw", "WrapLowerTeeth", "WrapSkull", "synthetic-1M"})
+    public String mesh;
+
+    private Path source;
+    private Path output;
+    private long size;
+    private Path temporaryDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (mesh.startsWith(SyntheticMesh.PREFIX)) {
+            temporaryDirectory = Files.createTempDirectory("objtools-bench");
+            source = temporaryDirectory.resolve(mesh + ".obj");
+            SyntheticMesh.write(SyntheticMesh.parseFaceCount(mesh), source);
+            output = temporaryDirectory.resolve(mesh + "_output.obj");
+            ObjWriter.write(ObjReader.read(source), output.toString());
+        } else {
+            Path data = Path.of(System.getProperty(DATA_PROPERTY, "data"));
+            source = data.resolve(mesh + ".obj");
+            output = data.resolve(mesh + "_output.obj");
+            if (!Files.isRegularFile(source)) {
+                throw new IllegalStateException("Model file not found: " + source.toAbsolutePath()
+                        + " (set -D" + DATA_PROPERTY + "=<path to data>)");
+            }
+        }
+        size = Files.size(source);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (temporaryDirectory != null) {
+            try (Stream<Path> files = Files.walk(temporaryDirectory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            temporaryDirectory = null;
+        }
+    }
+
+    public Path getSource() {
+        return source;
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+
+    public long getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,26 @@
+package com.cgvsu.benchmarks;
+
+import java.io.OutputStream;
+
+// Поток, который только считает байты: замер записи без диска
+class NullOutputStream extends OutputStream {
+    private long count;
+
+    @Override
+    public void write(int b) {
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        count += len;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    void reset() {
+        count = 0;
+    }
+}
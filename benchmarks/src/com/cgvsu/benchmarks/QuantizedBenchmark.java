@@ -0,0 +1,71 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.binary.QuantizationOptions;
+import com.cgvsu.binary.QuantizationReport;
+import com.cgvsu.binary.QuantizedModelReader;
+import com.cgvsu.binary.QuantizedModelWriter;
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.objreader.ObjReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Сжатый формат: чтение в сравнении с ObjReader.readPacked на той же модели и запись.
+// Размер и погрешность печатаются один раз при подготовке; bytes - байты исходного OBJ, как в ReaderBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class QuantizedBenchmark {
+    private PackedModel model;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp(MeshFile mesh) throws IOException {
+        model = ObjReader.readPacked(mesh.getSource());
+        file = Files.createTempFile("objtools-bench", ".objq");
+        QuantizationReport report = QuantizedModelWriter.write(model, file, new QuantizationOptions());
+        System.out.printf("%s: %d -> %d bytes (%.1fx), position error %.3g, texture error %.3g, normal error %.3g deg%n",
+                mesh.mesh, mesh.getSize(), report.getByteSize(), (double) mesh.getSize() / report.getByteSize(),
+                report.getMaxPositionError(), report.getMaxTextureVertexError(), report.getMaxNormalError());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public PackedModel readQuantized(MeshFile mesh, ByteCounter counter) throws IOException {
+        counter.bytes += mesh.getSize();
+        return QuantizedModelReader.read(file);
+    }
+
+    @Benchmark
+    public PackedModel readObj(MeshFile mesh, ByteCounter counter) throws IOException {
+        counter.bytes += mesh.getSize();
+        return ObjReader.readPacked(mesh.getSource());
+    }
+
+    @Benchmark
+    public QuantizationReport writeQuantized(MeshFile mesh, ByteCounter counter) throws IOException {
+        counter.bytes += mesh.getSize();
+        return QuantizedModelWriter.write(model, file, new QuantizationOptions());
+    }
+}
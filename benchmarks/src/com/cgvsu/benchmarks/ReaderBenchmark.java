@@ -0,0 +1,54 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.objreader.ObjReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Разбор OBJ: из файла в Model и PackedModel и из готовой строки (без ввода-вывода)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ReaderBenchmark {
+    private String content;
+
+    @Setup(Level.Trial)
+    public void setUp(MeshFile file) throws IOException {
+        content = Files.readString(file.getSource());
+    }
+
+    @Benchmark
+    public Model readModel(MeshFile file, ByteCounter counter) throws IOException {
+        counter.bytes += file.getSize();
+        return ObjReader.read(file.getSource());
+    }
+
+    @Benchmark
+    public PackedModel readPacked(MeshFile file, ByteCounter counter) throws IOException {
+        counter.bytes += file.getSize();
+        return ObjReader.readPacked(file.getSource());
+    }
+
+    @Benchmark
+    public Model readString(MeshFile file, ByteCounter counter) {
+        counter.bytes += file.getSize();
+        return ObjReader.read(content);
+    }
+}
@@ -0,0 +1,45 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objwriter.ObjWriter;
+import com.cgvsu.objwriter.ObjWriterOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Чтение файла и запись модели обратно (в поток без диска), как в Main
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RoundTripBenchmark {
+    private final NullOutputStream out = new NullOutputStream();
+    private final ObjWriterOptions options = new ObjWriterOptions();
+
+    @Benchmark
+    public long roundTripModel(MeshFile file, ByteCounter counter) throws IOException {
+        out.reset();
+        ObjWriter.write(ObjReader.read(file.getSource()), out, options);
+        counter.bytes += file.getSize();
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long roundTripPacked(MeshFile file, ByteCounter counter) throws IOException {
+        out.reset();
+        ObjWriter.writePacked(ObjReader.readPacked(file.getSource()), out, options);
+        counter.bytes += file.getSize();
+        return out.getCount();
+    }
+}
@@ -0,0 +1,80 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.objwriter.ObjWriter;
+import com.cgvsu.objwriter.ObjWriterOptions;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Синтетическая сетка для замеров на больших моделях: волнистая поверхность из треугольников
+// с текстурными координатами и нормалями у каждой вершины, как у моделей из data
+public class SyntheticMesh {
+    public static final String PREFIX = "synthetic-";
+
+    // "synthetic-1M" -> 1 000 000 полигонов
+    public static int parseFaceCount(String name) {
+        String size = name.substring(PREFIX.length());
+        int multiplier = 1;
+        if (size.endsWith("M")) {
+            multiplier = 1_000_000;
+            size = size.substring(0, size.length() - 1);
+        } else if (size.endsWith("K")) {
+            multiplier = 1_000;
+            size = size.substring(0, size.length() - 1);
+        }
+        return Integer.parseInt(size) * multiplier;
+    }
+
+    // Не меньше faceCount треугольников: квадратная решетка, каждая клетка делится на два
+    public static PackedModel create(int faceCount) {
+        int cells = (int) Math.ceil(Math.sqrt(faceCount / 2.0));
+        int side = cells + 1;
+
+        PackedModel model = new PackedModel();
+        model.ensureVertexCapacity(side * side);
+        model.ensureTextureVertexCapacity(side * side);
+        model.ensureNormalCapacity(side * side);
+        for (int row = 0; row < side; row++) {
+            for (int column = 0; column < side; column++) {
+                float u = (float) column / cells;
+                float v = (float) row / cells;
+                float x = u * 2 - 1;
+                float z = v * 2 - 1;
+                float y = (float) (0.1 * Math.sin(x * 8) * Math.cos(z * 8));
+                model.addVertex(x, y, z);
+                model.addTextureVertex(u, v);
+
+                float dx = (float) (0.8 * Math.cos(x * 8) * Math.cos(z * 8));
+                float dz = (float) (-0.8 * Math.sin(x * 8) * Math.sin(z * 8));
+                float length = (float) Math.sqrt(dx * dx + 1 + dz * dz);
+                model.addNormal(-dx / length, 1 / length, -dz / length);
+            }
+        }
+
+        int[] indices = new int[3];
+        model.getPolygons().ensurePolygonCapacity(cells * cells * 2);
+        model.getPolygons().ensureCornerCapacity(cells * cells * 6);
+        for (int row = 0; row < cells; row++) {
+            for (int column = 0; column < cells; column++) {
+                int topLeft = row * side + column;
+                int bottomLeft = topLeft + side;
+
+                indices[0] = topLeft;
+                indices[1] = bottomLeft;
+                indices[2] = topLeft + 1;
+                model.getPolygons().addPolygon(indices, indices, indices, 3);
+
+                indices[0] = topLeft + 1;
+                indices[1] = bottomLeft;
+                indices[2] = bottomLeft + 1;
+                model.getPolygons().addPolygon(indices, indices, indices, 3);
+            }
+        }
+        return model;
+    }
+
+    public static void write(int faceCount, Path target) throws IOException {
+        ObjWriter.writePacked(create(faceCount), target, new ObjWriterOptions());
+    }
+}
@@ -0,0 +1,102 @@
+package com.cgvsu.benchmarks;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objwriter.FloatFormatter;
+import com.cgvsu.objwriter.ObjWriter;
+import com.cgvsu.objwriter.ObjWriterOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Запись OBJ в поток без диска и форматирование координат модели.
+// Байты считаются по фактическому размеру вывода, а не по исходному файлу
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class WriterBenchmark {
+    private Model model;
+    private PackedModel packedModel;
+    private float[] coordinates;
+    private final byte[] buffer = new byte[FloatFormatter.MAX_LENGTH];
+    private final NullOutputStream out = new NullOutputStream();
+    private final ObjWriterOptions options = new ObjWriterOptions();
+    private final ObjWriterOptions shortestOptions = new ObjWriterOptions();
+
+    @Setup(Level.Trial)
+    public void setUp(MeshFile file) throws IOException {
+        model = ObjReader.read(file.getSource());
+        packedModel = ObjReader.readPacked(file.getSource());
+        packedModel.trimToSize();
+        coordinates = packedModel.toVertexArray();
+        shortestOptions.setShortestFloats(true);
+    }
+
+    @Benchmark
+    public long writeModel(ByteCounter counter) throws IOException {
+        return write(model, options, counter);
+    }
+
+    @Benchmark
+    public long writeModelShortest(ByteCounter counter) throws IOException {
+        return write(model, shortestOptions, counter);
+    }
+
+    @Benchmark
+    public long writePacked(ByteCounter counter) throws IOException {
+        out.reset();
+        ObjWriter.writePacked(packedModel, out, options);
+        counter.bytes += out.getCount();
+        return out.getCount();
+    }
+
+    @Benchmark
+    public String modelToString(ByteCounter counter) {
+        String result = ObjWriter.modelToString(model);
+        counter.bytes += result.length();
+        return result;
+    }
+
+    // Только числа: то, что раньше делал formatFloatCompact, для всех координат вершин
+    @Benchmark
+    public int formatFixed(ByteCounter counter) {
+        int total = 0;
+        for (float coordinate : coordinates) {
+            total += FloatFormatter.formatFixed(coordinate, buffer, 0);
+        }
+        counter.bytes += total;
+        return total;
+    }
+
+    @Benchmark
+    public int formatShortest(ByteCounter counter) {
+        int total = 0;
+        for (float coordinate : coordinates) {
+            total += FloatFormatter.formatShortest(coordinate, buffer, 0);
+        }
+        counter.bytes += total;
+        return total;
+    }
+
+    private long write(Model model, ObjWriterOptions options, ByteCounter counter) throws IOException {
+        out.reset();
+        ObjWriter.write(model, out, options);
+        counter.bytes += out.getCount();
+        return out.getCount();
+    }
+}
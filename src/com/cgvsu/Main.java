@@ -6,7 +6,6 @@ import com.cgvsu.objwriter.ObjWriter;
 import com.cgvsu.util.FileCompareObj;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Locale;
 
@@ -17,10 +16,8 @@ public class Main {
         Path dataDir = Path.of("").toAbsolutePath().resolve("data");
         Path fileName = dataDir.resolve(fileObj + ".obj");
 
-        String fileContent = Files.readString(fileName);
-
         System.out.println("Loading model ...");
-        Model model = ObjReader.read(fileContent);
+        Model model = ObjReader.read(fileName);
 
         System.out.println("Vertices: " + model.getVertices().size());
         System.out.println("Texture vertices: " + model.getTextureVertices().size());
@@ -0,0 +1,132 @@
+package com.cgvsu.binary;
+
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.util.AtomicFiles;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32C;
+
+// Кэш разобранных OBJ рядом с исходным файлом: model.obj -> model.obj.bin.
+// Файл кэша - заголовок с ключом исходника (размер, время изменения, CRC32C содержимого) и модель в BinaryModelFormat.
+// Если размер и время совпадают, кэш используется сразу. Если изменилось только время, сравнивается хэш содержимого.
+// Иначе OBJ разбирается заново и кэш перезаписывается.
+public class BinaryModelCache {
+    public static final String SIDECAR_SUFFIX = ".bin";
+
+    private static final int CACHE_MAGIC = 0x434A424F; // "OBJC"
+    private static final int CACHE_VERSION = 1;
+    private static final int CACHE_HEADER_SIZE = 32;
+    private static final int SOURCE_MODIFIED_OFFSET = 16;
+    private static final int SOURCE_HASH_OFFSET = 24;
+
+    private static final long HASH_CHUNK_SIZE = 64L * 1024 * 1024;
+
+    public static PackedModel load(Path objPath) throws IOException {
+        Path cachePath = sidecarPath(objPath);
+        BasicFileAttributes attributes = Files.readAttributes(objPath, BasicFileAttributes.class);
+        long sourceSize = attributes.size();
+        long sourceModified = attributes.lastModifiedTime().toMillis();
+
+        PackedModel cached = readCached(objPath, cachePath, sourceSize, sourceModified);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Хэш считается до разбора: если файл изменится во время чтения, при следующей загрузке хэш не совпадет
+        long sourceHash = hash(objPath);
+        PackedModel model = ObjReader.readPacked(objPath);
+        try {
+            store(model, cachePath, sourceSize, sourceModified, sourceHash);
+        } catch (IOException | BinaryModelException e) {
+            // Кэш - только ускорение: если его нельзя записать (например, каталог только для чтения или модель
+            // слишком велика для BinaryModelFormat), модель все равно возвращается
+        }
+        return model;
+    }
+
+    public static Path sidecarPath(Path objPath) {
+        return objPath.resolveSibling(objPath.getFileName() + SIDECAR_SUFFIX);
+    }
+
+    // Модель из кэша или null, если кэша нет, он поврежден, не читается или относится к другому содержимому
+    private static PackedModel readCached(Path objPath, Path cachePath, long sourceSize, long sourceModified) {
+        if (!Files.isRegularFile(cachePath)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(CACHE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    return null;
+                }
+            }
+            if (header.getInt(0) != CACHE_MAGIC || header.getInt(4) != CACHE_VERSION
+                    || header.getLong(8) != sourceSize) {
+                return null;
+            }
+
+            boolean modifiedChanged = header.getLong(SOURCE_MODIFIED_OFFSET) != sourceModified;
+            if (modifiedChanged && header.getLong(SOURCE_HASH_OFFSET) != hash(objPath)) {
+                return null;
+            }
+
+            PackedModel model = BinaryModelReader.read(channel, CACHE_HEADER_SIZE, channel.size() - CACHE_HEADER_SIZE);
+            if (modifiedChanged) {
+                // Содержимое то же (например, файл скопировали заново) - запоминаем новое время
+                updateSourceModified(cachePath, sourceModified);
+            }
+            return model;
+
+        } catch (IOException | BinaryModelException e) {
+            return null;
+        }
+    }
+
+    private static void updateSourceModified(Path cachePath, long sourceModified) {
+        try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.WRITE)) {
+            ByteBuffer modified = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            modified.putLong(0, sourceModified);
+            channel.write(modified, SOURCE_MODIFIED_OFFSET);
+        } catch (IOException e) {
+            // Не получилось - в следующий раз хэш будет посчитан снова
+        }
+    }
+
+    // Файл заменяется целиком (AtomicFiles), параллельный читатель не увидит половину кэша
+    private static void store(PackedModel model, Path cachePath, long sourceSize, long sourceModified, long sourceHash)
+            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(CACHE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(CACHE_MAGIC)
+                .putInt(CACHE_VERSION)
+                .putLong(sourceSize)
+                .putLong(sourceModified)
+                .putLong(sourceHash)
+                .flip();
+        ByteBuffer body = BinaryModelWriter.toByteBuffer(model);
+
+        AtomicFiles.writeAtomically(cachePath, header, body);
+    }
+
+    private static long hash(Path filePath) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += HASH_CHUNK_SIZE) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(HASH_CHUNK_SIZE, size - position));
+                crc.update(mapped);
+            }
+        }
+        return crc.getValue();
+    }
+}
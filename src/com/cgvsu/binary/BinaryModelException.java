@@ -0,0 +1,7 @@
+package com.cgvsu.binary;
+
+public class BinaryModelException extends RuntimeException {
+    public BinaryModelException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,49 @@
+package com.cgvsu.binary;
+
+// Двоичный формат модели (little-endian):
+//   заголовок HEADER_SIZE байт:
+//     0  int    MAGIC
+//     4  int    VERSION
+//     8  int    количество вершин
+//     12 int    количество текстурных вершин
+//     16 int    количество нормалей
+//     20 int    количество полигонов
+//     24 int    количество вершин во всех полигонах (углов)
+//     28 int    ATTRIBUTE_* - какие массивы индексов есть в файле
+//     32 int    CRC32 заголовка (байты 0-31) и данных
+//     36 int    зарезервировано, 0
+//   данные, секции подряд:
+//     float[вершины * 3], float[текстурные вершины * 2], float[нормали * 3],
+//     int[полигоны + 1] смещения, byte[полигоны] флаги с выравниванием до 4 байт,
+//     int[углы] индексы вершин, затем int[углы] текстурные индексы и int[углы] индексы нормалей, если они есть.
+// Раскладка совпадает с PackedModel и PackedPolygons, поэтому загрузка - это копирование секций в массивы.
+class BinaryModelFormat {
+    static final int MAGIC = 0x424A424F; // "OBJB"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 40;
+    static final int CHECKSUM_OFFSET = 32;
+
+    static final int ATTRIBUTE_TEXTURE_VERTEX_INDICES = 1;
+    static final int ATTRIBUTE_NORMAL_INDICES = 2;
+
+    static long payloadSize(int vertexCount, int textureVertexCount, int normalCount,
+                            int polygonCount, int cornerCount, int attributes) {
+        long size = (long) vertexCount * 3 * Float.BYTES
+                + (long) textureVertexCount * 2 * Float.BYTES
+                + (long) normalCount * 3 * Float.BYTES
+                + (long) (polygonCount + 1) * Integer.BYTES
+                + align(polygonCount)
+                + (long) cornerCount * Integer.BYTES;
+        if ((attributes & ATTRIBUTE_TEXTURE_VERTEX_INDICES) != 0) {
+            size += (long) cornerCount * Integer.BYTES;
+        }
+        if ((attributes & ATTRIBUTE_NORMAL_INDICES) != 0) {
+            size += (long) cornerCount * Integer.BYTES;
+        }
+        return size;
+    }
+
+    static int align(int byteCount) {
+        return (byteCount + 3) & ~3;
+    }
+}
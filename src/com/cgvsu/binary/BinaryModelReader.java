@@ -0,0 +1,103 @@
+package com.cgvsu.binary;
+
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.PackedPolygons;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Загрузка модели из двоичного формата BinaryModelFormat.
+// Файл отображается в память, и секции целиком копируются в массивы PackedModel - разбора текста нет.
+public class BinaryModelReader {
+
+    public static PackedModel read(Path filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            return read(channel, 0, channel.size());
+        }
+    }
+
+    // Модель, записанная в файл начиная с position (так хранится модель внутри файла кэша)
+    static PackedModel read(FileChannel channel, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new BinaryModelException("Binary model is too large: " + size + " bytes");
+        }
+        return read(channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+    }
+
+    public static PackedModel read(ByteBuffer file) {
+        ByteBuffer buffer = file.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < BinaryModelFormat.HEADER_SIZE) {
+            throw new BinaryModelException("File is too short for a binary model header");
+        }
+        if (buffer.getInt(0) != BinaryModelFormat.MAGIC) {
+            throw new BinaryModelException("Not a binary model file");
+        }
+        int version = buffer.getInt(4);
+        if (version != BinaryModelFormat.VERSION) {
+            throw new BinaryModelException("Unsupported binary model version: " + version);
+        }
+
+        int vertexCount = buffer.getInt(8);
+        int textureVertexCount = buffer.getInt(12);
+        int normalCount = buffer.getInt(16);
+        int polygonCount = buffer.getInt(20);
+        int cornerCount = buffer.getInt(24);
+        int attributes = buffer.getInt(28);
+        if (vertexCount < 0 || textureVertexCount < 0 || normalCount < 0 || polygonCount < 0 || cornerCount < 0) {
+            throw new BinaryModelException("Negative element count in binary model header");
+        }
+
+        long expectedSize = BinaryModelFormat.HEADER_SIZE + BinaryModelFormat.payloadSize(
+                vertexCount, textureVertexCount, normalCount, polygonCount, cornerCount, attributes);
+        if (buffer.limit() != expectedSize) {
+            throw new BinaryModelException(
+                    "Binary model size mismatch: expected " + expectedSize + " bytes, got " + buffer.limit());
+        }
+        if ((int) BinaryModelWriter.checksum(buffer) != buffer.getInt(BinaryModelFormat.CHECKSUM_OFFSET)) {
+            throw new BinaryModelException("Binary model checksum mismatch");
+        }
+
+        buffer.position(BinaryModelFormat.HEADER_SIZE);
+        float[] vertices = getFloats(buffer, vertexCount * 3);
+        float[] textureVertices = getFloats(buffer, textureVertexCount * 2);
+        float[] normals = getFloats(buffer, normalCount * 3);
+        int[] offsets = getInts(buffer, polygonCount + 1);
+        if (offsets[polygonCount] != cornerCount) {
+            throw new BinaryModelException("Polygon offsets do not match the corner count");
+        }
+        byte[] flags = new byte[polygonCount];
+        buffer.get(flags);
+        buffer.position(buffer.position() + BinaryModelFormat.align(polygonCount) - polygonCount);
+        int[] vertexIndices = getInts(buffer, cornerCount);
+        int[] textureVertexIndices = (attributes & BinaryModelFormat.ATTRIBUTE_TEXTURE_VERTEX_INDICES) != 0
+                ? getInts(buffer, cornerCount) : null;
+        int[] normalIndices = (attributes & BinaryModelFormat.ATTRIBUTE_NORMAL_INDICES) != 0
+                ? getInts(buffer, cornerCount) : null;
+
+        PackedPolygons polygons;
+        try {
+            polygons = PackedPolygons.of(offsets, flags, vertexIndices, textureVertexIndices, normalIndices);
+        } catch (IllegalArgumentException e) {
+            throw new BinaryModelException("Invalid polygon data: " + e.getMessage());
+        }
+        return PackedModel.of(vertices, textureVertices, normals, polygons);
+    }
+
+    private static float[] getFloats(ByteBuffer buffer, int count) {
+        float[] result = new float[count];
+        buffer.asFloatBuffer().get(result);
+        buffer.position(buffer.position() + count * Float.BYTES);
+        return result;
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int count) {
+        int[] result = new int[count];
+        buffer.asIntBuffer().get(result);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return result;
+    }
+}
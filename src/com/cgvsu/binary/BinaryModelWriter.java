@@ -0,0 +1,105 @@
+package com.cgvsu.binary;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.PackedPolygons;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Запись модели в двоичный формат BinaryModelFormat
+public class BinaryModelWriter {
+
+    public static void write(Model model, Path filePath) throws IOException {
+        write(PackedModel.fromModel(model), filePath);
+    }
+
+    public static void write(PackedModel model, Path filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(model, channel);
+        }
+    }
+
+    public static void write(PackedModel model, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = toByteBuffer(model);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Весь файл одним буфером: заголовок и данные
+    protected static ByteBuffer toByteBuffer(PackedModel model) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+
+        PackedPolygons polygons = model.getPolygons();
+        int polygonCount = polygons.getPolygonCount();
+        int cornerCount = polygons.getCornerCount();
+        int[] textureVertexIndices = polygons.toTextureVertexIndexArray();
+        int[] normalIndices = polygons.toNormalIndexArray();
+        int attributes = (textureVertexIndices != null ? BinaryModelFormat.ATTRIBUTE_TEXTURE_VERTEX_INDICES : 0)
+                | (normalIndices != null ? BinaryModelFormat.ATTRIBUTE_NORMAL_INDICES : 0);
+
+        long payloadSize = BinaryModelFormat.payloadSize(model.getVertexCount(), model.getTextureVertexCount(),
+                model.getNormalCount(), polygonCount, cornerCount, attributes);
+        if (BinaryModelFormat.HEADER_SIZE + payloadSize > Integer.MAX_VALUE) {
+            throw new BinaryModelException("Model is too large for the binary format: " + payloadSize + " bytes");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) (BinaryModelFormat.HEADER_SIZE + payloadSize))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(BinaryModelFormat.MAGIC)
+                .putInt(BinaryModelFormat.VERSION)
+                .putInt(model.getVertexCount())
+                .putInt(model.getTextureVertexCount())
+                .putInt(model.getNormalCount())
+                .putInt(polygonCount)
+                .putInt(cornerCount)
+                .putInt(attributes)
+                .putInt(0)
+                .putInt(0);
+
+        putFloats(buffer, model.toVertexArray());
+        putFloats(buffer, model.toTextureVertexArray());
+        putFloats(buffer, model.toNormalArray());
+        putInts(buffer, polygons.toOffsetArray());
+        buffer.put(polygons.toFlagArray());
+        buffer.position(buffer.position() + BinaryModelFormat.align(polygonCount) - polygonCount);
+        putInts(buffer, polygons.toVertexIndexArray());
+        if (textureVertexIndices != null) {
+            putInts(buffer, textureVertexIndices);
+        }
+        if (normalIndices != null) {
+            putInts(buffer, normalIndices);
+        }
+
+        buffer.putInt(BinaryModelFormat.CHECKSUM_OFFSET, (int) checksum(buffer));
+        return buffer.flip();
+    }
+
+    // CRC32 всего файла, кроме поля с самой суммой и резерва после него
+    static long checksum(ByteBuffer file) {
+        CRC32 crc = new CRC32();
+        crc.update(file.slice(0, BinaryModelFormat.CHECKSUM_OFFSET));
+        crc.update(file.slice(BinaryModelFormat.HEADER_SIZE, file.limit() - BinaryModelFormat.HEADER_SIZE));
+        return crc.getValue();
+    }
+
+    private static void putFloats(ByteBuffer buffer, float[] values) {
+        buffer.asFloatBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Float.BYTES);
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+    }
+}
@@ -0,0 +1,54 @@
+package com.cgvsu.binary;
+
+public class QuantizationOptions {
+    public static final int DEFAULT_POSITION_BITS = 16;
+    public static final int DEFAULT_TEXTURE_VERTEX_BITS = 14;
+    public static final int DEFAULT_NORMAL_BITS = 10;
+
+    private int positionBits = DEFAULT_POSITION_BITS;
+    private int textureVertexBits = DEFAULT_TEXTURE_VERTEX_BITS;
+    private int normalBits = DEFAULT_NORMAL_BITS;
+    private boolean compress = true;
+
+    public int getPositionBits() {
+        return positionBits;
+    }
+
+    // Бит на координату вершины; координаты квантуются равномерно внутри ограничивающего параллелепипеда
+    public void setPositionBits(int positionBits) {
+        this.positionBits = checkBits(positionBits, 24, "Position");
+    }
+
+    public int getTextureVertexBits() {
+        return textureVertexBits;
+    }
+
+    public void setTextureVertexBits(int textureVertexBits) {
+        this.textureVertexBits = checkBits(textureVertexBits, 24, "Texture vertex");
+    }
+
+    public int getNormalBits() {
+        return normalBits;
+    }
+
+    // Бит на каждую из двух компонент восьмигранной развертки нормали
+    public void setNormalBits(int normalBits) {
+        this.normalBits = checkBits(normalBits, 16, "Normal");
+    }
+
+    public boolean isCompress() {
+        return compress;
+    }
+
+    // Дополнительно сжимать данные Deflate
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+
+    private static int checkBits(int bits, int max, String name) {
+        if (bits < 2 || bits > max) {
+            throw new IllegalArgumentException(name + " bits must be between 2 and " + max + ", got: " + bits);
+        }
+        return bits;
+    }
+}
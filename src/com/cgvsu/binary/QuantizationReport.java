@@ -0,0 +1,27 @@
+package com.cgvsu.binary;
+
+// Размер записанной модели и наибольшие отклонения восстановленных данных от исходных
+public class QuantizationReport {
+    long byteSize;
+    double maxPositionError;
+    double maxTextureVertexError;
+    double maxNormalError;
+
+    public long getByteSize() {
+        return byteSize;
+    }
+
+    // Расстояние между исходной и восстановленной вершиной
+    public double getMaxPositionError() {
+        return maxPositionError;
+    }
+
+    public double getMaxTextureVertexError() {
+        return maxTextureVertexError;
+    }
+
+    // Угол в градусах между исходной нормалью (после нормировки) и восстановленной; нулевые нормали не учитываются
+    public double getMaxNormalError() {
+        return maxNormalError;
+    }
+}
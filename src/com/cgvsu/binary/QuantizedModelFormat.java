@@ -0,0 +1,82 @@
+package com.cgvsu.binary;
+
+// Сжатый формат модели для передачи (little-endian):
+//   заголовок HEADER_SIZE байт:
+//     0  int      MAGIC
+//     4  int      VERSION
+//     8  int      количество вершин
+//     12 int      количество текстурных вершин
+//     16 int      количество нормалей
+//     20 int      количество полигонов
+//     24 int      количество углов
+//     28 int      FLAG_* - как хранятся данные
+//     32 int      бит на координату вершины
+//     36 int      бит на текстурную координату
+//     40 int      бит на компоненту нормали
+//     44 float[6] границы вершин: min x y z, max x y z
+//     68 float[4] границы текстурных координат: min u v, max u v
+//     84 int      размер данных до сжатия
+//     88 int      CRC32 заголовка (байты 0-87) и данных в том виде, как они лежат в файле
+//     92 int      зарезервировано, 0
+//   данные - последовательность чисел переменной длины (varint), при FLAG_DEFLATE сжатая Deflate:
+//     вершины: квантованные относительно границ координаты, разность с предыдущей вершиной (zigzag);
+//     текстурные вершины - так же; нормали - восьмигранная развертка (две компоненты), так же разностями;
+//     полигоны: ((число вершин - 3) << 2) | флаги PackedPolygons;
+//     индексы вершин всех углов, затем текстурные индексы и индексы нормалей углов полигонов с этими флагами.
+// Индекс угла кодируется относительно последних RECENT_SIZE различных индексов потока: совпадение - номер
+// в этом списке (0 - самый свежий), иначе RECENT_SIZE + zigzag(индекс - (наибольший встреченный индекс + 1)).
+// В потоках текстурных индексов и индексов нормалей коды сдвинуты на 1: код 0 - тот же индекс, что был
+// у последнего угла с той же вершиной. Новые вершины в порядке первого использования, повторы соседних
+// индексов и атрибуты без швов занимают по байту.
+class QuantizedModelFormat {
+    static final int MAGIC = 0x514A424F; // "OBJQ"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 96;
+    static final int CHECKSUM_OFFSET = 88;
+
+    static final int FLAG_DEFLATE = 1;
+
+    static final int RECENT_SIZE = 16;
+
+    // Число уровней квантования для bits бит
+    static int maxQuantized(int bits) {
+        return (1 << bits) - 1;
+    }
+
+    // Шаг квантования отрезка [min, max]; одинаков при записи и чтении
+    static float step(float min, float max, int bits) {
+        return (max - min) / maxQuantized(bits);
+    }
+
+    static float dequantize(int value, float min, float step) {
+        return min + value * step;
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // Компоненты восьмигранной развертки - целые со знаком в [-octScale, octScale], чтобы нормали вдоль осей
+    // кодировались точно
+    static int octScale(int bits) {
+        return (1 << (bits - 1)) - 1;
+    }
+
+    // Единичная нормаль по развертке (u, v) в [-1, 1]; результат пишется в result[offset..offset + 2]
+    static void octDecode(float u, float v, float[] result, int offset) {
+        float z = 1 - Math.abs(u) - Math.abs(v);
+        if (z < 0) {
+            float x = u;
+            u = (1 - Math.abs(v)) * (x >= 0 ? 1 : -1);
+            v = (1 - Math.abs(x)) * (v >= 0 ? 1 : -1);
+        }
+        float length = (float) Math.sqrt(u * u + v * v + z * z);
+        result[offset] = u / length;
+        result[offset + 1] = v / length;
+        result[offset + 2] = z / length;
+    }
+}
@@ -0,0 +1,272 @@
+package com.cgvsu.binary;
+
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.PackedPolygons;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Загрузка модели из сжатого формата QuantizedModelFormat: распаковка и один проход по числам переменной длины
+public class QuantizedModelReader {
+
+    public static PackedModel read(Path filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new BinaryModelException("Quantized model is too large: " + size + " bytes");
+            }
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public static PackedModel read(ByteBuffer file) {
+        ByteBuffer buffer = file.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < QuantizedModelFormat.HEADER_SIZE) {
+            throw new BinaryModelException("File is too short for a quantized model header");
+        }
+        if (buffer.getInt(0) != QuantizedModelFormat.MAGIC) {
+            throw new BinaryModelException("Not a quantized model file");
+        }
+        int version = buffer.getInt(4);
+        if (version != QuantizedModelFormat.VERSION) {
+            throw new BinaryModelException("Unsupported quantized model version: " + version);
+        }
+        if ((int) QuantizedModelWriter.checksum(buffer) != buffer.getInt(QuantizedModelFormat.CHECKSUM_OFFSET)) {
+            throw new BinaryModelException("Quantized model checksum mismatch");
+        }
+
+        int vertexCount = buffer.getInt(8);
+        int textureVertexCount = buffer.getInt(12);
+        int normalCount = buffer.getInt(16);
+        int polygonCount = buffer.getInt(20);
+        int cornerCount = buffer.getInt(24);
+        int flags = buffer.getInt(28);
+        int positionBits = buffer.getInt(32);
+        int textureVertexBits = buffer.getInt(36);
+        int normalBits = buffer.getInt(40);
+        int rawSize = buffer.getInt(84);
+        if (vertexCount < 0 || textureVertexCount < 0 || normalCount < 0 || polygonCount < 0 || cornerCount < 0
+                || rawSize < 0) {
+            throw new BinaryModelException("Negative element count in quantized model header");
+        }
+        if (positionBits < 2 || positionBits > 24 || textureVertexBits < 2 || textureVertexBits > 24
+                || normalBits < 2 || normalBits > 16) {
+            throw new BinaryModelException("Invalid bit depth in quantized model header");
+        }
+        float[] positionBounds = new float[6];
+        for (int i = 0; i < 6; i++) {
+            positionBounds[i] = buffer.getFloat(44 + i * 4);
+        }
+        float[] textureBounds = new float[4];
+        for (int i = 0; i < 4; i++) {
+            textureBounds[i] = buffer.getFloat(68 + i * 4);
+        }
+
+        byte[] payload = new byte[buffer.limit() - QuantizedModelFormat.HEADER_SIZE];
+        buffer.get(QuantizedModelFormat.HEADER_SIZE, payload);
+        if ((flags & QuantizedModelFormat.FLAG_DEFLATE) != 0) {
+            payload = inflate(payload, rawSize);
+        } else if (payload.length != rawSize) {
+            throw new BinaryModelException("Quantized model size mismatch: expected " + rawSize
+                    + " bytes of data, got " + payload.length);
+        }
+
+        VarintInput input = new VarintInput(payload);
+        float[] vertices = getQuantized(input, vertexCount, 3, positionBounds, positionBits);
+        float[] textureVertices = getQuantized(input, textureVertexCount, 2, textureBounds, textureVertexBits);
+        float[] normals = getNormals(input, normalCount, normalBits);
+
+        int[] offsets = new int[polygonCount + 1];
+        byte[] polygonFlags = new byte[polygonCount];
+        int mask = PackedPolygons.HAS_TEXTURE_VERTICES | PackedPolygons.HAS_NORMALS;
+        int anyFlags = 0;
+        for (int i = 0; i < polygonCount; i++) {
+            int code = input.getVarint();
+            long end = (long) offsets[i] + (code >>> 2) + 3;
+            if (end > cornerCount) {
+                throw new BinaryModelException("Polygon sizes do not match the corner count");
+            }
+            offsets[i + 1] = (int) end;
+            polygonFlags[i] = (byte) (code & mask);
+            anyFlags |= code & mask;
+        }
+        if (offsets[polygonCount] != cornerCount) {
+            throw new BinaryModelException("Polygon sizes do not match the corner count");
+        }
+        int[] vertexIndices = getIndices(input, null, 0, offsets, polygonFlags, (byte) 0, vertexCount);
+        int[] textureVertexIndices = (anyFlags & PackedPolygons.HAS_TEXTURE_VERTICES) != 0
+                ? getIndices(input, vertexIndices, vertexCount, offsets, polygonFlags,
+                PackedPolygons.HAS_TEXTURE_VERTICES, textureVertexCount) : null;
+        int[] normalIndices = (anyFlags & PackedPolygons.HAS_NORMALS) != 0
+                ? getIndices(input, vertexIndices, vertexCount, offsets, polygonFlags,
+                PackedPolygons.HAS_NORMALS, normalCount) : null;
+        if (!input.isAtEnd()) {
+            throw new BinaryModelException("Unexpected data after the last polygon");
+        }
+
+        PackedPolygons polygons;
+        try {
+            polygons = PackedPolygons.of(offsets, polygonFlags, vertexIndices, textureVertexIndices, normalIndices);
+        } catch (IllegalArgumentException e) {
+            throw new BinaryModelException("Invalid polygon data: " + e.getMessage());
+        }
+        return PackedModel.of(vertices, textureVertices, normals, polygons);
+    }
+
+    private static float[] getQuantized(VarintInput input, int count, int dimension, float[] bounds, int bits) {
+        float[] steps = new float[dimension];
+        for (int axis = 0; axis < dimension; axis++) {
+            steps[axis] = QuantizedModelFormat.step(bounds[axis], bounds[dimension + axis], bits);
+        }
+        int[] previous = new int[dimension];
+        float[] result = new float[checkedLength(count, dimension)];
+        for (int i = 0; i < result.length; i += dimension) {
+            for (int axis = 0; axis < dimension; axis++) {
+                int value = previous[axis] + QuantizedModelFormat.unzigzag(input.getVarint());
+                previous[axis] = value;
+                result[i + axis] = QuantizedModelFormat.dequantize(value, bounds[axis], steps[axis]);
+            }
+        }
+        return result;
+    }
+
+    private static float[] getNormals(VarintInput input, int count, int bits) {
+        float scale = QuantizedModelFormat.octScale(bits);
+        float[] result = new float[checkedLength(count, 3)];
+        int u = 0;
+        int v = 0;
+        for (int i = 0; i < result.length; i += 3) {
+            u += QuantizedModelFormat.unzigzag(input.getVarint());
+            v += QuantizedModelFormat.unzigzag(input.getVarint());
+            if (Math.abs(u) > scale || Math.abs(v) > scale) {
+                throw new BinaryModelException("Normal " + i / 3 + " is out of range");
+            }
+            QuantizedModelFormat.octDecode(u / scale, v / scale, result, i);
+        }
+        return result;
+    }
+
+    private static int[] getIndices(VarintInput input, int[] vertexIndices, int vertexCount, int[] offsets,
+                                    byte[] flags, byte flag, int count) {
+        int[] result = new int[offsets[flags.length]];
+        int[] paired = null;
+        int shift = 0;
+        if (vertexIndices != null) {
+            paired = new int[vertexCount];
+            Arrays.fill(paired, -1);
+            shift = 1;
+        }
+        int[] recent = new int[QuantizedModelFormat.RECENT_SIZE];
+        int recentCount = 0;
+        int next = 0;
+        for (int polygon = 0; polygon < flags.length; polygon++) {
+            if (flag != 0 && (flags[polygon] & flag) == 0) {
+                continue;
+            }
+            for (int corner = offsets[polygon]; corner < offsets[polygon + 1]; corner++) {
+                int code = input.getVarint() - shift;
+                int index;
+                if (code == -1) {
+                    index = paired[vertexIndices[corner]];
+                    if (index < 0) {
+                        throw new BinaryModelException("Polygon " + polygon + " references a missing paired index");
+                    }
+                } else if (code >= 0 && code < QuantizedModelFormat.RECENT_SIZE) {
+                    if (code >= recentCount) {
+                        throw new BinaryModelException("Polygon " + polygon + " references a missing recent index");
+                    }
+                    index = recent[(recentCount - 1 - code) & (QuantizedModelFormat.RECENT_SIZE - 1)];
+                } else {
+                    index = next + QuantizedModelFormat.unzigzag(code - QuantizedModelFormat.RECENT_SIZE);
+                    if (index < 0 || index >= count) {
+                        throw new BinaryModelException("Polygon " + polygon + " references index " + index
+                                + " out of bounds for length " + count);
+                    }
+                    recent[recentCount++ & (QuantizedModelFormat.RECENT_SIZE - 1)] = index;
+                    if (index >= next) {
+                        next = index + 1;
+                    }
+                }
+                if (paired != null) {
+                    paired[vertexIndices[corner]] = index;
+                }
+                result[corner] = index;
+            }
+        }
+        return result;
+    }
+
+    private static int checkedLength(int count, int dimension) {
+        if ((long) count * dimension > Integer.MAX_VALUE - 8) {
+            throw new BinaryModelException("Element count is too large: " + count);
+        }
+        return count * dimension;
+    }
+
+    private static byte[] inflate(byte[] data, int rawSize) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] result = new byte[rawSize];
+            // Поток дочитывается до конца и при заполненном буфере (и при rawSize == 0): лишние байты
+            // попадают в extra, а признак finished появляется только после конца потока
+            byte[] extra = new byte[1];
+            int length = 0;
+            while (!inflater.finished()) {
+                int read = length < rawSize
+                        ? inflater.inflate(result, length, rawSize - length) : inflater.inflate(extra);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                if (length == rawSize && read > 0) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != rawSize || !inflater.finished()) {
+                throw new BinaryModelException("Quantized model data is truncated or has extra bytes");
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new BinaryModelException("Corrupted quantized model data: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Чтение беззнаковых чисел переменной длины с проверкой границ
+    private static class VarintInput {
+        private final byte[] bytes;
+        private int position;
+
+        VarintInput(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int getVarint() {
+            int result = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                if (position >= bytes.length) {
+                    throw new BinaryModelException("Quantized model data is truncated");
+                }
+                byte value = bytes[position++];
+                result |= (value & 0x7F) << shift;
+                if (value >= 0) {
+                    return result;
+                }
+            }
+            throw new BinaryModelException("Malformed variable-length number in quantized model data");
+        }
+
+        boolean isAtEnd() {
+            return position == bytes.length;
+        }
+    }
+}
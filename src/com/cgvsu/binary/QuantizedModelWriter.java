@@ -0,0 +1,345 @@
+package com.cgvsu.binary;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.PackedPolygons;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Запись модели в сжатый формат QuantizedModelFormat. Координаты теряют точность по настройкам
+// QuantizationOptions, индексы и состав полигонов сохраняются без потерь
+public class QuantizedModelWriter {
+
+    public static QuantizationReport write(Model model, Path filePath) throws IOException {
+        return write(PackedModel.fromModel(model), filePath, new QuantizationOptions());
+    }
+
+    public static QuantizationReport write(Model model, Path filePath, QuantizationOptions options) throws IOException {
+        return write(PackedModel.fromModel(model), filePath, options);
+    }
+
+    // Модель кодируется до открытия файла, поэтому при ошибке в модели существующий файл не портится
+    public static QuantizationReport write(PackedModel model, Path filePath, QuantizationOptions options)
+            throws IOException {
+        QuantizationReport report = new QuantizationReport();
+        ByteBuffer buffer = toByteBuffer(model, options, report);
+        try (FileChannel channel = FileChannel.open(filePath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeBuffer(buffer, channel);
+        }
+        return report;
+    }
+
+    public static QuantizationReport write(PackedModel model, WritableByteChannel channel, QuantizationOptions options)
+            throws IOException {
+        QuantizationReport report = new QuantizationReport();
+        writeBuffer(toByteBuffer(model, options, report), channel);
+        return report;
+    }
+
+    private static void writeBuffer(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Весь файл одним буфером; report получает размер и ошибки квантования
+    static ByteBuffer toByteBuffer(PackedModel model, QuantizationOptions options, QuantizationReport report) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        if (options == null) {
+            throw new IllegalArgumentException("Options cannot be null");
+        }
+
+        PackedPolygons polygons = model.getPolygons();
+        int polygonCount = polygons.getPolygonCount();
+        int cornerCount = polygons.getCornerCount();
+        float[] vertices = model.toVertexArray();
+        float[] textureVertices = model.toTextureVertexArray();
+        float[] normals = model.toNormalArray();
+        float[] positionBounds = bounds(vertices, 3);
+        float[] textureBounds = bounds(textureVertices, 2);
+
+        VarintOutput output = new VarintOutput(vertices.length + textureVertices.length + normals.length + cornerCount * 3);
+        report.maxPositionError = putQuantized(output, vertices, 3, positionBounds, options.getPositionBits());
+        report.maxTextureVertexError = putQuantized(output, textureVertices, 2, textureBounds,
+                options.getTextureVertexBits());
+        report.maxNormalError = putNormals(output, normals, options.getNormalBits());
+
+        int[] offsets = polygons.toOffsetArray();
+        byte[] flags = polygons.toFlagArray();
+        for (int i = 0; i < polygonCount; i++) {
+            output.putVarint(((offsets[i + 1] - offsets[i] - 3) << 2)
+                    | (flags[i] & (PackedPolygons.HAS_TEXTURE_VERTICES | PackedPolygons.HAS_NORMALS)));
+        }
+        int[] vertexIndices = polygons.toVertexIndexArray();
+        int vertexCount = model.getVertexCount();
+        putIndices(output, vertexIndices, null, 0, offsets, flags, (byte) 0);
+        putIndices(output, polygons.toTextureVertexIndexArray(), vertexIndices, vertexCount, offsets, flags,
+                PackedPolygons.HAS_TEXTURE_VERTICES);
+        putIndices(output, polygons.toNormalIndexArray(), vertexIndices, vertexCount, offsets, flags,
+                PackedPolygons.HAS_NORMALS);
+
+        byte[] payload = output.toArray();
+        int rawSize = payload.length;
+        if (options.isCompress()) {
+            payload = deflate(payload);
+        }
+        if ((long) QuantizedModelFormat.HEADER_SIZE + payload.length > Integer.MAX_VALUE) {
+            throw new BinaryModelException("Model is too large for the quantized format: " + payload.length + " bytes");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(QuantizedModelFormat.HEADER_SIZE + payload.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(QuantizedModelFormat.MAGIC)
+                .putInt(QuantizedModelFormat.VERSION)
+                .putInt(model.getVertexCount())
+                .putInt(model.getTextureVertexCount())
+                .putInt(model.getNormalCount())
+                .putInt(polygonCount)
+                .putInt(cornerCount)
+                .putInt(options.isCompress() ? QuantizedModelFormat.FLAG_DEFLATE : 0)
+                .putInt(options.getPositionBits())
+                .putInt(options.getTextureVertexBits())
+                .putInt(options.getNormalBits());
+        for (float bound : positionBounds) {
+            buffer.putFloat(bound);
+        }
+        for (float bound : textureBounds) {
+            buffer.putFloat(bound);
+        }
+        buffer.putInt(rawSize)
+                .putInt(0)
+                .putInt(0)
+                .put(payload);
+        buffer.putInt(QuantizedModelFormat.CHECKSUM_OFFSET, (int) checksum(buffer));
+        report.byteSize = buffer.limit();
+        return buffer.flip();
+    }
+
+    static long checksum(ByteBuffer file) {
+        CRC32 crc = new CRC32();
+        crc.update(file.slice(0, QuantizedModelFormat.CHECKSUM_OFFSET));
+        crc.update(file.slice(QuantizedModelFormat.HEADER_SIZE, file.limit() - QuantizedModelFormat.HEADER_SIZE));
+        return crc.getValue();
+    }
+
+    // Наименьшие, затем наибольшие значения каждой компоненты; для пустого массива - нули
+    private static float[] bounds(float[] values, int dimension) {
+        float[] result = new float[dimension * 2];
+        if (values.length == 0) {
+            return result;
+        }
+        Arrays.fill(result, 0, dimension, Float.POSITIVE_INFINITY);
+        Arrays.fill(result, dimension, dimension * 2, Float.NEGATIVE_INFINITY);
+        for (int i = 0; i < values.length; i++) {
+            float value = values[i];
+            if (!Float.isFinite(value)) {
+                throw new IllegalArgumentException("Model contains non-finite coordinate: " + value);
+            }
+            int axis = i % dimension;
+            result[axis] = Math.min(result[axis], value);
+            result[dimension + axis] = Math.max(result[dimension + axis], value);
+        }
+        for (int axis = 0; axis < dimension; axis++) {
+            if (!Float.isFinite(result[dimension + axis] - result[axis])) {
+                throw new IllegalArgumentException("Model coordinates span too large a range");
+            }
+        }
+        return result;
+    }
+
+    // Квантованные координаты разностями с предыдущим элементом; возвращает наибольшее отклонение
+    private static double putQuantized(VarintOutput output, float[] values, int dimension, float[] bounds, int bits) {
+        int maxValue = QuantizedModelFormat.maxQuantized(bits);
+        float[] steps = new float[dimension];
+        for (int axis = 0; axis < dimension; axis++) {
+            steps[axis] = QuantizedModelFormat.step(bounds[axis], bounds[dimension + axis], bits);
+        }
+        int[] previous = new int[dimension];
+        double maxError = 0;
+        for (int i = 0; i < values.length; i += dimension) {
+            double error = 0;
+            for (int axis = 0; axis < dimension; axis++) {
+                float min = bounds[axis];
+                int quantized = 0;
+                if (steps[axis] > 0) {
+                    quantized = (int) Math.round(((double) values[i + axis] - min) / steps[axis]);
+                    quantized = Math.max(0, Math.min(maxValue, quantized));
+                }
+                double difference = values[i + axis] - QuantizedModelFormat.dequantize(quantized, min, steps[axis]);
+                error += difference * difference;
+                output.putVarint(QuantizedModelFormat.zigzag(quantized - previous[axis]));
+                previous[axis] = quantized;
+            }
+            maxError = Math.max(maxError, Math.sqrt(error));
+        }
+        return maxError;
+    }
+
+    // Нормали в восьмигранной развертке; из четырех ближайших узлов сетки берется дающий наименьший угол
+    private static double putNormals(VarintOutput output, float[] normals, int bits) {
+        int scale = QuantizedModelFormat.octScale(bits);
+        float[] decoded = new float[3];
+        int previousU = 0;
+        int previousV = 0;
+        double minCosine = 1;
+        for (int i = 0; i < normals.length; i += 3) {
+            double x = normals[i];
+            double y = normals[i + 1];
+            double z = normals[i + 2];
+            if (!Double.isFinite(x) || !Double.isFinite(y) || !Double.isFinite(z)) {
+                throw new IllegalArgumentException("Model contains non-finite normal");
+            }
+            double length = Math.sqrt(x * x + y * y + z * z);
+            boolean zero = length == 0;
+            if (zero) {
+                z = 1;
+            } else {
+                x /= length;
+                y /= length;
+                z /= length;
+            }
+            double sum = Math.abs(x) + Math.abs(y) + Math.abs(z);
+            double u = x / sum;
+            double v = y / sum;
+            if (z < 0) {
+                double t = u;
+                u = (1 - Math.abs(v)) * (t >= 0 ? 1 : -1);
+                v = (1 - Math.abs(t)) * (v >= 0 ? 1 : -1);
+            }
+
+            int bestU = 0;
+            int bestV = 0;
+            double bestCosine = Double.NEGATIVE_INFINITY;
+            int baseU = (int) Math.floor(u * scale);
+            int baseV = (int) Math.floor(v * scale);
+            for (int candidate = 0; candidate < 4; candidate++) {
+                int candidateU = Math.max(-scale, Math.min(scale, baseU + (candidate & 1)));
+                int candidateV = Math.max(-scale, Math.min(scale, baseV + (candidate >> 1)));
+                QuantizedModelFormat.octDecode((float) candidateU / scale, (float) candidateV / scale, decoded, 0);
+                double cosine = x * decoded[0] + y * decoded[1] + z * decoded[2];
+                if (cosine > bestCosine) {
+                    bestCosine = cosine;
+                    bestU = candidateU;
+                    bestV = candidateV;
+                }
+            }
+            if (!zero) {
+                minCosine = Math.min(minCosine, bestCosine);
+            }
+            output.putVarint(QuantizedModelFormat.zigzag(bestU - previousU));
+            output.putVarint(QuantizedModelFormat.zigzag(bestV - previousV));
+            previousU = bestU;
+            previousV = bestV;
+        }
+        return Math.toDegrees(Math.acos(Math.max(-1, Math.min(1, minCosine))));
+    }
+
+    // Индексы углов полигонов с флагом flag (0 - всех полигонов). Для атрибутов передаются индексы вершин углов:
+    // код 0 означает тот же индекс, что у последнего угла с той же вершиной
+    private static void putIndices(VarintOutput output, int[] indices, int[] vertexIndices, int vertexCount,
+                                   int[] offsets, byte[] flags, byte flag) {
+        if (indices == null) {
+            return;
+        }
+        int[] paired = null;
+        int shift = 0;
+        if (vertexIndices != null) {
+            paired = new int[vertexCount];
+            Arrays.fill(paired, -1);
+            shift = 1;
+        }
+        int[] recent = new int[QuantizedModelFormat.RECENT_SIZE];
+        Arrays.fill(recent, -1);
+        int recentCount = 0;
+        int next = 0;
+        for (int polygon = 0; polygon < flags.length; polygon++) {
+            if (flag != 0 && (flags[polygon] & flag) == 0) {
+                continue;
+            }
+            for (int corner = offsets[polygon]; corner < offsets[polygon + 1]; corner++) {
+                int index = indices[corner];
+                if (paired != null) {
+                    int vertex = vertexIndices[corner];
+                    int predicted = paired[vertex];
+                    paired[vertex] = index;
+                    if (predicted == index) {
+                        output.putVarint(0);
+                        continue;
+                    }
+                }
+                int position = -1;
+                for (int i = 0; i < QuantizedModelFormat.RECENT_SIZE; i++) {
+                    if (recent[(recentCount - 1 - i) & (QuantizedModelFormat.RECENT_SIZE - 1)] == index) {
+                        position = i;
+                        break;
+                    }
+                }
+                if (position >= 0) {
+                    output.putVarint(shift + position);
+                    continue;
+                }
+                output.putVarint(shift + QuantizedModelFormat.RECENT_SIZE + QuantizedModelFormat.zigzag(index - next));
+                recent[recentCount++ & (QuantizedModelFormat.RECENT_SIZE - 1)] = index;
+                if (index >= next) {
+                    next = index + 1;
+                }
+            }
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] result = new byte[Math.max(64, data.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == result.length) {
+                    result = Arrays.copyOf(result, result.length * 2);
+                }
+                length += deflater.deflate(result, length, result.length - length);
+            }
+            return Arrays.copyOf(result, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Растущий массив байт с записью беззнаковых чисел переменной длины (по 7 бит в байте)
+    private static class VarintOutput {
+        private byte[] bytes;
+        private int size;
+
+        VarintOutput(int capacity) {
+            bytes = new byte[Math.max(16, capacity)];
+        }
+
+        void putVarint(int value) {
+            if (size + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.cgvsu.cache;
+
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.objreader.ObjReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Потокобезопасный кэш загруженных моделей в памяти процесса.
+// Ключ - путь к файлу и его версия (размер и время изменения): изменившийся файл загружается заново.
+// Объем ограничен бюджетом в байтах по оценке PackedModel.estimateSizeInBytes(), при превышении
+// вытесняются давно не использованные модели (LRU). Модель больше всего бюджета возвращается, но не кэшируется.
+// Если несколько потоков одновременно просят одну и ту же отсутствующую модель, файл читается один раз.
+// Модели отдаются только для чтения, их можно разделять между потоками; toModel() дает изменяемую копию.
+public class ModelCache {
+
+    public interface Loader {
+        PackedModel load(Path path) throws IOException;
+    }
+
+    private final long maxBytes;
+    private final Loader loader;
+
+    private final Object lock = new Object();
+    // Порядок доступа: первым идет давно не использованный элемент
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final ConcurrentHashMap<Key, CompletableFuture<PackedModel>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public ModelCache(long maxBytes) {
+        this(maxBytes, ObjReader::readPacked);
+    }
+
+    public ModelCache(long maxBytes, Loader loader) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive, got: " + maxBytes);
+        }
+        if (loader == null) {
+            throw new IllegalArgumentException("Loader cannot be null");
+        }
+        this.maxBytes = maxBytes;
+        this.loader = loader;
+    }
+
+    public PackedModel get(Path filePath) throws IOException {
+        Path path = filePath.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        Key key = new Key(path, attributes.size(), attributes.lastModifiedTime().toMillis());
+
+        PackedModel cached = lookup(key);
+        if (cached != null) {
+            hitCount.increment();
+            return cached;
+        }
+        missCount.increment();
+
+        CompletableFuture<PackedModel> future = new CompletableFuture<>();
+        CompletableFuture<PackedModel> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            // Загрузивший поток мог положить модель в кэш и убрать свой future между проверкой выше и putIfAbsent
+            cached = lookup(key);
+            if (cached != null) {
+                future.complete(cached);
+                return cached;
+            }
+
+            PackedModel model = loader.load(path);
+            if (!model.isReadOnly()) {
+                model.trimToSize();
+            }
+            PackedModel readOnly = model.asReadOnly();
+            put(key, readOnly);
+            future.complete(readOnly);
+            return readOnly;
+
+        } catch (Throwable e) {
+            // В том числе Error: иначе ждущие в await потоки не проснутся
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    public void invalidate(Path filePath) {
+        Path path = filePath.toAbsolutePath().normalize();
+        synchronized (lock) {
+            Entry entry = entries.remove(path);
+            if (entry != null) {
+                totalBytes -= entry.bytes;
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            entries.clear();
+            totalBytes = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    public long getSizeInBytes() {
+        synchronized (lock) {
+            return totalBytes;
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    private PackedModel lookup(Key key) {
+        synchronized (lock) {
+            Entry entry = entries.get(key.path);
+            return entry != null && entry.key.equals(key) ? entry.model : null;
+        }
+    }
+
+    private void put(Key key, PackedModel model) {
+        long bytes = model.estimateSizeInBytes();
+        synchronized (lock) {
+            if (bytes > maxBytes) {
+                // Модель не кэшируется, но прежняя версия файла больше не нужна
+                Entry stale = entries.remove(key.path);
+                if (stale != null) {
+                    totalBytes -= stale.bytes;
+                }
+                return;
+            }
+
+            Entry previous = entries.put(key.path, new Entry(key, model, bytes));
+            if (previous != null) {
+                totalBytes -= previous.bytes;
+            }
+            totalBytes += bytes;
+
+            Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && iterator.hasNext()) {
+                Entry eldest = iterator.next().getValue();
+                if (eldest.key.equals(key)) {
+                    continue;
+                }
+                iterator.remove();
+                totalBytes -= eldest.bytes;
+                evictionCount.increment();
+            }
+        }
+    }
+
+    // Ошибка загрузки передается всем ждавшим ее потокам
+    private static PackedModel await(CompletableFuture<PackedModel> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw new IOException(io.getMessage(), io);
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static class Key {
+        private final Path path;
+        private final long size;
+        private final long lastModified;
+
+        private Key(Path path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key other)) return false;
+            return size == other.size && lastModified == other.lastModified && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() * 31 + Long.hashCode(size) * 17 + Long.hashCode(lastModified);
+        }
+    }
+
+    private static class Entry {
+        private final Key key;
+        private final PackedModel model;
+        private final long bytes;
+
+        private Entry(Key key, PackedModel model, long bytes) {
+            this.key = key;
+            this.model = model;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.cgvsu.mesh;
+
+// Результат запроса к MeshBvh: полигон исходной модели, точка на нем и расстояние до нее
+public class BvhHit {
+    private final int polygonIndex;
+    private final float distance;
+    private final float x;
+    private final float y;
+    private final float z;
+
+    BvhHit(int polygonIndex, float distance, float x, float y, float z) {
+        this.polygonIndex = polygonIndex;
+        this.distance = distance;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    public int getPolygonIndex() {
+        return polygonIndex;
+    }
+
+    public float getDistance() {
+        return distance;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getZ() {
+        return z;
+    }
+}
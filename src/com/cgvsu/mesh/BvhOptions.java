@@ -0,0 +1,57 @@
+package com.cgvsu.mesh;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class BvhOptions {
+    public static final int DEFAULT_MAX_LEAF_SIZE = 4;
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024;
+
+    private int maxLeafSize = DEFAULT_MAX_LEAF_SIZE;
+    private boolean parallel = false;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public int getMaxLeafSize() {
+        return maxLeafSize;
+    }
+
+    // Наибольшее число треугольников в листе; меньший лист делится, только если это выгодно по SAH
+    public void setMaxLeafSize(int maxLeafSize) {
+        if (maxLeafSize <= 0) {
+            throw new IllegalArgumentException("Max leaf size must be positive, got: " + maxLeafSize);
+        }
+        this.maxLeafSize = maxLeafSize;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    // Параллельное построение: поддеревья строятся на пуле потоков, дерево получается то же
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        this.pool = pool;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    // Поддерево из большего числа треугольников строится отдельной задачей
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive, got: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+}
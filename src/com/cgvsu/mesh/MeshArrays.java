@@ -0,0 +1,120 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Polygon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Общие преобразования Model в плоские массивы для операций над сеткой
+class MeshArrays {
+
+    static float[] toArray3(List<Vector3f> vectors) {
+        float[] result = new float[vectors.size() * 3];
+        for (int i = 0; i < vectors.size(); i++) {
+            Vector3f vector = vectors.get(i);
+            if (vector == null) {
+                throw new IllegalArgumentException("Model contains null elements");
+            }
+            result[i * 3] = vector.getX();
+            result[i * 3 + 1] = vector.getY();
+            result[i * 3 + 2] = vector.getZ();
+        }
+        return result;
+    }
+
+    static float[] toArray2(List<Vector2f> vectors) {
+        float[] result = new float[vectors.size() * 2];
+        for (int i = 0; i < vectors.size(); i++) {
+            Vector2f vector = vectors.get(i);
+            if (vector == null) {
+                throw new IllegalArgumentException("Model contains null elements");
+            }
+            result[i * 2] = vector.getX();
+            result[i * 2 + 1] = vector.getY();
+        }
+        return result;
+    }
+
+    // Индексы атрибута полигона; пустой список или null - атрибута у полигона нет
+    static List<Integer> attribute(List<Integer> indices, int vertexCount, int polygonIndex) {
+        if (indices == null || indices.isEmpty()) {
+            return null;
+        }
+        if (indices.size() != vertexCount) {
+            throw new IllegalArgumentException("Polygon " + polygonIndex + " has " + indices.size()
+                    + " attribute indices for " + vertexCount + " vertices");
+        }
+        return indices;
+    }
+
+    // Смещения полигонов в плоском массиве углов: polygonCount + 1 значений, начиная с 0
+    static int[] polygonOffsets(List<Polygon> polygons) {
+        int[] offsets = new int[polygons.size() + 1];
+        for (int i = 0; i < polygons.size(); i++) {
+            Polygon polygon = polygons.get(i);
+            if (polygon == null || polygon.getVertexIndices() == null) {
+                throw new IllegalArgumentException("Model contains null elements");
+            }
+            int size = polygon.getVertexIndices().size();
+            if (size < 3) {
+                throw new IllegalArgumentException("Polygon " + i + " has fewer than 3 vertices");
+            }
+            offsets[i + 1] = offsets[i] + size;
+        }
+        return offsets;
+    }
+
+    // Индексы вершин всех полигонов подряд, с проверкой границ
+    static int[] vertexIndices(List<Polygon> polygons, int[] offsets, int vertexCount) {
+        int[] result = new int[offsets[polygons.size()]];
+        for (int i = 0; i < polygons.size(); i++) {
+            List<Integer> indices = polygons.get(i).getVertexIndices();
+            for (int corner = 0; corner < indices.size(); corner++) {
+                Integer index = indices.get(corner);
+                if (index == null) {
+                    throw new IllegalArgumentException("Model contains null elements");
+                }
+                result[offsets[i] + corner] = index;
+            }
+        }
+        checkVertexIndices(result, offsets, vertexCount);
+        return result;
+    }
+
+    static void checkVertexIndices(int[] vertexIndices, int[] offsets, int vertexCount) {
+        for (int polygon = 0; polygon < offsets.length - 1; polygon++) {
+            for (int i = offsets[polygon]; i < offsets[polygon + 1]; i++) {
+                if (vertexIndices[i] < 0 || vertexIndices[i] >= vertexCount) {
+                    throw new IllegalArgumentException("Polygon " + polygon + " references index " + vertexIndices[i]
+                            + " out of bounds for length " + vertexCount);
+                }
+            }
+        }
+    }
+
+    // Обработка элементов [0, count) диапазонами по chunkSize; при parallel диапазоны выполняются на пуле
+    // и должны писать в непересекающиеся части общих массивов
+    static void forEachRange(int count, boolean parallel, ForkJoinPool pool, int chunkSize, RangeAction action) {
+        if (!parallel || count <= chunkSize) {
+            action.run(0, count);
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int from = 0; from < count; from += chunkSize) {
+            final int start = from;
+            final int end = Math.min(count, from + chunkSize);
+            tasks.add(pool.submit(() -> action.run(start, end)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    interface RangeAction {
+        void run(int from, int to);
+    }
+}
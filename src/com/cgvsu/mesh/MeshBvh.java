@@ -0,0 +1,792 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.PackedPolygons;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+// Иерархия ограничивающих объемов над треугольниками модели (полигоны режутся Triangulator) для лучей,
+// поиска ближайшей точки и выборки полигонов в параллелепипеде за логарифмическое время.
+// Построение сверху вниз: центры треугольников раскладываются в 16 корзин вдоль оси с наибольшим разбросом
+// центров, и диапазон делится по лучшей границе корзин по SAH (сумма площадей детей, умноженных на число
+// треугольников в них). Поддерево диапазона из n треугольников
+// занимает не больше 2n - 1 узлов, поэтому место каждого поддерева известно до построения, и большие поддеревья
+// строятся параллельно в общие массивы. Затем узлы переписываются подряд в порядке обхода в глубину:
+// левый ребенок идет сразу за родителем, треугольники листа лежат подряд.
+// Дерево после построения не меняется, запросы можно выполнять из нескольких потоков.
+public class MeshBvh {
+    private static final int BIN_COUNT = 16;
+
+    // Узел: границы minX minY minZ maxX maxY maxZ; у листа - первый треугольник и их число,
+    // у внутреннего узла - номер правого ребенка и 0
+    private final float[] nodeBounds;
+    private final int[] nodeIndices;
+    private final int[] nodeCounts;
+
+    // Треугольники в порядке листьев: x0 y0 z0 x1 y1 z1 x2 y2 z2 и номер полигона
+    private final float[] triangles;
+    private final int[] trianglePolygons;
+
+    // Глубина дерева (у одного корня - 1), по ней выделяется стек обхода
+    private final int depth;
+
+    private MeshBvh(float[] nodeBounds, int[] nodeIndices, int[] nodeCounts, float[] triangles, int[] trianglePolygons,
+                    int depth) {
+        this.nodeBounds = nodeBounds;
+        this.nodeIndices = nodeIndices;
+        this.nodeCounts = nodeCounts;
+        this.triangles = triangles;
+        this.trianglePolygons = trianglePolygons;
+        this.depth = depth;
+    }
+
+    public static MeshBvh build(Model model) {
+        return build(model, new BvhOptions());
+    }
+
+    public static MeshBvh build(Model model, BvhOptions options) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        checkOptions(options);
+        int[] offsets = MeshArrays.polygonOffsets(model.getPolygons());
+        float[] vertices = MeshArrays.toArray3(model.getVertices());
+        int[] vertexIndices = MeshArrays.vertexIndices(model.getPolygons(), offsets, vertices.length / 3);
+        return build(vertices, offsets, vertexIndices, options);
+    }
+
+    public static MeshBvh build(PackedModel model) {
+        return build(model, new BvhOptions());
+    }
+
+    public static MeshBvh build(PackedModel model, BvhOptions options) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        checkOptions(options);
+        PackedPolygons polygons = model.getPolygons();
+        int[] offsets = polygons.toOffsetArray();
+        int[] vertexIndices = polygons.toVertexIndexArray();
+        float[] vertices = model.toVertexArray();
+        MeshArrays.checkVertexIndices(vertexIndices, offsets, vertices.length / 3);
+        return build(vertices, offsets, vertexIndices, options);
+    }
+
+    public int getTriangleCount() {
+        return trianglePolygons.length;
+    }
+
+    public int getNodeCount() {
+        return nodeCounts.length;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    // Ближайшее пересечение луча с моделью не дальше maxDistance (обе стороны треугольников), null - пересечения нет.
+    // Направление не обязано быть единичным, расстояние считается в обычных единицах
+    public BvhHit intersectRay(float originX, float originY, float originZ,
+                               float directionX, float directionY, float directionZ, float maxDistance) {
+        double length = Math.sqrt((double) directionX * directionX + (double) directionY * directionY
+                + (double) directionZ * directionZ);
+        if (!(length > 0) || Double.isInfinite(length)) {
+            throw new IllegalArgumentException("Ray direction must be non-zero and finite");
+        }
+        if (!(maxDistance >= 0)) {
+            throw new IllegalArgumentException("Max distance cannot be negative");
+        }
+        double dx = directionX / length;
+        double dy = directionY / length;
+        double dz = directionZ / length;
+        double inverseX = 1 / dx;
+        double inverseY = 1 / dy;
+        double inverseZ = 1 / dz;
+
+        double best = maxDistance;
+        int bestTriangle = -1;
+        int[] stack = new int[depth + 1];
+        int top = 0;
+        if (!isEmpty()) {
+            top = push(stack, top, 0, rayEntry(0, originX, originY, originZ, inverseX, inverseY, inverseZ, best), best);
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            if (nodeCounts[node] > 0) {
+                for (int triangle = nodeIndices[node]; triangle < nodeIndices[node] + nodeCounts[node]; triangle++) {
+                    double t = intersectTriangle(triangle, originX, originY, originZ, dx, dy, dz);
+                    if (t <= best && t != Double.POSITIVE_INFINITY
+                            && (t < best || bestTriangle < 0 || triangle < bestTriangle)) {
+                        best = t;
+                        bestTriangle = triangle;
+                    }
+                }
+                continue;
+            }
+            int left = node + 1;
+            int right = nodeIndices[node];
+            double leftEntry = rayEntry(left, originX, originY, originZ, inverseX, inverseY, inverseZ, best);
+            double rightEntry = rayEntry(right, originX, originY, originZ, inverseX, inverseY, inverseZ, best);
+            // Ближний ребенок кладется последним, чтобы быть обойденным первым
+            if (leftEntry <= rightEntry) {
+                top = push(stack, top, right, rightEntry, best);
+                top = push(stack, top, left, leftEntry, best);
+            } else {
+                top = push(stack, top, left, leftEntry, best);
+                top = push(stack, top, right, rightEntry, best);
+            }
+        }
+        if (bestTriangle < 0) {
+            return null;
+        }
+        return new BvhHit(trianglePolygons[bestTriangle], (float) best,
+                (float) (originX + dx * best), (float) (originY + dy * best), (float) (originZ + dz * best));
+    }
+
+    public BvhHit intersectRay(float originX, float originY, float originZ,
+                               float directionX, float directionY, float directionZ) {
+        return intersectRay(originX, originY, originZ, directionX, directionY, directionZ, Float.POSITIVE_INFINITY);
+    }
+
+    // Ближайшая к точке точка поверхности модели не дальше maxDistance, null - такой нет
+    public BvhHit findClosestPoint(float x, float y, float z, float maxDistance) {
+        if (!(maxDistance >= 0)) {
+            throw new IllegalArgumentException("Max distance cannot be negative");
+        }
+        double best = (double) maxDistance * maxDistance;
+        int bestTriangle = -1;
+        double[] point = new double[3];
+        double[] bestPoint = new double[3];
+        int[] stack = new int[depth + 1];
+        int top = 0;
+        if (!isEmpty() && boxDistanceSquared(0, x, y, z) <= best) {
+            stack[top++] = 0;
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            if (boxDistanceSquared(node, x, y, z) > best) {
+                continue;
+            }
+            if (nodeCounts[node] > 0) {
+                for (int triangle = nodeIndices[node]; triangle < nodeIndices[node] + nodeCounts[node]; triangle++) {
+                    closestPointOnTriangle(triangle, x, y, z, point);
+                    double distance = (point[0] - x) * (point[0] - x) + (point[1] - y) * (point[1] - y)
+                            + (point[2] - z) * (point[2] - z);
+                    if (distance <= best && (distance < best || bestTriangle < 0 || triangle < bestTriangle)) {
+                        best = distance;
+                        bestTriangle = triangle;
+                        System.arraycopy(point, 0, bestPoint, 0, 3);
+                    }
+                }
+                continue;
+            }
+            int left = node + 1;
+            int right = nodeIndices[node];
+            double leftDistance = boxDistanceSquared(left, x, y, z);
+            double rightDistance = boxDistanceSquared(right, x, y, z);
+            if (leftDistance <= rightDistance) {
+                top = push(stack, top, right, rightDistance, best);
+                top = push(stack, top, left, leftDistance, best);
+            } else {
+                top = push(stack, top, left, leftDistance, best);
+                top = push(stack, top, right, rightDistance, best);
+            }
+        }
+        if (bestTriangle < 0) {
+            return null;
+        }
+        return new BvhHit(trianglePolygons[bestTriangle], (float) Math.sqrt(best),
+                (float) bestPoint[0], (float) bestPoint[1], (float) bestPoint[2]);
+    }
+
+    public BvhHit findClosestPoint(float x, float y, float z) {
+        return findClosestPoint(x, y, z, Float.POSITIVE_INFINITY);
+    }
+
+    // Номера полигонов (по возрастанию, без повторов), у которых хотя бы один треугольник пересекает параллелепипед
+    public int[] findPolygonsInBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        if (!(minX <= maxX && minY <= maxY && minZ <= maxZ)) {
+            throw new IllegalArgumentException("Box minimum must not exceed maximum");
+        }
+        double centerX = ((double) minX + maxX) / 2;
+        double centerY = ((double) minY + maxY) / 2;
+        double centerZ = ((double) minZ + maxZ) / 2;
+        double halfX = ((double) maxX - minX) / 2;
+        double halfY = ((double) maxY - minY) / 2;
+        double halfZ = ((double) maxZ - minZ) / 2;
+
+        int[] result = new int[16];
+        int count = 0;
+        int[] stack = new int[depth + 1];
+        int top = 0;
+        if (!isEmpty()) {
+            stack[top++] = 0;
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            int bounds = node * 6;
+            if (nodeBounds[bounds] > maxX || nodeBounds[bounds + 1] > maxY || nodeBounds[bounds + 2] > maxZ
+                    || nodeBounds[bounds + 3] < minX || nodeBounds[bounds + 4] < minY || nodeBounds[bounds + 5] < minZ) {
+                continue;
+            }
+            if (nodeCounts[node] > 0) {
+                for (int triangle = nodeIndices[node]; triangle < nodeIndices[node] + nodeCounts[node]; triangle++) {
+                    if (triangleOverlapsBox(triangle, centerX, centerY, centerZ, halfX, halfY, halfZ)) {
+                        if (count == result.length) {
+                            result = Arrays.copyOf(result, count * 2);
+                        }
+                        result[count++] = trianglePolygons[triangle];
+                    }
+                }
+                continue;
+            }
+            stack[top++] = nodeIndices[node];
+            stack[top++] = node + 1;
+        }
+
+        Arrays.sort(result, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || result[unique - 1] != result[i]) {
+                result[unique++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, unique);
+    }
+
+    private boolean isEmpty() {
+        return trianglePolygons.length == 0;
+    }
+
+    // Узел кладется в стек, если до него не дальше лучшего найденного; бесконечность - узел не задет
+    private static int push(int[] stack, int top, int node, double key, double best) {
+        if (key <= best && key != Double.POSITIVE_INFINITY) {
+            stack[top++] = node;
+        }
+        return top;
+    }
+
+    // Расстояние до входа луча в границы узла; бесконечность - луч проходит мимо или входит дальше limit
+    private double rayEntry(int node, double originX, double originY, double originZ,
+                            double inverseX, double inverseY, double inverseZ, double limit) {
+        int bounds = node * 6;
+        double near = 0;
+        double far = limit;
+        double t1 = (nodeBounds[bounds] - originX) * inverseX;
+        double t2 = (nodeBounds[bounds + 3] - originX) * inverseX;
+        // NaN (0 * бесконечность) у луча, идущего вдоль грани границ, не сужает отрезок
+        near = Math.max(near, nanToMin(Math.min(t1, t2)));
+        far = Math.min(far, nanToMax(Math.max(t1, t2)));
+        t1 = (nodeBounds[bounds + 1] - originY) * inverseY;
+        t2 = (nodeBounds[bounds + 4] - originY) * inverseY;
+        near = Math.max(near, nanToMin(Math.min(t1, t2)));
+        far = Math.min(far, nanToMax(Math.max(t1, t2)));
+        t1 = (nodeBounds[bounds + 2] - originZ) * inverseZ;
+        t2 = (nodeBounds[bounds + 5] - originZ) * inverseZ;
+        near = Math.max(near, nanToMin(Math.min(t1, t2)));
+        far = Math.min(far, nanToMax(Math.max(t1, t2)));
+        return near <= far ? near : Double.POSITIVE_INFINITY;
+    }
+
+    private static double nanToMin(double value) {
+        return Double.isNaN(value) ? Double.NEGATIVE_INFINITY : value;
+    }
+
+    private static double nanToMax(double value) {
+        return Double.isNaN(value) ? Double.POSITIVE_INFINITY : value;
+    }
+
+    // Алгоритм Моллера - Трумбора; бесконечность - пересечения нет
+    private double intersectTriangle(int triangle, double originX, double originY, double originZ,
+                                     double dx, double dy, double dz) {
+        int t = triangle * 9;
+        double e1x = triangles[t + 3] - triangles[t];
+        double e1y = triangles[t + 4] - triangles[t + 1];
+        double e1z = triangles[t + 5] - triangles[t + 2];
+        double e2x = triangles[t + 6] - triangles[t];
+        double e2y = triangles[t + 7] - triangles[t + 1];
+        double e2z = triangles[t + 8] - triangles[t + 2];
+        double px = dy * e2z - dz * e2y;
+        double py = dz * e2x - dx * e2z;
+        double pz = dx * e2y - dy * e2x;
+        double determinant = e1x * px + e1y * py + e1z * pz;
+        if (determinant == 0 || Double.isNaN(determinant)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double inverse = 1 / determinant;
+        double sx = originX - triangles[t];
+        double sy = originY - triangles[t + 1];
+        double sz = originZ - triangles[t + 2];
+        double u = (sx * px + sy * py + sz * pz) * inverse;
+        if (u < 0 || u > 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double qx = sy * e1z - sz * e1y;
+        double qy = sz * e1x - sx * e1z;
+        double qz = sx * e1y - sy * e1x;
+        double v = (dx * qx + dy * qy + dz * qz) * inverse;
+        if (v < 0 || u + v > 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double distance = (e2x * qx + e2y * qy + e2z * qz) * inverse;
+        return distance >= 0 ? distance : Double.POSITIVE_INFINITY;
+    }
+
+    private double boxDistanceSquared(int node, double x, double y, double z) {
+        int bounds = node * 6;
+        double dx = Math.max(0, Math.max(nodeBounds[bounds] - x, x - nodeBounds[bounds + 3]));
+        double dy = Math.max(0, Math.max(nodeBounds[bounds + 1] - y, y - nodeBounds[bounds + 4]));
+        double dz = Math.max(0, Math.max(nodeBounds[bounds + 2] - z, z - nodeBounds[bounds + 5]));
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    // Ближайшая точка треугольника по областям Вороного его вершин, ребер и грани (Эриксон, Real-Time Collision Detection)
+    private void closestPointOnTriangle(int triangle, double x, double y, double z, double[] result) {
+        int t = triangle * 9;
+        double ax = triangles[t];
+        double ay = triangles[t + 1];
+        double az = triangles[t + 2];
+        double abx = triangles[t + 3] - ax;
+        double aby = triangles[t + 4] - ay;
+        double abz = triangles[t + 5] - az;
+        double acx = triangles[t + 6] - ax;
+        double acy = triangles[t + 7] - ay;
+        double acz = triangles[t + 8] - az;
+
+        double apx = x - ax;
+        double apy = y - ay;
+        double apz = z - az;
+        double d1 = abx * apx + aby * apy + abz * apz;
+        double d2 = acx * apx + acy * apy + acz * apz;
+        if (d1 <= 0 && d2 <= 0) {
+            setPoint(result, ax, ay, az, abx, aby, abz, acx, acy, acz, 0, 0);
+            return;
+        }
+        double bpx = apx - abx;
+        double bpy = apy - aby;
+        double bpz = apz - abz;
+        double d3 = abx * bpx + aby * bpy + abz * bpz;
+        double d4 = acx * bpx + acy * bpy + acz * bpz;
+        if (d3 >= 0 && d4 <= d3) {
+            setPoint(result, ax, ay, az, abx, aby, abz, acx, acy, acz, 1, 0);
+            return;
+        }
+        double vc = d1 * d4 - d3 * d2;
+        if (vc <= 0 && d1 >= 0 && d3 <= 0) {
+            setPoint(result, ax, ay, az, abx, aby, abz, acx, acy, acz, d1 / (d1 - d3), 0);
+            return;
+        }
+        double cpx = apx - acx;
+        double cpy = apy - acy;
+        double cpz = apz - acz;
+        double d5 = abx * cpx + aby * cpy + abz * cpz;
+        double d6 = acx * cpx + acy * cpy + acz * cpz;
+        if (d6 >= 0 && d5 <= d6) {
+            setPoint(result, ax, ay, az, abx, aby, abz, acx, acy, acz, 0, 1);
+            return;
+        }
+        double vb = d5 * d2 - d1 * d6;
+        if (vb <= 0 && d2 >= 0 && d6 <= 0) {
+            setPoint(result, ax, ay, az, abx, aby, abz, acx, acy, acz, 0, d2 / (d2 - d6));
+            return;
+        }
+        double va = d3 * d6 - d5 * d4;
+        if (va <= 0 && d4 - d3 >= 0 && d5 - d6 >= 0) {
+            double w = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+            setPoint(result, ax, ay, az, abx, aby, abz, acx, acy, acz, 1 - w, w);
+            return;
+        }
+        double denominator = va + vb + vc;
+        if (!(denominator != 0) || Double.isInfinite(denominator)) {
+            // Вырожденный треугольник: попали сюда только из-за погрешности, берется вершина a
+            setPoint(result, ax, ay, az, abx, aby, abz, acx, acy, acz, 0, 0);
+            return;
+        }
+        setPoint(result, ax, ay, az, abx, aby, abz, acx, acy, acz, vb / denominator, vc / denominator);
+    }
+
+    private static void setPoint(double[] result, double ax, double ay, double az, double abx, double aby, double abz,
+                                 double acx, double acy, double acz, double v, double w) {
+        result[0] = ax + abx * v + acx * w;
+        result[1] = ay + aby * v + acy * w;
+        result[2] = az + abz * v + acz * w;
+    }
+
+    // Теорема о разделяющей оси: оси граней параллелепипеда, нормаль треугольника и 9 произведений ребер на оси
+    private boolean triangleOverlapsBox(int triangle, double centerX, double centerY, double centerZ,
+                                        double halfX, double halfY, double halfZ) {
+        int t = triangle * 9;
+        double[] v = new double[9];
+        for (int i = 0; i < 3; i++) {
+            v[i * 3] = triangles[t + i * 3] - centerX;
+            v[i * 3 + 1] = triangles[t + i * 3 + 1] - centerY;
+            v[i * 3 + 2] = triangles[t + i * 3 + 2] - centerZ;
+        }
+        double[] half = {halfX, halfY, halfZ};
+        for (int axis = 0; axis < 3; axis++) {
+            double min = Math.min(v[axis], Math.min(v[3 + axis], v[6 + axis]));
+            double max = Math.max(v[axis], Math.max(v[3 + axis], v[6 + axis]));
+            if (min > half[axis] || max < -half[axis]) {
+                return false;
+            }
+        }
+        for (int edge = 0; edge < 3; edge++) {
+            int from = edge * 3;
+            int to = ((edge + 1) % 3) * 3;
+            double ex = v[to] - v[from];
+            double ey = v[to + 1] - v[from + 1];
+            double ez = v[to + 2] - v[from + 2];
+            // Произведения ребра на единичные оси x, y, z
+            if (separates(0, -ez, ey, v, half) || separates(ez, 0, -ex, v, half) || separates(-ey, ex, 0, v, half)) {
+                return false;
+            }
+        }
+        double e1x = v[3] - v[0];
+        double e1y = v[4] - v[1];
+        double e1z = v[5] - v[2];
+        double e2x = v[6] - v[0];
+        double e2y = v[7] - v[1];
+        double e2z = v[8] - v[2];
+        return !separates(e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x, v, half);
+    }
+
+    private static boolean separates(double ax, double ay, double az, double[] v, double[] half) {
+        double p0 = ax * v[0] + ay * v[1] + az * v[2];
+        double p1 = ax * v[3] + ay * v[4] + az * v[5];
+        double p2 = ax * v[6] + ay * v[7] + az * v[8];
+        double radius = half[0] * Math.abs(ax) + half[1] * Math.abs(ay) + half[2] * Math.abs(az);
+        return Math.min(p0, Math.min(p1, p2)) > radius || Math.max(p0, Math.max(p1, p2)) < -radius;
+    }
+
+    private static void checkOptions(BvhOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("Options cannot be null");
+        }
+    }
+
+    private static MeshBvh build(float[] vertices, int[] offsets, int[] vertexIndices, BvhOptions options) {
+        TriangulationOptions triangulationOptions = new TriangulationOptions();
+        triangulationOptions.setParallel(options.isParallel());
+        triangulationOptions.setPool(options.getPool());
+        int[] corners = Triangulator.triangulateCorners(vertices, offsets, vertexIndices, triangulationOptions);
+        int triangleCount = corners.length / 3;
+        int[] polygons = new int[triangleCount];
+        for (int polygon = 0; polygon < offsets.length - 1; polygon++) {
+            Arrays.fill(polygons, offsets[polygon] - 2 * polygon, offsets[polygon + 1] - 2 * (polygon + 1), polygon);
+        }
+
+        Builder builder = new Builder(triangleCount, options);
+        MeshArrays.forEachRange(triangleCount, options.isParallel(), options.getPool(), options.getChunkSize(),
+                (from, to) -> builder.prepare(vertices, vertexIndices, corners, from, to));
+        if (triangleCount > 0) {
+            if (options.isParallel() && triangleCount > options.getChunkSize()) {
+                options.getPool().invoke(builder.new Split(0, 0, triangleCount));
+            } else {
+                builder.split(0, 0, triangleCount);
+            }
+        }
+        return builder.compact(vertices, vertexIndices, corners, polygons);
+    }
+
+    // Построение в массивы на 2n - 1 узлов: поддерево диапазона [from, to) начинается с узла node,
+    // левое поддерево - с node + 1, правое - сразу после места, отведенного левому
+    private static class Builder {
+        private final int maxLeafSize;
+        private final int chunkSize;
+
+        // Границы и центры треугольников и их номера; при разбиении переставляются вместе,
+        // чтобы проходы по диапазону читали память подряд
+        private final float[] triangleBounds;
+        private final float[] centroids;
+        private final int[] order;
+
+        private final float[] nodeBounds;
+        private final int[] nodeIndices;
+        private final int[] nodeCounts;
+        private final boolean[] used;
+
+        private Builder(int triangleCount, BvhOptions options) {
+            this.maxLeafSize = options.getMaxLeafSize();
+            this.chunkSize = options.getChunkSize();
+            this.triangleBounds = new float[triangleCount * 6];
+            this.centroids = new float[triangleCount * 3];
+            this.order = new int[triangleCount];
+            int nodeCapacity = Math.max(triangleCount * 2 - 1, 0);
+            this.nodeBounds = new float[nodeCapacity * 6];
+            this.nodeIndices = new int[nodeCapacity];
+            this.nodeCounts = new int[nodeCapacity];
+            this.used = new boolean[nodeCapacity];
+        }
+
+        private void prepare(float[] vertices, int[] vertexIndices, int[] corners, int from, int to) {
+            for (int triangle = from; triangle < to; triangle++) {
+                order[triangle] = triangle;
+                for (int axis = 0; axis < 3; axis++) {
+                    float a = vertices[vertexIndices[corners[triangle * 3]] * 3 + axis];
+                    float b = vertices[vertexIndices[corners[triangle * 3 + 1]] * 3 + axis];
+                    float c = vertices[vertexIndices[corners[triangle * 3 + 2]] * 3 + axis];
+                    float min = min(a, min(b, c));
+                    float max = max(a, max(b, c));
+                    triangleBounds[triangle * 6 + axis] = min;
+                    triangleBounds[triangle * 6 + 3 + axis] = max;
+                    centroids[triangle * 3 + axis] = (min + max) / 2;
+                }
+            }
+        }
+
+        // Узел для диапазона; возвращает середину разбиения или -1, если узел стал листом
+        private int node(int node, int from, int to) {
+            float[] centroidBounds = new float[6];
+            Arrays.fill(nodeBounds, node * 6, node * 6 + 3, Float.POSITIVE_INFINITY);
+            Arrays.fill(nodeBounds, node * 6 + 3, node * 6 + 6, Float.NEGATIVE_INFINITY);
+            Arrays.fill(centroidBounds, 0, 3, Float.POSITIVE_INFINITY);
+            Arrays.fill(centroidBounds, 3, 6, Float.NEGATIVE_INFINITY);
+            for (int i = from; i < to; i++) {
+                for (int axis = 0; axis < 3; axis++) {
+                    nodeBounds[node * 6 + axis] = min(nodeBounds[node * 6 + axis], triangleBounds[i * 6 + axis]);
+                    nodeBounds[node * 6 + 3 + axis] = max(nodeBounds[node * 6 + 3 + axis], triangleBounds[i * 6 + 3 + axis]);
+                    centroidBounds[axis] = min(centroidBounds[axis], centroids[i * 3 + axis]);
+                    centroidBounds[3 + axis] = max(centroidBounds[3 + axis], centroids[i * 3 + axis]);
+                }
+            }
+            used[node] = true;
+
+            int count = to - from;
+            int mid = count > 1 ? findSplit(node, from, to, centroidBounds) : -1;
+            if (mid < 0) {
+                nodeIndices[node] = from;
+                nodeCounts[node] = count;
+                return -1;
+            }
+            nodeIndices[node] = node + 2 * (mid - from);
+            nodeCounts[node] = 0;
+            return mid;
+        }
+
+        // Лучшее по SAH разбиение по корзинам вдоль оси с наибольшим разбросом центров; -1 - выгоднее лист
+        private int findSplit(int node, int from, int to, float[] centroidBounds) {
+            int count = to - from;
+            int bestAxis = 0;
+            for (int axis = 1; axis < 3; axis++) {
+                if (centroidBounds[3 + axis] - centroidBounds[axis] > centroidBounds[3 + bestAxis] - centroidBounds[bestAxis]) {
+                    bestAxis = axis;
+                }
+            }
+            float min = centroidBounds[bestAxis];
+            float extent = centroidBounds[3 + bestAxis] - min;
+            if (!(extent > 0)) {
+                // Центры совпадают, корзины их не разделят
+                return count > maxLeafSize ? (from + to) >>> 1 : -1;
+            }
+
+            // Корзин больше, чем треугольников, не нужно: у мелких узлов иначе преобладает перебор пустых корзин
+            int bins = Math.min(BIN_COUNT, count);
+            int[] binCounts = new int[bins];
+            float[] binBounds = new float[bins * 6];
+            for (int bin = 0; bin < bins; bin++) {
+                resetBox(binBounds, bin);
+            }
+            for (int i = from; i < to; i++) {
+                int bin = bin(centroids[i * 3 + bestAxis], min, extent, bins);
+                binCounts[bin]++;
+                for (int k = 0; k < 3; k++) {
+                    binBounds[bin * 6 + k] = min(binBounds[bin * 6 + k], triangleBounds[i * 6 + k]);
+                    binBounds[bin * 6 + 3 + k] = max(binBounds[bin * 6 + 3 + k], triangleBounds[i * 6 + 3 + k]);
+                }
+            }
+
+            float[] rightAreas = new float[bins];
+            float[] box = new float[6];
+            resetBox(box, 0);
+            for (int bin = bins - 1; bin > 0; bin--) {
+                extend(box, binBounds, bin);
+                rightAreas[bin] = area(box);
+            }
+            resetBox(box, 0);
+            double bestCost = Double.POSITIVE_INFINITY;
+            int bestBin = -1;
+            int leftCount = 0;
+            for (int bin = 0; bin < bins - 1; bin++) {
+                extend(box, binBounds, bin);
+                leftCount += binCounts[bin];
+                if (leftCount == 0 || leftCount == count) {
+                    continue;
+                }
+                double cost = (double) area(box) * leftCount + (double) rightAreas[bin + 1] * (count - leftCount);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestBin = bin;
+                }
+            }
+            if (bestBin < 0) {
+                return count > maxLeafSize ? (from + to) >>> 1 : -1;
+            }
+            // Стоимость листа - число треугольников, разбиения - обход узла плюс треугольники детей с долей площади
+            double nodeArea = area(Arrays.copyOfRange(nodeBounds, node * 6, node * 6 + 6));
+            if (count <= maxLeafSize && (nodeArea > 0 ? 1 + bestCost / nodeArea : count) >= count) {
+                return -1;
+            }
+
+            int left = from;
+            int right = to - 1;
+            while (left <= right) {
+                if (bin(centroids[left * 3 + bestAxis], min, extent, bins) <= bestBin) {
+                    left++;
+                } else {
+                    swap(left, right--);
+                }
+            }
+            return left;
+        }
+
+        private void swap(int a, int b) {
+            int triangle = order[a];
+            order[a] = order[b];
+            order[b] = triangle;
+            for (int k = 0; k < 6; k++) {
+                float bound = triangleBounds[a * 6 + k];
+                triangleBounds[a * 6 + k] = triangleBounds[b * 6 + k];
+                triangleBounds[b * 6 + k] = bound;
+            }
+            for (int k = 0; k < 3; k++) {
+                float centroid = centroids[a * 3 + k];
+                centroids[a * 3 + k] = centroids[b * 3 + k];
+                centroids[b * 3 + k] = centroid;
+            }
+        }
+
+        private void split(int node, int from, int to) {
+            int mid = node(node, from, to);
+            if (mid >= 0) {
+                split(node + 1, from, mid);
+                split(node + 2 * (mid - from), mid, to);
+            }
+        }
+
+        // Сериализация задач пула не используется
+        @SuppressWarnings("serial")
+        private class Split extends RecursiveAction {
+            private final int node;
+            private final int from;
+            private final int to;
+
+            private Split(int node, int from, int to) {
+                this.node = node;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from <= chunkSize) {
+                    split(node, from, to);
+                    return;
+                }
+                int mid = node(node, from, to);
+                if (mid >= 0) {
+                    invokeAll(new Split(node + 1, from, mid), new Split(node + 2 * (mid - from), mid, to));
+                }
+            }
+        }
+
+        // Узлы подряд в порядке обхода в глубину и треугольники в порядке листьев
+        private MeshBvh compact(float[] vertices, int[] vertexIndices, int[] corners, int[] polygons) {
+            int nodeCount = 0;
+            for (boolean value : used) {
+                if (value) {
+                    nodeCount++;
+                }
+            }
+            float[] resultBounds = new float[nodeCount * 6];
+            int[] resultIndices = new int[nodeCount];
+            int[] resultCounts = new int[nodeCount];
+            int[] newIndex = new int[used.length];
+
+            // Старые номера узлов в порядке обхода: левое поддерево всегда начинается с node + 1
+            int[] stack = new int[Math.max(nodeCount, 1)];
+            int[] depths = new int[stack.length];
+            int top = 0;
+            int next = 0;
+            int depth = 0;
+            if (nodeCount > 0) {
+                stack[top] = 0;
+                depths[top++] = 1;
+            }
+            while (top > 0) {
+                int node = stack[--top];
+                int nodeDepth = depths[top];
+                depth = Math.max(depth, nodeDepth);
+                newIndex[node] = next;
+                System.arraycopy(nodeBounds, node * 6, resultBounds, next * 6, 6);
+                resultIndices[next] = nodeIndices[node];
+                resultCounts[next] = nodeCounts[node];
+                next++;
+                if (nodeCounts[node] == 0) {
+                    stack[top] = nodeIndices[node];
+                    depths[top++] = nodeDepth + 1;
+                    stack[top] = node + 1;
+                    depths[top++] = nodeDepth + 1;
+                }
+            }
+            for (int i = 0; i < nodeCount; i++) {
+                if (resultCounts[i] == 0) {
+                    resultIndices[i] = newIndex[resultIndices[i]];
+                }
+            }
+
+            float[] triangles = new float[order.length * 9];
+            int[] trianglePolygons = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                int triangle = order[i];
+                for (int k = 0; k < 3; k++) {
+                    System.arraycopy(vertices, vertexIndices[corners[triangle * 3 + k]] * 3, triangles, i * 9 + k * 3, 3);
+                }
+                trianglePolygons[i] = polygons[triangle];
+            }
+            return new MeshBvh(resultBounds, resultIndices, resultCounts, triangles, trianglePolygons, depth);
+        }
+
+        // Math.min/max для float учитывают NaN и -0.0 и заметно медленнее простого сравнения в горячих циклах
+        private static float min(float a, float b) {
+            return a < b ? a : b;
+        }
+
+        private static float max(float a, float b) {
+            return a > b ? a : b;
+        }
+
+        private static int bin(float centroid, float min, float extent, int bins) {
+            int bin = (int) ((centroid - min) / extent * bins);
+            return Math.min(Math.max(bin, 0), bins - 1);
+        }
+
+        private static void resetBox(float[] boxes, int index) {
+            boxes[index * 6] = Float.POSITIVE_INFINITY;
+            boxes[index * 6 + 1] = Float.POSITIVE_INFINITY;
+            boxes[index * 6 + 2] = Float.POSITIVE_INFINITY;
+            boxes[index * 6 + 3] = Float.NEGATIVE_INFINITY;
+            boxes[index * 6 + 4] = Float.NEGATIVE_INFINITY;
+            boxes[index * 6 + 5] = Float.NEGATIVE_INFINITY;
+        }
+
+        private static void extend(float[] box, float[] bounds, int index) {
+            for (int k = 0; k < 3; k++) {
+                box[k] = min(box[k], bounds[index * 6 + k]);
+                box[3 + k] = max(box[3 + k], bounds[index * 6 + 3 + k]);
+            }
+        }
+
+        // Половина площади поверхности; у пустых границ - 0
+        private static float area(float[] box) {
+            float dx = box[3] - box[0];
+            float dy = box[4] - box[1];
+            float dz = box[5] - box[2];
+            if (!(dx >= 0 && dy >= 0 && dz >= 0)) {
+                return 0;
+            }
+            return dx * dy + dy * dz + dz * dx;
+        }
+    }
+}
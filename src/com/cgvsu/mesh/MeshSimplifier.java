@@ -0,0 +1,746 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Упрощение сетки стягиванием ребер по квадратичной метрике ошибки (Garland, Heckbert).
+// Вершина стягивается в одного из соседей (половинное стягивание ребра), поэтому координаты вершин не
+// пересчитываются, а индексы vt/vn углов переходят к соседу: угол с атрибутами a получает атрибуты,
+// которые сосед имеет в треугольнике при стягиваемом ребре с тем же a. Если такое соответствие неоднозначно
+// или неполно, ребро не стягивается - так швы текстурных координат и нормалей, а также границы сетки
+// остаются на месте. Вершины хранятся в двоичной куче по стоимости лучшего стягивания; после стягивания
+// пересчитываются только соседи, а устаревшая стоимость перепроверяется при извлечении из кучи.
+public class MeshSimplifier {
+    // Вес плоскостей, удерживающих границы и швы
+    private static final double BORDER_WEIGHT = 10;
+    // Наименьший косинус угла между нормалями треугольника до и после стягивания
+    private static final double MIN_NORMAL_COSINE = 0.2;
+
+    // Новая модель из треугольников; исходная модель не меняется, векторы не копируются
+    public static Model simplify(Model model) {
+        return simplify(model, new SimplifyOptions());
+    }
+
+    public static Model simplify(Model model, SimplifyOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("Options cannot be null");
+        }
+        State state = new State(model);
+        state.run(options.getTargetFaceCount(), options.getMaxError());
+        return state.toModel();
+    }
+
+    // Цепочка уровней детализации: каждый следующий уровень продолжает упрощение предыдущего,
+    // число треугольников уровней не должно возрастать
+    public static List<Model> buildLods(Model model, int[] faceCounts) {
+        if (faceCounts == null) {
+            throw new IllegalArgumentException("Face counts cannot be null");
+        }
+        for (int i = 0; i < faceCounts.length; i++) {
+            if (faceCounts[i] < 0 || i > 0 && faceCounts[i] > faceCounts[i - 1]) {
+                throw new IllegalArgumentException("Face counts must be non-negative and non-increasing");
+            }
+        }
+        State state = new State(model);
+        List<Model> result = new ArrayList<Model>(faceCounts.length);
+        for (int faceCount : faceCounts) {
+            state.run(faceCount, Float.POSITIVE_INFINITY);
+            result.add(state.toModel());
+        }
+        return result;
+    }
+
+    // Цепочка уровней по допустимой ошибке, ошибки уровней не должны убывать
+    public static List<Model> buildLods(Model model, float[] maxErrors) {
+        if (maxErrors == null) {
+            throw new IllegalArgumentException("Max errors cannot be null");
+        }
+        for (int i = 0; i < maxErrors.length; i++) {
+            if (!(maxErrors[i] >= 0) || i > 0 && maxErrors[i] < maxErrors[i - 1]) {
+                throw new IllegalArgumentException("Max errors must be non-negative and non-decreasing");
+            }
+        }
+        State state = new State(model);
+        List<Model> result = new ArrayList<Model>(maxErrors.length);
+        for (float maxError : maxErrors) {
+            state.run(0, maxError);
+            result.add(state.toModel());
+        }
+        return result;
+    }
+
+    private static class State {
+        private final Model source;
+        private final int vertexCount;
+        private final double[] positions;
+        // Симметричные матрицы 4x4 по 10 элементов на вершину
+        private final double[] quadrics;
+
+        private final int[] triangleVertices;
+        private final int[] triangleTextures;
+        private final int[] triangleNormals;
+        private final boolean[] removed;
+        private int faceCount;
+
+        // Треугольники при вершине; удаленные вычищаются при обходе
+        private final int[][] vertexTriangles;
+        private final int[] vertexTriangleCounts;
+
+        // Куча вершин по стоимости стягивания
+        private final double[] costs;
+        private final int[] targets;
+        private final int[] heap;
+        private final int[] heapPositions;
+        private int heapSize;
+
+        // Рабочие массивы обхода соседей
+        private final int[] edgeCounts;
+        private final int[] marks;
+        private int stamp;
+        private int[] neighbors = new int[16];
+
+        State(Model model) {
+            if (model == null) {
+                throw new IllegalArgumentException("Model cannot be null");
+            }
+            source = model;
+            ArrayList<Polygon> polygons = model.getPolygons();
+            int[] offsets = MeshArrays.polygonOffsets(polygons);
+            float[] vertices = MeshArrays.toArray3(model.getVertices());
+            vertexCount = vertices.length / 3;
+            int[] vertexIndices = MeshArrays.vertexIndices(polygons, offsets, vertexCount);
+            // Швы определяются по значениям атрибутов: одинаковые vt/vn с разными индексами шва не образуют
+            int[] textureIndices = cornerAttributes(polygons, offsets, true,
+                    representatives(MeshArrays.toArray2(model.getTextureVertices()), 2));
+            int[] normalIndices = cornerAttributes(polygons, offsets, false,
+                    representatives(MeshArrays.toArray3(model.getNormals()), 3));
+            int[] corners = Triangulator.triangulateCorners(vertices, offsets, vertexIndices, new TriangulationOptions());
+
+            positions = new double[vertices.length];
+            for (int i = 0; i < vertices.length; i++) {
+                positions[i] = vertices[i];
+            }
+
+            // Треугольники с повторяющейся вершиной отбрасываются сразу
+            int triangleCount = corners.length / 3;
+            triangleVertices = new int[triangleCount * 3];
+            triangleTextures = new int[triangleCount * 3];
+            triangleNormals = new int[triangleCount * 3];
+            for (int i = 0; i < triangleCount; i++) {
+                int a = vertexIndices[corners[i * 3]];
+                int b = vertexIndices[corners[i * 3 + 1]];
+                int c = vertexIndices[corners[i * 3 + 2]];
+                if (a == b || b == c || a == c) {
+                    continue;
+                }
+                for (int corner = 0; corner < 3; corner++) {
+                    int index = corners[i * 3 + corner];
+                    triangleVertices[faceCount * 3 + corner] = vertexIndices[index];
+                    triangleTextures[faceCount * 3 + corner] = textureIndices[index];
+                    triangleNormals[faceCount * 3 + corner] = normalIndices[index];
+                }
+                faceCount++;
+            }
+            removed = new boolean[faceCount];
+
+            vertexTriangleCounts = new int[vertexCount];
+            for (int i = 0; i < faceCount * 3; i++) {
+                vertexTriangleCounts[triangleVertices[i]]++;
+            }
+            vertexTriangles = new int[vertexCount][];
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                vertexTriangles[vertex] = new int[vertexTriangleCounts[vertex]];
+                vertexTriangleCounts[vertex] = 0;
+            }
+            for (int i = 0; i < faceCount * 3; i++) {
+                int vertex = triangleVertices[i];
+                vertexTriangles[vertex][vertexTriangleCounts[vertex]++] = i / 3;
+            }
+
+            edgeCounts = new int[vertexCount];
+            marks = new int[vertexCount];
+            quadrics = new double[vertexCount * 10];
+            for (int triangle = 0; triangle < faceCount; triangle++) {
+                addTriangleQuadrics(triangle);
+            }
+
+            costs = new double[vertexCount];
+            targets = new int[vertexCount];
+            heap = new int[vertexCount];
+            heapPositions = new int[vertexCount];
+            Arrays.fill(heapPositions, -1);
+            for (int vertex = 0; vertex < vertexCount; vertex++) {
+                evaluate(vertex);
+            }
+        }
+
+        // Для каждого элемента - первый элемент с теми же координатами
+        private static int[] representatives(float[] coordinates, int dimension) {
+            int[] clusters = MeshWelder.cluster(coordinates, dimension, 0);
+            int[] first = new int[clusters.length];
+            Arrays.fill(first, -1);
+            for (int i = 0; i < clusters.length; i++) {
+                if (first[clusters[i]] < 0) {
+                    first[clusters[i]] = i;
+                }
+                clusters[i] = first[clusters[i]];
+            }
+            return clusters;
+        }
+
+        // Индексы атрибута по углам полигонов, переведенные на representatives; -1 - атрибута нет
+        private static int[] cornerAttributes(List<Polygon> polygons, int[] offsets, boolean texture,
+                                              int[] representatives) {
+            int count = representatives.length;
+            int[] result = new int[offsets[polygons.size()]];
+            for (int i = 0; i < polygons.size(); i++) {
+                Polygon polygon = polygons.get(i);
+                int size = offsets[i + 1] - offsets[i];
+                List<Integer> indices = MeshArrays.attribute(
+                        texture ? polygon.getTextureVertexIndices() : polygon.getNormalIndices(), size, i);
+                for (int corner = 0; corner < size; corner++) {
+                    int index = -1;
+                    if (indices != null) {
+                        Integer value = indices.get(corner);
+                        if (value == null) {
+                            throw new IllegalArgumentException("Model contains null elements");
+                        }
+                        if (value < 0 || value >= count) {
+                            throw new IllegalArgumentException("Polygon " + i + " references index " + value
+                                    + " out of bounds for length " + count);
+                        }
+                        index = representatives[value];
+                    }
+                    result[offsets[i] + corner] = index;
+                }
+            }
+            return result;
+        }
+
+        // Плоскость треугольника всем вершинам, плоскости вдоль граничных ребер и швов - вершинам ребра
+        private void addTriangleQuadrics(int triangle) {
+            int a = triangleVertices[triangle * 3];
+            int b = triangleVertices[triangle * 3 + 1];
+            int c = triangleVertices[triangle * 3 + 2];
+            double ux = positions[b * 3] - positions[a * 3];
+            double uy = positions[b * 3 + 1] - positions[a * 3 + 1];
+            double uz = positions[b * 3 + 2] - positions[a * 3 + 2];
+            double vx = positions[c * 3] - positions[a * 3];
+            double vy = positions[c * 3 + 1] - positions[a * 3 + 1];
+            double vz = positions[c * 3 + 2] - positions[a * 3 + 2];
+            double nx = uy * vz - uz * vy;
+            double ny = uz * vx - ux * vz;
+            double nz = ux * vy - uy * vx;
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length == 0) {
+                return;
+            }
+            nx /= length;
+            ny /= length;
+            nz /= length;
+            double d = -(nx * positions[a * 3] + ny * positions[a * 3 + 1] + nz * positions[a * 3 + 2]);
+            addPlane(a, nx, ny, nz, d, 1);
+            addPlane(b, nx, ny, nz, d, 1);
+            addPlane(c, nx, ny, nz, d, 1);
+
+            for (int edge = 0; edge < 3; edge++) {
+                int from = triangleVertices[triangle * 3 + edge];
+                int to = triangleVertices[triangle * 3 + (edge + 1) % 3];
+                if (!isConstrainedEdge(triangle, from, to)) {
+                    continue;
+                }
+                double ex = positions[to * 3] - positions[from * 3];
+                double ey = positions[to * 3 + 1] - positions[from * 3 + 1];
+                double ez = positions[to * 3 + 2] - positions[from * 3 + 2];
+                // Плоскость через ребро перпендикулярно треугольнику
+                double px = ey * nz - ez * ny;
+                double py = ez * nx - ex * nz;
+                double pz = ex * ny - ey * nx;
+                double planeLength = Math.sqrt(px * px + py * py + pz * pz);
+                if (planeLength == 0) {
+                    continue;
+                }
+                px /= planeLength;
+                py /= planeLength;
+                pz /= planeLength;
+                double pd = -(px * positions[from * 3] + py * positions[from * 3 + 1] + pz * positions[from * 3 + 2]);
+                addPlane(from, px, py, pz, pd, BORDER_WEIGHT);
+                addPlane(to, px, py, pz, pd, BORDER_WEIGHT);
+            }
+        }
+
+        // Ребро на границе сетки или на шве: у соседнего треугольника другие атрибуты в концах ребра
+        private boolean isConstrainedEdge(int triangle, int from, int to) {
+            int other = -1;
+            int[] triangles = vertexTriangles[from];
+            for (int i = 0; i < vertexTriangleCounts[from]; i++) {
+                int candidate = triangles[i];
+                if (candidate != triangle && corner(candidate, to) >= 0) {
+                    if (other >= 0) {
+                        return false;
+                    }
+                    other = candidate;
+                }
+            }
+            if (other < 0) {
+                return true;
+            }
+            return !sameAttributes(triangle * 3 + corner(triangle, from), other * 3 + corner(other, from))
+                    || !sameAttributes(triangle * 3 + corner(triangle, to), other * 3 + corner(other, to));
+        }
+
+        private void addPlane(int vertex, double a, double b, double c, double d, double weight) {
+            int q = vertex * 10;
+            quadrics[q] += weight * a * a;
+            quadrics[q + 1] += weight * a * b;
+            quadrics[q + 2] += weight * a * c;
+            quadrics[q + 3] += weight * a * d;
+            quadrics[q + 4] += weight * b * b;
+            quadrics[q + 5] += weight * b * c;
+            quadrics[q + 6] += weight * b * d;
+            quadrics[q + 7] += weight * c * c;
+            quadrics[q + 8] += weight * c * d;
+            quadrics[q + 9] += weight * d * d;
+        }
+
+        // Ошибка суммы квадрик вершин u и v в точке v
+        private double error(int u, int v) {
+            double x = positions[v * 3];
+            double y = positions[v * 3 + 1];
+            double z = positions[v * 3 + 2];
+            int p = u * 10;
+            int q = v * 10;
+            double result = (quadrics[p] + quadrics[q]) * x * x
+                    + 2 * (quadrics[p + 1] + quadrics[q + 1]) * x * y
+                    + 2 * (quadrics[p + 2] + quadrics[q + 2]) * x * z
+                    + 2 * (quadrics[p + 3] + quadrics[q + 3]) * x
+                    + (quadrics[p + 4] + quadrics[q + 4]) * y * y
+                    + 2 * (quadrics[p + 5] + quadrics[q + 5]) * y * z
+                    + 2 * (quadrics[p + 6] + quadrics[q + 6]) * y
+                    + (quadrics[p + 7] + quadrics[q + 7]) * z * z
+                    + 2 * (quadrics[p + 8] + quadrics[q + 8]) * z
+                    + quadrics[p + 9] + quadrics[q + 9];
+            return result > 0 ? result : 0;
+        }
+
+        void run(int targetFaceCount, float maxError) {
+            double maxCost = (double) maxError * maxError;
+            while (faceCount > targetFaceCount && heapSize > 0) {
+                int vertex = heap[0];
+                double cost = costs[vertex];
+                if (cost > maxCost) {
+                    break;
+                }
+                // Стоимость могла устареть после стягиваний за пределами соседства
+                evaluate(vertex);
+                if (heapPositions[vertex] != 0 || costs[vertex] != cost) {
+                    continue;
+                }
+                collapse(vertex, targets[vertex]);
+            }
+        }
+
+        // Лучшее допустимое стягивание вершины; вершина без него убирается из кучи
+        private void evaluate(int u) {
+            int count = collectNeighbors(u);
+            boolean border = false;
+            for (int i = 0; i < count; i++) {
+                if (edgeCounts[neighbors[i]] == 1) {
+                    border = true;
+                }
+            }
+            double best = Double.POSITIVE_INFINITY;
+            int bestTarget = -1;
+            for (int i = 0; i < count; i++) {
+                int v = neighbors[i];
+                // Ошибка считается быстрее проверок, которые нужны только более дешевому стягиванию
+                double cost = error(u, v);
+                if (cost < best && isCollapseValid(u, v, border, edgeCounts[v])) {
+                    best = cost;
+                    bestTarget = v;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                edgeCounts[neighbors[i]] = 0;
+            }
+            if (bestTarget < 0) {
+                heapRemove(u);
+            } else {
+                targets[u] = bestTarget;
+                heapUpdate(u, best);
+            }
+        }
+
+        // Соседи вершины в neighbors, число треугольников при ребре к соседу в edgeCounts, соседи помечены в marks
+        private int collectNeighbors(int u) {
+            int[] triangles = vertexTriangles[u];
+            int live = 0;
+            int count = 0;
+            stamp++;
+            for (int i = 0; i < vertexTriangleCounts[u]; i++) {
+                int triangle = triangles[i];
+                if (removed[triangle]) {
+                    continue;
+                }
+                triangles[live++] = triangle;
+                for (int corner = 0; corner < 3; corner++) {
+                    int w = triangleVertices[triangle * 3 + corner];
+                    if (w == u) {
+                        continue;
+                    }
+                    if (marks[w] != stamp) {
+                        marks[w] = stamp;
+                        if (count == neighbors.length) {
+                            neighbors = Arrays.copyOf(neighbors, count * 2);
+                        }
+                        neighbors[count++] = w;
+                    }
+                    edgeCounts[w]++;
+                }
+            }
+            vertexTriangleCounts[u] = live;
+            return count;
+        }
+
+        private boolean isCollapseValid(int u, int v, boolean border, int edgeTriangles) {
+            // Граничная вершина движется только вдоль границы, неманифолдные ребра не стягиваются
+            if (edgeTriangles > 2 || border && edgeTriangles != 1) {
+                return false;
+            }
+            int[] triangles = vertexTriangles[u];
+            int first = -1;
+            int second = -1;
+            for (int i = 0; i < vertexTriangleCounts[u]; i++) {
+                int triangle = triangles[i];
+                if (corner(triangle, v) >= 0) {
+                    if (first < 0) {
+                        first = triangle;
+                    } else {
+                        second = triangle;
+                    }
+                }
+            }
+            if (!mapsAttributes(u, v, first, second) || !isLinkValid(u, v, edgeTriangles)) {
+                return false;
+            }
+            for (int i = 0; i < vertexTriangleCounts[u]; i++) {
+                int triangle = triangles[i];
+                if (triangle != first && triangle != second && flips(triangle, u, v)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Атрибуты каждого угла вершины u однозначно переходят к v по треугольникам при ребре
+        private boolean mapsAttributes(int u, int v, int first, int second) {
+            int firstFrom = first * 3 + corner(first, u);
+            int firstTo = first * 3 + corner(first, v);
+            int secondFrom = -1;
+            if (second >= 0) {
+                secondFrom = second * 3 + corner(second, u);
+                int secondTo = second * 3 + corner(second, v);
+                if (sameAttributes(firstFrom, secondFrom) && !sameAttributes(firstTo, secondTo)) {
+                    return false;
+                }
+            }
+            int[] triangles = vertexTriangles[u];
+            for (int i = 0; i < vertexTriangleCounts[u]; i++) {
+                int triangle = triangles[i];
+                int from = triangle * 3 + corner(triangle, u);
+                if (!sameAttributes(from, firstFrom) && (secondFrom < 0 || !sameAttributes(from, secondFrom))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Общие соседи концов ребра - только третьи вершины треугольников при ребре, иначе сетка склеится
+        private boolean isLinkValid(int u, int v, int edgeTriangles) {
+            int[] triangles = vertexTriangles[v];
+            int common = 0;
+            for (int i = 0; i < vertexTriangleCounts[v]; i++) {
+                int triangle = triangles[i];
+                if (removed[triangle]) {
+                    continue;
+                }
+                for (int corner = 0; corner < 3; corner++) {
+                    int w = triangleVertices[triangle * 3 + corner];
+                    // Соседи u помечены текущим stamp; посчитанный общий сосед помечается -stamp
+                    if (w != u && w != v && marks[w] == stamp) {
+                        marks[w] = -stamp;
+                        common++;
+                    }
+                }
+            }
+            for (int i = 0; i < vertexTriangleCounts[v]; i++) {
+                int triangle = triangles[i];
+                for (int corner = 0; corner < 3; corner++) {
+                    int w = triangleVertices[triangle * 3 + corner];
+                    if (marks[w] == -stamp) {
+                        marks[w] = stamp;
+                    }
+                }
+            }
+            return common == edgeTriangles;
+        }
+
+        // Треугольник вырождается или переворачивается при переносе вершины u в v
+        private boolean flips(int triangle, int u, int v) {
+            int base = triangle * 3;
+            int uCorner = corner(triangle, u);
+            int b = triangleVertices[base + (uCorner + 1) % 3];
+            int c = triangleVertices[base + (uCorner + 2) % 3];
+            double bx = positions[b * 3];
+            double by = positions[b * 3 + 1];
+            double bz = positions[b * 3 + 2];
+            double ex = positions[c * 3] - bx;
+            double ey = positions[c * 3 + 1] - by;
+            double ez = positions[c * 3 + 2] - bz;
+
+            double ox = positions[u * 3] - bx;
+            double oy = positions[u * 3 + 1] - by;
+            double oz = positions[u * 3 + 2] - bz;
+            double nx = ey * oz - ez * oy;
+            double ny = ez * ox - ex * oz;
+            double nz = ex * oy - ey * ox;
+
+            double px = positions[v * 3] - bx;
+            double py = positions[v * 3 + 1] - by;
+            double pz = positions[v * 3 + 2] - bz;
+            double mx = ey * pz - ez * py;
+            double my = ez * px - ex * pz;
+            double mz = ex * py - ey * px;
+
+            double newLength = mx * mx + my * my + mz * mz;
+            if (newLength == 0) {
+                return true;
+            }
+            double dot = nx * mx + ny * my + nz * mz;
+            double oldLength = nx * nx + ny * ny + nz * nz;
+            return dot <= MIN_NORMAL_COSINE * Math.sqrt(oldLength * newLength);
+        }
+
+        private void collapse(int u, int v) {
+            int[] triangles = vertexTriangles[u];
+            int first = -1;
+            int second = -1;
+            for (int i = 0; i < vertexTriangleCounts[u]; i++) {
+                int triangle = triangles[i];
+                if (corner(triangle, v) >= 0) {
+                    if (first < 0) {
+                        first = triangle;
+                    } else {
+                        second = triangle;
+                    }
+                }
+            }
+            int firstFrom = first * 3 + corner(first, u);
+            int firstTo = first * 3 + corner(first, v);
+            int secondFrom = second < 0 ? -1 : second * 3 + corner(second, u);
+            int secondTo = second < 0 ? -1 : second * 3 + corner(second, v);
+
+            for (int i = 0; i < vertexTriangleCounts[u]; i++) {
+                int triangle = triangles[i];
+                if (triangle == first || triangle == second) {
+                    continue;
+                }
+                int from = triangle * 3 + corner(triangle, u);
+                int to = sameAttributes(from, firstFrom) ? firstTo : secondTo;
+                triangleVertices[from] = v;
+                triangleTextures[from] = triangleTextures[to];
+                triangleNormals[from] = triangleNormals[to];
+                addVertexTriangle(v, triangle);
+            }
+            removed[first] = true;
+            faceCount--;
+            if (second >= 0) {
+                removed[second] = true;
+                faceCount--;
+            }
+            vertexTriangleCounts[u] = 0;
+            heapRemove(u);
+            for (int i = 0; i < 10; i++) {
+                quadrics[v * 10 + i] += quadrics[u * 10 + i];
+            }
+
+            int count = collectNeighbors(v);
+            for (int i = 0; i < count; i++) {
+                edgeCounts[neighbors[i]] = 0;
+            }
+            int[] ring = Arrays.copyOf(neighbors, count);
+            evaluate(v);
+            for (int w : ring) {
+                evaluate(w);
+            }
+        }
+
+        private void addVertexTriangle(int vertex, int triangle) {
+            int count = vertexTriangleCounts[vertex];
+            if (count == vertexTriangles[vertex].length) {
+                vertexTriangles[vertex] = Arrays.copyOf(vertexTriangles[vertex], Math.max(4, count * 2));
+            }
+            vertexTriangles[vertex][count] = triangle;
+            vertexTriangleCounts[vertex] = count + 1;
+        }
+
+        private int corner(int triangle, int vertex) {
+            int base = triangle * 3;
+            if (triangleVertices[base] == vertex) {
+                return 0;
+            }
+            if (triangleVertices[base + 1] == vertex) {
+                return 1;
+            }
+            return triangleVertices[base + 2] == vertex ? 2 : -1;
+        }
+
+        private boolean sameAttributes(int first, int second) {
+            return triangleTextures[first] == triangleTextures[second] && triangleNormals[first] == triangleNormals[second];
+        }
+
+        private void heapUpdate(int vertex, double cost) {
+            costs[vertex] = cost;
+            int position = heapPositions[vertex];
+            if (position < 0) {
+                position = heapSize++;
+                heap[position] = vertex;
+                heapPositions[vertex] = position;
+            }
+            siftDown(siftUp(position));
+        }
+
+        private void heapRemove(int vertex) {
+            int position = heapPositions[vertex];
+            if (position < 0) {
+                return;
+            }
+            heapPositions[vertex] = -1;
+            heapSize--;
+            if (position == heapSize) {
+                return;
+            }
+            int last = heap[heapSize];
+            heap[position] = last;
+            heapPositions[last] = position;
+            siftDown(siftUp(position));
+        }
+
+        private int siftUp(int position) {
+            int vertex = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) / 2;
+                if (!less(vertex, heap[parent])) {
+                    break;
+                }
+                heap[position] = heap[parent];
+                heapPositions[heap[position]] = position;
+                position = parent;
+            }
+            heap[position] = vertex;
+            heapPositions[vertex] = position;
+            return position;
+        }
+
+        private void siftDown(int position) {
+            int vertex = heap[position];
+            while (true) {
+                int child = position * 2 + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && less(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!less(heap[child], vertex)) {
+                    break;
+                }
+                heap[position] = heap[child];
+                heapPositions[heap[position]] = position;
+                position = child;
+            }
+            heap[position] = vertex;
+            heapPositions[vertex] = position;
+        }
+
+        // При равной стоимости раньше идет меньшая вершина, чтобы результат не зависел от истории кучи
+        private boolean less(int first, int second) {
+            return costs[first] < costs[second] || costs[first] == costs[second] && first < second;
+        }
+
+        // Оставшиеся треугольники и используемые ими элементы в исходном порядке
+        Model toModel() {
+            int[] vertexMapping = new int[vertexCount];
+            int[] textureMapping = new int[source.getTextureVertices().size()];
+            int[] normalMapping = new int[source.getNormals().size()];
+            for (int triangle = 0; triangle < removed.length; triangle++) {
+                if (removed[triangle]) {
+                    continue;
+                }
+                for (int i = triangle * 3; i < triangle * 3 + 3; i++) {
+                    vertexMapping[triangleVertices[i]] = 1;
+                    if (triangleTextures[i] >= 0) {
+                        textureMapping[triangleTextures[i]] = 1;
+                    }
+                    if (triangleNormals[i] >= 0) {
+                        normalMapping[triangleNormals[i]] = 1;
+                    }
+                }
+            }
+
+            Model result = new Model();
+            result.setVertices(keep(source.getVertices(), vertexMapping));
+            result.setTextureVertices(keep(source.getTextureVertices(), textureMapping));
+            result.setNormals(keep(source.getNormals(), normalMapping));
+            ArrayList<Polygon> polygons = new ArrayList<Polygon>(faceCount);
+            for (int triangle = 0; triangle < removed.length; triangle++) {
+                if (removed[triangle]) {
+                    continue;
+                }
+                Polygon polygon = new Polygon();
+                polygon.setVertexIndices(remap(triangleVertices, triangle, vertexMapping));
+                ArrayList<Integer> textureIndices = remap(triangleTextures, triangle, textureMapping);
+                if (textureIndices != null) {
+                    polygon.setTextureVertexIndices(textureIndices);
+                }
+                ArrayList<Integer> normalIndices = remap(triangleNormals, triangle, normalMapping);
+                if (normalIndices != null) {
+                    polygon.setNormalIndices(normalIndices);
+                }
+                polygons.add(polygon);
+            }
+            result.setPolygons(polygons);
+            return result;
+        }
+
+        // Оставляет элементы с отметкой 1 и записывает в mapping их новые номера
+        private static <T> ArrayList<T> keep(List<T> elements, int[] mapping) {
+            ArrayList<T> result = new ArrayList<T>();
+            for (int i = 0; i < mapping.length; i++) {
+                if (mapping[i] == 1) {
+                    mapping[i] = result.size();
+                    result.add(elements.get(i));
+                } else {
+                    mapping[i] = -1;
+                }
+            }
+            return result;
+        }
+
+        // Новые индексы углов треугольника; null, если атрибут есть не у всех углов
+        private static ArrayList<Integer> remap(int[] indices, int triangle, int[] mapping) {
+            ArrayList<Integer> result = new ArrayList<Integer>(3);
+            for (int i = triangle * 3; i < triangle * 3 + 3; i++) {
+                if (indices[i] < 0) {
+                    return null;
+                }
+                result.add(mapping[indices[i]]);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import com.cgvsu.spatial.SpatialHashGrid;
+import com.cgvsu.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Слияние одинаковых вершин, текстурных координат и нормалей модели.
+// Элементы перебираются по порядку: элемент, близкий (по каждой координате не дальше tolerance) к уже оставленному,
+// заменяется им, иначе остается сам. Оставленные элементы ищутся через SpatialHashGrid, поэтому проход линейный,
+// а результат не зависит от хешей Vector3f, которые с equals не согласованы.
+// Индексы полигонов переводятся на оставленные элементы, модель меняется на месте: списки и полигоны заменяются новыми.
+public class MeshWelder {
+    public static WeldResult weld(Model model) {
+        return weld(model, new WeldOptions());
+    }
+
+    public static WeldResult weld(Model model, WeldOptions options) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        if (options == null) {
+            throw new IllegalArgumentException("Options cannot be null");
+        }
+
+        WeldResult result = new WeldResult();
+        float tolerance = options.getTolerance();
+
+        // Модель меняется только после проверки всех полигонов
+        ArrayList<Vector3f> vertices = model.getVertices();
+        int[] vertexMapping = cluster(MeshArrays.toArray3(vertices), 3, tolerance);
+        ArrayList<Vector2f> textureVertices = model.getTextureVertices();
+        int[] textureVertexMapping = options.isWeldTextureVertices()
+                ? cluster(MeshArrays.toArray2(textureVertices), 2, tolerance) : identity(textureVertices.size());
+        ArrayList<Vector3f> normals = model.getNormals();
+        int[] normalMapping = options.isWeldNormals()
+                ? cluster(MeshArrays.toArray3(normals), 3, tolerance) : identity(normals.size());
+
+        ArrayList<Polygon> polygons = model.getPolygons();
+        ArrayList<Polygon> resultPolygons = new ArrayList<Polygon>(polygons.size());
+        for (int i = 0; i < polygons.size(); i++) {
+            Polygon polygon = polygons.get(i);
+            if (polygon == null) {
+                throw new IllegalArgumentException("Model contains null elements");
+            }
+            Polygon resultPolygon = remap(polygon, i, vertexMapping, textureVertexMapping, normalMapping,
+                    options.isRemoveDegenerateFaces(), result);
+            if (resultPolygon != null) {
+                resultPolygons.add(resultPolygon);
+            } else {
+                result.removedFaces++;
+            }
+        }
+
+        model.setVertices(keep(vertices, vertexMapping));
+        model.setTextureVertices(keep(textureVertices, textureVertexMapping));
+        model.setNormals(keep(normals, normalMapping));
+        model.setPolygons(resultPolygons);
+        result.mergedVertices = vertices.size() - model.getVertices().size();
+        result.mergedTextureVertices = textureVertices.size() - model.getTextureVertices().size();
+        result.mergedNormals = normals.size() - model.getNormals().size();
+        return result;
+    }
+
+    // Номер оставленного элемента для каждого исходного; оставленные нумеруются подряд в порядке появления
+    static int[] cluster(float[] coordinates, int dimension, float tolerance) {
+        for (float value : coordinates) {
+            if (!Float.isFinite(value)) {
+                throw new IllegalArgumentException("Model contains non-finite coordinate: " + value);
+            }
+        }
+        if (tolerance == 0) {
+            return clusterExact(coordinates, dimension);
+        }
+
+        int count = coordinates.length / dimension;
+        int[] mapping = new int[count];
+        SpatialHashGrid grid = new SpatialHashGrid(tolerance, count);
+        for (int i = 0; i < count; i++) {
+            float x = coordinates[i * dimension];
+            float y = coordinates[i * dimension + 1];
+            float z = dimension == 3 ? coordinates[i * 3 + 2] : 0;
+            int match = grid.findNearest(x, y, z, tolerance);
+            mapping[i] = match >= 0 ? match : grid.add(x, y, z);
+        }
+        return mapping;
+    }
+
+    // Нулевой допуск: ищутся только точные копии, ключ таблицы строится из битов координат.
+    // Элементы с одним ключом связаны в список через next; -0 и 0 считаются равными, как при сравнении ==
+    private static int[] clusterExact(float[] coordinates, int dimension) {
+        int count = coordinates.length / dimension;
+        int[] mapping = new int[count];
+        // Исходный номер оставленного элемента и следующий оставленный с тем же ключом
+        int[] kept = new int[count];
+        int[] next = new int[count];
+        int keptCount = 0;
+        LongIntHashMap heads = new LongIntHashMap(count);
+        for (int i = 0; i < count; i++) {
+            long key = exactKey(coordinates, i, dimension);
+            int head = heads.get(key, -1);
+            int match = head;
+            while (match >= 0 && !sameCoordinates(coordinates, kept[match], i, dimension)) {
+                match = next[match];
+            }
+            if (match < 0) {
+                match = keptCount++;
+                kept[match] = i;
+                next[match] = head;
+                heads.put(key, match);
+            }
+            mapping[i] = match;
+        }
+        return mapping;
+    }
+
+    private static long exactKey(float[] coordinates, int index, int dimension) {
+        // + 0.0f переводит -0 в 0
+        long x = Float.floatToIntBits(coordinates[index * dimension] + 0.0f) & 0xFFFFFFFFL;
+        long y = Float.floatToIntBits(coordinates[index * dimension + 1] + 0.0f);
+        long key = x | y << 32;
+        if (dimension == 3) {
+            key ^= Float.floatToIntBits(coordinates[index * 3 + 2] + 0.0f) * 0x9E3779B97F4A7C15L;
+        }
+        return key;
+    }
+
+    private static boolean sameCoordinates(float[] coordinates, int first, int second, int dimension) {
+        for (int axis = 0; axis < dimension; axis++) {
+            if (coordinates[first * dimension + axis] != coordinates[second * dimension + axis]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Новый полигон с индексами оставленных элементов; null - полигон выродился и должен быть удален
+    private static Polygon remap(Polygon polygon, int polygonIndex, int[] vertexMapping, int[] textureVertexMapping,
+                                 int[] normalMapping, boolean removeDegenerate, WeldResult statistics) {
+        List<Integer> vertexIndices = polygon.getVertexIndices();
+        List<Integer> textureVertexIndices = MeshArrays.attribute(polygon.getTextureVertexIndices(), vertexIndices.size(), polygonIndex);
+        List<Integer> normalIndices = MeshArrays.attribute(polygon.getNormalIndices(), vertexIndices.size(), polygonIndex);
+
+        int size = vertexIndices.size();
+        ArrayList<Integer> resultVertexIndices = new ArrayList<Integer>(size);
+        ArrayList<Integer> resultTextureVertexIndices = textureVertexIndices == null ? null : new ArrayList<Integer>(size);
+        ArrayList<Integer> resultNormalIndices = normalIndices == null ? null : new ArrayList<Integer>(size);
+        for (int corner = 0; corner < size; corner++) {
+            int vertex = vertexMapping[checkIndex(vertexIndices.get(corner), vertexMapping.length, polygonIndex)];
+            if (removeDegenerate && !resultVertexIndices.isEmpty()
+                    && resultVertexIndices.get(resultVertexIndices.size() - 1) == vertex) {
+                statistics.collapsedCorners++;
+                continue;
+            }
+            resultVertexIndices.add(vertex);
+            if (textureVertexIndices != null) {
+                resultTextureVertexIndices.add(mapIndex(textureVertexIndices.get(corner), textureVertexMapping, polygonIndex));
+            }
+            if (normalIndices != null) {
+                resultNormalIndices.add(mapIndex(normalIndices.get(corner), normalMapping, polygonIndex));
+            }
+        }
+        // Последняя вершина полигона соседствует с первой
+        while (removeDegenerate && resultVertexIndices.size() > 1
+                && resultVertexIndices.get(resultVertexIndices.size() - 1).equals(resultVertexIndices.get(0))) {
+            int last = resultVertexIndices.size() - 1;
+            resultVertexIndices.remove(last);
+            if (resultTextureVertexIndices != null) {
+                resultTextureVertexIndices.remove(last);
+            }
+            if (resultNormalIndices != null) {
+                resultNormalIndices.remove(last);
+            }
+            statistics.collapsedCorners++;
+        }
+        if (resultVertexIndices.size() < 3) {
+            if (!removeDegenerate) {
+                throw new IllegalArgumentException("Polygon " + polygonIndex + " has fewer than 3 vertices");
+            }
+            return null;
+        }
+
+        Polygon result = new Polygon();
+        result.setVertexIndices(resultVertexIndices);
+        if (resultTextureVertexIndices != null) {
+            result.setTextureVertexIndices(resultTextureVertexIndices);
+        }
+        if (resultNormalIndices != null) {
+            result.setNormalIndices(resultNormalIndices);
+        }
+        return result;
+    }
+
+    private static int mapIndex(Integer index, int[] mapping, int polygonIndex) {
+        return mapping[checkIndex(index, mapping.length, polygonIndex)];
+    }
+
+    private static int[] identity(int count) {
+        int[] mapping = new int[count];
+        for (int i = 0; i < count; i++) {
+            mapping[i] = i;
+        }
+        return mapping;
+    }
+
+    private static int checkIndex(Integer index, int count, int polygonIndex) {
+        if (index == null) {
+            throw new IllegalArgumentException("Model contains null elements");
+        }
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("Polygon " + polygonIndex + " references index " + index
+                    + " out of bounds for length " + count);
+        }
+        return index;
+    }
+
+    // Оставленные элементы в порядке появления; объекты векторов не копируются
+    private static <T> ArrayList<T> keep(ArrayList<T> elements, int[] mapping) {
+        ArrayList<T> result = new ArrayList<T>();
+        for (int i = 0; i < elements.size(); i++) {
+            if (mapping[i] == result.size()) {
+                result.add(elements.get(i));
+            }
+        }
+        return result;
+    }
+}
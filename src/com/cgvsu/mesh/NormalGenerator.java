@@ -0,0 +1,284 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.PackedPolygons;
+import com.cgvsu.model.Polygon;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Расчет сглаженных нормалей вершин для моделей без vn. Нормаль вершины - нормированная сумма вкладов граней,
+// в которые она входит: нормаль грани (по Ньюэллу, подходит и для неплоских полигонов), умноженная на площадь грани
+// или на угол грани при этой вершине. С углом излома вклад берется только от граней, нормали которых отличаются
+// от нормали грани угла не больше чем на этот угол, поэтому у вершины на остром ребре получается несколько нормалей.
+// Вклады считаются параллельно по диапазонам граней в свои ячейки, а суммируются по диапазонам вершин через список
+// углов каждой вершины - каждая задача пишет только свои ячейки, блокировки и атомарные операции не нужны,
+// а порядок сложения, а значит и результат, не зависит от параллельности.
+// Все координаты лежат в массивах float, промежуточные Vector3f не создаются.
+public class NormalGenerator {
+
+    // Заменяет нормали модели рассчитанными и проставляет полигонам индексы нормалей. Возвращает число нормалей
+    public static int generate(Model model) {
+        return generate(model, new NormalOptions());
+    }
+
+    public static int generate(Model model, NormalOptions options) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        checkOptions(options);
+        ArrayList<Polygon> polygons = model.getPolygons();
+        int[] offsets = MeshArrays.polygonOffsets(polygons);
+        float[] vertices = MeshArrays.toArray3(model.getVertices());
+        int[] vertexIndices = MeshArrays.vertexIndices(polygons, offsets, vertices.length / 3);
+        Normals normals = compute(vertices, offsets, vertexIndices, options);
+
+        int count = normals.normals.length / 3;
+        ArrayList<Vector3f> resultNormals = new ArrayList<Vector3f>(count);
+        for (int i = 0; i < count; i++) {
+            resultNormals.add(new Vector3f(normals.normals[i * 3], normals.normals[i * 3 + 1], normals.normals[i * 3 + 2]));
+        }
+        model.setNormals(resultNormals);
+        for (int i = 0; i < polygons.size(); i++) {
+            ArrayList<Integer> normalIndices = new ArrayList<Integer>(offsets[i + 1] - offsets[i]);
+            for (int corner = offsets[i]; corner < offsets[i + 1]; corner++) {
+                normalIndices.add(normals.cornerNormals[corner]);
+            }
+            polygons.get(i).setNormalIndices(normalIndices);
+        }
+        return count;
+    }
+
+    public static int generate(PackedModel model) {
+        return generate(model, new NormalOptions());
+    }
+
+    public static int generate(PackedModel model, NormalOptions options) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        checkOptions(options);
+        PackedPolygons polygons = model.getPolygons();
+        int[] offsets = polygons.toOffsetArray();
+        int[] vertexIndices = polygons.toVertexIndexArray();
+        float[] vertices = model.toVertexArray();
+        MeshArrays.checkVertexIndices(vertexIndices, offsets, vertices.length / 3);
+        Normals normals = compute(vertices, offsets, vertexIndices, options);
+
+        byte[] flags = polygons.toFlagArray();
+        for (int i = 0; i < flags.length; i++) {
+            flags[i] |= PackedPolygons.HAS_NORMALS;
+        }
+        PackedPolygons resultPolygons = PackedPolygons.of(offsets, flags, vertexIndices,
+                polygons.toTextureVertexIndexArray(), normals.cornerNormals);
+        // Для модели только для чтения бросает исключение до каких-либо изменений
+        model.setNormals(normals.normals);
+        model.setPolygons(resultPolygons);
+        return normals.normals.length / 3;
+    }
+
+    static Normals compute(float[] vertices, int[] offsets, int[] vertexIndices, NormalOptions options) {
+        int polygonCount = offsets.length - 1;
+        int cornerCount = offsets[polygonCount];
+        int vertexCount = vertices.length / 3;
+
+        // Единичные нормали граней и вклад каждого угла в нормаль его вершины
+        float[] faceNormals = new float[polygonCount * 3];
+        float[] contributions = new float[cornerCount * 3];
+        MeshArrays.forEachRange(polygonCount, options.isParallel(), options.getPool(), options.getChunkSize(),
+                (from, to) -> computeContributions(vertices, offsets, vertexIndices, options.isAngleWeighted(),
+                        from, to, faceNormals, contributions));
+
+        // Углы каждой вершины по возрастанию номера угла
+        int[] vertexStarts = new int[vertexCount + 1];
+        for (int corner = 0; corner < cornerCount; corner++) {
+            vertexStarts[vertexIndices[corner] + 1]++;
+        }
+        for (int i = 0; i < vertexCount; i++) {
+            vertexStarts[i + 1] += vertexStarts[i];
+        }
+        int[] vertexCorners = new int[cornerCount];
+        int[] cornerPolygons = new int[cornerCount];
+        int[] fill = Arrays.copyOf(vertexStarts, vertexCount);
+        for (int polygon = 0; polygon < polygonCount; polygon++) {
+            for (int corner = offsets[polygon]; corner < offsets[polygon + 1]; corner++) {
+                vertexCorners[fill[vertexIndices[corner]]++] = corner;
+                cornerPolygons[corner] = polygon;
+            }
+        }
+
+        // Нормаль каждого угла и ее номер среди различных нормалей вершины
+        Normals result = new Normals();
+        result.cornerNormals = new int[cornerCount];
+        float[] cornerVectors = new float[cornerCount * 3];
+        int[] normalStarts = new int[vertexCount + 1];
+        double creaseCos = options.getCreaseAngle() >= 180 ? Double.NEGATIVE_INFINITY
+                : Math.cos(Math.toRadians(options.getCreaseAngle()));
+        MeshArrays.forEachRange(vertexCount, options.isParallel(), options.getPool(), options.getChunkSize(),
+                (from, to) -> smooth(vertexStarts, vertexCorners, cornerPolygons, faceNormals, contributions, creaseCos,
+                        from, to, cornerVectors, result.cornerNormals, normalStarts));
+
+        for (int i = 0; i < vertexCount; i++) {
+            normalStarts[i + 1] += normalStarts[i];
+        }
+        result.normals = new float[normalStarts[vertexCount] * 3];
+        MeshArrays.forEachRange(vertexCount, options.isParallel(), options.getPool(), options.getChunkSize(),
+                (from, to) -> {
+                    for (int vertex = from; vertex < to; vertex++) {
+                        for (int i = vertexStarts[vertex]; i < vertexStarts[vertex + 1]; i++) {
+                            int corner = vertexCorners[i];
+                            int normal = normalStarts[vertex] + result.cornerNormals[corner];
+                            result.cornerNormals[corner] = normal;
+                            System.arraycopy(cornerVectors, corner * 3, result.normals, normal * 3, 3);
+                        }
+                    }
+                });
+        return result;
+    }
+
+    private static void computeContributions(float[] vertices, int[] offsets, int[] vertexIndices, boolean angleWeighted,
+                                             int from, int to, float[] faceNormals, float[] contributions) {
+        for (int polygon = from; polygon < to; polygon++) {
+            int start = offsets[polygon];
+            int size = offsets[polygon + 1] - start;
+            double nx = 0;
+            double ny = 0;
+            double nz = 0;
+            for (int i = 0; i < size; i++) {
+                int a = vertexIndices[start + i] * 3;
+                int b = vertexIndices[start + (i + 1) % size] * 3;
+                nx += ((double) vertices[a + 1] - vertices[b + 1]) * ((double) vertices[a + 2] + vertices[b + 2]);
+                ny += ((double) vertices[a + 2] - vertices[b + 2]) * ((double) vertices[a] + vertices[b]);
+                nz += ((double) vertices[a] - vertices[b]) * ((double) vertices[a + 1] + vertices[b + 1]);
+            }
+            // Длина нормали Ньюэлла - удвоенная площадь полигона
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length > 0) {
+                nx /= length;
+                ny /= length;
+                nz /= length;
+            }
+            faceNormals[polygon * 3] = (float) nx;
+            faceNormals[polygon * 3 + 1] = (float) ny;
+            faceNormals[polygon * 3 + 2] = (float) nz;
+
+            for (int i = 0; i < size; i++) {
+                double weight = angleWeighted
+                        ? cornerAngle(vertices, vertexIndices[start + (i + size - 1) % size],
+                                vertexIndices[start + i], vertexIndices[start + (i + 1) % size])
+                        : length / 2;
+                int offset = (start + i) * 3;
+                contributions[offset] = (float) (nx * weight);
+                contributions[offset + 1] = (float) (ny * weight);
+                contributions[offset + 2] = (float) (nz * weight);
+            }
+        }
+    }
+
+    private static double cornerAngle(float[] vertices, int previous, int vertex, int next) {
+        double ax = (double) vertices[previous * 3] - vertices[vertex * 3];
+        double ay = (double) vertices[previous * 3 + 1] - vertices[vertex * 3 + 1];
+        double az = (double) vertices[previous * 3 + 2] - vertices[vertex * 3 + 2];
+        double bx = (double) vertices[next * 3] - vertices[vertex * 3];
+        double by = (double) vertices[next * 3 + 1] - vertices[vertex * 3 + 1];
+        double bz = (double) vertices[next * 3 + 2] - vertices[vertex * 3 + 2];
+        double cx = ay * bz - az * by;
+        double cy = az * bx - ax * bz;
+        double cz = ax * by - ay * bx;
+        return Math.atan2(Math.sqrt(cx * cx + cy * cy + cz * cz), ax * bx + ay * by + az * bz);
+    }
+
+    // Для вершин [from, to): нормаль каждого угла в cornerVectors, ее номер среди нормалей вершины в cornerNormals
+    // и количество различных нормалей вершины в normalCounts[vertex + 1]
+    private static void smooth(int[] vertexStarts, int[] vertexCorners, int[] cornerPolygons, float[] faceNormals,
+                               float[] contributions, double creaseCos, int from, int to,
+                               float[] cornerVectors, int[] cornerNormals, int[] normalCounts) {
+        double[] sum = new double[3];
+        for (int vertex = from; vertex < to; vertex++) {
+            int start = vertexStarts[vertex];
+            int end = vertexStarts[vertex + 1];
+            if (start == end) {
+                continue;
+            }
+            if (creaseCos == Double.NEGATIVE_INFINITY) {
+                Arrays.fill(sum, 0);
+                for (int i = start; i < end; i++) {
+                    add(sum, contributions, vertexCorners[i]);
+                }
+                store(sum, faceNormals, cornerPolygons[vertexCorners[start]], cornerVectors, vertexCorners[start]);
+                for (int i = start; i < end; i++) {
+                    System.arraycopy(cornerVectors, vertexCorners[start] * 3, cornerVectors, vertexCorners[i] * 3, 3);
+                    cornerNormals[vertexCorners[i]] = 0;
+                }
+                normalCounts[vertex + 1] = 1;
+                continue;
+            }
+
+            int count = 0;
+            for (int i = start; i < end; i++) {
+                int corner = vertexCorners[i];
+                int face = cornerPolygons[corner] * 3;
+                Arrays.fill(sum, 0);
+                for (int j = start; j < end; j++) {
+                    int other = cornerPolygons[vertexCorners[j]] * 3;
+                    double cos = faceNormals[face] * faceNormals[other] + faceNormals[face + 1] * faceNormals[other + 1]
+                            + faceNormals[face + 2] * faceNormals[other + 2];
+                    if (j == i || cos >= creaseCos) {
+                        add(sum, contributions, vertexCorners[j]);
+                    }
+                }
+                store(sum, faceNormals, cornerPolygons[corner], cornerVectors, corner);
+
+                // Углы с одинаковым набором граней получают побитово одинаковые нормали и общий номер
+                cornerNormals[corner] = -1;
+                for (int j = start; j < i; j++) {
+                    if (sameVector(cornerVectors, vertexCorners[j], corner)) {
+                        cornerNormals[corner] = cornerNormals[vertexCorners[j]];
+                        break;
+                    }
+                }
+                if (cornerNormals[corner] < 0) {
+                    cornerNormals[corner] = count++;
+                }
+            }
+            normalCounts[vertex + 1] = count;
+        }
+    }
+
+    private static void add(double[] sum, float[] contributions, int corner) {
+        sum[0] += contributions[corner * 3];
+        sum[1] += contributions[corner * 3 + 1];
+        sum[2] += contributions[corner * 3 + 2];
+    }
+
+    // Нормированная сумма; если вклады взаимно уничтожились (или все грани вырождены) - нормаль грани угла
+    private static void store(double[] sum, float[] faceNormals, int polygon, float[] cornerVectors, int corner) {
+        double length = Math.sqrt(sum[0] * sum[0] + sum[1] * sum[1] + sum[2] * sum[2]);
+        if (length > 0) {
+            cornerVectors[corner * 3] = (float) (sum[0] / length);
+            cornerVectors[corner * 3 + 1] = (float) (sum[1] / length);
+            cornerVectors[corner * 3 + 2] = (float) (sum[2] / length);
+        } else {
+            System.arraycopy(faceNormals, polygon * 3, cornerVectors, corner * 3, 3);
+        }
+    }
+
+    private static boolean sameVector(float[] vectors, int a, int b) {
+        return vectors[a * 3] == vectors[b * 3] && vectors[a * 3 + 1] == vectors[b * 3 + 1]
+                && vectors[a * 3 + 2] == vectors[b * 3 + 2];
+    }
+
+    private static void checkOptions(NormalOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("Options cannot be null");
+        }
+    }
+
+    // Рассчитанные нормали x0 y0 z0 ... и номер нормали для каждого угла полигонов
+    static class Normals {
+        private float[] normals;
+        private int[] cornerNormals;
+    }
+}
@@ -0,0 +1,68 @@
+package com.cgvsu.mesh;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class NormalOptions {
+    public static final float DEFAULT_CREASE_ANGLE = 180;
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+    private boolean angleWeighted = false;
+    private float creaseAngle = DEFAULT_CREASE_ANGLE;
+    private boolean parallel = false;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public boolean isAngleWeighted() {
+        return angleWeighted;
+    }
+
+    // Вклад грани в нормаль вершины: false - пропорционален площади грани, true - углу грани при этой вершине
+    public void setAngleWeighted(boolean angleWeighted) {
+        this.angleWeighted = angleWeighted;
+    }
+
+    public float getCreaseAngle() {
+        return creaseAngle;
+    }
+
+    // Угол в градусах между нормалями граней, начиная с которого ребро считается острым и нормали в его вершинах
+    // разделяются; 180 - модель сглаживается целиком, у каждой вершины одна нормаль
+    public void setCreaseAngle(float creaseAngle) {
+        if (!(creaseAngle >= 0 && creaseAngle <= 180)) {
+            throw new IllegalArgumentException("Crease angle must be between 0 and 180 degrees, got: " + creaseAngle);
+        }
+        this.creaseAngle = creaseAngle;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    // Параллельный расчет: диапазоны граней и вершин обрабатываются на пуле потоков, результат тот же
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        this.pool = pool;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    // Количество граней или вершин в одной задаче параллельного расчета
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive, got: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+}
@@ -0,0 +1,31 @@
+package com.cgvsu.mesh;
+
+public class SimplifyOptions {
+    private int targetFaceCount = 0;
+    private float maxError = Float.POSITIVE_INFINITY;
+
+    public int getTargetFaceCount() {
+        return targetFaceCount;
+    }
+
+    // Число треугольников, до которого упрощается модель (полигоны перед упрощением режутся на треугольники)
+    public void setTargetFaceCount(int targetFaceCount) {
+        if (targetFaceCount < 0) {
+            throw new IllegalArgumentException("Target face count cannot be negative, got: " + targetFaceCount);
+        }
+        this.targetFaceCount = targetFaceCount;
+    }
+
+    public float getMaxError() {
+        return maxError;
+    }
+
+    // Наибольшая допустимая ошибка стягивания ребра (корень из квадратичной ошибки, порядка расстояния
+    // до исходной поверхности в единицах модели); упрощение останавливается раньше, чем ошибка ее превысит
+    public void setMaxError(float maxError) {
+        if (!(maxError >= 0)) {
+            throw new IllegalArgumentException("Max error cannot be negative, got: " + maxError);
+        }
+        this.maxError = maxError;
+    }
+}
@@ -0,0 +1,356 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.PackedPolygons;
+import com.cgvsu.model.Polygon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Разбиение полигонов на треугольники. Полигон из n вершин всегда дает n - 2 треугольника, поэтому место
+// треугольников каждого полигона в результате известно заранее, и при параллельной работе диапазоны полигонов
+// пишут в общий массив без синхронизации - результат совпадает с последовательным.
+// Выпуклый полигон режется веером от первой вершины. Невыпуклый проецируется на плоскость, перпендикулярную
+// наибольшей компоненте нормали Ньюэлла, и режется отсечением ушей. Обход вершин в каждом треугольнике
+// совпадает с обходом полигона, так что направление нормалей сохраняется.
+public class Triangulator {
+
+    // Новая модель из треугольников; векторы исходной модели не копируются, сама она не меняется
+    public static Model triangulate(Model model) {
+        return triangulate(model, new TriangulationOptions());
+    }
+
+    public static Model triangulate(Model model, TriangulationOptions options) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        checkOptions(options);
+        ArrayList<Polygon> polygons = model.getPolygons();
+        int[] offsets = MeshArrays.polygonOffsets(polygons);
+        float[] vertices = MeshArrays.toArray3(model.getVertices());
+        int[] vertexIndices = MeshArrays.vertexIndices(polygons, offsets, vertices.length / 3);
+        int[] corners = triangulateCorners(vertices, offsets, vertexIndices, options);
+
+        ArrayList<Polygon> resultPolygons = new ArrayList<Polygon>(corners.length / 3);
+        for (int i = 0; i < polygons.size(); i++) {
+            Polygon polygon = polygons.get(i);
+            int start = offsets[i];
+            int size = offsets[i + 1] - start;
+            List<Integer> textureVertexIndices = MeshArrays.attribute(polygon.getTextureVertexIndices(), size, i);
+            List<Integer> normalIndices = MeshArrays.attribute(polygon.getNormalIndices(), size, i);
+            for (int triangle = start - 2 * i; triangle < offsets[i + 1] - 2 * (i + 1); triangle++) {
+                Polygon result = new Polygon();
+                result.setVertexIndices(pick(polygon.getVertexIndices(), corners, triangle, start));
+                if (textureVertexIndices != null) {
+                    result.setTextureVertexIndices(pick(textureVertexIndices, corners, triangle, start));
+                } else if (polygon.getTextureVertexIndices() == null) {
+                    result.setTextureVertexIndices(null);
+                }
+                if (normalIndices != null) {
+                    result.setNormalIndices(pick(normalIndices, corners, triangle, start));
+                } else if (polygon.getNormalIndices() == null) {
+                    result.setNormalIndices(null);
+                }
+                resultPolygons.add(result);
+            }
+        }
+
+        Model result = new Model();
+        result.setVertices(new ArrayList<Vector3f>(model.getVertices()));
+        result.setTextureVertices(new ArrayList<Vector2f>(model.getTextureVertices()));
+        result.setNormals(new ArrayList<Vector3f>(model.getNormals()));
+        result.setPolygons(resultPolygons);
+        return result;
+    }
+
+    // Новая модель из треугольников с копиями массивов координат
+    public static PackedModel triangulate(PackedModel model) {
+        return triangulate(model, new TriangulationOptions());
+    }
+
+    public static PackedModel triangulate(PackedModel model, TriangulationOptions options) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        checkOptions(options);
+        PackedPolygons polygons = model.getPolygons();
+        int[] offsets = polygons.toOffsetArray();
+        int[] vertexIndices = polygons.toVertexIndexArray();
+        float[] vertices = model.toVertexArray();
+        MeshArrays.checkVertexIndices(vertexIndices, offsets, vertices.length / 3);
+        int[] corners = triangulateCorners(vertices, offsets, vertexIndices, options);
+
+        byte[] flags = polygons.toFlagArray();
+        int triangleCount = corners.length / 3;
+        int[] resultOffsets = new int[triangleCount + 1];
+        byte[] resultFlags = new byte[triangleCount];
+        for (int i = 0; i < flags.length; i++) {
+            for (int triangle = offsets[i] - 2 * i; triangle < offsets[i + 1] - 2 * (i + 1); triangle++) {
+                resultFlags[triangle] = flags[i];
+            }
+        }
+        for (int triangle = 1; triangle <= triangleCount; triangle++) {
+            resultOffsets[triangle] = triangle * 3;
+        }
+        PackedPolygons resultPolygons = PackedPolygons.of(resultOffsets, resultFlags, pick(vertexIndices, corners),
+                pick(polygons.toTextureVertexIndexArray(), corners), pick(polygons.toNormalIndexArray(), corners));
+        return PackedModel.of(vertices, model.toTextureVertexArray(), model.toNormalArray(), resultPolygons);
+    }
+
+    // Индексы вершин треугольников подряд, по три на треугольник
+    public static int[] triangulateIndices(Model model) {
+        return triangulateIndices(model, new TriangulationOptions());
+    }
+
+    public static int[] triangulateIndices(Model model, TriangulationOptions options) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        checkOptions(options);
+        int[] offsets = MeshArrays.polygonOffsets(model.getPolygons());
+        float[] vertices = MeshArrays.toArray3(model.getVertices());
+        int[] vertexIndices = MeshArrays.vertexIndices(model.getPolygons(), offsets, vertices.length / 3);
+        return pick(vertexIndices, triangulateCorners(vertices, offsets, vertexIndices, options));
+    }
+
+    public static int[] triangulateIndices(PackedModel model) {
+        return triangulateIndices(model, new TriangulationOptions());
+    }
+
+    public static int[] triangulateIndices(PackedModel model, TriangulationOptions options) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        checkOptions(options);
+        int[] offsets = model.getPolygons().toOffsetArray();
+        int[] vertexIndices = model.getPolygons().toVertexIndexArray();
+        float[] vertices = model.toVertexArray();
+        MeshArrays.checkVertexIndices(vertexIndices, offsets, vertices.length / 3);
+        return pick(vertexIndices, triangulateCorners(vertices, offsets, vertexIndices, options));
+    }
+
+    // Номера углов (позиции в массивах индексов полигонов) по три на треугольник.
+    // Треугольники полигона i начинаются с номера offsets[i] - 2 * i
+    static int[] triangulateCorners(float[] vertices, int[] offsets, int[] vertexIndices, TriangulationOptions options) {
+        int polygonCount = offsets.length - 1;
+        int[] corners = new int[(offsets[polygonCount] - 2 * polygonCount) * 3];
+        MeshArrays.forEachRange(polygonCount, options.isParallel(), options.getPool(), options.getChunkSize(),
+                (from, to) -> new Workspace(vertices, vertexIndices, corners).run(offsets, from, to));
+        return corners;
+    }
+
+    private static void checkOptions(TriangulationOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("Options cannot be null");
+        }
+    }
+
+    private static ArrayList<Integer> pick(List<Integer> indices, int[] corners, int triangle, int start) {
+        ArrayList<Integer> result = new ArrayList<Integer>(3);
+        for (int k = 0; k < 3; k++) {
+            result.add(indices.get(corners[triangle * 3 + k] - start));
+        }
+        return result;
+    }
+
+    private static int[] pick(int[] indices, int[] corners) {
+        if (indices == null) {
+            return null;
+        }
+        int[] result = new int[corners.length];
+        for (int i = 0; i < corners.length; i++) {
+            result[i] = indices[corners[i]];
+        }
+        return result;
+    }
+
+    // Рабочие массивы одной задачи: проекция полигона на плоскость и двусвязный список оставшихся вершин
+    private static class Workspace {
+        private final float[] vertices;
+        private final int[] vertexIndices;
+        private final int[] corners;
+
+        private double[] xs = new double[16];
+        private double[] ys = new double[16];
+        private int[] previous = new int[16];
+        private int[] next = new int[16];
+
+        private int start;
+        private int output;
+
+        private Workspace(float[] vertices, int[] vertexIndices, int[] corners) {
+            this.vertices = vertices;
+            this.vertexIndices = vertexIndices;
+            this.corners = corners;
+        }
+
+        private void run(int[] offsets, int from, int to) {
+            for (int polygon = from; polygon < to; polygon++) {
+                start = offsets[polygon];
+                output = (start - 2 * polygon) * 3;
+                triangulate(offsets[polygon + 1] - start);
+            }
+        }
+
+        private void triangulate(int size) {
+            if (size == 3 || !project(size) || isConvex(size)) {
+                for (int corner = 1; corner < size - 1; corner++) {
+                    emit(0, corner, corner + 1);
+                }
+                return;
+            }
+            clipEars(size);
+        }
+
+        // Проекция на координатную плоскость, в которой полигон обходится против часовой стрелки.
+        // false - нормаль нулевая (полигон вырожден), тогда режется веером
+        private boolean project(int size) {
+            if (xs.length < size) {
+                xs = new double[size];
+                ys = new double[size];
+                previous = new int[size];
+                next = new int[size];
+            }
+            double nx = 0;
+            double ny = 0;
+            double nz = 0;
+            for (int i = 0; i < size; i++) {
+                int a = vertexIndices[start + i] * 3;
+                int b = vertexIndices[start + (i + 1) % size] * 3;
+                nx += ((double) vertices[a + 1] - vertices[b + 1]) * ((double) vertices[a + 2] + vertices[b + 2]);
+                ny += ((double) vertices[a + 2] - vertices[b + 2]) * ((double) vertices[a] + vertices[b]);
+                nz += ((double) vertices[a] - vertices[b]) * ((double) vertices[a + 1] + vertices[b + 1]);
+            }
+            double ax = Math.abs(nx);
+            double ay = Math.abs(ny);
+            double az = Math.abs(nz);
+            if (!(Math.max(ax, Math.max(ay, az)) > 0) || Double.isInfinite(ax + ay + az)) {
+                return false;
+            }
+
+            // Компонента нормали по отброшенной оси равна удвоенной площади проекции со знаком
+            int u;
+            int v;
+            double orientation;
+            if (az >= ax && az >= ay) {
+                u = 0;
+                v = 1;
+                orientation = nz;
+            } else if (ax >= ay) {
+                u = 1;
+                v = 2;
+                orientation = nx;
+            } else {
+                u = 2;
+                v = 0;
+                orientation = ny;
+            }
+            double sign = orientation > 0 ? 1 : -1;
+            for (int i = 0; i < size; i++) {
+                int vertex = vertexIndices[start + i] * 3;
+                xs[i] = vertices[vertex + u];
+                ys[i] = vertices[vertex + v] * sign;
+            }
+            return true;
+        }
+
+        // Все повороты в одну сторону, и направление по x меняется не больше двух раз (иначе это звезда)
+        private boolean isConvex(int size) {
+            int directionChanges = 0;
+            double firstDirection = 0;
+            double lastDirection = 0;
+            for (int i = 0; i < size; i++) {
+                int a = (i + size - 1) % size;
+                int b = (i + 1) % size;
+                if (cross(a, i, b) < 0) {
+                    return false;
+                }
+                double direction = Math.signum(xs[b] - xs[i]);
+                if (direction != 0) {
+                    if (firstDirection == 0) {
+                        firstDirection = direction;
+                    } else if (direction != lastDirection) {
+                        directionChanges++;
+                    }
+                    lastDirection = direction;
+                }
+            }
+            if (lastDirection != 0 && lastDirection != firstDirection) {
+                directionChanges++;
+            }
+            return directionChanges <= 2;
+        }
+
+        // Отсечение ушей за O(n^2). Если за полный обход уха не нашлось (самопересечения, погрешности),
+        // требования ослабляются: сначала отсекается любая выпуклая вершина, затем любая
+        private void clipEars(int size) {
+            for (int i = 0; i < size; i++) {
+                previous[i] = (i + size - 1) % size;
+                next[i] = (i + 1) % size;
+            }
+            int remaining = size;
+            int current = 0;
+            int failed = 0;
+            int relaxation = 0;
+            while (remaining > 3) {
+                int a = previous[current];
+                int b = next[current];
+                boolean ear;
+                if (relaxation == 0) {
+                    ear = isEar(a, current, b);
+                } else {
+                    ear = relaxation == 2 || cross(a, current, b) > 0;
+                }
+                if (ear) {
+                    emit(a, current, b);
+                    next[a] = b;
+                    previous[b] = a;
+                    remaining--;
+                    current = a;
+                    failed = 0;
+                    relaxation = 0;
+                } else if (++failed >= remaining) {
+                    failed = 0;
+                    relaxation++;
+                } else {
+                    current = b;
+                }
+            }
+            emit(previous[current], current, next[current]);
+        }
+
+        // Выпуклая вершина, и внутри треугольника и на его сторонах нет других оставшихся вершин
+        // (вершины, совпадающие с углами треугольника, не мешают - так бывает у полигонов с перемычками)
+        private boolean isEar(int a, int b, int c) {
+            if (cross(a, b, c) <= 0) {
+                return false;
+            }
+            for (int p = next[c]; p != a; p = next[p]) {
+                if (coincides(p, a) || coincides(p, b) || coincides(p, c)) {
+                    continue;
+                }
+                if (cross(a, b, p) >= 0 && cross(b, c, p) >= 0 && cross(c, a, p) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean coincides(int p, int q) {
+            return xs[p] == xs[q] && ys[p] == ys[q];
+        }
+
+        private double cross(int a, int b, int c) {
+            return (xs[b] - xs[a]) * (ys[c] - ys[a]) - (ys[b] - ys[a]) * (xs[c] - xs[a]);
+        }
+
+        private void emit(int a, int b, int c) {
+            corners[output++] = start + a;
+            corners[output++] = start + b;
+            corners[output++] = start + c;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.cgvsu.mesh;
+
+// Вершины для отрисовки: одна вершина на каждую различную тройку (v, vt, vn) из полигонов модели.
+// Атрибуты вершины лежат подряд: x y z, затем u v (если есть текстурные координаты), затем nx ny nz (если есть нормали).
+// Треугольники - тройки номеров вершин в indices.
+public class VertexBuffer {
+    private final float[] vertices;
+    private final int stride;
+    private final int textureOffset;
+    private final int normalOffset;
+    private final int[] indices;
+    private final int[] sourceIndices;
+
+    VertexBuffer(float[] vertices, int stride, int textureOffset, int normalOffset, int[] indices, int[] sourceIndices) {
+        this.vertices = vertices;
+        this.stride = stride;
+        this.textureOffset = textureOffset;
+        this.normalOffset = normalOffset;
+        this.indices = indices;
+        this.sourceIndices = sourceIndices;
+    }
+
+    public int getVertexCount() {
+        return vertices.length / stride;
+    }
+
+    // Количество float на вершину
+    public int getStride() {
+        return stride;
+    }
+
+    public boolean hasTextureVertices() {
+        return textureOffset >= 0;
+    }
+
+    // Смещение u внутри вершины, -1 - текстурных координат нет
+    public int getTextureOffset() {
+        return textureOffset;
+    }
+
+    public boolean hasNormals() {
+        return normalOffset >= 0;
+    }
+
+    // Смещение nx внутри вершины, -1 - нормалей нет
+    public int getNormalOffset() {
+        return normalOffset;
+    }
+
+    public int getTriangleCount() {
+        return indices.length / 3;
+    }
+
+    // Массивы отдаются без копирования, чтобы их можно было сразу передать в буфер видеокарты
+    public float[] getVertices() {
+        return vertices;
+    }
+
+    public int[] getIndices() {
+        return indices;
+    }
+
+    // Исходные индексы вершины буфера в модели: v, vt, vn; -1 - атрибута у этой вершины нет
+    public int getSourceVertexIndex(int vertex) {
+        return sourceIndices[checkVertex(vertex) * 3];
+    }
+
+    public int getSourceTextureVertexIndex(int vertex) {
+        return sourceIndices[checkVertex(vertex) * 3 + 1];
+    }
+
+    public int getSourceNormalIndex(int vertex) {
+        return sourceIndices[checkVertex(vertex) * 3 + 2];
+    }
+
+    private int checkVertex(int vertex) {
+        if (vertex < 0 || vertex >= getVertexCount()) {
+            throw new IndexOutOfBoundsException("Index " + vertex + " out of bounds for length " + getVertexCount());
+        }
+        return vertex;
+    }
+}
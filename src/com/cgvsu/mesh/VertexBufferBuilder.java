@@ -0,0 +1,328 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.PackedPolygons;
+import com.cgvsu.model.Polygon;
+import com.cgvsu.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Сборка VertexBuffer из модели. Тройка индексов (v, vt, vn) упаковывается в один long
+// (смешанная система счисления по количествам элементов), и номер вершины буфера ищется в LongIntHashMap.
+// Вершины буфера нумеруются в порядке первого появления тройки, полигоны режутся на треугольники веером
+// от первой вершины (полигоны считаются выпуклыми).
+// При параллельной сборке каждый диапазон полигонов собирает свои тройки, а затем диапазоны по порядку
+// сливаются в общую таблицу, поэтому результат совпадает с последовательной сборкой.
+public class VertexBufferBuilder {
+
+    public static VertexBuffer build(Model model) {
+        return build(model, new VertexBufferOptions());
+    }
+
+    public static VertexBuffer build(Model model, VertexBufferOptions options) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        checkOptions(options);
+        return build(Source.fromModel(model), options);
+    }
+
+    public static VertexBuffer build(PackedModel model) {
+        return build(model, new VertexBufferOptions());
+    }
+
+    public static VertexBuffer build(PackedModel model, VertexBufferOptions options) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        checkOptions(options);
+        return build(Source.fromPackedModel(model), options);
+    }
+
+    private static VertexBuffer build(Source source, VertexBufferOptions options) {
+        int polygonCount = source.offsets.length - 1;
+        int[] triangleOffsets = new int[polygonCount + 1];
+        for (int i = 0; i < polygonCount; i++) {
+            triangleOffsets[i + 1] = triangleOffsets[i] + source.offsets[i + 1] - source.offsets[i] - 2;
+        }
+        int[] indices = new int[triangleOffsets[polygonCount] * 3];
+
+        int[] unique;
+        if (options.isParallel() && polygonCount > options.getChunkSize()) {
+            unique = buildParallel(source, triangleOffsets, indices, options);
+        } else {
+            Chunk chunk = new Chunk(0, polygonCount);
+            chunk.collect(source, triangleOffsets, indices);
+            unique = chunk.unique;
+        }
+        int uniqueCount = unique.length / 3;
+
+        int stride = 3;
+        int textureOffset = -1;
+        int normalOffset = -1;
+        if (source.hasTextureVertices) {
+            textureOffset = stride;
+            stride += 2;
+        }
+        if (source.hasNormals) {
+            normalOffset = stride;
+            stride += 3;
+        }
+
+        float[] vertices = new float[uniqueCount * stride];
+        for (int i = 0; i < uniqueCount; i++) {
+            int offset = i * stride;
+            int vertex = unique[i * 3];
+            vertices[offset] = source.vertices[vertex * 3];
+            vertices[offset + 1] = source.vertices[vertex * 3 + 1];
+            vertices[offset + 2] = source.vertices[vertex * 3 + 2];
+            // Отсутствующий атрибут остается нулевым
+            int textureVertex = unique[i * 3 + 1];
+            if (textureVertex >= 0) {
+                vertices[offset + textureOffset] = source.textureVertices[textureVertex * 2];
+                vertices[offset + textureOffset + 1] = source.textureVertices[textureVertex * 2 + 1];
+            }
+            int normal = unique[i * 3 + 2];
+            if (normal >= 0) {
+                vertices[offset + normalOffset] = source.normals[normal * 3];
+                vertices[offset + normalOffset + 1] = source.normals[normal * 3 + 1];
+                vertices[offset + normalOffset + 2] = source.normals[normal * 3 + 2];
+            }
+        }
+        return new VertexBuffer(vertices, stride, textureOffset, normalOffset, indices, unique);
+    }
+
+    // Диапазоны собираются на пуле; затем их тройки по порядку добавляются в общую таблицу,
+    // и номера вершин в треугольниках каждого диапазона переводятся на общие
+    private static int[] buildParallel(Source source, int[] triangleOffsets, int[] indices, VertexBufferOptions options) {
+        ForkJoinPool pool = options.getPool();
+        int polygonCount = source.offsets.length - 1;
+        List<Chunk> chunks = new ArrayList<>();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int from = 0; from < polygonCount; from += options.getChunkSize()) {
+            Chunk chunk = new Chunk(from, Math.min(polygonCount, from + options.getChunkSize()));
+            chunks.add(chunk);
+            tasks.add(pool.submit(() -> chunk.collect(source, triangleOffsets, indices)));
+        }
+
+        LongIntHashMap map = new LongIntHashMap(source.vertices.length / 3);
+        int[] unique = new int[0];
+        int uniqueCount = 0;
+        for (int c = 0; c < chunks.size(); c++) {
+            tasks.get(c).join();
+            Chunk chunk = chunks.get(c);
+            int localCount = chunk.unique.length / 3;
+            int[] mapping = new int[localCount];
+            for (int i = 0; i < localCount; i++) {
+                int vertex = chunk.unique[i * 3];
+                int textureVertex = chunk.unique[i * 3 + 1];
+                int normal = chunk.unique[i * 3 + 2];
+                int id = map.getOrPut(source.key(vertex, textureVertex, normal), uniqueCount);
+                if (id == uniqueCount) {
+                    if (unique.length < (uniqueCount + 1) * 3) {
+                        unique = Arrays.copyOf(unique, Math.max((uniqueCount + 1) * 3, unique.length * 2));
+                    }
+                    unique[uniqueCount * 3] = vertex;
+                    unique[uniqueCount * 3 + 1] = textureVertex;
+                    unique[uniqueCount * 3 + 2] = normal;
+                    uniqueCount++;
+                }
+                mapping[i] = id;
+            }
+            chunk.mapping = mapping;
+        }
+
+        tasks.clear();
+        for (Chunk chunk : chunks) {
+            tasks.add(pool.submit(() -> chunk.remap(triangleOffsets, indices)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return Arrays.copyOf(unique, uniqueCount * 3);
+    }
+
+    private static void checkOptions(VertexBufferOptions options) {
+        if (options == null) {
+            throw new IllegalArgumentException("Options cannot be null");
+        }
+    }
+
+    // Диапазон полигонов [from, to): свои тройки в порядке появления и треугольники с локальными номерами,
+    // записанные прямо на свое место в общем массиве индексов
+    private static class Chunk {
+        private final int from;
+        private final int to;
+        private int[] unique;
+        private int[] mapping;
+
+        private Chunk(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        private void collect(Source source, int[] triangleOffsets, int[] indices) {
+            int cornerCount = source.offsets[to] - source.offsets[from];
+            LongIntHashMap map = new LongIntHashMap(cornerCount / 2);
+            int[] triples = new int[Math.max(cornerCount, 1) * 3];
+            int count = 0;
+            int[] corners = new int[16];
+
+            for (int polygon = from; polygon < to; polygon++) {
+                int start = source.offsets[polygon];
+                int size = source.offsets[polygon + 1] - start;
+                if (corners.length < size) {
+                    corners = new int[size];
+                }
+                for (int corner = 0; corner < size; corner++) {
+                    int vertex = source.vertexIndices[start + corner];
+                    int textureVertex = source.textureVertexIndices[start + corner];
+                    int normal = source.normalIndices[start + corner];
+                    int id = map.getOrPut(source.key(vertex, textureVertex, normal), count);
+                    if (id == count) {
+                        triples[count * 3] = vertex;
+                        triples[count * 3 + 1] = textureVertex;
+                        triples[count * 3 + 2] = normal;
+                        count++;
+                    }
+                    corners[corner] = id;
+                }
+
+                int offset = triangleOffsets[polygon] * 3;
+                for (int corner = 1; corner < size - 1; corner++) {
+                    indices[offset++] = corners[0];
+                    indices[offset++] = corners[corner];
+                    indices[offset++] = corners[corner + 1];
+                }
+            }
+            unique = Arrays.copyOf(triples, count * 3);
+        }
+
+        private void remap(int[] triangleOffsets, int[] indices) {
+            for (int i = triangleOffsets[from] * 3; i < triangleOffsets[to] * 3; i++) {
+                indices[i] = mapping[indices[i]];
+            }
+        }
+    }
+
+    // Модель в виде плоских массивов: координаты и индексы углов полигонов (-1 - атрибута нет)
+    private static class Source {
+        private float[] vertices;
+        private float[] textureVertices;
+        private float[] normals;
+        private int[] offsets;
+        private int[] vertexIndices;
+        private int[] textureVertexIndices;
+        private int[] normalIndices;
+        private boolean hasTextureVertices;
+        private boolean hasNormals;
+
+        // Основания смешанной системы счисления для упаковки тройки в long
+        private long textureRadix;
+        private long normalRadix;
+
+        private long key(int vertex, int textureVertex, int normal) {
+            return (vertex * textureRadix + textureVertex + 1) * normalRadix + normal + 1;
+        }
+
+        private static Source fromModel(Model model) {
+            Source source = new Source();
+            source.vertices = MeshArrays.toArray3(model.getVertices());
+            source.textureVertices = MeshArrays.toArray2(model.getTextureVertices());
+            source.normals = MeshArrays.toArray3(model.getNormals());
+
+            ArrayList<Polygon> polygons = model.getPolygons();
+            source.offsets = MeshArrays.polygonOffsets(polygons);
+            source.vertexIndices = MeshArrays.vertexIndices(polygons, source.offsets, source.vertices.length / 3);
+
+            int cornerCount = source.offsets[polygons.size()];
+            source.textureVertexIndices = new int[cornerCount];
+            source.normalIndices = new int[cornerCount];
+            for (int i = 0; i < polygons.size(); i++) {
+                Polygon polygon = polygons.get(i);
+                int start = source.offsets[i];
+                int size = source.offsets[i + 1] - start;
+                copyIndices(MeshArrays.attribute(polygon.getTextureVertexIndices(), size, i), source.textureVertexIndices, start, size);
+                copyIndices(MeshArrays.attribute(polygon.getNormalIndices(), size, i), source.normalIndices, start, size);
+            }
+            source.prepare();
+            return source;
+        }
+
+        private static Source fromPackedModel(PackedModel model) {
+            Source source = new Source();
+            source.vertices = model.toVertexArray();
+            source.textureVertices = model.toTextureVertexArray();
+            source.normals = model.toNormalArray();
+
+            PackedPolygons polygons = model.getPolygons();
+            source.offsets = polygons.toOffsetArray();
+            source.vertexIndices = polygons.toVertexIndexArray();
+            byte[] flags = polygons.toFlagArray();
+            int[] textureVertexIndices = polygons.toTextureVertexIndexArray();
+            int[] normalIndices = polygons.toNormalIndexArray();
+            source.textureVertexIndices = new int[source.vertexIndices.length];
+            source.normalIndices = new int[source.vertexIndices.length];
+            for (int polygon = 0; polygon < flags.length; polygon++) {
+                boolean hasTexture = (flags[polygon] & PackedPolygons.HAS_TEXTURE_VERTICES) != 0;
+                boolean hasNormals = (flags[polygon] & PackedPolygons.HAS_NORMALS) != 0;
+                for (int i = source.offsets[polygon]; i < source.offsets[polygon + 1]; i++) {
+                    source.textureVertexIndices[i] = hasTexture ? textureVertexIndices[i] : -1;
+                    source.normalIndices[i] = hasNormals ? normalIndices[i] : -1;
+                }
+            }
+            source.prepare();
+            return source;
+        }
+
+        // Проверка индексов и выбор оснований для упаковки
+        private void prepare() {
+            int vertexCount = vertices.length / 3;
+            int textureVertexCount = textureVertices.length / 2;
+            int normalCount = normals.length / 3;
+            for (int polygon = 0; polygon < offsets.length - 1; polygon++) {
+                for (int i = offsets[polygon]; i < offsets[polygon + 1]; i++) {
+                    checkIndex(vertexIndices[i], vertexCount, polygon, false);
+                    checkIndex(textureVertexIndices[i], textureVertexCount, polygon, true);
+                    checkIndex(normalIndices[i], normalCount, polygon, true);
+                    hasTextureVertices |= textureVertexIndices[i] >= 0;
+                    hasNormals |= normalIndices[i] >= 0;
+                }
+            }
+
+            textureRadix = textureVertexCount + 1L;
+            normalRadix = normalCount + 1L;
+            try {
+                Math.multiplyExact(Math.multiplyExact(Math.max(vertexCount, 1L), textureRadix), normalRadix);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Model is too large to pack index triples into 64 bits");
+            }
+        }
+
+        private static void checkIndex(int index, int count, int polygon, boolean optional) {
+            if (index >= count || index < (optional ? -1 : 0)) {
+                throw new IllegalArgumentException("Polygon " + polygon + " references index " + index
+                        + " out of bounds for length " + count);
+            }
+        }
+
+        private static void copyIndices(List<Integer> indices, int[] target, int start, int size) {
+            if (indices == null) {
+                Arrays.fill(target, start, start + size, -1);
+                return;
+            }
+            for (int i = 0; i < indices.size(); i++) {
+                Integer index = indices.get(i);
+                if (index == null) {
+                    throw new IllegalArgumentException("Model contains null elements");
+                }
+                target[start + i] = index;
+            }
+        }
+    }
+}
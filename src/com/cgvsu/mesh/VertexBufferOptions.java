@@ -0,0 +1,43 @@
+package com.cgvsu.mesh;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class VertexBufferOptions {
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+    private boolean parallel = false;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    // Параллельная сборка: диапазоны полигонов обрабатываются на пуле потоков, результат тот же
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        this.pool = pool;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    // Количество полигонов в одной задаче параллельной сборки
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive, got: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+}
@@ -0,0 +1,330 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Перестановка полигонов для кэша вершин видеокарты по алгоритму Форсайта: жадно выбирается полигон
+// с наибольшей суммой оценок вершин, где оценка растет, если вершина недавно была в кэше, и если у нее
+// осталось мало невыбранных полигонов. Пересчитываются только полигоны при вершинах кэша, поэтому проход
+// линейный. Затем элементы модели нумеруются в порядке первого использования, чтобы проход по полигонам
+// читал вершины подряд. Модель меняется на месте: списки и полигоны заменяются новыми.
+public class VertexCacheOptimizer {
+    private static final float LAST_FACE_SCORE = 0.75f;
+    private static final float VALENCE_BOOST_SCALE = 2.0f;
+
+    public static VertexCacheResult optimize(Model model) {
+        return optimize(model, new VertexCacheOptions());
+    }
+
+    public static VertexCacheResult optimize(Model model, VertexCacheOptions options) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+        if (options == null) {
+            throw new IllegalArgumentException("Options cannot be null");
+        }
+        // Модель меняется только после проверки всех полигонов
+        ArrayList<Polygon> polygons = model.getPolygons();
+        int[] offsets = MeshArrays.polygonOffsets(polygons);
+        int vertexCount = model.getVertices().size();
+        int[] vertexIndices = MeshArrays.vertexIndices(polygons, offsets, vertexCount);
+        int[] textureIndices = attributeIndices(polygons, offsets, true, model.getTextureVertices().size());
+        int[] normalIndices = attributeIndices(polygons, offsets, false, model.getNormals().size());
+
+        int cacheSize = options.getCacheSize();
+        VertexCacheResult result = new VertexCacheResult();
+        result.acmrBefore = acmr(vertexIndices, offsets, null, vertexCount, cacheSize);
+        int[] order = orderFaces(vertexIndices, offsets, vertexCount, cacheSize);
+        result.acmrAfter = acmr(vertexIndices, offsets, order, vertexCount, cacheSize);
+        // Уже хороший порядок не ухудшается
+        if (result.acmrAfter >= result.acmrBefore) {
+            result.acmrAfter = result.acmrBefore;
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+        }
+
+        int[] vertexMapping = identity(vertexCount);
+        int[] textureMapping = identity(model.getTextureVertices().size());
+        int[] normalMapping = identity(model.getNormals().size());
+        if (options.isReorderVertices()) {
+            vertexMapping = firstUse(vertexIndices, offsets, order, vertexCount);
+            textureMapping = firstUse(textureIndices, offsets, order, textureMapping.length);
+            normalMapping = firstUse(normalIndices, offsets, order, normalMapping.length);
+            model.setVertices(permute(model.getVertices(), vertexMapping));
+            model.setTextureVertices(permute(model.getTextureVertices(), textureMapping));
+            model.setNormals(permute(model.getNormals(), normalMapping));
+        }
+
+        ArrayList<Polygon> resultPolygons = new ArrayList<Polygon>(polygons.size());
+        for (int face : order) {
+            Polygon polygon = polygons.get(face);
+            Polygon resultPolygon = new Polygon();
+            resultPolygon.setVertexIndices(remap(vertexIndices, offsets, face, vertexMapping));
+            if (textureIndices[offsets[face]] >= 0) {
+                resultPolygon.setTextureVertexIndices(remap(textureIndices, offsets, face, textureMapping));
+            } else if (polygon.getTextureVertexIndices() == null) {
+                resultPolygon.setTextureVertexIndices(null);
+            }
+            if (normalIndices[offsets[face]] >= 0) {
+                resultPolygon.setNormalIndices(remap(normalIndices, offsets, face, normalMapping));
+            } else if (polygon.getNormalIndices() == null) {
+                resultPolygon.setNormalIndices(null);
+            }
+            resultPolygons.add(resultPolygon);
+        }
+        model.setPolygons(resultPolygons);
+        return result;
+    }
+
+    // ACMR порядка order (null - исходный порядок) при кэше FIFO: вершина в кэше, если после ее загрузки
+    // было меньше cacheSize промахов
+    static float acmr(int[] vertexIndices, int[] offsets, int[] order, int vertexCount, int cacheSize) {
+        int faceCount = offsets.length - 1;
+        int triangleCount = offsets[faceCount] - 2 * faceCount;
+        if (triangleCount == 0) {
+            return 0;
+        }
+        int[] loadedAt = new int[vertexCount];
+        int misses = 0;
+        for (int i = 0; i < faceCount; i++) {
+            int face = order == null ? i : order[i];
+            for (int corner = offsets[face]; corner < offsets[face + 1]; corner++) {
+                int vertex = vertexIndices[corner];
+                // Время загрузки хранится со сдвигом на 1, 0 - вершина еще не загружалась
+                if (loadedAt[vertex] == 0 || misses - (loadedAt[vertex] - 1) >= cacheSize) {
+                    loadedAt[vertex] = misses + 1;
+                    misses++;
+                }
+            }
+        }
+        return (float) misses / triangleCount;
+    }
+
+    // Порядок полигонов по Форсайту
+    static int[] orderFaces(int[] vertexIndices, int[] offsets, int vertexCount, int cacheSize) {
+        int faceCount = offsets.length - 1;
+        int maxFaceSize = 0;
+        for (int face = 0; face < faceCount; face++) {
+            maxFaceSize = Math.max(maxFaceSize, offsets[face + 1] - offsets[face]);
+        }
+
+        // Невыбранные полигоны при вершине: первые remaining[v] элементов ее участка vertexFaces
+        int[] remaining = new int[vertexCount];
+        for (int corner = 0; corner < vertexIndices.length; corner++) {
+            remaining[vertexIndices[corner]]++;
+        }
+        int[] vertexFaceStarts = new int[vertexCount + 1];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            vertexFaceStarts[vertex + 1] = vertexFaceStarts[vertex] + remaining[vertex];
+            remaining[vertex] = 0;
+        }
+        int[] vertexFaces = new int[vertexIndices.length];
+        for (int face = 0; face < faceCount; face++) {
+            for (int corner = offsets[face]; corner < offsets[face + 1]; corner++) {
+                int vertex = vertexIndices[corner];
+                vertexFaces[vertexFaceStarts[vertex] + remaining[vertex]++] = face;
+            }
+        }
+
+        int[] cachePositions = new int[vertexCount];
+        float[] vertexScores = new float[vertexCount];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            cachePositions[vertex] = -1;
+            vertexScores[vertex] = score(-1, remaining[vertex], 0, cacheSize);
+        }
+
+        boolean[] emitted = new boolean[faceCount];
+        int[] order = new int[faceCount];
+        int[] cache = new int[cacheSize + maxFaceSize];
+        int[] nextCache = new int[cacheSize + maxFaceSize];
+        int cacheCount = 0;
+        int cursor = 0;
+        int best = -1;
+        float bestScore = -1;
+        for (int face = 0; face < faceCount; face++) {
+            float faceScore = faceScore(vertexIndices, offsets, face, vertexScores);
+            if (faceScore > bestScore) {
+                bestScore = faceScore;
+                best = face;
+            }
+        }
+
+        for (int count = 0; count < faceCount; count++) {
+            if (best < 0) {
+                // Рядом с кэшем полигонов не осталось - берется первый невыбранный
+                while (emitted[cursor]) {
+                    cursor++;
+                }
+                best = cursor;
+            }
+            int face = best;
+            emitted[face] = true;
+            order[count] = face;
+
+            // Вершины полигона встают в начало кэша, остальные сдвигаются
+            int nextCount = 0;
+            for (int corner = offsets[face]; corner < offsets[face + 1]; corner++) {
+                int vertex = vertexIndices[corner];
+                // -2 отмечает вершины выбранного полигона, пока кэш собирается заново
+                if (cachePositions[vertex] != -2) {
+                    cachePositions[vertex] = -2;
+                    nextCache[nextCount++] = vertex;
+                }
+                removeFace(vertexFaces, vertexFaceStarts[vertex], remaining, vertex, face);
+            }
+            int faceSize = nextCount;
+            for (int i = 0; i < cacheCount; i++) {
+                int vertex = cache[i];
+                if (cachePositions[vertex] != -2) {
+                    nextCache[nextCount++] = vertex;
+                }
+            }
+            int[] swap = cache;
+            cache = nextCache;
+            nextCache = swap;
+            cacheCount = nextCount;
+
+            for (int i = 0; i < cacheCount; i++) {
+                int vertex = cache[i];
+                cachePositions[vertex] = i < cacheSize ? i : -1;
+                vertexScores[vertex] = score(cachePositions[vertex], remaining[vertex], faceSize, cacheSize);
+            }
+
+            // Следующий полигон - лучший среди полигонов при вершинах кэша
+            best = -1;
+            bestScore = -1;
+            for (int i = 0; i < cacheCount; i++) {
+                int vertex = cache[i];
+                int start = vertexFaceStarts[vertex];
+                for (int j = start; j < start + remaining[vertex]; j++) {
+                    int candidate = vertexFaces[j];
+                    float candidateScore = faceScore(vertexIndices, offsets, candidate, vertexScores);
+                    if (candidateScore > bestScore) {
+                        bestScore = candidateScore;
+                        best = candidate;
+                    }
+                }
+            }
+            if (cacheCount > cacheSize) {
+                cacheCount = cacheSize;
+            }
+        }
+        return order;
+    }
+
+    // Оценка вершины: позиция в кэше (первые lastFaceSize - вершины последнего полигона) и число
+    // оставшихся полигонов, чтобы одиночные полигоны не оставались на потом
+    private static float score(int cachePosition, int remaining, int lastFaceSize, int cacheSize) {
+        if (remaining == 0) {
+            return -1;
+        }
+        float result = 0;
+        if (cachePosition >= 0) {
+            if (cachePosition < lastFaceSize) {
+                result = LAST_FACE_SCORE;
+            } else {
+                float decay = 1 - (float) (cachePosition - lastFaceSize) / (cacheSize - lastFaceSize);
+                result = decay * (float) Math.sqrt(decay);
+            }
+        }
+        return result + VALENCE_BOOST_SCALE / (float) Math.sqrt(remaining);
+    }
+
+    private static float faceScore(int[] vertexIndices, int[] offsets, int face, float[] vertexScores) {
+        float result = 0;
+        for (int corner = offsets[face]; corner < offsets[face + 1]; corner++) {
+            result += vertexScores[vertexIndices[corner]];
+        }
+        return result;
+    }
+
+    private static void removeFace(int[] vertexFaces, int start, int[] remaining, int vertex, int face) {
+        int last = start + remaining[vertex] - 1;
+        for (int i = start; i <= last; i++) {
+            if (vertexFaces[i] == face) {
+                vertexFaces[i] = vertexFaces[last];
+                vertexFaces[last] = face;
+                remaining[vertex]--;
+                return;
+            }
+        }
+    }
+
+    // Индексы атрибута по углам полигонов; -1 - атрибута у полигона нет
+    private static int[] attributeIndices(List<Polygon> polygons, int[] offsets, boolean texture, int count) {
+        int[] result = new int[offsets[polygons.size()]];
+        for (int i = 0; i < polygons.size(); i++) {
+            Polygon polygon = polygons.get(i);
+            int size = offsets[i + 1] - offsets[i];
+            List<Integer> indices = MeshArrays.attribute(
+                    texture ? polygon.getTextureVertexIndices() : polygon.getNormalIndices(), size, i);
+            for (int corner = 0; corner < size; corner++) {
+                int index = -1;
+                if (indices != null) {
+                    Integer value = indices.get(corner);
+                    if (value == null) {
+                        throw new IllegalArgumentException("Model contains null elements");
+                    }
+                    if (value < 0 || value >= count) {
+                        throw new IllegalArgumentException("Polygon " + i + " references index " + value
+                                + " out of bounds for length " + count);
+                    }
+                    index = value;
+                }
+                result[offsets[i] + corner] = index;
+            }
+        }
+        return result;
+    }
+
+    // Новые номера элементов в порядке первого использования, неиспользуемые - в конце в прежнем порядке
+    private static int[] firstUse(int[] indices, int[] offsets, int[] order, int count) {
+        int[] mapping = new int[count];
+        for (int i = 0; i < count; i++) {
+            mapping[i] = -1;
+        }
+        int next = 0;
+        for (int face : order) {
+            for (int corner = offsets[face]; corner < offsets[face + 1]; corner++) {
+                int index = indices[corner];
+                if (index >= 0 && mapping[index] < 0) {
+                    mapping[index] = next++;
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (mapping[i] < 0) {
+                mapping[i] = next++;
+            }
+        }
+        return mapping;
+    }
+
+    private static <T> ArrayList<T> permute(List<T> elements, int[] mapping) {
+        ArrayList<T> result = new ArrayList<T>(elements);
+        for (int i = 0; i < mapping.length; i++) {
+            result.set(mapping[i], elements.get(i));
+        }
+        return result;
+    }
+
+    private static ArrayList<Integer> remap(int[] indices, int[] offsets, int face, int[] mapping) {
+        ArrayList<Integer> result = new ArrayList<Integer>(offsets[face + 1] - offsets[face]);
+        for (int corner = offsets[face]; corner < offsets[face + 1]; corner++) {
+            result.add(mapping[indices[corner]]);
+        }
+        return result;
+    }
+
+    private static int[] identity(int count) {
+        int[] mapping = new int[count];
+        for (int i = 0; i < count; i++) {
+            mapping[i] = i;
+        }
+        return mapping;
+    }
+}
@@ -0,0 +1,30 @@
+package com.cgvsu.mesh;
+
+public class VertexCacheOptions {
+    public static final int DEFAULT_CACHE_SIZE = 32;
+
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+    private boolean reorderVertices = true;
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    // Размер моделируемого кэша вершин видеокарты; по нему же считается ACMR
+    public void setCacheSize(int cacheSize) {
+        if (cacheSize < 4) {
+            throw new IllegalArgumentException("Cache size must be at least 4, got: " + cacheSize);
+        }
+        this.cacheSize = cacheSize;
+    }
+
+    public boolean isReorderVertices() {
+        return reorderVertices;
+    }
+
+    // После перестановки полигонов вершины, текстурные координаты и нормали нумеруются в порядке первого
+    // использования; неиспользуемые элементы остаются в конце списков
+    public void setReorderVertices(boolean reorderVertices) {
+        this.reorderVertices = reorderVertices;
+    }
+}
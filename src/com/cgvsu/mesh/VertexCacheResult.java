@@ -0,0 +1,16 @@
+package com.cgvsu.mesh;
+
+// Среднее число промахов кэша вершин на треугольник (ACMR) до и после перестановки полигонов.
+// Полигон из n вершин считается за n - 2 треугольника, кэш моделируется очередью FIFO
+public class VertexCacheResult {
+    float acmrBefore;
+    float acmrAfter;
+
+    public float getAcmrBefore() {
+        return acmrBefore;
+    }
+
+    public float getAcmrAfter() {
+        return acmrAfter;
+    }
+}
@@ -0,0 +1,48 @@
+package com.cgvsu.mesh;
+
+public class WeldOptions {
+    public static final float DEFAULT_TOLERANCE = 1e-6f;
+
+    private float tolerance = DEFAULT_TOLERANCE;
+    private boolean weldTextureVertices = true;
+    private boolean weldNormals = true;
+    private boolean removeDegenerateFaces = true;
+
+    public float getTolerance() {
+        return tolerance;
+    }
+
+    // Наибольшая разница по каждой координате, при которой элементы считаются одинаковыми; 0 - только точные копии
+    public void setTolerance(float tolerance) {
+        if (!(tolerance >= 0) || Float.isInfinite(tolerance)) {
+            throw new IllegalArgumentException("Tolerance must be non-negative and finite, got: " + tolerance);
+        }
+        this.tolerance = tolerance;
+    }
+
+    public boolean isWeldTextureVertices() {
+        return weldTextureVertices;
+    }
+
+    public void setWeldTextureVertices(boolean weldTextureVertices) {
+        this.weldTextureVertices = weldTextureVertices;
+    }
+
+    public boolean isWeldNormals() {
+        return weldNormals;
+    }
+
+    public void setWeldNormals(boolean weldNormals) {
+        this.weldNormals = weldNormals;
+    }
+
+    public boolean isRemoveDegenerateFaces() {
+        return removeDegenerateFaces;
+    }
+
+    // Соседние одинаковые вершины полигона после слияния схлопываются; полигон, у которого осталось
+    // меньше 3 вершин, удаляется. Если выключено, такие полигоны остаются как есть
+    public void setRemoveDegenerateFaces(boolean removeDegenerateFaces) {
+        this.removeDegenerateFaces = removeDegenerateFaces;
+    }
+}
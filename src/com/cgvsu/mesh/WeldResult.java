@@ -0,0 +1,32 @@
+package com.cgvsu.mesh;
+
+// Сколько элементов убрано при слиянии
+public class WeldResult {
+    int mergedVertices;
+    int mergedTextureVertices;
+    int mergedNormals;
+    int collapsedCorners;
+    int removedFaces;
+
+    public int getMergedVertices() {
+        return mergedVertices;
+    }
+
+    public int getMergedTextureVertices() {
+        return mergedTextureVertices;
+    }
+
+    public int getMergedNormals() {
+        return mergedNormals;
+    }
+
+    // Вершины полигонов, совпавшие с соседней вершиной того же полигона
+    public int getCollapsedCorners() {
+        return collapsedCorners;
+    }
+
+    // Полигоны, у которых осталось меньше 3 вершин
+    public int getRemovedFaces() {
+        return removedFaces;
+    }
+}
@@ -0,0 +1,501 @@
+package com.cgvsu.model;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+
+// Модель вне кучи Java: координаты и индексы лежат в direct ByteBuffer в порядке байт платформы.
+// Раскладка та же, что у PackedModel и PackedPolygons: x y z подряд для вершин и нормалей, u v для текстурных
+// координат, индексы вершин всех полигонов подряд и смещения начала каждого полигона.
+// Буферы можно сразу отдавать в рендер или писать в FileChannel без копирования в объекты.
+// Если у полигона нет текстурных индексов или индексов нормалей, на их месте записано -1.
+// Время жизни памяти явное, как у арены: все буферы модели принадлежат BufferArena и освобождаются вместе
+// в close(), не дожидаясь сборщика мусора. Выданные модели буферы (getVertexBuffer и т.п.) после close()
+// получают нулевую длину, и чтение из них бросает исключение. Производные от них буферы (asFloatBuffer,
+// duplicate, slice) не отслеживаются: их нужно перестать использовать до close(), память под ними уже освобождена.
+// Буфер, замененный большим при добавлении элементов, освобождается сразу, если представлений на него не выдавалось,
+// иначе - вместе с остальными в close(): до этого выданные представления остаются снимком данных.
+public class OffHeapModel implements AutoCloseable {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NO_INDEX = -1;
+
+    private final BufferArena arena = new BufferArena();
+
+    private ByteBuffer vertices = allocate(INITIAL_CAPACITY * 3 * Float.BYTES);
+    private int vertexCount;
+
+    private ByteBuffer textureVertices = allocate(INITIAL_CAPACITY * 2 * Float.BYTES);
+    private int textureVertexCount;
+
+    private ByteBuffer normals = allocate(INITIAL_CAPACITY * 3 * Float.BYTES);
+    private int normalCount;
+
+    private ByteBuffer polygonOffsets = allocate((INITIAL_CAPACITY + 1) * Integer.BYTES);
+    private int polygonCount;
+
+    private ByteBuffer vertexIndices = allocate(INITIAL_CAPACITY * 4 * Integer.BYTES);
+    private ByteBuffer textureVertexIndices;
+    private ByteBuffer normalIndices;
+    private int cornerCount;
+
+    private boolean closed;
+
+    public static OffHeapModel fromPackedModel(PackedModel model) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+
+        OffHeapModel result = new OffHeapModel();
+        for (int i = 0; i < model.getVertexCount(); i++) {
+            result.addVertex(model.getVertexX(i), model.getVertexY(i), model.getVertexZ(i));
+        }
+        for (int i = 0; i < model.getTextureVertexCount(); i++) {
+            result.addTextureVertex(model.getTextureVertexU(i), model.getTextureVertexV(i));
+        }
+        for (int i = 0; i < model.getNormalCount(); i++) {
+            result.addNormal(model.getNormalX(i), model.getNormalY(i), model.getNormalZ(i));
+        }
+
+        PackedPolygons polygons = model.getPolygons();
+        int[] v = new int[0];
+        int[] vt = new int[0];
+        int[] vn = new int[0];
+        for (int p = 0; p < polygons.getPolygonCount(); p++) {
+            int count = polygons.getPolygonVertexCount(p);
+            if (v.length < count) {
+                v = new int[count];
+                vt = new int[count];
+                vn = new int[count];
+            }
+            boolean hasTextures = polygons.hasTextureVertices(p);
+            boolean hasNormals = polygons.hasNormals(p);
+            for (int c = 0; c < count; c++) {
+                v[c] = polygons.getVertexIndex(p, c);
+                if (hasTextures) {
+                    vt[c] = polygons.getTextureVertexIndex(p, c);
+                }
+                if (hasNormals) {
+                    vn[c] = polygons.getNormalIndex(p, c);
+                }
+            }
+            result.addPolygon(v, hasTextures ? vt : null, hasNormals ? vn : null, count);
+        }
+        return result;
+    }
+
+    public PackedModel toPackedModel() {
+        checkOpen();
+        PackedModel result = new PackedModel();
+        result.ensureVertexCapacity(vertexCount);
+        for (int i = 0; i < vertexCount; i++) {
+            result.addVertex(getVertexX(i), getVertexY(i), getVertexZ(i));
+        }
+        result.ensureTextureVertexCapacity(textureVertexCount);
+        for (int i = 0; i < textureVertexCount; i++) {
+            result.addTextureVertex(getTextureVertexU(i), getTextureVertexV(i));
+        }
+        result.ensureNormalCapacity(normalCount);
+        for (int i = 0; i < normalCount; i++) {
+            result.addNormal(getNormalX(i), getNormalY(i), getNormalZ(i));
+        }
+
+        PackedPolygons polygons = result.getPolygons();
+        polygons.ensurePolygonCapacity(polygonCount);
+        polygons.ensureCornerCapacity(cornerCount);
+        int[] v = new int[0];
+        int[] vt = new int[0];
+        int[] vn = new int[0];
+        for (int p = 0; p < polygonCount; p++) {
+            int start = getPolygonStart(p);
+            int count = getPolygonVertexCount(p);
+            if (v.length < count) {
+                v = new int[count];
+                vt = new int[count];
+                vn = new int[count];
+            }
+            for (int c = 0; c < count; c++) {
+                v[c] = vertexIndices.getInt((start + c) * Integer.BYTES);
+            }
+            boolean hasTextures = hasTextureVertices(p);
+            boolean hasNormals = hasNormals(p);
+            for (int c = 0; hasTextures && c < count; c++) {
+                vt[c] = textureVertexIndices.getInt((start + c) * Integer.BYTES);
+            }
+            for (int c = 0; hasNormals && c < count; c++) {
+                vn[c] = normalIndices.getInt((start + c) * Integer.BYTES);
+            }
+            polygons.addPolygon(v, hasTextures ? vt : null, hasNormals ? vn : null, count);
+        }
+        return result;
+    }
+
+    public Model toModel() {
+        return toPackedModel().toModel();
+    }
+
+    // Вершины
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public void addVertex(float x, float y, float z) {
+        checkOpen();
+        vertices = ensureCapacity(vertices, (vertexCount + 1) * 3 * Float.BYTES);
+        int offset = vertexCount * 3 * Float.BYTES;
+        vertices.putFloat(offset, x);
+        vertices.putFloat(offset + Float.BYTES, y);
+        vertices.putFloat(offset + 2 * Float.BYTES, z);
+        vertexCount++;
+    }
+
+    public float getVertexX(int index) {
+        return vertices.getFloat(floatOffset(index, vertexCount, 3, 0));
+    }
+
+    public float getVertexY(int index) {
+        return vertices.getFloat(floatOffset(index, vertexCount, 3, 1));
+    }
+
+    public float getVertexZ(int index) {
+        return vertices.getFloat(floatOffset(index, vertexCount, 3, 2));
+    }
+
+    // Координаты вершин: ровно getVertexCount() * 3 чисел float, буфер только для чтения
+    public ByteBuffer getVertexBuffer() {
+        return view(vertices, vertexCount * 3 * Float.BYTES);
+    }
+
+    // Текстурные вершины
+
+    public int getTextureVertexCount() {
+        return textureVertexCount;
+    }
+
+    public void addTextureVertex(float u, float v) {
+        checkOpen();
+        textureVertices = ensureCapacity(textureVertices, (textureVertexCount + 1) * 2 * Float.BYTES);
+        int offset = textureVertexCount * 2 * Float.BYTES;
+        textureVertices.putFloat(offset, u);
+        textureVertices.putFloat(offset + Float.BYTES, v);
+        textureVertexCount++;
+    }
+
+    public float getTextureVertexU(int index) {
+        return textureVertices.getFloat(floatOffset(index, textureVertexCount, 2, 0));
+    }
+
+    public float getTextureVertexV(int index) {
+        return textureVertices.getFloat(floatOffset(index, textureVertexCount, 2, 1));
+    }
+
+    public ByteBuffer getTextureVertexBuffer() {
+        return view(textureVertices, textureVertexCount * 2 * Float.BYTES);
+    }
+
+    // Нормали
+
+    public int getNormalCount() {
+        return normalCount;
+    }
+
+    public void addNormal(float x, float y, float z) {
+        checkOpen();
+        normals = ensureCapacity(normals, (normalCount + 1) * 3 * Float.BYTES);
+        int offset = normalCount * 3 * Float.BYTES;
+        normals.putFloat(offset, x);
+        normals.putFloat(offset + Float.BYTES, y);
+        normals.putFloat(offset + 2 * Float.BYTES, z);
+        normalCount++;
+    }
+
+    public float getNormalX(int index) {
+        return normals.getFloat(floatOffset(index, normalCount, 3, 0));
+    }
+
+    public float getNormalY(int index) {
+        return normals.getFloat(floatOffset(index, normalCount, 3, 1));
+    }
+
+    public float getNormalZ(int index) {
+        return normals.getFloat(floatOffset(index, normalCount, 3, 2));
+    }
+
+    public ByteBuffer getNormalBuffer() {
+        return view(normals, normalCount * 3 * Float.BYTES);
+    }
+
+    // Полигоны
+
+    public int getPolygonCount() {
+        return polygonCount;
+    }
+
+    public int getCornerCount() {
+        return cornerCount;
+    }
+
+    // textureVertexIndices и normalIndices могут быть null; иначе в них должно быть не меньше count индексов
+    public void addPolygon(int[] vertexIndices, int[] textureVertexIndices, int[] normalIndices, int count) {
+        checkOpen();
+        if (vertexIndices == null) {
+            throw new IllegalArgumentException("Vertex indices cannot be null");
+        }
+        if (count < 3) {
+            throw new IllegalArgumentException("Polygon must have at least 3 vertices, got: " + count);
+        }
+
+        int start = cornerCount;
+        int end = start + count;
+        polygonOffsets = ensureCapacity(polygonOffsets, (polygonCount + 2) * Integer.BYTES);
+        this.vertexIndices = ensureCapacity(this.vertexIndices, end * Integer.BYTES);
+        if (textureVertexIndices != null && this.textureVertexIndices == null) {
+            this.textureVertexIndices = allocateIndices(this.vertexIndices.capacity(), start);
+        }
+        if (normalIndices != null && this.normalIndices == null) {
+            this.normalIndices = allocateIndices(this.vertexIndices.capacity(), start);
+        }
+        if (this.textureVertexIndices != null) {
+            this.textureVertexIndices = ensureCapacity(this.textureVertexIndices, this.vertexIndices.capacity());
+        }
+        if (this.normalIndices != null) {
+            this.normalIndices = ensureCapacity(this.normalIndices, this.vertexIndices.capacity());
+        }
+
+        for (int c = 0; c < count; c++) {
+            int offset = (start + c) * Integer.BYTES;
+            this.vertexIndices.putInt(offset, vertexIndices[c]);
+            if (this.textureVertexIndices != null) {
+                this.textureVertexIndices.putInt(offset, textureVertexIndices == null ? NO_INDEX : textureVertexIndices[c]);
+            }
+            if (this.normalIndices != null) {
+                this.normalIndices.putInt(offset, normalIndices == null ? NO_INDEX : normalIndices[c]);
+            }
+        }
+
+        polygonCount++;
+        polygonOffsets.putInt(polygonCount * Integer.BYTES, end);
+        cornerCount = end;
+    }
+
+    public int getPolygonStart(int polygon) {
+        checkOpen();
+        return polygonOffsets.getInt(checkIndex(polygon, polygonCount) * Integer.BYTES);
+    }
+
+    public int getPolygonVertexCount(int polygon) {
+        return polygonOffsets.getInt((checkIndex(polygon, polygonCount) + 1) * Integer.BYTES) - getPolygonStart(polygon);
+    }
+
+    public int getVertexIndex(int polygon, int corner) {
+        return vertexIndices.getInt(cornerOffset(polygon, corner));
+    }
+
+    public boolean hasTextureVertices(int polygon) {
+        return textureVertexIndices != null
+                && textureVertexIndices.getInt(getPolygonStart(polygon) * Integer.BYTES) != NO_INDEX;
+    }
+
+    // Для полигона без текстурных координат возвращает -1
+    public int getTextureVertexIndex(int polygon, int corner) {
+        int offset = cornerOffset(polygon, corner);
+        return textureVertexIndices == null ? NO_INDEX : textureVertexIndices.getInt(offset);
+    }
+
+    public boolean hasNormals(int polygon) {
+        return normalIndices != null
+                && normalIndices.getInt(getPolygonStart(polygon) * Integer.BYTES) != NO_INDEX;
+    }
+
+    public int getNormalIndex(int polygon, int corner) {
+        int offset = cornerOffset(polygon, corner);
+        return normalIndices == null ? NO_INDEX : normalIndices.getInt(offset);
+    }
+
+    // Смещения полигонов: getPolygonCount() + 1 чисел int, полигон i занимает углы [offsets[i], offsets[i + 1])
+    public ByteBuffer getPolygonOffsetBuffer() {
+        return view(polygonOffsets, (polygonCount + 1) * Integer.BYTES);
+    }
+
+    // Индексы вершин всех полигонов подряд: getCornerCount() чисел int
+    public ByteBuffer getVertexIndexBuffer() {
+        return view(vertexIndices, cornerCount * Integer.BYTES);
+    }
+
+    // null, если ни у одного полигона нет текстурных индексов
+    public ByteBuffer getTextureVertexIndexBuffer() {
+        return textureVertexIndices == null ? null : view(textureVertexIndices, cornerCount * Integer.BYTES);
+    }
+
+    public ByteBuffer getNormalIndexBuffer() {
+        return normalIndices == null ? null : view(normalIndices, cornerCount * Integer.BYTES);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // Освобождает память всех буферов модели и обнуляет выданные представления. Повторный вызов ничего не делает
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        arena.close();
+        vertices = null;
+        textureVertices = null;
+        normals = null;
+        polygonOffsets = null;
+        vertexIndices = null;
+        textureVertexIndices = null;
+        normalIndices = null;
+        vertexCount = 0;
+        textureVertexCount = 0;
+        normalCount = 0;
+        polygonCount = 0;
+        cornerCount = 0;
+    }
+
+    private ByteBuffer view(ByteBuffer buffer, int length) {
+        checkOpen();
+        return arena.view(buffer, length);
+    }
+
+    private int floatOffset(int index, int count, int components, int component) {
+        checkOpen();
+        return (checkIndex(index, count) * components + component) * Float.BYTES;
+    }
+
+    private int cornerOffset(int polygon, int corner) {
+        checkOpen();
+        int start = getPolygonStart(polygon);
+        int count = getPolygonVertexCount(polygon);
+        if (corner < 0 || corner >= count) {
+            throw new IndexOutOfBoundsException("Corner " + corner + " out of bounds for polygon of " + count + " vertices");
+        }
+        return (start + corner) * Integer.BYTES;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Model is closed");
+        }
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return arena.allocate(capacity);
+    }
+
+    // Индексы атрибутов появляются при первом полигоне, где они есть; у предыдущих полигонов их нет
+    private ByteBuffer allocateIndices(int capacity, int filledCorners) {
+        ByteBuffer result = allocate(capacity);
+        for (int c = 0; c < filledCorners; c++) {
+            result.putInt(c * Integer.BYTES, NO_INDEX);
+        }
+        return result;
+    }
+
+    private ByteBuffer ensureCapacity(ByteBuffer buffer, int capacity) {
+        if (capacity <= buffer.capacity()) {
+            return buffer;
+        }
+        ByteBuffer result = allocate(Math.max(capacity, buffer.capacity() + (buffer.capacity() >> 1)));
+        result.put(0, buffer, 0, buffer.capacity());
+        arena.replaced(buffer);
+        return result;
+    }
+
+    private static int checkIndex(int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+        }
+        return index;
+    }
+
+    // Владелец direct буферов модели. Память освобождается явно через Unsafe.invokeCleaner из модуля
+    // jdk.unsupported; если он недоступен, освобождение остается сборщику мусора, а представления все равно обнуляются
+    private static class BufferArena {
+        private static final MethodHandle INVOKE_CLEANER = findCleaner();
+
+        private final Set<ByteBuffer> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+        // Буферы, на которые выдавались представления: при замене они живут до close()
+        private final Set<ByteBuffer> viewed = Collections.newSetFromMap(new IdentityHashMap<>());
+        // Представления держатся слабо, чтобы частые getVertexBuffer() не копили ссылки
+        private final ArrayList<WeakReference<ByteBuffer>> views = new ArrayList<>();
+        private int pruneThreshold = INITIAL_CAPACITY;
+
+        private ByteBuffer allocate(int capacity) {
+            ByteBuffer result = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+            buffers.add(result);
+            return result;
+        }
+
+        private void replaced(ByteBuffer buffer) {
+            if (!viewed.contains(buffer)) {
+                buffers.remove(buffer);
+                free(buffer);
+            }
+        }
+
+        private ByteBuffer view(ByteBuffer buffer, int length) {
+            ByteBuffer result = buffer.asReadOnlyBuffer().limit(length).order(ByteOrder.nativeOrder());
+            viewed.add(buffer);
+            if (views.size() >= pruneThreshold) {
+                views.removeIf(reference -> reference.get() == null);
+                pruneThreshold = Math.max(INITIAL_CAPACITY, views.size() * 2);
+            }
+            views.add(new WeakReference<>(result));
+            return result;
+        }
+
+        private void close() {
+            for (WeakReference<ByteBuffer> reference : views) {
+                ByteBuffer view = reference.get();
+                if (view != null) {
+                    view.limit(0);
+                }
+            }
+            views.clear();
+            viewed.clear();
+            Iterator<ByteBuffer> iterator = buffers.iterator();
+            while (iterator.hasNext()) {
+                free(iterator.next());
+                iterator.remove();
+            }
+        }
+
+        private static void free(ByteBuffer buffer) {
+            if (INVOKE_CLEANER == null) {
+                return;
+            }
+            try {
+                INVOKE_CLEANER.invokeExact(buffer);
+            } catch (Throwable e) {
+                // Не получилось - память освободит сборщик мусора
+            }
+        }
+
+        private static MethodHandle findCleaner() {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                return MethodHandles.lookup()
+                        .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                        .bindTo(field.get(null));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.cgvsu.model;
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Та же модель, что и Model, но координаты лежат подряд в массивах float:
+// x0 y0 z0 x1 y1 z1 ... для вершин и нормалей, u0 v0 u1 v1 ... для текстурных координат.
+// Объект на каждую вершину не создается, массивы растут по мере добавления. Полигоны хранятся в PackedPolygons.
+public class PackedModel {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private float[] vertices = new float[INITIAL_CAPACITY * 3];
+    private int vertexCount;
+
+    private float[] textureVertices = new float[INITIAL_CAPACITY * 2];
+    private int textureVertexCount;
+
+    private float[] normals = new float[INITIAL_CAPACITY * 3];
+    private int normalCount;
+
+    private PackedPolygons polygons = new PackedPolygons();
+
+    private boolean readOnly;
+
+    public static PackedModel fromModel(Model model) {
+        if (model == null) {
+            throw new IllegalArgumentException("Model cannot be null");
+        }
+
+        PackedModel result = new PackedModel();
+        result.ensureVertexCapacity(model.getVertices().size());
+        for (Vector3f vertex : model.getVertices()) {
+            result.addVertex(vertex.getX(), vertex.getY(), vertex.getZ());
+        }
+
+        result.ensureTextureVertexCapacity(model.getTextureVertices().size());
+        for (Vector2f textureVertex : model.getTextureVertices()) {
+            result.addTextureVertex(textureVertex.getX(), textureVertex.getY());
+        }
+
+        result.ensureNormalCapacity(model.getNormals().size());
+        for (Vector3f normal : model.getNormals()) {
+            result.addNormal(normal.getX(), normal.getY(), normal.getZ());
+        }
+
+        result.polygons.ensurePolygonCapacity(model.getPolygons().size());
+        for (Polygon polygon : model.getPolygons()) {
+            result.polygons.addPolygon(polygon);
+        }
+        return result;
+    }
+
+    // Модель из готовых массивов координат без копирования, массивы переходят во владение модели
+    public static PackedModel of(float[] vertices, float[] textureVertices, float[] normals, PackedPolygons polygons) {
+        if (vertices == null || textureVertices == null || normals == null || polygons == null) {
+            throw new IllegalArgumentException("Arrays and polygons cannot be null");
+        }
+        if (vertices.length % 3 != 0 || textureVertices.length % 2 != 0 || normals.length % 3 != 0) {
+            throw new IllegalArgumentException("Array lengths must be multiples of the component count");
+        }
+
+        PackedModel result = new PackedModel();
+        result.vertices = vertices;
+        result.vertexCount = vertices.length / 3;
+        result.textureVertices = textureVertices;
+        result.textureVertexCount = textureVertices.length / 2;
+        result.normals = normals;
+        result.normalCount = normals.length / 3;
+        result.polygons = polygons;
+        return result;
+    }
+
+    public Model toModel() {
+        Model result = new Model();
+
+        ArrayList<Vector3f> resultVertices = new ArrayList<Vector3f>(vertexCount);
+        for (int i = 0; i < vertexCount; i++) {
+            resultVertices.add(new Vector3f(getVertexX(i), getVertexY(i), getVertexZ(i)));
+        }
+        result.setVertices(resultVertices);
+
+        ArrayList<Vector2f> resultTextureVertices = new ArrayList<Vector2f>(textureVertexCount);
+        for (int i = 0; i < textureVertexCount; i++) {
+            resultTextureVertices.add(new Vector2f(getTextureVertexU(i), getTextureVertexV(i)));
+        }
+        result.setTextureVertices(resultTextureVertices);
+
+        ArrayList<Vector3f> resultNormals = new ArrayList<Vector3f>(normalCount);
+        for (int i = 0; i < normalCount; i++) {
+            resultNormals.add(new Vector3f(getNormalX(i), getNormalY(i), getNormalZ(i)));
+        }
+        result.setNormals(resultNormals);
+
+        result.setPolygons(polygons.toPolygons());
+        return result;
+    }
+
+    // Вершины
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public void addVertex(float x, float y, float z) {
+        checkWritable();
+        if (vertexCount * 3 + 3 > vertices.length) {
+            vertices = grow(vertices, vertexCount * 3 + 3);
+        }
+        int offset = vertexCount * 3;
+        vertices[offset] = x;
+        vertices[offset + 1] = y;
+        vertices[offset + 2] = z;
+        vertexCount++;
+    }
+
+    public float getVertexX(int index) {
+        return vertices[checkIndex(index, vertexCount) * 3];
+    }
+
+    public float getVertexY(int index) {
+        return vertices[checkIndex(index, vertexCount) * 3 + 1];
+    }
+
+    public float getVertexZ(int index) {
+        return vertices[checkIndex(index, vertexCount) * 3 + 2];
+    }
+
+    public void setVertex(int index, float x, float y, float z) {
+        checkWritable();
+        int offset = checkIndex(index, vertexCount) * 3;
+        vertices[offset] = x;
+        vertices[offset + 1] = y;
+        vertices[offset + 2] = z;
+    }
+
+    // Копия координат вершин: ровно getVertexCount() * 3 чисел
+    public float[] toVertexArray() {
+        return Arrays.copyOf(vertices, vertexCount * 3);
+    }
+
+    public void ensureVertexCapacity(int capacity) {
+        checkWritable();
+        if (capacity * 3 > vertices.length) {
+            vertices = Arrays.copyOf(vertices, capacity * 3);
+        }
+    }
+
+    // Текстурные вершины
+
+    public int getTextureVertexCount() {
+        return textureVertexCount;
+    }
+
+    public void addTextureVertex(float u, float v) {
+        checkWritable();
+        if (textureVertexCount * 2 + 2 > textureVertices.length) {
+            textureVertices = grow(textureVertices, textureVertexCount * 2 + 2);
+        }
+        int offset = textureVertexCount * 2;
+        textureVertices[offset] = u;
+        textureVertices[offset + 1] = v;
+        textureVertexCount++;
+    }
+
+    public float getTextureVertexU(int index) {
+        return textureVertices[checkIndex(index, textureVertexCount) * 2];
+    }
+
+    public float getTextureVertexV(int index) {
+        return textureVertices[checkIndex(index, textureVertexCount) * 2 + 1];
+    }
+
+    public void setTextureVertex(int index, float u, float v) {
+        checkWritable();
+        int offset = checkIndex(index, textureVertexCount) * 2;
+        textureVertices[offset] = u;
+        textureVertices[offset + 1] = v;
+    }
+
+    public float[] toTextureVertexArray() {
+        return Arrays.copyOf(textureVertices, textureVertexCount * 2);
+    }
+
+    public void ensureTextureVertexCapacity(int capacity) {
+        checkWritable();
+        if (capacity * 2 > textureVertices.length) {
+            textureVertices = Arrays.copyOf(textureVertices, capacity * 2);
+        }
+    }
+
+    // Нормали
+
+    public int getNormalCount() {
+        return normalCount;
+    }
+
+    public void addNormal(float x, float y, float z) {
+        checkWritable();
+        if (normalCount * 3 + 3 > normals.length) {
+            normals = grow(normals, normalCount * 3 + 3);
+        }
+        int offset = normalCount * 3;
+        normals[offset] = x;
+        normals[offset + 1] = y;
+        normals[offset + 2] = z;
+        normalCount++;
+    }
+
+    public float getNormalX(int index) {
+        return normals[checkIndex(index, normalCount) * 3];
+    }
+
+    public float getNormalY(int index) {
+        return normals[checkIndex(index, normalCount) * 3 + 1];
+    }
+
+    public float getNormalZ(int index) {
+        return normals[checkIndex(index, normalCount) * 3 + 2];
+    }
+
+    public void setNormal(int index, float x, float y, float z) {
+        checkWritable();
+        int offset = checkIndex(index, normalCount) * 3;
+        normals[offset] = x;
+        normals[offset + 1] = y;
+        normals[offset + 2] = z;
+    }
+
+    public float[] toNormalArray() {
+        return Arrays.copyOf(normals, normalCount * 3);
+    }
+
+    // Заменяет все нормали массивом x0 y0 z0 x1 y1 z1 ... без копирования, массив переходит во владение модели
+    public void setNormals(float[] normals) {
+        checkWritable();
+        if (normals == null || normals.length % 3 != 0) {
+            throw new IllegalArgumentException("Normals cannot be null and must have a multiple of 3 elements");
+        }
+        this.normals = normals;
+        this.normalCount = normals.length / 3;
+    }
+
+    public void ensureNormalCapacity(int capacity) {
+        checkWritable();
+        if (capacity * 3 > normals.length) {
+            normals = Arrays.copyOf(normals, capacity * 3);
+        }
+    }
+
+    // Полигоны
+
+    public PackedPolygons getPolygons() {
+        return polygons;
+    }
+
+    public void setPolygons(PackedPolygons polygons) {
+        checkWritable();
+        if (polygons == null) {
+            throw new IllegalArgumentException("Polygons cannot be null");
+        }
+        this.polygons = polygons;
+    }
+
+    // Отбрасывает неиспользованный запас в массивах
+    public void trimToSize() {
+        checkWritable();
+        vertices = Arrays.copyOf(vertices, vertexCount * 3);
+        textureVertices = Arrays.copyOf(textureVertices, textureVertexCount * 2);
+        normals = Arrays.copyOf(normals, normalCount * 3);
+        polygons.trimToSize();
+    }
+
+    // Представление только для чтения поверх тех же массивов: изменяющие методы бросают UnsupportedOperationException.
+    // Исходную модель после этого менять не следует, иначе изменения будут видны и через представление
+    public PackedModel asReadOnly() {
+        if (readOnly) {
+            return this;
+        }
+        PackedModel result = new PackedModel();
+        result.vertices = vertices;
+        result.vertexCount = vertexCount;
+        result.textureVertices = textureVertices;
+        result.textureVertexCount = textureVertexCount;
+        result.normals = normals;
+        result.normalCount = normalCount;
+        result.polygons = polygons.asReadOnly();
+        result.readOnly = true;
+        return result;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    // Примерный объем памяти под массивы модели и полигонов
+    public long estimateSizeInBytes() {
+        return (long) vertices.length * Float.BYTES
+                + (long) textureVertices.length * Float.BYTES
+                + (long) normals.length * Float.BYTES
+                + polygons.estimateSizeInBytes();
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Model is read-only");
+        }
+    }
+
+    private static float[] grow(float[] array, int minLength) {
+        return Arrays.copyOf(array, Math.max(minLength, array.length + (array.length >> 1)));
+    }
+
+    private static int checkIndex(int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+        }
+        return index;
+    }
+}
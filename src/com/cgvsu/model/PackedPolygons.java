@@ -0,0 +1,315 @@
+package com.cgvsu.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Полигоны в сжатом виде (CSR): индексы всех полигонов лежат подряд в общих массивах int[],
+// а полигон i занимает в них диапазон [offsets[i], offsets[i + 1]).
+// Текстурные индексы и индексы нормалей идут параллельно индексам вершин. У полигона они есть либо
+// для всех вершин, либо ни для одной; это отмечено флагами. Массивы атрибутов создаются при первом использовании.
+public class PackedPolygons {
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Флаги полигона в toFlagArray()
+    public static final byte HAS_TEXTURE_VERTICES = 1;
+    public static final byte HAS_NORMALS = 2;
+
+    private int[] offsets = new int[INITIAL_CAPACITY + 1];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private int polygonCount;
+
+    private int[] vertexIndices = new int[INITIAL_CAPACITY * 4];
+    private int[] textureVertexIndices;
+    private int[] normalIndices;
+
+    private boolean readOnly;
+
+    // Собирает полигоны из готовых массивов без копирования, массивы переходят во владение объекта.
+    // offsets - polygonCount + 1 смещений, начиная с 0; textureVertexIndices и normalIndices могут быть null,
+    // если ни у одного полигона соответствующего флага нет
+    public static PackedPolygons of(int[] offsets, byte[] flags, int[] vertexIndices,
+                                    int[] textureVertexIndices, int[] normalIndices) {
+        if (offsets == null || flags == null || vertexIndices == null) {
+            throw new IllegalArgumentException("Offsets, flags and vertex indices cannot be null");
+        }
+        int polygonCount = flags.length;
+        if (offsets.length != polygonCount + 1 || offsets[0] != 0) {
+            throw new IllegalArgumentException("Offsets must start with 0 and have polygon count + 1 elements");
+        }
+        for (int i = 0; i < polygonCount; i++) {
+            if (offsets[i + 1] - offsets[i] < 3) {
+                throw new IllegalArgumentException("Polygon " + i + " must have at least 3 vertices");
+            }
+            if ((flags[i] & HAS_TEXTURE_VERTICES) != 0 && textureVertexIndices == null) {
+                throw new IllegalArgumentException("Polygon " + i + " has texture vertices, but texture vertex indices are null");
+            }
+            if ((flags[i] & HAS_NORMALS) != 0 && normalIndices == null) {
+                throw new IllegalArgumentException("Polygon " + i + " has normals, but normal indices are null");
+            }
+        }
+        int cornerCount = offsets[polygonCount];
+        if (vertexIndices.length < cornerCount
+                || (textureVertexIndices != null && textureVertexIndices.length < cornerCount)
+                || (normalIndices != null && normalIndices.length < cornerCount)) {
+            throw new IllegalArgumentException("Index arrays must have at least " + cornerCount + " elements");
+        }
+
+        PackedPolygons result = new PackedPolygons();
+        result.offsets = offsets;
+        result.flags = flags;
+        result.polygonCount = polygonCount;
+        result.vertexIndices = vertexIndices;
+        result.textureVertexIndices = textureVertexIndices;
+        result.normalIndices = normalIndices;
+        return result;
+    }
+
+    public int getPolygonCount() {
+        return polygonCount;
+    }
+
+    public boolean isEmpty() {
+        return polygonCount == 0;
+    }
+
+    // Общее количество вершин во всех полигонах
+    public int getCornerCount() {
+        return offsets[polygonCount];
+    }
+
+    // textureVertexIndices и normalIndices могут быть null; иначе в них должно быть не меньше count индексов
+    public void addPolygon(int[] vertexIndices, int[] textureVertexIndices, int[] normalIndices, int count) {
+        checkWritable();
+        if (vertexIndices == null) {
+            throw new IllegalArgumentException("Vertex indices cannot be null");
+        }
+        if (count < 3) {
+            throw new IllegalArgumentException("Polygon must have at least 3 vertices, got: " + count);
+        }
+
+        ensurePolygonCapacity(polygonCount + 1);
+        int start = offsets[polygonCount];
+        ensureCornerCapacity(start + count);
+
+        System.arraycopy(vertexIndices, 0, this.vertexIndices, start, count);
+
+        byte polygonFlags = 0;
+        if (textureVertexIndices != null) {
+            if (this.textureVertexIndices == null) {
+                this.textureVertexIndices = new int[this.vertexIndices.length];
+            }
+            System.arraycopy(textureVertexIndices, 0, this.textureVertexIndices, start, count);
+            polygonFlags |= HAS_TEXTURE_VERTICES;
+        }
+        if (normalIndices != null) {
+            if (this.normalIndices == null) {
+                this.normalIndices = new int[this.vertexIndices.length];
+            }
+            System.arraycopy(normalIndices, 0, this.normalIndices, start, count);
+            polygonFlags |= HAS_NORMALS;
+        }
+
+        flags[polygonCount] = polygonFlags;
+        offsets[polygonCount + 1] = start + count;
+        polygonCount++;
+    }
+
+    public void addPolygon(Polygon polygon) {
+        checkWritable();
+        List<Integer> polygonVertexIndices = polygon.getVertexIndices();
+        List<Integer> polygonTextureVertexIndices = polygon.getTextureVertexIndices();
+        List<Integer> polygonNormalIndices = polygon.getNormalIndices();
+        int count = polygonVertexIndices.size();
+
+        boolean hasTextures = polygonTextureVertexIndices != null && !polygonTextureVertexIndices.isEmpty();
+        boolean hasNormals = polygonNormalIndices != null && !polygonNormalIndices.isEmpty();
+        if (hasTextures && polygonTextureVertexIndices.size() != count) {
+            throw new IllegalArgumentException("Polygon has mismatched vertex and texture vertex counts");
+        }
+        if (hasNormals && polygonNormalIndices.size() != count) {
+            throw new IllegalArgumentException("Polygon has mismatched vertex and normal counts");
+        }
+
+        addPolygon(
+                toArray(polygonVertexIndices),
+                hasTextures ? toArray(polygonTextureVertexIndices) : null,
+                hasNormals ? toArray(polygonNormalIndices) : null,
+                count);
+    }
+
+    // Первая вершина полигона в общих массивах индексов
+    public int getPolygonStart(int polygon) {
+        return offsets[checkPolygon(polygon)];
+    }
+
+    public int getPolygonVertexCount(int polygon) {
+        checkPolygon(polygon);
+        return offsets[polygon + 1] - offsets[polygon];
+    }
+
+    public int getVertexIndex(int polygon, int corner) {
+        return vertexIndices[cornerOffset(polygon, corner)];
+    }
+
+    public boolean hasTextureVertices(int polygon) {
+        return (flags[checkPolygon(polygon)] & HAS_TEXTURE_VERTICES) != 0;
+    }
+
+    // Для полигона без текстурных координат бросает IllegalStateException
+    public int getTextureVertexIndex(int polygon, int corner) {
+        int offset = cornerOffset(polygon, corner);
+        if (!hasTextureVertices(polygon)) {
+            throw new IllegalStateException("Polygon " + polygon + " has no texture vertex indices");
+        }
+        return textureVertexIndices[offset];
+    }
+
+    public boolean hasNormals(int polygon) {
+        return (flags[checkPolygon(polygon)] & HAS_NORMALS) != 0;
+    }
+
+    public int getNormalIndex(int polygon, int corner) {
+        int offset = cornerOffset(polygon, corner);
+        if (!hasNormals(polygon)) {
+            throw new IllegalStateException("Polygon " + polygon + " has no normal indices");
+        }
+        return normalIndices[offset];
+    }
+
+    // Представление полигона в стиле Polygon без копирования индексов
+    public PolygonView get(int polygon) {
+        checkPolygon(polygon);
+        return new PolygonView(this, polygon);
+    }
+
+    // Копии внутренних массивов ровно нужной длины
+
+    public int[] toOffsetArray() {
+        return Arrays.copyOf(offsets, polygonCount + 1);
+    }
+
+    public byte[] toFlagArray() {
+        return Arrays.copyOf(flags, polygonCount);
+    }
+
+    public int[] toVertexIndexArray() {
+        return Arrays.copyOf(vertexIndices, getCornerCount());
+    }
+
+    // null, если ни у одного полигона нет текстурных индексов
+    public int[] toTextureVertexIndexArray() {
+        return textureVertexIndices == null ? null : Arrays.copyOf(textureVertexIndices, getCornerCount());
+    }
+
+    public int[] toNormalIndexArray() {
+        return normalIndices == null ? null : Arrays.copyOf(normalIndices, getCornerCount());
+    }
+
+    public ArrayList<Polygon> toPolygons() {
+        ArrayList<Polygon> result = new ArrayList<Polygon>(polygonCount);
+        for (int i = 0; i < polygonCount; i++) {
+            result.add(get(i).toPolygon());
+        }
+        return result;
+    }
+
+    public void trimToSize() {
+        checkWritable();
+        int cornerCount = getCornerCount();
+        offsets = Arrays.copyOf(offsets, polygonCount + 1);
+        flags = Arrays.copyOf(flags, polygonCount);
+        vertexIndices = Arrays.copyOf(vertexIndices, cornerCount);
+        if (textureVertexIndices != null) {
+            textureVertexIndices = Arrays.copyOf(textureVertexIndices, cornerCount);
+        }
+        if (normalIndices != null) {
+            normalIndices = Arrays.copyOf(normalIndices, cornerCount);
+        }
+    }
+
+    public void ensurePolygonCapacity(int capacity) {
+        checkWritable();
+        if (capacity > flags.length) {
+            int newCapacity = Math.max(capacity, flags.length + (flags.length >> 1));
+            flags = Arrays.copyOf(flags, newCapacity);
+            offsets = Arrays.copyOf(offsets, newCapacity + 1);
+        }
+    }
+
+    public void ensureCornerCapacity(int capacity) {
+        checkWritable();
+        if (capacity > vertexIndices.length) {
+            int newCapacity = Math.max(capacity, vertexIndices.length + (vertexIndices.length >> 1));
+            vertexIndices = Arrays.copyOf(vertexIndices, newCapacity);
+            if (textureVertexIndices != null) {
+                textureVertexIndices = Arrays.copyOf(textureVertexIndices, newCapacity);
+            }
+            if (normalIndices != null) {
+                normalIndices = Arrays.copyOf(normalIndices, newCapacity);
+            }
+        }
+    }
+
+    // Представление только для чтения поверх тех же массивов
+    public PackedPolygons asReadOnly() {
+        if (readOnly) {
+            return this;
+        }
+        PackedPolygons result = new PackedPolygons();
+        result.offsets = offsets;
+        result.flags = flags;
+        result.polygonCount = polygonCount;
+        result.vertexIndices = vertexIndices;
+        result.textureVertexIndices = textureVertexIndices;
+        result.normalIndices = normalIndices;
+        result.readOnly = true;
+        return result;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public long estimateSizeInBytes() {
+        long size = (long) offsets.length * Integer.BYTES + flags.length + (long) vertexIndices.length * Integer.BYTES;
+        if (textureVertexIndices != null) {
+            size += (long) textureVertexIndices.length * Integer.BYTES;
+        }
+        if (normalIndices != null) {
+            size += (long) normalIndices.length * Integer.BYTES;
+        }
+        return size;
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Polygons are read-only");
+        }
+    }
+
+    private int cornerOffset(int polygon, int corner) {
+        checkPolygon(polygon);
+        int start = offsets[polygon];
+        if (corner < 0 || corner >= offsets[polygon + 1] - start) {
+            throw new IndexOutOfBoundsException(
+                    "Corner " + corner + " out of bounds for polygon of " + (offsets[polygon + 1] - start) + " vertices");
+        }
+        return start + corner;
+    }
+
+    private int checkPolygon(int polygon) {
+        if (polygon < 0 || polygon >= polygonCount) {
+            throw new IndexOutOfBoundsException("Polygon " + polygon + " out of bounds for length " + polygonCount);
+        }
+        return polygon;
+    }
+
+    private static int[] toArray(List<Integer> indices) {
+        int[] result = new int[indices.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = indices.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package com.cgvsu.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Полигон из PackedPolygons. Геттеры повторяют Polygon, но списки - это представления только для чтения
+// поверх общих массивов, индексы в них не копируются.
+public class PolygonView {
+    private static final int VERTEX_INDICES = 0;
+    private static final int TEXTURE_VERTEX_INDICES = 1;
+    private static final int NORMAL_INDICES = 2;
+
+    private final PackedPolygons polygons;
+    private final int polygon;
+
+    PolygonView(PackedPolygons polygons, int polygon) {
+        this.polygons = polygons;
+        this.polygon = polygon;
+    }
+
+    public int getVertexCount() {
+        return polygons.getPolygonVertexCount(polygon);
+    }
+
+    public int getVertexIndex(int corner) {
+        return polygons.getVertexIndex(polygon, corner);
+    }
+
+    public int getTextureVertexIndex(int corner) {
+        return polygons.getTextureVertexIndex(polygon, corner);
+    }
+
+    public int getNormalIndex(int corner) {
+        return polygons.getNormalIndex(polygon, corner);
+    }
+
+    public List<Integer> getVertexIndices() {
+        return new IndexList(VERTEX_INDICES);
+    }
+
+    public List<Integer> getTextureVertexIndices() {
+        return polygons.hasTextureVertices(polygon) ? new IndexList(TEXTURE_VERTEX_INDICES) : null;
+    }
+
+    public List<Integer> getNormalIndices() {
+        return polygons.hasNormals(polygon) ? new IndexList(NORMAL_INDICES) : null;
+    }
+
+    // Обычный Polygon с копией индексов
+    public Polygon toPolygon() {
+        Polygon result = new Polygon();
+        result.setVertexIndices(new ArrayList<Integer>(getVertexIndices()));
+
+        List<Integer> textureVertexIndices = getTextureVertexIndices();
+        result.setTextureVertexIndices(textureVertexIndices == null ? null : new ArrayList<Integer>(textureVertexIndices));
+
+        List<Integer> normalIndices = getNormalIndices();
+        result.setNormalIndices(normalIndices == null ? null : new ArrayList<Integer>(normalIndices));
+
+        return result;
+    }
+
+    private class IndexList extends AbstractList<Integer> implements RandomAccess {
+        private final int kind;
+
+        private IndexList(int kind) {
+            this.kind = kind;
+        }
+
+        @Override
+        public Integer get(int corner) {
+            return switch (kind) {
+                case TEXTURE_VERTEX_INDICES -> polygons.getTextureVertexIndex(polygon, corner);
+                case NORMAL_INDICES -> polygons.getNormalIndex(polygon, corner);
+                default -> polygons.getVertexIndex(polygon, corner);
+            };
+        }
+
+        @Override
+        public int size() {
+            return polygons.getPolygonVertexCount(polygon);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.PackedPolygons;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Модель OBJ, элементы которой разбираются по запросу. Файл отображается в память, а ObjIndex говорит,
+// с какой строки начинать: разбор диапазона начинается с ближайшей отметки перед ним и проходит
+// не больше ObjIndex.CHECKPOINT_INTERVAL лишних элементов нужного вида.
+// Индексы в полигонах те же, что в файле (0-based, по всему файлу), поэтому полигоны группы можно
+// использовать вместе с вершинами, прочитанными отдельно.
+// Чтения не меняют общего состояния, их можно выполнять из нескольких потоков одновременно.
+public class LazyObjModel implements AutoCloseable {
+    private final FileChannel channel;
+    private final ObjIndex index;
+    // Весь файл, если он меньше 2 ГБ; для больших файлов каждый запрос отображает свой участок
+    private final MappedByteBuffer mapped;
+
+    private LazyObjModel(FileChannel channel, ObjIndex index, MappedByteBuffer mapped) {
+        this.channel = channel;
+        this.index = index;
+        this.mapped = mapped;
+    }
+
+    // Индекс берется из файла рядом с OBJ или строится и сохраняется туда (ObjIndex.load)
+    public static LazyObjModel open(Path filePath) throws IOException {
+        return open(filePath, ObjIndex.load(filePath));
+    }
+
+    public static LazyObjModel open(Path filePath, ObjIndex index) throws IOException {
+        if (index == null) {
+            throw new IllegalArgumentException("Index cannot be null");
+        }
+        long modified = Files.getLastModifiedTime(filePath).toMillis();
+        FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (!index.matches(size, modified)) {
+                throw new IllegalArgumentException("Index was built for another version of " + filePath);
+            }
+            MappedByteBuffer mapped = size <= Integer.MAX_VALUE
+                    ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+            return new LazyObjModel(channel, index, mapped);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public ObjIndex getIndex() {
+        return index;
+    }
+
+    public int getVertexCount() {
+        return index.getVertexCount();
+    }
+
+    public int getTextureVertexCount() {
+        return index.getTextureVertexCount();
+    }
+
+    public int getNormalCount() {
+        return index.getNormalCount();
+    }
+
+    public int getPolygonCount() {
+        return index.getPolygonCount();
+    }
+
+    // Координаты вершин [from, to): (to - from) * 3 чисел
+    public float[] readVertices(int from, int to) throws IOException {
+        PackedModel model = new PackedModel();
+        model.ensureVertexCapacity(to - from);
+        read(ObjTokenizer.TOKEN_VERTEX, from, to, new ObjPackedModelSink(model));
+        return model.toVertexArray();
+    }
+
+    public float[] readTextureVertices(int from, int to) throws IOException {
+        PackedModel model = new PackedModel();
+        model.ensureTextureVertexCapacity(to - from);
+        read(ObjTokenizer.TOKEN_TEXTURE, from, to, new ObjPackedModelSink(model));
+        return model.toTextureVertexArray();
+    }
+
+    public float[] readNormals(int from, int to) throws IOException {
+        PackedModel model = new PackedModel();
+        model.ensureNormalCapacity(to - from);
+        read(ObjTokenizer.TOKEN_NORMAL, from, to, new ObjPackedModelSink(model));
+        return model.toNormalArray();
+    }
+
+    public PackedPolygons readPolygons(int from, int to) throws IOException {
+        PackedModel model = new PackedModel();
+        model.getPolygons().ensurePolygonCapacity(to - from);
+        read(ObjTokenizer.TOKEN_FACE, from, to, new ObjPackedModelSink(model));
+        return model.getPolygons();
+    }
+
+    // Все полигоны группы в порядке следования в файле; пустой набор, если такой группы нет
+    public PackedPolygons readGroup(String name) throws IOException {
+        int[] ranges = index.getGroupPolygonRanges(name);
+        PackedModel model = new PackedModel();
+        ObjPackedModelSink sink = new ObjPackedModelSink(model);
+        for (int i = 0; i < ranges.length; i += 2) {
+            read(ObjTokenizer.TOKEN_FACE, ranges[i], ranges[i + 1], sink);
+        }
+        return model.getPolygons();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void read(int token, int from, int to, ObjHandler handler) throws IOException {
+        int count = index.getElementCount(token);
+        if (from < 0 || from > to || to > count) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + count);
+        }
+        if (from == to) {
+            return;
+        }
+
+        // Участок файла от отметки перед from до отметки после to - 1: строки нужных элементов целиком в нем
+        int first = from / ObjIndex.CHECKPOINT_INTERVAL;
+        int last = (to - 1) / ObjIndex.CHECKPOINT_INTERVAL + 1;
+        long start = index.getCheckpointOffset(token, first);
+        long end = last < index.getCheckpointCount(token) ? index.getCheckpointOffset(token, last) : index.getSourceSize();
+        ObjLineReader lineReader = new ObjLineReader(window(start, end),
+                (int) Math.max(16, Math.min(end - start, ObjLineReader.DEFAULT_BUFFER_SIZE)));
+
+        ObjTokenizer tokenizer = new ObjTokenizer();
+        ObjFaceBuffer face = new ObjFaceBuffer();
+        int element = first * ObjIndex.CHECKPOINT_INTERVAL;
+        int lineInd = index.getCheckpointLine(token, first);
+        while (element < to && lineReader.nextLine()) {
+            ++lineInd;
+            tokenizer.reset(lineReader.getBuffer(), lineReader.getLineStart(), lineReader.getLineEnd());
+            if (tokenizer.firstToken() != token) {
+                continue;
+            }
+            if (element >= from) {
+                ObjReader.parseElement(token, tokenizer, face, handler, lineInd);
+            }
+            element++;
+        }
+        if (element < to) {
+            throw new IllegalStateException("OBJ file no longer matches its index");
+        }
+    }
+
+    private ByteBuffer window(long start, long end) throws IOException {
+        if (mapped != null) {
+            return mapped.slice((int) start, (int) (end - start));
+        }
+        if (end - start > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Requested range spans more than 2 GB of the file, read it in parts");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+    }
+}
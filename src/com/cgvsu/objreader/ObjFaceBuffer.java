@@ -0,0 +1,67 @@
+package com.cgvsu.objreader;
+
+import java.util.Arrays;
+
+// Индексы одного полигона (0-based), которые переиспользуются от строки к строке.
+// Массивы могут быть длиннее, чем количество индексов в них.
+public class ObjFaceBuffer {
+    private int[] vertexIndices = new int[8];
+    private int vertexCount;
+
+    private int[] textureVertexIndices = new int[8];
+    private int textureVertexCount;
+
+    private int[] normalIndices = new int[8];
+    private int normalCount;
+
+    public void clear() {
+        vertexCount = 0;
+        textureVertexCount = 0;
+        normalCount = 0;
+    }
+
+    public void addVertexIndex(int index) {
+        if (vertexCount == vertexIndices.length) {
+            vertexIndices = Arrays.copyOf(vertexIndices, vertexCount * 2);
+        }
+        vertexIndices[vertexCount++] = index;
+    }
+
+    public void addTextureVertexIndex(int index) {
+        if (textureVertexCount == textureVertexIndices.length) {
+            textureVertexIndices = Arrays.copyOf(textureVertexIndices, textureVertexCount * 2);
+        }
+        textureVertexIndices[textureVertexCount++] = index;
+    }
+
+    public void addNormalIndex(int index) {
+        if (normalCount == normalIndices.length) {
+            normalIndices = Arrays.copyOf(normalIndices, normalCount * 2);
+        }
+        normalIndices[normalCount++] = index;
+    }
+
+    public int[] getVertexIndices() {
+        return vertexIndices;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int[] getTextureVertexIndices() {
+        return textureVertexIndices;
+    }
+
+    public int getTextureVertexCount() {
+        return textureVertexCount;
+    }
+
+    public int[] getNormalIndices() {
+        return normalIndices;
+    }
+
+    public int getNormalCount() {
+        return normalCount;
+    }
+}
@@ -0,0 +1,24 @@
+package com.cgvsu.objreader;
+
+// Получатель событий разбора OBJ (ObjReader.parse): элементы передаются по мере чтения строк, модель не строится.
+// Так же устроено и само чтение: ObjReader.read - это разбор с получателем, который собирает Model.
+// Методы по умолчанию ничего не делают, достаточно переопределить нужные.
+public interface ObjHandler {
+    default void onVertex(float x, float y, float z) {
+    }
+
+    default void onTexture(float u, float v) {
+    }
+
+    default void onNormal(float x, float y, float z) {
+    }
+
+    // Индексы 0-based, по count штук в каждом массиве; vt и vn - null, если их у полигона нет.
+    // Массивы переиспользуются от строки к строке и могут быть длиннее count: сохранять нужно копию
+    default void onFace(int[] v, int[] vt, int[] vn, int count) {
+    }
+
+    // Имена после g через пробел; g без имен - ObjIndex.DEFAULT_GROUP
+    default void onGroup(String name) {
+    }
+}
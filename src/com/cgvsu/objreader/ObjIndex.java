@@ -0,0 +1,317 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.util.AtomicFiles;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// Разреженный индекс строк OBJ для LazyObjModel. Один проход по файлу без разбора чисел запоминает
+// количество вершин, текстурных вершин, нормалей и полигонов и для каждого CHECKPOINT_INTERVAL-го элемента
+// каждого вида - смещение его строки в файле и номер строки. Еще запоминаются группы (g): участки подряд
+// идущих полигонов с именем группы. Полигоны до первой g относятся к группе DEFAULT_GROUP.
+//
+// Индекс хранится рядом с файлом: model.obj -> model.obj.idx (little-endian):
+//   int MAGIC, int VERSION, long размер исходника, long время его изменения, int CHECKPOINT_INTERVAL;
+//   для v, vt, vn и f: int количество элементов, int количество отметок, long[] смещения строк, int[] номера строк
+//   (сколько строк перед строкой элемента);
+//   int количество участков групп, для каждого: int первый полигон, int длина имени, имя в UTF-8;
+//   int CRC32 всего предыдущего.
+// Индекс считается устаревшим, если у исходника изменился размер или время изменения - тогда он строится заново.
+public class ObjIndex {
+    public static final String SIDECAR_SUFFIX = ".idx";
+    public static final String DEFAULT_GROUP = "default";
+    public static final int CHECKPOINT_INTERVAL = 64;
+
+    private static final int INDEX_MAGIC = 0x494A424F; // "OBJI"
+    private static final int INDEX_VERSION = 1;
+
+    private final long sourceSize;
+    private final long sourceModified;
+    // Отметки по видам элементов, номер - токен ObjTokenizer минус 1
+    private final Checkpoints[] checkpoints = new Checkpoints[4];
+
+    private final ArrayList<String> rangeNames = new ArrayList<>();
+    private int[] rangeStarts = new int[4];
+
+    private ObjIndex(long sourceSize, long sourceModified) {
+        this.sourceSize = sourceSize;
+        this.sourceModified = sourceModified;
+        for (int i = 0; i < checkpoints.length; i++) {
+            checkpoints[i] = new Checkpoints();
+        }
+    }
+
+    // Индекс из файла рядом с OBJ, а если его нет или он устарел - новый индекс, который сразу сохраняется
+    public static ObjIndex load(Path objPath) throws IOException {
+        Path indexPath = sidecarPath(objPath);
+        BasicFileAttributes attributes = Files.readAttributes(objPath, BasicFileAttributes.class);
+        ObjIndex stored = readStored(indexPath, attributes.size(), attributes.lastModifiedTime().toMillis());
+        if (stored != null) {
+            return stored;
+        }
+
+        ObjIndex index = build(objPath);
+        try {
+            index.store(indexPath);
+        } catch (IOException e) {
+            // Без сохраненного индекса следующий load построит его заново
+        }
+        return index;
+    }
+
+    public static ObjIndex build(Path objPath) throws IOException {
+        // Время изменения берется до чтения: если файл изменится во время прохода, индекс потом не совпадет с ним
+        long modified = Files.getLastModifiedTime(objPath).toMillis();
+        try (FileChannel channel = FileChannel.open(objPath, StandardOpenOption.READ)) {
+            ObjIndex index = new ObjIndex(channel.size(), modified);
+            index.scan(new ObjLineReader(channel));
+            return index;
+        }
+    }
+
+    public static Path sidecarPath(Path objPath) {
+        return objPath.resolveSibling(objPath.getFileName() + SIDECAR_SUFFIX);
+    }
+
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    public long getSourceModified() {
+        return sourceModified;
+    }
+
+    public int getVertexCount() {
+        return checkpoints[ObjTokenizer.TOKEN_VERTEX - 1].elementCount;
+    }
+
+    public int getTextureVertexCount() {
+        return checkpoints[ObjTokenizer.TOKEN_TEXTURE - 1].elementCount;
+    }
+
+    public int getNormalCount() {
+        return checkpoints[ObjTokenizer.TOKEN_NORMAL - 1].elementCount;
+    }
+
+    public int getPolygonCount() {
+        return checkpoints[ObjTokenizer.TOKEN_FACE - 1].elementCount;
+    }
+
+    // Имена групп, в которых есть полигоны, в порядке первого появления
+    public List<String> getGroupNames() {
+        return new ArrayList<>(new LinkedHashSet<>(rangeNames));
+    }
+
+    // Участки полигонов группы парами [начало, конец); пустой массив, если такой группы нет
+    public int[] getGroupPolygonRanges(String name) {
+        int[] result = new int[0];
+        for (int i = 0; i < rangeNames.size(); i++) {
+            if (rangeNames.get(i).equals(name)) {
+                result = Arrays.copyOf(result, result.length + 2);
+                result[result.length - 2] = rangeStarts[i];
+                result[result.length - 1] = i + 1 < rangeNames.size() ? rangeStarts[i + 1] : getPolygonCount();
+            }
+        }
+        return result;
+    }
+
+    int getElementCount(int token) {
+        return checkpoints[token - 1].elementCount;
+    }
+
+    int getCheckpointCount(int token) {
+        return checkpoints[token - 1].count;
+    }
+
+    // Смещение строки элемента checkpoint * CHECKPOINT_INTERVAL
+    long getCheckpointOffset(int token, int checkpoint) {
+        return checkpoints[token - 1].offsets[checkpoint];
+    }
+
+    // Сколько строк файла перед строкой элемента checkpoint * CHECKPOINT_INTERVAL
+    int getCheckpointLine(int token, int checkpoint) {
+        return checkpoints[token - 1].lines[checkpoint];
+    }
+
+    boolean matches(long size, long modified) {
+        return sourceSize == size && sourceModified == modified;
+    }
+
+    private void scan(ObjLineReader lineReader) throws IOException {
+        ObjTokenizer tokenizer = new ObjTokenizer();
+        String group = DEFAULT_GROUP;
+        int lineInd = 0;
+        while (lineReader.nextLine()) {
+            tokenizer.reset(lineReader.getBuffer(), lineReader.getLineStart(), lineReader.getLineEnd());
+            int token = tokenizer.firstToken();
+            if (token == ObjTokenizer.TOKEN_GROUP) {
+                group = ObjReader.parseGroupName(tokenizer);
+            } else if (token != ObjTokenizer.TOKEN_UNKNOWN) {
+                if (token == ObjTokenizer.TOKEN_FACE
+                        && (rangeNames.isEmpty() || !rangeNames.get(rangeNames.size() - 1).equals(group))) {
+                    addRange(group, getPolygonCount());
+                }
+                checkpoints[token - 1].add(lineReader.getLineOffset(), lineInd);
+            }
+            lineInd++;
+        }
+    }
+
+    private void addRange(String name, int start) {
+        if (rangeNames.size() == rangeStarts.length) {
+            rangeStarts = Arrays.copyOf(rangeStarts, rangeStarts.length * 2);
+        }
+        rangeStarts[rangeNames.size()] = start;
+        rangeNames.add(name);
+    }
+
+    // Индекс из файла или null, если файла нет, он поврежден или построен для другой версии исходника
+    private static ObjIndex readStored(Path indexPath, long sourceSize, long sourceModified) throws IOException {
+        if (!Files.isRegularFile(indexPath)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexPath)).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buffer.getInt() != INDEX_MAGIC || buffer.getInt() != INDEX_VERSION
+                    || buffer.getLong() != sourceSize || buffer.getLong() != sourceModified
+                    || buffer.getInt() != CHECKPOINT_INTERVAL) {
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), 0, buffer.limit() - Integer.BYTES);
+            if ((int) crc.getValue() != buffer.getInt(buffer.limit() - Integer.BYTES)) {
+                return null;
+            }
+
+            ObjIndex index = new ObjIndex(sourceSize, sourceModified);
+            for (Checkpoints kind : index.checkpoints) {
+                if (!kind.get(buffer, sourceSize)) {
+                    return null;
+                }
+            }
+            int rangeCount = buffer.getInt();
+            if (rangeCount < 0 || rangeCount > buffer.remaining() / (2 * Integer.BYTES)) {
+                return null;
+            }
+            for (int i = 0; i < rangeCount; i++) {
+                int start = buffer.getInt();
+                int nameLength = buffer.getInt();
+                if (start < (i == 0 ? 0 : index.rangeStarts[i - 1] + 1) || start >= index.getPolygonCount()
+                        || nameLength < 0 || nameLength > buffer.remaining()) {
+                    return null;
+                }
+                byte[] name = new byte[nameLength];
+                buffer.get(name);
+                index.addRange(new String(name, StandardCharsets.UTF_8), start);
+            }
+            if (buffer.remaining() != Integer.BYTES) {
+                return null;
+            }
+            return index;
+
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    private void store(Path indexPath) throws IOException {
+        byte[][] names = new byte[rangeNames.size()][];
+        int size = 4 * Integer.BYTES + 2 * Long.BYTES + Integer.BYTES;
+        for (Checkpoints kind : checkpoints) {
+            size += 2 * Integer.BYTES + kind.count * (Long.BYTES + Integer.BYTES);
+        }
+        for (int i = 0; i < names.length; i++) {
+            names[i] = rangeNames.get(i).getBytes(StandardCharsets.UTF_8);
+            size += 2 * Integer.BYTES + names[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(INDEX_MAGIC)
+                .putInt(INDEX_VERSION)
+                .putLong(sourceSize)
+                .putLong(sourceModified)
+                .putInt(CHECKPOINT_INTERVAL);
+        for (Checkpoints kind : checkpoints) {
+            kind.put(buffer);
+        }
+        buffer.putInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            buffer.putInt(rangeStarts[i]).putInt(names[i].length).put(names[i]);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        AtomicFiles.writeAtomically(indexPath, buffer);
+    }
+
+    // Отметки одного вида элементов: каждый CHECKPOINT_INTERVAL-й элемент
+    private static class Checkpoints {
+        private long[] offsets = new long[16];
+        private int[] lines = new int[16];
+        private int count;
+        private int elementCount;
+
+        void add(long offset, int line) {
+            if (elementCount++ % CHECKPOINT_INTERVAL != 0) {
+                return;
+            }
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lines = Arrays.copyOf(lines, count * 2);
+            }
+            offsets[count] = offset;
+            lines[count] = line;
+            count++;
+        }
+
+        void put(ByteBuffer buffer) {
+            buffer.putInt(elementCount).putInt(count);
+            for (int i = 0; i < count; i++) {
+                buffer.putLong(offsets[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                buffer.putInt(lines[i]);
+            }
+        }
+
+        // false, если отметки не согласуются с количеством элементов или выходят за исходный файл
+        boolean get(ByteBuffer buffer, long sourceSize) {
+            elementCount = buffer.getInt();
+            count = buffer.getInt();
+            if (elementCount < 0 || count != (int) ((elementCount + (long) CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL)
+                    || count > buffer.remaining() / (Long.BYTES + Integer.BYTES)) {
+                return false;
+            }
+            offsets = new long[count];
+            lines = new int[count];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = buffer.getLong();
+                if (offsets[i] < (i == 0 ? 0 : offsets[i - 1] + 1) || offsets[i] >= sourceSize) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                lines[i] = buffer.getInt();
+                if (lines[i] < (i == 0 ? 0 : lines[i - 1] + 1)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.cgvsu.objreader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+// Построчное чтение OBJ из канала через буфер фиксированного размера.
+// Строка отдается как диапазон [getLineStart(), getLineEnd()) внутри getBuffer() без копирования.
+// Буфер растет только если одна строка не помещается в него целиком.
+public class ObjLineReader {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer source;
+    private ByteBuffer window;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+
+    private int lineStart;
+    private int lineEnd;
+
+    // Смещение buffer[0] от начала входных данных
+    private long bufferOffset;
+
+    public ObjLineReader(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ObjLineReader(ReadableByteChannel channel, int bufferSize) {
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel cannot be null");
+        }
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("Buffer size is too small: " + bufferSize);
+        }
+        this.channel = channel;
+        this.source = null;
+        this.buffer = new byte[bufferSize];
+        this.window = ByteBuffer.wrap(buffer);
+    }
+
+    // Чтение из буфера, например из отображенного в память куска файла.
+    // Данные переносятся в рабочий буфер крупными блоками, позиция source сдвигается.
+    public ObjLineReader(ByteBuffer source) {
+        this(source, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ObjLineReader(ByteBuffer source, int bufferSize) {
+        if (source == null) {
+            throw new IllegalArgumentException("Source buffer cannot be null");
+        }
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("Buffer size is too small: " + bufferSize);
+        }
+        this.channel = null;
+        this.source = source;
+        this.buffer = new byte[bufferSize];
+        this.window = ByteBuffer.wrap(buffer);
+    }
+
+    // Чтение уже загруженных в память данных, без копирования
+    public ObjLineReader(byte[] content, int offset, int length) {
+        this.channel = null;
+        this.source = null;
+        this.buffer = content;
+        this.position = offset;
+        this.limit = offset + length;
+        this.endOfInput = true;
+        this.bufferOffset = -offset;
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getLineStart() {
+        return lineStart;
+    }
+
+    public int getLineEnd() {
+        return lineEnd;
+    }
+
+    public int getLineLength() {
+        return lineEnd - lineStart;
+    }
+
+    // Смещение начала текущей строки от начала входных данных (для канала - от позиции, с которой начато чтение)
+    public long getLineOffset() {
+        return bufferOffset + lineStart;
+    }
+
+    // Переходит к следующей строке. Разделители строк: \n, \r\n и \r, как у Scanner.nextLine()
+    public boolean nextLine() throws IOException {
+        int scan = position;
+        while (true) {
+            for (; scan < limit; scan++) {
+                byte b = buffer[scan];
+                if (b == '\n') {
+                    lineStart = position;
+                    lineEnd = scan;
+                    position = scan + 1;
+                    return true;
+                }
+                if (b == '\r') {
+                    if (scan + 1 == limit && !endOfInput) {
+                        // нужно заглянуть на один байт вперед, чтобы не разорвать \r\n
+                        break;
+                    }
+                    lineStart = position;
+                    lineEnd = scan;
+                    position = scan + 1;
+                    if (position < limit && buffer[position] == '\n') {
+                        position++;
+                    }
+                    return true;
+                }
+            }
+
+            if (endOfInput) {
+                if (position == limit) {
+                    return false;
+                }
+                lineStart = position;
+                lineEnd = limit;
+                position = limit;
+                return true;
+            }
+
+            int consumed = scan - position;
+            fill();
+            scan = position + consumed;
+        }
+    }
+
+    // Сдвигает недочитанную строку в начало буфера и дочитывает данные из канала
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (remaining == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            window = ByteBuffer.wrap(buffer);
+        } else if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        }
+        bufferOffset += position;
+        position = 0;
+        limit = remaining;
+
+        if (source != null) {
+            int read = Math.min(source.remaining(), buffer.length - limit);
+            if (read == 0) {
+                endOfInput = true;
+            } else {
+                source.get(buffer, limit, read);
+                limit += read;
+            }
+            return;
+        }
+
+        window.clear();
+        window.position(limit);
+        int read;
+        do {
+            read = channel.read(window);
+        } while (read == 0);
+
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+
+import java.util.ArrayList;
+
+class ObjModelSink implements ObjHandler {
+    private final Model model;
+
+    ObjModelSink(Model model) {
+        this.model = model;
+    }
+
+    @Override
+    public void onVertex(float x, float y, float z) {
+        model.getVertices().add(new Vector3f(x, y, z));
+    }
+
+    @Override
+    public void onTexture(float u, float v) {
+        model.getTextureVertices().add(new Vector2f(u, v));
+    }
+
+    @Override
+    public void onNormal(float x, float y, float z) {
+        model.getNormals().add(new Vector3f(x, y, z));
+    }
+
+    @Override
+    public void onFace(int[] v, int[] vt, int[] vn, int count) {
+        Polygon polygon = new Polygon();
+        polygon.setVertexIndices(toList(v, count));
+        polygon.setTextureVertexIndices(vt == null ? null : toList(vt, count));
+        polygon.setNormalIndices(vn == null ? null : toList(vn, count));
+        model.getPolygons().add(polygon);
+    }
+
+    private static ArrayList<Integer> toList(int[] indices, int count) {
+        ArrayList<Integer> result = new ArrayList<Integer>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(indices[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,159 @@
+package com.cgvsu.objreader;
+
+import java.nio.charset.StandardCharsets;
+
+// Разбор чисел прямо из диапазона байтов [start, end), без промежуточных строк.
+// Результат совпадает с Float.parseFloat и Integer.parseInt, в том числе при ошибках (NumberFormatException).
+public class ObjNumberParser {
+
+    // Степени десяти, которые представимы в double точно
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final long MAX_EXACT_DOUBLE_INTEGER = 1L << 53;
+    private static final int MAX_SIGNIFICAND_DIGITS = 18;
+    private static final int MAX_EXPONENT_DIGITS = 4;
+
+    // Младшие 29 бит мантиссы double, которые отбрасываются при округлении до float
+    private static final long FLOAT_ROUNDING_MASK = (1L << 29) - 1;
+    private static final long FLOAT_HALFWAY = 1L << 28;
+
+    public static float parseFloat(final byte[] buffer, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        long significand = 0;
+        int significandDigits = 0;
+        int digits = 0;
+        int exponent = 0;
+
+        for (; i < end && isDigit(buffer[i]); i++) {
+            digits++;
+            if (significandDigits == 0 && buffer[i] == '0') {
+                continue;
+            }
+            if (++significandDigits > MAX_SIGNIFICAND_DIGITS) {
+                return parseFloatSlow(buffer, start, end);
+            }
+            significand = significand * 10 + (buffer[i] - '0');
+        }
+
+        if (i < end && buffer[i] == '.') {
+            i++;
+            for (; i < end && isDigit(buffer[i]); i++) {
+                digits++;
+                exponent--;
+                if (significandDigits == 0 && buffer[i] == '0') {
+                    continue;
+                }
+                if (++significandDigits > MAX_SIGNIFICAND_DIGITS) {
+                    return parseFloatSlow(buffer, start, end);
+                }
+                significand = significand * 10 + (buffer[i] - '0');
+            }
+        }
+
+        if (digits == 0) {
+            return parseFloatSlow(buffer, start, end);
+        }
+
+        if (i < end && (buffer[i] == 'e' || buffer[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+                negativeExponent = buffer[i] == '-';
+                i++;
+            }
+            int exponentStart = i;
+            int explicitExponent = 0;
+            for (; i < end && isDigit(buffer[i]); i++) {
+                explicitExponent = explicitExponent * 10 + (buffer[i] - '0');
+            }
+            if (i == exponentStart || i - exponentStart > MAX_EXPONENT_DIGITS) {
+                return parseFloatSlow(buffer, start, end);
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        if (i != end) {
+            // суффиксы f/d, NaN, Infinity, шестнадцатеричная запись и ошибки
+            return parseFloatSlow(buffer, start, end);
+        }
+
+        if (significand == 0) {
+            return negative ? -0.0f : 0.0f;
+        }
+
+        // При таких условиях double-результат округлен корректно, так как и мантисса, и степень десяти точны
+        if (significand > MAX_EXACT_DOUBLE_INTEGER || exponent < -22 || exponent > 22) {
+            return parseFloatSlow(buffer, start, end);
+        }
+        double value = exponent >= 0
+                ? significand * DOUBLE_POWERS_OF_TEN[exponent]
+                : significand / DOUBLE_POWERS_OF_TEN[-exponent];
+
+        // Повторное округление double -> float может ошибиться, только если double попал ровно в середину
+        // между соседними float. Этот случай и края диапазона float отдаются стандартному разбору.
+        if (value < Float.MIN_NORMAL || value >= 0x1p127) {
+            return parseFloatSlow(buffer, start, end);
+        }
+        if ((Double.doubleToRawLongBits(value) & FLOAT_ROUNDING_MASK) == FLOAT_HALFWAY) {
+            return parseFloatSlow(buffer, start, end);
+        }
+
+        float result = (float) value;
+        return negative ? -result : result;
+    }
+
+    public static int parseInt(final byte[] buffer, int start, int end) {
+        if (start >= end) {
+            throw new NumberFormatException("Empty int value");
+        }
+
+        int i = start;
+        boolean negative = false;
+        if (buffer[i] == '-' || buffer[i] == '+') {
+            negative = buffer[i] == '-';
+            i++;
+            if (i == end) {
+                throw numberFormatException(buffer, start, end);
+            }
+        }
+
+        // Накопление в отрицательную сторону, как в Integer.parseInt, чтобы не терять Integer.MIN_VALUE
+        final int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        final int multiplicationLimit = limit / 10;
+        int result = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9 || result < multiplicationLimit) {
+                throw numberFormatException(buffer, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw numberFormatException(buffer, start, end);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private static float parseFloatSlow(final byte[] buffer, int start, int end) {
+        return Float.parseFloat(new String(buffer, start, end - start, StandardCharsets.UTF_8));
+    }
+
+    private static NumberFormatException numberFormatException(final byte[] buffer, int start, int end) {
+        return new NumberFormatException(
+                "For input string: \"" + new String(buffer, start, end - start, StandardCharsets.UTF_8) + "\"");
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
@@ -0,0 +1,31 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.OffHeapModel;
+
+class ObjOffHeapModelSink implements ObjHandler {
+    private final OffHeapModel model;
+
+    ObjOffHeapModelSink(OffHeapModel model) {
+        this.model = model;
+    }
+
+    @Override
+    public void onVertex(float x, float y, float z) {
+        model.addVertex(x, y, z);
+    }
+
+    @Override
+    public void onTexture(float u, float v) {
+        model.addTextureVertex(u, v);
+    }
+
+    @Override
+    public void onNormal(float x, float y, float z) {
+        model.addNormal(x, y, z);
+    }
+
+    @Override
+    public void onFace(int[] v, int[] vt, int[] vn, int count) {
+        model.addPolygon(v, vt, vn, count);
+    }
+}
@@ -0,0 +1,147 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.math.Vector2f;
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Параллельное чтение: файл делится на куски по границам строк, каждый кусок отображается в память
+// и разбирается отдельной задачей в свою модель. Затем модели склеиваются в порядке следования в файле.
+// Индексы в f записываются как есть, без пересчета, поэтому склейка не меняет их смысла.
+class ObjParallelReader {
+
+    private static final int BOUNDARY_SEARCH_BUFFER_SIZE = 4096;
+
+    static Model read(Path filePath, ObjReaderOptions options) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            List<Long> bounds = findChunkBounds(channel, options.getChunkSize());
+
+            ForkJoinPool pool = options.getPool();
+            List<ForkJoinTask<ChunkResult>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.size(); i++) {
+                final long start = bounds.get(i);
+                final long end = bounds.get(i + 1);
+                tasks.add(pool.submit(() -> parseChunk(channel, start, end)));
+            }
+
+            List<ChunkResult> results = new ArrayList<>(tasks.size());
+            for (ForkJoinTask<ChunkResult> task : tasks) {
+                results.add(task.join());
+            }
+            return merge(results);
+        }
+    }
+
+    // Границы кусков: начало файла, позиции сразу после '\n' рядом с каждым chunkSize байт, конец файла
+    protected static List<Long> findChunkBounds(FileChannel channel, int chunkSize) throws IOException {
+        final long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+
+        ByteBuffer searchBuffer = ByteBuffer.allocate(BOUNDARY_SEARCH_BUFFER_SIZE);
+        long nominal = chunkSize;
+        while (nominal < size) {
+            long boundary = findNextLineStart(channel, nominal, searchBuffer);
+            if (boundary >= size) {
+                break;
+            }
+            bounds.add(boundary);
+            nominal = boundary + chunkSize;
+        }
+
+        bounds.add(size);
+        return bounds;
+    }
+
+    private static long findNextLineStart(FileChannel channel, long from, ByteBuffer searchBuffer) throws IOException {
+        long position = from;
+        while (true) {
+            searchBuffer.clear();
+            int read = channel.read(searchBuffer, position);
+            if (read < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (searchBuffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private static ChunkResult parseChunk(FileChannel channel, long start, long end) {
+        ChunkResult result = new ChunkResult();
+        try {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            ObjLineReader lineReader = new ObjLineReader(mapped);
+            result.lineCount = ObjReader.parse(lineReader, result.model);
+
+        } catch (IOException e) {
+            result.error = new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            result.error = e;
+        }
+        return result;
+    }
+
+    private static Model merge(List<ChunkResult> results) {
+        int vertexCount = 0;
+        int textureVertexCount = 0;
+        int normalCount = 0;
+        int polygonCount = 0;
+
+        // Ошибку отдаем из первого по порядку куска, с номером строки относительно всего файла
+        int linesBefore = 0;
+        for (ChunkResult result : results) {
+            if (result.error instanceof ObjReaderException e) {
+                throw new ObjReaderException(e.getErrorMessage(), linesBefore + e.getLineIndex());
+            }
+            if (result.error != null) {
+                throw result.error;
+            }
+            linesBefore += result.lineCount;
+
+            vertexCount += result.model.getVertices().size();
+            textureVertexCount += result.model.getTextureVertices().size();
+            normalCount += result.model.getNormals().size();
+            polygonCount += result.model.getPolygons().size();
+        }
+
+        ArrayList<Vector3f> vertices = new ArrayList<>(vertexCount);
+        ArrayList<Vector2f> textureVertices = new ArrayList<>(textureVertexCount);
+        ArrayList<Vector3f> normals = new ArrayList<>(normalCount);
+        ArrayList<Polygon> polygons = new ArrayList<>(polygonCount);
+        for (ChunkResult result : results) {
+            vertices.addAll(result.model.getVertices());
+            textureVertices.addAll(result.model.getTextureVertices());
+            normals.addAll(result.model.getNormals());
+            polygons.addAll(result.model.getPolygons());
+        }
+
+        Model model = new Model();
+        model.setVertices(vertices);
+        model.setTextureVertices(textureVertices);
+        model.setNormals(normals);
+        model.setPolygons(polygons);
+        return model;
+    }
+
+    private static class ChunkResult {
+        private final Model model = new Model();
+        private int lineCount;
+        private RuntimeException error;
+    }
+}
@@ -2,56 +2,315 @@ package com.cgvsu.objreader;
 
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
+import com.cgvsu.mesh.TriangulationOptions;
+import com.cgvsu.mesh.Triangulator;
 import com.cgvsu.model.Model;
+import com.cgvsu.model.OffHeapModel;
+import com.cgvsu.model.PackedModel;
 import com.cgvsu.model.Polygon;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Scanner;
 
 public class ObjReader {
 
-	private static final String OBJ_VERTEX_TOKEN = "v";
-	private static final String OBJ_TEXTURE_TOKEN = "vt";
-	private static final String OBJ_NORMAL_TOKEN = "vn";
-	private static final String OBJ_FACE_TOKEN = "f";
+	private static final String TOO_FEW_VERTEX_ARGUMENTS = "Too few vertex arguments.";
+	private static final String TOO_FEW_TEXTURE_VERTEX_ARGUMENTS = "Too few texture vertex arguments.";
+	private static final String TOO_FEW_NORMAL_ARGUMENTS = "Too few normal arguments.";
 
 	public static Model read(String fileContent) {
+		final byte[] content = fileContent.getBytes(StandardCharsets.UTF_8);
+		try {
+			return read(new ObjLineReader(content, 0, content.length));
+		} catch (IOException e) {
+			// данные уже в памяти, канал не используется
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public static Model read(Path filePath) throws IOException {
+		try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+			return read(channel);
+		}
+	}
+
+	public static Model read(InputStream inputStream) throws IOException {
+		return read(Channels.newChannel(inputStream));
+	}
+
+	// Файл читается кусками через буфер фиксированного размера, целиком в память он не загружается
+	public static Model read(ReadableByteChannel channel) throws IOException {
+		return read(new ObjLineReader(channel));
+	}
+
+	public static Model read(Path filePath, ObjReaderOptions options) throws IOException {
+		if (options == null) {
+			throw new IllegalArgumentException("Options cannot be null");
+		}
+		Model result = options.isParallel() ? ObjParallelReader.read(filePath, options) : read(filePath);
+		if (!options.isTriangulate()) {
+			return result;
+		}
+		// Для ушей нужны координаты вершин, а они в файле могут идти после граней, поэтому это отдельный проход
+		TriangulationOptions triangulationOptions = new TriangulationOptions();
+		triangulationOptions.setParallel(options.isParallel());
+		triangulationOptions.setPool(options.getPool());
+		return Triangulator.triangulate(result, triangulationOptions);
+	}
+
+	public static PackedModel readPacked(Path filePath) throws IOException {
+		try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+			return readPacked(channel);
+		}
+	}
+
+	public static PackedModel readPacked(InputStream inputStream) throws IOException {
+		return readPacked(Channels.newChannel(inputStream));
+	}
+
+	// Вершины сразу пишутся в массивы PackedModel, объекты Vector3f/Vector2f не создаются
+	public static PackedModel readPacked(ReadableByteChannel channel) throws IOException {
+		PackedModel result = new PackedModel();
+		parse(new ObjLineReader(channel), new ObjPackedModelSink(result));
+		return result;
+	}
+
+	public static OffHeapModel readOffHeap(Path filePath) throws IOException {
+		try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+			return readOffHeap(channel);
+		}
+	}
+
+	public static OffHeapModel readOffHeap(InputStream inputStream) throws IOException {
+		return readOffHeap(Channels.newChannel(inputStream));
+	}
+
+	// Модель заполняется прямо в direct буферы. При ошибке разбора уже выделенные буферы освобождаются
+	public static OffHeapModel readOffHeap(ReadableByteChannel channel) throws IOException {
+		OffHeapModel result = new OffHeapModel();
+		try {
+			parse(new ObjLineReader(channel), new ObjOffHeapModelSink(result));
+		} catch (IOException | RuntimeException e) {
+			result.close();
+			throw e;
+		}
+		return result;
+	}
+
+	// Разбор без построения модели: элементы по одному передаются в handler
+	public static void parse(String fileContent, ObjHandler handler) {
+		final byte[] content = fileContent.getBytes(StandardCharsets.UTF_8);
+		try {
+			parse(new ObjLineReader(content, 0, content.length), checkHandler(handler));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public static void parse(Path filePath, ObjHandler handler) throws IOException {
+		checkHandler(handler);
+		try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+			parse(channel, handler);
+		}
+	}
+
+	public static void parse(InputStream inputStream, ObjHandler handler) throws IOException {
+		parse(Channels.newChannel(inputStream), handler);
+	}
+
+	public static void parse(ReadableByteChannel channel, ObjHandler handler) throws IOException {
+		parse(new ObjLineReader(channel), checkHandler(handler));
+	}
+
+	private static ObjHandler checkHandler(ObjHandler handler) {
+		if (handler == null) {
+			throw new IllegalArgumentException("Handler cannot be null");
+		}
+		return handler;
+	}
+
+	protected static Model read(ObjLineReader lineReader) throws IOException {
 		Model result = new Model();
+		parse(lineReader, result);
+		return result;
+	}
+
+	protected static int parse(ObjLineReader lineReader, Model result) throws IOException {
+		return parse(lineReader, new ObjModelSink(result));
+	}
+
+	// Разбирает все строки, передает элементы в handler и возвращает количество строк
+	protected static int parse(ObjLineReader lineReader, ObjHandler handler) throws IOException {
+		ObjTokenizer tokenizer = new ObjTokenizer();
+		ObjFaceBuffer face = new ObjFaceBuffer();
 
 		int lineInd = 0;
-		Scanner scanner = new Scanner(fileContent);
-		while (scanner.hasNextLine()) {
-			final String line = scanner.nextLine();
-			ArrayList<String> wordsInLine = new ArrayList<String>(Arrays.asList(line.split("\\s+")));
-			if (wordsInLine.isEmpty()) {
-				continue;
+		while (lineReader.nextLine()) {
+			++lineInd;
+			tokenizer.reset(lineReader.getBuffer(), lineReader.getLineStart(), lineReader.getLineEnd());
+
+			// Методы разбора по-прежнему ничего не знают о модели: они читают слова строки прямо из токенизатора
+			// и возвращают числа, а куда их положить, решает handler.
+			// Индекс строки прокидывается, чтобы выводить сообщение об ошибке.
+			parseElement(tokenizer.firstToken(), tokenizer, face, handler, lineInd);
+		}
+
+		return lineInd;
+	}
+
+	// Разбор строки, первое слово которой уже прочитано токенизатором и распознано как token.
+	// Строки других видов (материалы, комментарии) пропускаются
+	protected static void parseElement(int token, ObjTokenizer tokenizer, ObjFaceBuffer face, ObjHandler handler,
+									   int lineInd) {
+		switch (token) {
+			case ObjTokenizer.TOKEN_VERTEX -> {
+				final float x = parseFloatToken(tokenizer, TOO_FEW_VERTEX_ARGUMENTS, lineInd);
+				final float y = parseFloatToken(tokenizer, TOO_FEW_VERTEX_ARGUMENTS, lineInd);
+				final float z = parseFloatToken(tokenizer, TOO_FEW_VERTEX_ARGUMENTS, lineInd);
+				handler.onVertex(x, y, z);
+			}
+			case ObjTokenizer.TOKEN_TEXTURE -> {
+				final float u = parseFloatToken(tokenizer, TOO_FEW_TEXTURE_VERTEX_ARGUMENTS, lineInd);
+				final float v = parseFloatToken(tokenizer, TOO_FEW_TEXTURE_VERTEX_ARGUMENTS, lineInd);
+				handler.onTexture(u, v);
 			}
+			case ObjTokenizer.TOKEN_NORMAL -> {
+				final float x = parseFloatToken(tokenizer, TOO_FEW_NORMAL_ARGUMENTS, lineInd);
+				final float y = parseFloatToken(tokenizer, TOO_FEW_NORMAL_ARGUMENTS, lineInd);
+				final float z = parseFloatToken(tokenizer, TOO_FEW_NORMAL_ARGUMENTS, lineInd);
+				handler.onNormal(x, y, z);
+			}
+			case ObjTokenizer.TOKEN_FACE -> {
+				parseFace(tokenizer, face, lineInd);
+				final int count = face.getVertexCount();
+				if (face.getTextureVertexCount() != 0 && face.getTextureVertexCount() != count) {
+					throw new ObjReaderException("Texture vertex indices must be given for all polygon vertices or none.", lineInd);
+				}
+				if (face.getNormalCount() != 0 && face.getNormalCount() != count) {
+					throw new ObjReaderException("Normal indices must be given for all polygon vertices or none.", lineInd);
+				}
+				handler.onFace(
+						face.getVertexIndices(),
+						face.getTextureVertexCount() == 0 ? null : face.getTextureVertexIndices(),
+						face.getNormalCount() == 0 ? null : face.getNormalIndices(),
+						count);
+			}
+			case ObjTokenizer.TOKEN_GROUP -> handler.onGroup(parseGroupName(tokenizer));
+			default -> {}
+		}
+	}
+
+	// Имена после g через пробел; g без имен - группа по умолчанию
+	protected static String parseGroupName(final ObjTokenizer tokenizer) {
+		StringBuilder builder = new StringBuilder();
+		while (tokenizer.nextToken()) {
+			if (!builder.isEmpty()) {
+				builder.append(' ');
+			}
+			builder.append(tokenizer.tokenToString());
+		}
+		return builder.isEmpty() ? ObjIndex.DEFAULT_GROUP : builder.toString();
+	}
 
-			final String token = wordsInLine.getFirst();
-			wordsInLine.removeFirst();
+	protected static float parseFloatToken(final ObjTokenizer tokenizer, String tooFewMessage, int lineInd) {
+		if (!tokenizer.nextToken()) {
+			throw new ObjReaderException(tooFewMessage, lineInd);
+		}
+		try {
+			return ObjNumberParser.parseFloat(tokenizer.getBuffer(), tokenizer.getTokenStart(), tokenizer.getTokenEnd());
 
-			++lineInd;
-			switch (token) {
-				// Для структур типа вершин методы написаны так, чтобы ничего не знать о внешней среде.
-				// Они принимают только то, что им нужно для работы, а возвращают только то, что могут создать.
-				// Исключение - индекс строки. Он прокидывается, чтобы выводить сообщение об ошибке.
-				// Могло быть иначе. Например, метод parseVertex мог вместо возвращения вершины принимать вектор вершин
-				// модели или сам класс модели, работать с ним.
-				// Но такой подход может привести к большему количеству ошибок в коде. Например, в нем что-то может
-				// тайно сделаться с классом модели.
-				// А еще это портит читаемость
-				// И не стоит забывать про тесты. Чем проще вам задать данные для теста, проверить, что метод рабочий,
-				// тем лучше.
-				case OBJ_VERTEX_TOKEN -> result.getVertices().add(parseVertex(wordsInLine, lineInd));
-				case OBJ_TEXTURE_TOKEN -> result.getTextureVertices().add(parseTextureVertex(wordsInLine, lineInd));
-				case OBJ_NORMAL_TOKEN -> result.getNormals().add(parseNormal(wordsInLine, lineInd));
-				case OBJ_FACE_TOKEN -> result.getPolygons().add(parseFace(wordsInLine, lineInd));
+		} catch(NumberFormatException e) {
+			throw new ObjReaderException("Failed to parse float value.", lineInd);
+		}
+	}
+
+	protected static void parseFace(final ObjTokenizer tokenizer, ObjFaceBuffer face, int lineInd) {
+		face.clear();
+		while (tokenizer.nextToken()) {
+			parseFaceWord(tokenizer.getBuffer(), tokenizer.getTokenStart(), tokenizer.getTokenEnd(), face, lineInd);
+		}
+
+		if (face.getVertexCount() < 3) {
+			throw new ObjReaderException("Polygon must have at least 3 vertices.", lineInd);
+		}
+	}
+
+	// Разбор слова v/vt/vn по байтам. Поля делятся так же, как у wordInLine.split("/"):
+	// пустые поля в конце отбрасываются, пустое поле в середине означает пропущенный индекс.
+	protected static void parseFaceWord(final byte[] buffer, int start, int end, ObjFaceBuffer face, int lineInd) {
+		int vertexEnd = end;
+		int textureStart = end;
+		int textureEnd = end;
+		int normalStart = end;
+		int normalEnd = end;
+
+		int fieldCount = 0;
+		int fieldIndex = 0;
+		int fieldStart = start;
+		for (int i = start; i <= end; i++) {
+			if (i < end && buffer[i] != '/') {
+				continue;
+			}
+			if (i > fieldStart) {
+				fieldCount = fieldIndex + 1;
+			}
+			switch (fieldIndex) {
+				case 0 -> vertexEnd = i;
+				case 1 -> {
+					textureStart = fieldStart;
+					textureEnd = i;
+				}
+				case 2 -> {
+					normalStart = fieldStart;
+					normalEnd = i;
+				}
 				default -> {}
 			}
+			fieldIndex++;
+			fieldStart = i + 1;
 		}
 
-		return result;
+		try {
+			switch (fieldCount) {
+				case 1 -> {
+					// f v1 v2 v3
+					face.addVertexIndex(parseIndex(buffer, start, vertexEnd));
+				}
+				case 2 -> {
+					// f v1/vt1 v2/vt2 v3/vt3
+					face.addVertexIndex(parseIndex(buffer, start, vertexEnd));
+					face.addTextureVertexIndex(parseIndex(buffer, textureStart, textureEnd));
+				}
+				case 3 -> {
+					// f v1/vt1/vn1 v2/vt2/vn2 v3/vt3/vn3
+					//  f v1//vn1 v2//vn2 v3//vn3
+					face.addVertexIndex(parseIndex(buffer, start, vertexEnd));
+
+					if (textureEnd > textureStart) {
+						face.addTextureVertexIndex(parseIndex(buffer, textureStart, textureEnd));
+					}
+
+					face.addNormalIndex(parseIndex(buffer, normalStart, normalEnd));
+				}
+				default ->
+					throw new ObjReaderException("Invalid element size.", lineInd);
+			}
+
+		} catch(NumberFormatException e) {
+			throw new ObjReaderException("Failed to parse int value.", lineInd);
+		}
+	}
+
+	private static int parseIndex(final byte[] buffer, int start, int end) {
+		return ObjNumberParser.parseInt(buffer, start, end) - 1;
 	}
 
 	// Всем методам кроме основного я поставил модификатор доступа protected, чтобы обращаться к ним в тестах
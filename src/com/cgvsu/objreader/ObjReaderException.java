@@ -1,7 +1,20 @@
 package com.cgvsu.objreader;
 
 public class ObjReaderException extends RuntimeException {
+    private final String errorMessage;
+    private final int lineInd;
+
     public ObjReaderException(String errorMessage, int lineInd) {
         super("Error parsing OBJ file on line: " + lineInd + ". " + errorMessage);
+        this.errorMessage = errorMessage;
+        this.lineInd = lineInd;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public int getLineIndex() {
+        return lineInd;
     }
-}
\ No newline at end of file
+}
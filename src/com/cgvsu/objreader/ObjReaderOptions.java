@@ -0,0 +1,52 @@
+package com.cgvsu.objreader;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class ObjReaderOptions {
+    public static final int DEFAULT_CHUNK_SIZE = 512 * 1024;
+
+    private boolean parallel = false;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private boolean triangulate = false;
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    // Параллельное чтение: файл отображается в память и разбирается кусками на пуле потоков
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        this.pool = pool;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive, got: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public boolean isTriangulate() {
+        return triangulate;
+    }
+
+    // Полигоны прочитанной модели разбиваются на треугольники (Triangulator), при parallel - на том же пуле
+    public void setTriangulate(boolean triangulate) {
+        this.triangulate = triangulate;
+    }
+}
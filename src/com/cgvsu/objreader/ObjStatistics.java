@@ -0,0 +1,114 @@
+package com.cgvsu.objreader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Сводка по OBJ за один проход ObjReader.parse: количество элементов и габариты вершин, модель не строится.
+// У модели без вершин минимумы равны +бесконечности, а максимумы - -бесконечности
+public class ObjStatistics implements ObjHandler {
+    private int vertexCount;
+    private int textureVertexCount;
+    private int normalCount;
+    private int polygonCount;
+    private long cornerCount;
+    private int groupCount;
+
+    private float minX = Float.POSITIVE_INFINITY;
+    private float minY = Float.POSITIVE_INFINITY;
+    private float minZ = Float.POSITIVE_INFINITY;
+    private float maxX = Float.NEGATIVE_INFINITY;
+    private float maxY = Float.NEGATIVE_INFINITY;
+    private float maxZ = Float.NEGATIVE_INFINITY;
+
+    public static ObjStatistics collect(Path filePath) throws IOException {
+        ObjStatistics result = new ObjStatistics();
+        ObjReader.parse(filePath, result);
+        return result;
+    }
+
+    @Override
+    public void onVertex(float x, float y, float z) {
+        vertexCount++;
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        minZ = Math.min(minZ, z);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+        maxZ = Math.max(maxZ, z);
+    }
+
+    @Override
+    public void onTexture(float u, float v) {
+        textureVertexCount++;
+    }
+
+    @Override
+    public void onNormal(float x, float y, float z) {
+        normalCount++;
+    }
+
+    @Override
+    public void onFace(int[] v, int[] vt, int[] vn, int count) {
+        polygonCount++;
+        cornerCount += count;
+    }
+
+    @Override
+    public void onGroup(String name) {
+        groupCount++;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getTextureVertexCount() {
+        return textureVertexCount;
+    }
+
+    public int getNormalCount() {
+        return normalCount;
+    }
+
+    public int getPolygonCount() {
+        return polygonCount;
+    }
+
+    public long getCornerCount() {
+        return cornerCount;
+    }
+
+    // Треугольники после разбиения полигонов веером: для каждого полигона число вершин минус 2
+    public long getTriangleCount() {
+        return cornerCount - 2L * polygonCount;
+    }
+
+    // Количество строк g
+    public int getGroupCount() {
+        return groupCount;
+    }
+
+    public float getMinX() {
+        return minX;
+    }
+
+    public float getMinY() {
+        return minY;
+    }
+
+    public float getMinZ() {
+        return minZ;
+    }
+
+    public float getMaxX() {
+        return maxX;
+    }
+
+    public float getMaxY() {
+        return maxY;
+    }
+
+    public float getMaxZ() {
+        return maxZ;
+    }
+}
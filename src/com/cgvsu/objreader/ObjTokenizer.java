@@ -0,0 +1,102 @@
+package com.cgvsu.objreader;
+
+import java.nio.charset.StandardCharsets;
+
+// Разбивает строку OBJ на слова прямо по байтам, не создавая строк.
+// Разделители те же, что у регулярного выражения \s+: пробел, \t, \n, \u000B, \f, \r.
+public class ObjTokenizer {
+
+    public static final int TOKEN_UNKNOWN = 0;
+    public static final int TOKEN_VERTEX = 1;
+    public static final int TOKEN_TEXTURE = 2;
+    public static final int TOKEN_NORMAL = 3;
+    public static final int TOKEN_FACE = 4;
+    public static final int TOKEN_GROUP = 5;
+
+    private byte[] buffer;
+    private int position;
+    private int end;
+
+    private int tokenStart;
+    private int tokenEnd;
+
+    public void reset(byte[] buffer, int start, int end) {
+        this.buffer = buffer;
+        this.position = start;
+        this.end = end;
+        this.tokenStart = start;
+        this.tokenEnd = start;
+    }
+
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getTokenStart() {
+        return tokenStart;
+    }
+
+    public int getTokenEnd() {
+        return tokenEnd;
+    }
+
+    // Первое слово строки. Как и line.split("\\s+"), строка с ведущим пробелом дает пустое первое слово,
+    // поэтому такая строка не распознается
+    public int firstToken() {
+        tokenStart = position;
+        while (position < end && !isWhitespace(buffer[position])) {
+            position++;
+        }
+        tokenEnd = position;
+
+        switch (tokenEnd - tokenStart) {
+            case 1 -> {
+                if (buffer[tokenStart] == 'v') {
+                    return TOKEN_VERTEX;
+                }
+                if (buffer[tokenStart] == 'f') {
+                    return TOKEN_FACE;
+                }
+                if (buffer[tokenStart] == 'g') {
+                    return TOKEN_GROUP;
+                }
+            }
+            case 2 -> {
+                if (buffer[tokenStart] == 'v') {
+                    if (buffer[tokenStart + 1] == 't') {
+                        return TOKEN_TEXTURE;
+                    }
+                    if (buffer[tokenStart + 1] == 'n') {
+                        return TOKEN_NORMAL;
+                    }
+                }
+            }
+            default -> {}
+        }
+        return TOKEN_UNKNOWN;
+    }
+
+    public boolean nextToken() {
+        while (position < end && isWhitespace(buffer[position])) {
+            position++;
+        }
+        if (position == end) {
+            return false;
+        }
+
+        tokenStart = position;
+        while (position < end && !isWhitespace(buffer[position])) {
+            position++;
+        }
+        tokenEnd = position;
+        return true;
+    }
+
+    public String tokenToString() {
+        return new String(buffer, tokenStart, tokenEnd - tokenStart, StandardCharsets.UTF_8);
+    }
+
+    public static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+}
@@ -0,0 +1,242 @@
+package com.cgvsu.objwriter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+// Запись float в десятичном виде прямо в массив байтов, без строк и Formatter.
+// Два режима:
+// - formatFixed: округление до 6 знаков после точки и отбрасывание хвостовых нулей,
+//   результат совпадает с прежним String.format("%.6f") + удаление нулей;
+// - formatShortest: самая короткая запись без экспоненты, из которой Float.parseFloat (и ObjReader)
+//   получает ровно то же число.
+// Оба метода пишут в buffer начиная с offset не больше MAX_LENGTH байт и возвращают позицию после числа.
+public class FloatFormatter {
+    public static final int MAX_LENGTH = 64;
+
+    private static final int FRACTION_DIGITS = 6;
+    private static final long FRACTION_SCALE = 1_000_000L;
+
+    // Степени десяти, которые представимы в double точно
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final int MAX_SIGNIFICANT_DIGITS = 9;
+
+    // Младшие 29 бит мантиссы double, которые отбрасываются при округлении до float
+    private static final long FLOAT_ROUNDING_MASK = (1L << 29) - 1;
+    private static final long FLOAT_HALFWAY = 1L << 28;
+
+    public static int formatFixed(float value, byte[] buffer, int offset) {
+        checkFinite(value);
+
+        // value = mantissa * 2^exponent
+        int bits = Float.floatToRawIntBits(value);
+        int exponentBits = (bits >>> 23) & 0xFF;
+        long mantissa = bits & 0x7FFFFF;
+        int exponent;
+        if (exponentBits == 0) {
+            exponent = -149;
+        } else {
+            mantissa |= 1 << 23;
+            exponent = exponentBits - 150;
+        }
+
+        // Formatter округляет не точное значение, а цифры Double.toString; для чисел от 2^53 они расходятся
+        if (exponent >= 30) {
+            return formatFixedSlow(value, buffer, offset);
+        }
+
+        // Число в миллионных долях, округленное половиной вверх; для float это совпадает с Formatter
+        long scaled;
+        if (exponent >= 0) {
+            scaled = -1;
+        } else if (-exponent >= 45) {
+            // mantissa * 10^6 < 2^44, после сдвига остается меньше половины
+            scaled = 0;
+        } else {
+            int shift = -exponent;
+            scaled = (mantissa * FRACTION_SCALE + (1L << (shift - 1))) >> shift;
+        }
+
+        int position = offset;
+        if (bits < 0) {
+            buffer[position++] = '-';
+        }
+        if (scaled < 0) {
+            return writeLong(mantissa << exponent, buffer, position);
+        }
+
+        position = writeLong(scaled / FRACTION_SCALE, buffer, position);
+        return writeFraction(scaled % FRACTION_SCALE, FRACTION_DIGITS, buffer, position);
+    }
+
+    public static int formatShortest(float value, byte[] buffer, int offset) {
+        checkFinite(value);
+
+        int position = offset;
+        if (Float.floatToRawIntBits(value) < 0) {
+            buffer[position++] = '-';
+        }
+        float absolute = Math.abs(value);
+        if (absolute == 0.0f) {
+            buffer[position++] = '0';
+            return position;
+        }
+
+        // Перебираем количество значащих цифр: ближайшее к числу десятичное с precision цифрами
+        // принимается, если при обратном разборе дает тот же float
+        double exact = absolute;
+        int decimalExponent = (int) Math.floor(Math.log10(exact));
+        for (int precision = 1; precision <= MAX_SIGNIFICANT_DIGITS; precision++) {
+            int scale = decimalExponent - precision + 1;
+            if (scale < -22 || scale > 22) {
+                break;
+            }
+            // При равном удалении выбирается четная последняя цифра, как в Float.toString
+            long digits = (long) Math.rint(scale >= 0 ? exact / DOUBLE_POWERS_OF_TEN[scale] : exact * DOUBLE_POWERS_OF_TEN[-scale]);
+            if (digits == 0) {
+                continue;
+            }
+            int check = roundTrips(digits, scale, absolute);
+            if (check > 0) {
+                return writeDecimal(digits, scale, buffer, position);
+            }
+            if (check < 0) {
+                break;
+            }
+        }
+
+        // Очень большие и очень маленькие числа: цифры берутся из Float.toString, он тоже дает самую короткую запись
+        return writeShortestSlow(absolute, buffer, position);
+    }
+
+    // 1 - digits * 10^scale разбирается в expected, 0 - нет, -1 - без точной арифметики не проверить
+    private static int roundTrips(long digits, int scale, float expected) {
+        double candidate = scale >= 0 ? digits * DOUBLE_POWERS_OF_TEN[scale] : digits / DOUBLE_POWERS_OF_TEN[-scale];
+        if (candidate < Float.MIN_NORMAL || candidate >= 0x1p127) {
+            return -1;
+        }
+        if ((Double.doubleToRawLongBits(candidate) & FLOAT_ROUNDING_MASK) == FLOAT_HALFWAY) {
+            return -1;
+        }
+        return (float) candidate == expected ? 1 : 0;
+    }
+
+    private static int writeShortestSlow(float absolute, byte[] buffer, int position) {
+        String text = Float.toString(absolute);
+        int exponentIndex = text.indexOf('E');
+        int mantissaEnd = exponentIndex < 0 ? text.length() : exponentIndex;
+        int scale = exponentIndex < 0 ? 0 : Integer.parseInt(text, exponentIndex + 1, text.length(), 10);
+
+        long digits = 0;
+        boolean afterPoint = false;
+        for (int i = 0; i < mantissaEnd; i++) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                afterPoint = true;
+                continue;
+            }
+            digits = digits * 10 + (c - '0');
+            if (afterPoint) {
+                scale--;
+            }
+        }
+        return writeDecimal(digits, scale, buffer, position);
+    }
+
+    private static int formatFixedSlow(float value, byte[] buffer, int offset) {
+        String result = String.format(Locale.ROOT, "%.6f", value);
+        int end = result.length();
+        int point = result.indexOf('.');
+        if (point >= 0) {
+            while (end > point + 1 && result.charAt(end - 1) == '0') {
+                end--;
+            }
+            if (end == point + 1) {
+                end = point;
+            }
+        }
+        byte[] bytes = result.substring(0, end).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+        return offset + bytes.length;
+    }
+
+    // digits * 10^scale без экспоненты и без хвостовых нулей после точки
+    private static int writeDecimal(long digits, int scale, byte[] buffer, int position) {
+        while (scale < 0 && digits % 10 == 0) {
+            digits /= 10;
+            scale++;
+        }
+        if (scale >= 0) {
+            position = writeLong(digits, buffer, position);
+            for (int i = 0; i < scale; i++) {
+                buffer[position++] = '0';
+            }
+            return position;
+        }
+
+        long divisor = 1;
+        for (int i = 0; i < -scale && divisor <= digits; i++) {
+            divisor *= 10;
+        }
+        if (divisor > digits) {
+            // Целая часть равна нулю
+            buffer[position++] = '0';
+            return writeFraction(digits, -scale, buffer, position);
+        }
+        // -scale < 19, иначе целая часть была бы нулевой
+        long unit = pow10(-scale);
+        position = writeLong(digits / unit, buffer, position);
+        return writeFraction(digits % unit, -scale, buffer, position);
+    }
+
+    // Дробная часть fraction / 10^width: точка и цифры с ведущими нулями, хвостовые нули отбрасываются
+    private static int writeFraction(long fraction, int width, byte[] buffer, int position) {
+        if (fraction == 0) {
+            return position;
+        }
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            width--;
+        }
+        buffer[position++] = '.';
+        int end = position + width;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        return end;
+    }
+
+    private static int writeLong(long value, byte[] buffer, int position) {
+        int length = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            length++;
+        }
+        int end = position + length;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+
+    private static void checkFinite(float value) {
+        if (Float.isNaN(value)) {
+            throw new ObjWriterException("Cannot format NaN value");
+        }
+        if (Float.isInfinite(value)) {
+            throw new ObjWriterException("Cannot format infinite value");
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.cgvsu.objwriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Вывод OBJ через буфер байтов фиксированного размера. Числа и индексы пишутся прямо в буфер,
+// заполненный буфер отдается получателю. Все, кроме комментария, - ASCII; комментарий пишется как UTF-8.
+abstract class ObjOutput {
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final byte[] buffer;
+    private int position;
+    private final boolean shortestFloats;
+
+    ObjOutput(int bufferSize, boolean shortestFloats) {
+        this.buffer = new byte[Math.max(bufferSize, FloatFormatter.MAX_LENGTH)];
+        this.shortestFloats = shortestFloats;
+    }
+
+    static ObjOutput of(OutputStream outputStream, ObjWriterOptions options) {
+        return new StreamOutput(outputStream, options);
+    }
+
+    static ObjOutput of(WritableByteChannel channel, ObjWriterOptions options) {
+        return new ChannelOutput(channel, options);
+    }
+
+    static ObjOutput of(Writer writer, ObjWriterOptions options) {
+        return new WriterOutput(writer, options);
+    }
+
+    static ObjOutput of(StringBuilder sb, ObjWriterOptions options) {
+        return new StringBuilderOutput(sb, options);
+    }
+
+    void write(char c) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) c;
+    }
+
+    // Только для ASCII-строк формата: "v ", "vt " и т.п.
+    void write(String ascii) throws IOException {
+        for (int i = 0; i < ascii.length(); i++) {
+            write(ascii.charAt(i));
+        }
+    }
+
+    void writeFloat(float value) throws IOException {
+        if (buffer.length - position < FloatFormatter.MAX_LENGTH) {
+            flushBuffer();
+        }
+        position = shortestFloats
+                ? FloatFormatter.formatShortest(value, buffer, position)
+                : FloatFormatter.formatFixed(value, buffer, position);
+    }
+
+    void writeInt(int value) throws IOException {
+        // Не длиннее "-2147483648"
+        if (buffer.length - position < 11) {
+            flushBuffer();
+        }
+        long rest = value;
+        if (rest < 0) {
+            buffer[position++] = '-';
+            rest = -rest;
+        }
+        int length = 1;
+        for (long i = rest / 10; i != 0; i /= 10) {
+            length++;
+        }
+        int end = position + length;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        }
+        position = end;
+    }
+
+    // Произвольный текст (комментарий)
+    void writeText(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        for (int offset = 0; offset < bytes.length; ) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            int length = Math.min(bytes.length - offset, buffer.length - position);
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+            offset += length;
+        }
+    }
+
+    void flush() throws IOException {
+        flushBuffer();
+    }
+
+    protected void flushBuffer() throws IOException {
+        if (position > 0) {
+            writeBytes(buffer, position);
+            position = 0;
+        }
+    }
+
+    protected abstract void writeBytes(byte[] bytes, int length) throws IOException;
+
+    // Готовые куски вывода (UTF-8) в порядке следования; пишутся после всего, что уже есть в буфере
+    void writeChunks(byte[][] chunks, int[] lengths, int count) throws IOException {
+        flushBuffer();
+        for (int i = 0; i < count; i++) {
+            writeBytes(chunks[i], lengths[i]);
+        }
+    }
+
+    // Вывод в память для параллельной записи: каждый кусок форматируется в свой массив
+    static class MemoryOutput extends ObjOutput {
+        private static final int BUFFER_SIZE = 8 * 1024;
+
+        private byte[] bytes = new byte[BUFFER_SIZE];
+        private int length;
+
+        MemoryOutput(boolean shortestFloats) {
+            super(BUFFER_SIZE, shortestFloats);
+        }
+
+        @Override
+        protected void writeBytes(byte[] source, int sourceLength) {
+            if (length + sourceLength > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + sourceLength, bytes.length * 2));
+            }
+            System.arraycopy(source, 0, bytes, length, sourceLength);
+            length += sourceLength;
+        }
+
+        byte[] getBytes() {
+            return bytes;
+        }
+
+        int getLength() {
+            return length;
+        }
+    }
+
+    private static class StreamOutput extends ObjOutput {
+        private final OutputStream outputStream;
+
+        private StreamOutput(OutputStream outputStream, ObjWriterOptions options) {
+            super(options.getBufferSize(), options.isShortestFloats());
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        protected void writeBytes(byte[] bytes, int length) throws IOException {
+            outputStream.write(bytes, 0, length);
+        }
+
+        @Override
+        void flush() throws IOException {
+            super.flush();
+            outputStream.flush();
+        }
+    }
+
+    private static class ChannelOutput extends ObjOutput {
+        private final WritableByteChannel channel;
+
+        private ChannelOutput(WritableByteChannel channel, ObjWriterOptions options) {
+            super(options.getBufferSize(), options.isShortestFloats());
+            this.channel = channel;
+        }
+
+        @Override
+        protected void writeBytes(byte[] bytes, int length) throws IOException {
+            ByteBuffer source = ByteBuffer.wrap(bytes, 0, length);
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+
+        // Куски уходят в канал одной операцией записи, если канал это поддерживает (FileChannel)
+        @Override
+        void writeChunks(byte[][] chunks, int[] lengths, int count) throws IOException {
+            if (!(channel instanceof GatheringByteChannel gathering)) {
+                super.writeChunks(chunks, lengths, count);
+                return;
+            }
+            flushBuffer();
+            ByteBuffer[] sources = new ByteBuffer[count];
+            long remaining = 0;
+            for (int i = 0; i < count; i++) {
+                sources[i] = ByteBuffer.wrap(chunks[i], 0, lengths[i]);
+                remaining += lengths[i];
+            }
+            while (remaining > 0) {
+                remaining -= gathering.write(sources);
+            }
+        }
+    }
+
+    // Буфер содержит только ASCII, поэтому байты переводятся в символы один к одному.
+    // Комментарий передается строкой напрямую, без кодирования в UTF-8.
+    private static class WriterOutput extends ObjOutput {
+        private final Writer writer;
+        private final char[] chars;
+
+        private WriterOutput(Writer writer, ObjWriterOptions options) {
+            super(options.getBufferSize(), options.isShortestFloats());
+            this.writer = writer;
+            this.chars = new char[Math.max(options.getBufferSize(), FloatFormatter.MAX_LENGTH)];
+        }
+
+        @Override
+        void writeText(String text) throws IOException {
+            flushBuffer();
+            writer.write(text);
+        }
+
+        @Override
+        protected void writeBytes(byte[] bytes, int length) throws IOException {
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) bytes[i];
+            }
+            writer.write(chars, 0, length);
+        }
+
+        @Override
+        void writeChunks(byte[][] chunks, int[] lengths, int count) throws IOException {
+            flushBuffer();
+            for (int i = 0; i < count; i++) {
+                writer.write(new String(chunks[i], 0, lengths[i], StandardCharsets.UTF_8));
+            }
+        }
+
+        @Override
+        void flush() throws IOException {
+            super.flush();
+            writer.flush();
+        }
+    }
+
+    private static class StringBuilderOutput extends ObjOutput {
+        private final StringBuilder sb;
+
+        private StringBuilderOutput(StringBuilder sb, ObjWriterOptions options) {
+            super(options.getBufferSize(), options.isShortestFloats());
+            this.sb = sb;
+        }
+
+        @Override
+        void writeText(String text) throws IOException {
+            flushBuffer();
+            sb.append(text);
+        }
+
+        @Override
+        protected void writeBytes(byte[] bytes, int length) {
+            for (int i = 0; i < length; i++) {
+                sb.append((char) bytes[i]);
+            }
+        }
+
+        @Override
+        void writeChunks(byte[][] chunks, int[] lengths, int count) throws IOException {
+            flushBuffer();
+            for (int i = 0; i < count; i++) {
+                sb.append(new String(chunks[i], 0, lengths[i], StandardCharsets.UTF_8));
+            }
+        }
+    }
+}
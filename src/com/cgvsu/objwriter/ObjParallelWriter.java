@@ -0,0 +1,101 @@
+package com.cgvsu.objwriter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Параллельная запись: каждая часть файла делится на диапазоны по chunkSize строк.
+// Сначала все диапазоны проверяются на пуле потоков, и если ошибок нет, форматируются в свои массивы байтов.
+// Готовые куски выводятся строго по порядку, поэтому результат совпадает с последовательной записью.
+// Одновременно в памяти держится не больше нескольких кусков на поток пула.
+class ObjParallelWriter {
+
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    // Ошибку отдаем из первого по порядку диапазона, то есть ту же, что и при последовательной проверке
+    static void validate(List<ObjSection> sections, ObjWriterOptions options) {
+        ForkJoinPool pool = options.getPool();
+        List<ForkJoinTask<RuntimeException>> tasks = new ArrayList<>();
+        for (Range range : split(sections, options.getChunkSize())) {
+            tasks.add(pool.submit(() -> {
+                try {
+                    ObjWriter.validate(range.section, range.from, range.to);
+                    return null;
+                } catch (RuntimeException e) {
+                    return e;
+                }
+            }));
+        }
+
+        for (ForkJoinTask<RuntimeException> task : tasks) {
+            RuntimeException error = task.join();
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+
+    static void write(List<ObjSection> sections, ObjWriterOptions options, ObjOutput output) throws IOException {
+        ForkJoinPool pool = options.getPool();
+        boolean shortestFloats = options.isShortestFloats();
+        int window = Math.max(1, pool.getParallelism()) * CHUNKS_PER_THREAD;
+
+        List<Range> ranges = split(sections, options.getChunkSize());
+        ArrayDeque<ForkJoinTask<ObjOutput.MemoryOutput>> inFlight = new ArrayDeque<>();
+        byte[][] chunks = new byte[window][];
+        int[] lengths = new int[window];
+
+        int next = 0;
+        while (next < ranges.size() || !inFlight.isEmpty()) {
+            while (next < ranges.size() && inFlight.size() < window) {
+                Range range = ranges.get(next++);
+                inFlight.add(pool.submit(() -> format(range, shortestFloats)));
+            }
+
+            // Первый кусок ждем, а следующие за ним уже готовые забираем вместе с ним одной записью
+            int count = 0;
+            do {
+                ObjOutput.MemoryOutput chunk = inFlight.poll().join();
+                chunks[count] = chunk.getBytes();
+                lengths[count] = chunk.getLength();
+                count++;
+            } while (!inFlight.isEmpty() && inFlight.peek().isDone());
+
+            output.writeChunks(chunks, lengths, count);
+        }
+    }
+
+    private static ObjOutput.MemoryOutput format(Range range, boolean shortestFloats) throws IOException {
+        ObjOutput.MemoryOutput output = new ObjOutput.MemoryOutput(shortestFloats);
+        for (int i = range.from; i < range.to; i++) {
+            range.section.write(i, output);
+        }
+        output.flush();
+        return output;
+    }
+
+    private static List<Range> split(List<ObjSection> sections, int chunkSize) {
+        List<Range> ranges = new ArrayList<>();
+        for (ObjSection section : sections) {
+            for (int from = 0; from < section.size(); from += chunkSize) {
+                ranges.add(new Range(section, from, Math.min(section.size(), from + chunkSize)));
+            }
+        }
+        return ranges;
+    }
+
+    private static class Range {
+        private final ObjSection section;
+        private final int from;
+        private final int to;
+
+        private Range(ObjSection section, int from, int to) {
+            this.section = section;
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.cgvsu.objwriter;
+
+import java.io.IOException;
+
+// Часть выходного файла: size() однотипных строк (вершины, полигоны и т.п.) или одна строка текста.
+// Строки не зависят друг от друга, поэтому диапазоны можно проверять и выводить отдельно.
+abstract class ObjSection {
+    static final ObjSection EMPTY_LINE = new ObjSection(1) {
+        @Override
+        void write(int index, ObjOutput output) throws IOException {
+            output.write('\n');
+        }
+    };
+
+    private final int size;
+
+    ObjSection(int size) {
+        this.size = size;
+    }
+
+    static ObjSection comment(String comment) {
+        return new ObjSection(1) {
+            @Override
+            void write(int index, ObjOutput output) throws IOException {
+                output.write("# ");
+                output.writeText(comment);
+                output.write('\n');
+            }
+        };
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Бросает ObjWriterException, если строку с этим индексом нельзя записать
+    void validate(int index) {
+    }
+
+    abstract void write(int index, ObjOutput output) throws IOException;
+}
@@ -3,159 +3,417 @@ package com.cgvsu.objwriter;
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
 import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.PackedPolygons;
 import com.cgvsu.model.Polygon;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 
 public class ObjWriter {
 
+    private static final String DEFAULT_COMMENT = "Exported by Lapin Nikita ObjWriter";
+
     public static void write(Model model, String filePath) throws IOException {
-        String content = modelToString(model);
-        Files.writeString(Path.of(filePath), content);
+        write(model, Path.of(filePath), new ObjWriterOptions());
+    }
+
+    public static void write(Model model, String filePath, ObjWriterOptions options) throws IOException {
+        write(model, Path.of(filePath), options);
+    }
+
+    // Модель проверяется до открытия файла, поэтому при ошибке в модели существующий файл не портится
+    public static void write(Model model, Path filePath, ObjWriterOptions options) throws IOException {
+        List<ObjSection> sections = prepare(model, DEFAULT_COMMENT, options);
+        try (FileChannel channel = FileChannel.open(filePath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeSections(sections, options, ObjOutput.of(channel, options));
+        }
+    }
+
+    public static void write(Model model, WritableByteChannel channel, ObjWriterOptions options) throws IOException {
+        List<ObjSection> sections = prepare(model, DEFAULT_COMMENT, options);
+        writeSections(sections, options, ObjOutput.of(channel, options));
+    }
+
+    // Поток не закрывается
+    public static void write(Model model, OutputStream outputStream) throws IOException {
+        write(model, outputStream, new ObjWriterOptions());
+    }
+
+    public static void write(Model model, OutputStream outputStream, ObjWriterOptions options) throws IOException {
+        List<ObjSection> sections = prepare(model, DEFAULT_COMMENT, options);
+        writeSections(sections, options, ObjOutput.of(outputStream, options));
+    }
+
+    public static void write(Model model, Writer writer) throws IOException {
+        write(model, writer, new ObjWriterOptions());
+    }
+
+    public static void write(Model model, Writer writer, ObjWriterOptions options) throws IOException {
+        List<ObjSection> sections = prepare(model, DEFAULT_COMMENT, options);
+        writeSections(sections, options, ObjOutput.of(writer, options));
     }
 
     public static String modelToString(Model model) {
-        return modelToString(model, "Exported by Lapin Nikita ObjWriter");
+        return modelToString(model, DEFAULT_COMMENT);
     }
 
     public static String modelToString(Model model, String comment) {
+        return modelToString(model, comment, new ObjWriterOptions());
+    }
+
+    // Строка собирается тем же кодом, что и при потоковой записи
+    public static String modelToString(Model model, String comment, ObjWriterOptions options) {
+        return sectionsToString(prepare(model, comment, options), options);
+    }
+
+    public static void writePacked(PackedModel model, String filePath) throws IOException {
+        writePacked(model, Path.of(filePath), new ObjWriterOptions());
+    }
+
+    public static void writePacked(PackedModel model, Path filePath, ObjWriterOptions options) throws IOException {
+        List<ObjSection> sections = prepare(model, DEFAULT_COMMENT, options);
+        try (FileChannel channel = FileChannel.open(filePath,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeSections(sections, options, ObjOutput.of(channel, options));
+        }
+    }
+
+    public static void writePacked(PackedModel model, OutputStream outputStream, ObjWriterOptions options) throws IOException {
+        List<ObjSection> sections = prepare(model, DEFAULT_COMMENT, options);
+        writeSections(sections, options, ObjOutput.of(outputStream, options));
+    }
+
+    public static String packedModelToString(PackedModel model) {
+        return packedModelToString(model, DEFAULT_COMMENT);
+    }
+
+    public static String packedModelToString(PackedModel model, String comment) {
+        return packedModelToString(model, comment, new ObjWriterOptions());
+    }
+
+    // Тот же формат, что и для Model, координаты берутся прямо из массивов PackedModel
+    public static String packedModelToString(PackedModel model, String comment, ObjWriterOptions options) {
+        return sectionsToString(prepare(model, comment, options), options);
+    }
+
+    // Разбивает модель на части файла и проверяет их все до начала вывода.
+    // Порядок проверок тот же, что и порядок вывода, поэтому первой сообщается та же ошибка.
+    private static List<ObjSection> prepare(Model model, String comment, ObjWriterOptions options) {
+        checkArguments(model, options);
+        List<ObjSection> sections;
+        try {
+            sections = sections(model, comment);
+        } catch (NullPointerException e) {
+            throw new ObjWriterException("Model contains null elements", e);
+        }
+        validate(sections, options);
+        return sections;
+    }
+
+    private static List<ObjSection> prepare(PackedModel model, String comment, ObjWriterOptions options) {
+        checkArguments(model, options);
+        List<ObjSection> sections = sections(model, comment);
+        validate(sections, options);
+        return sections;
+    }
+
+    private static void checkArguments(Object model, ObjWriterOptions options) {
         if (model == null) {
             throw new ObjWriterException("Model cannot be null");
         }
+        if (options == null) {
+            throw new ObjWriterException("Options cannot be null");
+        }
+    }
 
+    private static void validate(List<ObjSection> sections, ObjWriterOptions options) {
+        if (options.isParallel()) {
+            ObjParallelWriter.validate(sections, options);
+            return;
+        }
+        for (ObjSection section : sections) {
+            validate(section, 0, section.size());
+        }
+    }
+
+    static void validate(ObjSection section, int from, int to) {
+        try {
+            for (int i = from; i < to; i++) {
+                section.validate(i);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new ObjWriterException("Invalid model data structure", e);
+        } catch (NullPointerException e) {
+            throw new ObjWriterException("Model contains null elements", e);
+        }
+    }
+
+    private static void writeSections(List<ObjSection> sections, ObjWriterOptions options, ObjOutput output) throws IOException {
+        if (options.isParallel()) {
+            ObjParallelWriter.write(sections, options, output);
+        } else {
+            for (ObjSection section : sections) {
+                for (int i = 0; i < section.size(); i++) {
+                    section.write(i, output);
+                }
+            }
+        }
+        output.flush();
+    }
+
+    private static String sectionsToString(List<ObjSection> sections, ObjWriterOptions options) {
         StringBuilder sb = new StringBuilder();
+        try {
+            writeSections(sections, options, ObjOutput.of(sb, options));
+        } catch (IOException e) {
+            // StringBuilder не бросает IOException
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
 
+    // Части файла в порядке вывода: комментарий, v, vt, vn, f и пустые строки между непустыми группами
+    private static List<ObjSection> sections(Model model, String comment) {
+        List<ObjSection> sections = new ArrayList<>();
         if (comment != null && !comment.isEmpty()) {
-            sb.append("# ").append(comment).append("\n");
+            sections.add(ObjSection.comment(comment));
         }
 
-        try {
-            List<Vector3f> vertices = model.getVertices();
-            for (int i = 0; i < vertices.size(); i++) {
-                Vector3f vertex = vertices.get(i);
-                validateVertex(vertex, i);
-                sb.append("v ")
-                        .append(formatFloatCompact(vertex.getX()))
-                        .append(" ")
-                        .append(formatFloatCompact(vertex.getY()))
-                        .append(" ")
-                        .append(formatFloatCompact(vertex.getZ()))
-                        .append("\n");
+        List<Vector3f> vertices = model.getVertices();
+        List<Vector2f> textureVertices = model.getTextureVertices();
+        List<Vector3f> normals = model.getNormals();
+        List<Polygon> polygons = model.getPolygons();
+        int textureVertexCount = textureVertices != null ? textureVertices.size() : 0;
+        int normalCount = normals != null ? normals.size() : 0;
+
+        sections.add(new ObjSection(vertices.size()) {
+            @Override
+            void validate(int index) {
+                validateVertex(vertices.get(index), index);
             }
 
-            if (!vertices.isEmpty() &&
-                    ((model.getTextureVertices() != null && !model.getTextureVertices().isEmpty()) ||
-                            (model.getNormals() != null && !model.getNormals().isEmpty()))) {
-                sb.append("\n");
+            @Override
+            void write(int index, ObjOutput output) throws IOException {
+                Vector3f vertex = vertices.get(index);
+                writeVector("v ", vertex.getX(), vertex.getY(), vertex.getZ(), output);
             }
+        });
 
-            List<Vector2f> textureVertices = model.getTextureVertices();
-            if (textureVertices != null) {
-                for (int i = 0; i < textureVertices.size(); i++) {
-                    Vector2f textureVertex = textureVertices.get(i);
-                    validateTextureVertex(textureVertex, i);
-                    sb.append("vt ")
-                            .append(formatFloatCompact(textureVertex.getX()))
-                            .append(" ")
-                            .append(formatFloatCompact(textureVertex.getY()))
-                            .append("\n");
-                }
-            }
+        if (!vertices.isEmpty() && (textureVertexCount > 0 || normalCount > 0)) {
+            sections.add(ObjSection.EMPTY_LINE);
+        }
 
-            if (textureVertices != null && !textureVertices.isEmpty() &&
-                    model.getNormals() != null && !model.getNormals().isEmpty()) {
-                sb.append("\n");
+        sections.add(new ObjSection(textureVertexCount) {
+            @Override
+            void validate(int index) {
+                validateTextureVertex(textureVertices.get(index), index);
             }
 
-            List<Vector3f> normals = model.getNormals();
-            if (normals != null) {
-                for (int i = 0; i < normals.size(); i++) {
-                    Vector3f normal = normals.get(i);
-                    validateNormal(normal, i);
-                    sb.append("vn ")
-                            .append(formatFloatCompact(normal.getX()))
-                            .append(" ")
-                            .append(formatFloatCompact(normal.getY()))
-                            .append(" ")
-                            .append(formatFloatCompact(normal.getZ()))
-                            .append("\n");
-                }
+            @Override
+            void write(int index, ObjOutput output) throws IOException {
+                Vector2f textureVertex = textureVertices.get(index);
+                writeVector("vt ", textureVertex.getX(), textureVertex.getY(), output);
             }
+        });
 
-            if ((!vertices.isEmpty() ||
-                    (textureVertices != null && !textureVertices.isEmpty()) ||
-                    (normals != null && !normals.isEmpty())) &&
-                    !model.getPolygons().isEmpty()) {
-                sb.append("\n");
+        if (textureVertexCount > 0 && normalCount > 0) {
+            sections.add(ObjSection.EMPTY_LINE);
+        }
+
+        sections.add(new ObjSection(normalCount) {
+            @Override
+            void validate(int index) {
+                validateNormal(normals.get(index), index);
             }
 
-            List<Polygon> polygons = model.getPolygons();
-            for (int i = 0; i < polygons.size(); i++) {
-                Polygon polygon = polygons.get(i);
-                validatePolygon(polygon, i,
-                        vertices.size(),
-                        textureVertices != null ? textureVertices.size() : 0,
-                        normals != null ? normals.size() : 0);
-
-                sb.append("f");
-                List<Integer> vertexIndices = polygon.getVertexIndices();
-                List<Integer> textureVertexIndices = polygon.getTextureVertexIndices();
-                List<Integer> normalIndices = polygon.getNormalIndices();
-
-                boolean hasTextures = textureVertexIndices != null && !textureVertexIndices.isEmpty();
-                boolean hasNormals = normalIndices != null && !normalIndices.isEmpty();
-
-                for (int j = 0; j < vertexIndices.size(); j++) {
-                    sb.append(" ");
-                    sb.append(vertexIndices.get(j) + 1);
-
-                    if (hasTextures || hasNormals) {
-                        sb.append("/");
-
-                        if (hasTextures) {
-                            sb.append(textureVertexIndices.get(j) + 1);
-                        }
-
-                        if (hasNormals) {
-                            sb.append("/").append(normalIndices.get(j) + 1);;
-                        }
-                    }
-                }
-                sb.append("\n");
+            @Override
+            void write(int index, ObjOutput output) throws IOException {
+                Vector3f normal = normals.get(index);
+                writeVector("vn ", normal.getX(), normal.getY(), normal.getZ(), output);
             }
+        });
 
-        } catch (IndexOutOfBoundsException e) {
-            throw new ObjWriterException("Invalid model data structure", e);
-        } catch (NullPointerException e) {
-            throw new ObjWriterException("Model contains null elements", e);
+        if ((!vertices.isEmpty() || textureVertexCount > 0 || normalCount > 0) && !polygons.isEmpty()) {
+            sections.add(ObjSection.EMPTY_LINE);
         }
 
-        return sb.toString();
+        sections.add(new ObjSection(polygons.size()) {
+            @Override
+            void validate(int index) {
+                validatePolygon(polygons.get(index), index, vertices.size(), textureVertexCount, normalCount);
+            }
+
+            @Override
+            void write(int index, ObjOutput output) throws IOException {
+                writePolygon(polygons.get(index), output);
+            }
+        });
+        return sections;
     }
 
-    //компактное форматирование чисел как в оригинальном файле
-    protected static String formatFloatCompact(float value) {
-        if (Float.isNaN(value)) {
-            throw new ObjWriterException("Cannot format NaN value");
+    private static List<ObjSection> sections(PackedModel model, String comment) {
+        List<ObjSection> sections = new ArrayList<>();
+        if (comment != null && !comment.isEmpty()) {
+            sections.add(ObjSection.comment(comment));
+        }
+
+        int vertexCount = model.getVertexCount();
+        int textureVertexCount = model.getTextureVertexCount();
+        int normalCount = model.getNormalCount();
+        PackedPolygons polygons = model.getPolygons();
+
+        sections.add(new ObjSection(vertexCount) {
+            @Override
+            void validate(int index) {
+                validateVertex(model.getVertexX(index), model.getVertexY(index), model.getVertexZ(index), index);
+            }
+
+            @Override
+            void write(int index, ObjOutput output) throws IOException {
+                writeVector("v ", model.getVertexX(index), model.getVertexY(index), model.getVertexZ(index), output);
+            }
+        });
+
+        if (vertexCount > 0 && (textureVertexCount > 0 || normalCount > 0)) {
+            sections.add(ObjSection.EMPTY_LINE);
         }
-        if (Float.isInfinite(value)) {
-            throw new ObjWriterException("Cannot format infinite value");
+
+        sections.add(new ObjSection(textureVertexCount) {
+            @Override
+            void validate(int index) {
+                validateTextureVertex(model.getTextureVertexU(index), model.getTextureVertexV(index), index);
+            }
+
+            @Override
+            void write(int index, ObjOutput output) throws IOException {
+                writeVector("vt ", model.getTextureVertexU(index), model.getTextureVertexV(index), output);
+            }
+        });
+
+        if (textureVertexCount > 0 && normalCount > 0) {
+            sections.add(ObjSection.EMPTY_LINE);
         }
 
-        String result = String.format(Locale.ROOT, "%.6f", value);
+        sections.add(new ObjSection(normalCount) {
+            @Override
+            void validate(int index) {
+                validateNormal(model.getNormalX(index), model.getNormalY(index), model.getNormalZ(index), index);
+            }
 
-        if (result.contains(".")) {
-            result = result.replaceAll("0*$", "");
-            if (result.endsWith(".")) {
-                result = result.substring(0, result.length() - 1);
+            @Override
+            void write(int index, ObjOutput output) throws IOException {
+                writeVector("vn ", model.getNormalX(index), model.getNormalY(index), model.getNormalZ(index), output);
             }
+        });
+
+        if ((vertexCount > 0 || textureVertexCount > 0 || normalCount > 0) && !polygons.isEmpty()) {
+            sections.add(ObjSection.EMPTY_LINE);
         }
 
-        return result;
+        sections.add(new ObjSection(polygons.getPolygonCount()) {
+            @Override
+            void validate(int index) {
+                validatePolygon(polygons, index, vertexCount, textureVertexCount, normalCount);
+            }
+
+            @Override
+            void write(int index, ObjOutput output) throws IOException {
+                writePolygon(polygons, index, output);
+            }
+        });
+        return sections;
+    }
+
+    private static void writeVector(String prefix, float x, float y, ObjOutput output) throws IOException {
+        output.write(prefix);
+        output.writeFloat(x);
+        output.write(' ');
+        output.writeFloat(y);
+        output.write('\n');
+    }
+
+    private static void writeVector(String prefix, float x, float y, float z, ObjOutput output) throws IOException {
+        output.write(prefix);
+        output.writeFloat(x);
+        output.write(' ');
+        output.writeFloat(y);
+        output.write(' ');
+        output.writeFloat(z);
+        output.write('\n');
+    }
+
+    private static void writePolygon(Polygon polygon, ObjOutput output) throws IOException {
+        output.write('f');
+        List<Integer> vertexIndices = polygon.getVertexIndices();
+        List<Integer> textureVertexIndices = polygon.getTextureVertexIndices();
+        List<Integer> normalIndices = polygon.getNormalIndices();
+
+        boolean hasTextures = textureVertexIndices != null && !textureVertexIndices.isEmpty();
+        boolean hasNormals = normalIndices != null && !normalIndices.isEmpty();
+
+        for (int j = 0; j < vertexIndices.size(); j++) {
+            output.write(' ');
+            output.writeInt(vertexIndices.get(j) + 1);
+
+            if (hasTextures || hasNormals) {
+                output.write('/');
+
+                if (hasTextures) {
+                    output.writeInt(textureVertexIndices.get(j) + 1);
+                }
+
+                if (hasNormals) {
+                    output.write('/');
+                    output.writeInt(normalIndices.get(j) + 1);
+                }
+            }
+        }
+        output.write('\n');
+    }
+
+    // Индексы читаются из массивов PackedPolygons без упаковки в Integer
+    private static void writePolygon(PackedPolygons polygons, int polygon, ObjOutput output) throws IOException {
+        output.write('f');
+        int vertexCount = polygons.getPolygonVertexCount(polygon);
+        boolean hasTextures = polygons.hasTextureVertices(polygon);
+        boolean hasNormals = polygons.hasNormals(polygon);
+
+        for (int j = 0; j < vertexCount; j++) {
+            output.write(' ');
+            output.writeInt(polygons.getVertexIndex(polygon, j) + 1);
+
+            if (hasTextures || hasNormals) {
+                output.write('/');
+
+                if (hasTextures) {
+                    output.writeInt(polygons.getTextureVertexIndex(polygon, j) + 1);
+                }
+
+                if (hasNormals) {
+                    output.write('/');
+                    output.writeInt(polygons.getNormalIndex(polygon, j) + 1);
+                }
+            }
+        }
+        output.write('\n');
+    }
+
+    //компактное форматирование чисел как в оригинальном файле
+    protected static String formatFloatCompact(float value) {
+        byte[] buffer = new byte[FloatFormatter.MAX_LENGTH];
+        int length = FloatFormatter.formatFixed(value, buffer, 0);
+        return new String(buffer, 0, length, StandardCharsets.US_ASCII);
     }
 
     // Обычные валидаторы
@@ -164,10 +422,14 @@ public class ObjWriter {
         if (vertex == null) {
             throw new ObjWriterException("Vertex at index " + index + " is null");
         }
-        if (Float.isNaN(vertex.getX()) || Float.isNaN(vertex.getY()) || Float.isNaN(vertex.getZ())) {
+        validateVertex(vertex.getX(), vertex.getY(), vertex.getZ(), index);
+    }
+
+    protected static void validateVertex(float x, float y, float z, int index) {
+        if (Float.isNaN(x) || Float.isNaN(y) || Float.isNaN(z)) {
             throw new ObjWriterException("Vertex at index " + index + " contains NaN values");
         }
-        if (Float.isInfinite(vertex.getX()) || Float.isInfinite(vertex.getY()) || Float.isInfinite(vertex.getZ())) {
+        if (Float.isInfinite(x) || Float.isInfinite(y) || Float.isInfinite(z)) {
             throw new ObjWriterException("Vertex at index " + index + " contains infinite values");
         }
     }
@@ -176,10 +438,14 @@ public class ObjWriter {
         if (textureVertex == null) {
             throw new ObjWriterException("Texture vertex at index " + index + " is null");
         }
-        if (Float.isNaN(textureVertex.getX()) || Float.isNaN(textureVertex.getY())) {
+        validateTextureVertex(textureVertex.getX(), textureVertex.getY(), index);
+    }
+
+    protected static void validateTextureVertex(float u, float v, int index) {
+        if (Float.isNaN(u) || Float.isNaN(v)) {
             throw new ObjWriterException("Texture vertex at index " + index + " contains NaN values");
         }
-        if (Float.isInfinite(textureVertex.getX()) || Float.isInfinite(textureVertex.getY())) {
+        if (Float.isInfinite(u) || Float.isInfinite(v)) {
             throw new ObjWriterException("Texture vertex at index " + index + " contains infinite values");
         }
     }
@@ -188,10 +454,14 @@ public class ObjWriter {
         if (normal == null) {
             throw new ObjWriterException("Normal at index " + index + " is null");
         }
-        if (Float.isNaN(normal.getX()) || Float.isNaN(normal.getY()) || Float.isNaN(normal.getZ())) {
+        validateNormal(normal.getX(), normal.getY(), normal.getZ(), index);
+    }
+
+    protected static void validateNormal(float x, float y, float z, int index) {
+        if (Float.isNaN(x) || Float.isNaN(y) || Float.isNaN(z)) {
             throw new ObjWriterException("Normal at index " + index + " contains NaN values");
         }
-        if (Float.isInfinite(normal.getX()) || Float.isInfinite(normal.getY()) || Float.isInfinite(normal.getZ())) {
+        if (Float.isInfinite(x) || Float.isInfinite(y) || Float.isInfinite(z)) {
             throw new ObjWriterException("Normal at index " + index + " contains infinite values");
         }
     }
@@ -261,4 +531,46 @@ public class ObjWriter {
             }
         }
     }
-}
\ No newline at end of file
+
+    protected static void validatePolygon(PackedPolygons polygons, int polyIndex, int vertexCount,
+                                          int textureVertexCount, int normalCount) {
+        int polygonVertexCount = polygons.getPolygonVertexCount(polyIndex);
+        if (polygonVertexCount < 3) {
+            throw new ObjWriterException("Polygon at index " + polyIndex + " has less than 3 vertices");
+        }
+
+        for (int j = 0; j < polygonVertexCount; j++) {
+            int vertexIndex = polygons.getVertexIndex(polyIndex, j);
+            if (vertexIndex < 0 || vertexIndex >= vertexCount) {
+                throw new ObjWriterException(
+                        "Polygon at index " + polyIndex + " references invalid vertex index " +
+                                vertexIndex + " (available vertices: 0-" + (vertexCount - 1) + ")"
+                );
+            }
+        }
+
+        if (polygons.hasTextureVertices(polyIndex)) {
+            for (int j = 0; j < polygonVertexCount; j++) {
+                int texIndex = polygons.getTextureVertexIndex(polyIndex, j);
+                if (texIndex < 0 || texIndex >= textureVertexCount) {
+                    throw new ObjWriterException(
+                            "Polygon at index " + polyIndex + " references invalid texture vertex index " +
+                                    texIndex + " (available texture vertices: 0-" + (textureVertexCount - 1) + ")"
+                    );
+                }
+            }
+        }
+
+        if (polygons.hasNormals(polyIndex)) {
+            for (int j = 0; j < polygonVertexCount; j++) {
+                int normalIndex = polygons.getNormalIndex(polyIndex, j);
+                if (normalIndex < 0 || normalIndex >= normalCount) {
+                    throw new ObjWriterException(
+                            "Polygon at index " + polyIndex + " references invalid normal index " +
+                                    normalIndex + " (available normals: 0-" + (normalCount - 1) + ")"
+                    );
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.cgvsu.objwriter;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class ObjWriterOptions {
+    public static final int DEFAULT_BUFFER_SIZE = ObjOutput.DEFAULT_BUFFER_SIZE;
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+
+    private boolean shortestFloats = false;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private boolean parallel = false;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public boolean isShortestFloats() {
+        return shortestFloats;
+    }
+
+    // Самая короткая запись чисел, которая читается обратно в тот же float.
+    // По умолчанию числа округляются до 6 знаков после точки
+    public void setShortestFloats(boolean shortestFloats) {
+        this.shortestFloats = shortestFloats;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    // Размер буфера, через который идет запись; больше этого объема в памяти писатель не держит
+    public void setBufferSize(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive, got: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    // Параллельная запись: диапазоны строк проверяются и форматируются на пуле потоков, вывод тот же
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    public void setPool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        this.pool = pool;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    // Количество строк (вершин, полигонов) в одной задаче параллельной записи
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive, got: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+}
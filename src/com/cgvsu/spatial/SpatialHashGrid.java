@@ -0,0 +1,277 @@
+package com.cgvsu.spatial;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+// Пространственная хеш-сетка для поиска близких точек: пространство делится на кубические ячейки размера cellSize,
+// номер ячейки хешируется в слот таблицы, точки одного слота связаны в список через next.
+// Разные ячейки могут попасть в один слот - такие точки отсеиваются проверкой расстояния.
+// Поиск в радиусе порядка cellSize просматривает 27 ячеек, поэтому сопоставление n точек занимает O(n).
+// Точки с равными координатами хранятся одной группой: в списке слота только первая точка группы, остальные
+// связаны через sameNext по возрастанию номеров. Поэтому повторяющиеся точки (одинаковые нормали, текстурные
+// координаты) не удлиняют поиск, а удаленные (remove) пропускаются за амортизированное O(1).
+// Координаты должны быть конечными. Номера ячеек ограничены CELL_LIMIT: очень далекие точки попадают
+// в крайние ячейки, а поиск, которому пришлось бы обойти больше ячеек, чем есть точек, перебирает точки.
+public class SpatialHashGrid {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final double CELL_LIMIT = 1L << 52;
+
+    private final float cellSize;
+    private final double inverseCellSize;
+
+    // x0 y0 z0 x1 y1 z1 ...
+    private float[] points;
+    private int count;
+
+    // Группа точки - номер ее первой точки; для первой точки группы еще следующая группа слота,
+    // первая неудаленная и последняя точка группы (-1 - нет)
+    private int[] group;
+    private int[] next;
+    private int[] firstAlive;
+    private int[] last;
+    // Следующая точка той же группы
+    private int[] sameNext;
+    private boolean[] removed;
+    private int groupCount;
+
+    // Первая группа слота, -1 - слот пуст; длина - степень двойки, не меньше удвоенного числа групп
+    private int[] heads;
+
+    public SpatialHashGrid(float cellSize) {
+        this(cellSize, INITIAL_CAPACITY);
+    }
+
+    public SpatialHashGrid(float cellSize, int expectedPoints) {
+        if (!(cellSize > 0) || Float.isInfinite(cellSize)) {
+            throw new IllegalArgumentException("Cell size must be positive and finite");
+        }
+        if (expectedPoints < 0) {
+            throw new IllegalArgumentException("Expected point count cannot be negative");
+        }
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1.0 / cellSize;
+        int capacity = Math.max(expectedPoints, INITIAL_CAPACITY);
+        this.points = new float[capacity * 3];
+        this.group = new int[capacity];
+        this.next = new int[capacity];
+        this.firstAlive = new int[capacity];
+        this.last = new int[capacity];
+        this.sameNext = new int[capacity];
+        this.removed = new boolean[capacity];
+        this.heads = new int[tableSize(capacity)];
+        Arrays.fill(heads, -1);
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    // Число добавленных точек, включая удаленные
+    public int size() {
+        return count;
+    }
+
+    // Добавляет точку и возвращает ее номер (номера идут подряд с нуля)
+    public int add(float x, float y, float z) {
+        checkFinite(x, y, z);
+        if (count == group.length) {
+            grow();
+        }
+        int index = count++;
+        points[index * 3] = x;
+        points[index * 3 + 1] = y;
+        points[index * 3 + 2] = z;
+        sameNext[index] = -1;
+
+        for (int first = heads[slot(x, y, z)]; first >= 0; first = next[first]) {
+            if (points[first * 3] == x && points[first * 3 + 1] == y && points[first * 3 + 2] == z) {
+                group[index] = first;
+                sameNext[last[first]] = index;
+                last[first] = index;
+                if (firstAlive[first] < 0) {
+                    firstAlive[first] = index;
+                }
+                return index;
+            }
+        }
+
+        group[index] = index;
+        firstAlive[index] = index;
+        last[index] = index;
+        if (++groupCount * 2 > heads.length) {
+            rehash(tableSize(groupCount));
+        } else {
+            link(index);
+        }
+        return index;
+    }
+
+    // Исключает точку из поиска; номер и координаты точки сохраняются
+    public void remove(int index) {
+        checkIndex(index);
+        if (removed[index]) {
+            return;
+        }
+        removed[index] = true;
+        int first = group[index];
+        int alive = firstAlive[first];
+        while (alive >= 0 && removed[alive]) {
+            alive = sameNext[alive];
+        }
+        firstAlive[first] = alive;
+    }
+
+    public boolean isRemoved(int index) {
+        return removed[checkIndex(index)];
+    }
+
+    public float getX(int index) {
+        return points[checkIndex(index) * 3];
+    }
+
+    public float getY(int index) {
+        return points[checkIndex(index) * 3 + 1];
+    }
+
+    public float getZ(int index) {
+        return points[checkIndex(index) * 3 + 2];
+    }
+
+    // Ближайшая неудаленная точка, у которой каждая координата отличается от (x, y, z) не больше чем на tolerance,
+    // и для которой filter (может быть null) возвращает true. При равном расстоянии - с меньшим номером.
+    // -1, если такой точки нет. Без filter группа равных точек проверяется за O(1); filter вызывается для точек
+    // группы по очереди, поэтому отбрасывать им много равных точек дорого - для этого есть remove
+    public int findNearest(float x, float y, float z, float tolerance, IntPredicate filter) {
+        if (!(tolerance >= 0)) {
+            throw new IllegalArgumentException("Tolerance cannot be negative");
+        }
+        checkFinite(x, y, z);
+        long minX = cell(x - tolerance);
+        long maxX = cell(x + tolerance);
+        long minY = cell(y - tolerance);
+        long maxY = cell(y + tolerance);
+        long minZ = cell(z - tolerance);
+        long maxZ = cell(z + tolerance);
+
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        double cells = (maxX - minX + 1.0) * (maxY - minY + 1.0) * (maxZ - minZ + 1.0);
+        if (cells > count) {
+            for (int i = 0; i < count; i++) {
+                if (removed[i]) {
+                    continue;
+                }
+                double distance = distance(i, x, y, z, tolerance);
+                if (distance < bestDistance && (filter == null || filter.test(i))) {
+                    best = i;
+                    bestDistance = distance;
+                }
+            }
+            return best;
+        }
+
+        int mask = heads.length - 1;
+        for (long cellX = minX; cellX <= maxX; cellX++) {
+            for (long cellY = minY; cellY <= maxY; cellY++) {
+                for (long cellZ = minZ; cellZ <= maxZ; cellZ++) {
+                    for (int first = heads[hash(cellX, cellY, cellZ) & mask]; first >= 0; first = next[first]) {
+                        int candidate = firstAlive[first];
+                        if (candidate < 0) {
+                            continue;
+                        }
+                        double distance = distance(first, x, y, z, tolerance);
+                        if (distance > bestDistance || (distance == bestDistance && candidate >= best)) {
+                            continue;
+                        }
+                        // Точки группы идут по возрастанию номеров: первая подходящая - лучшая в группе
+                        if (filter != null) {
+                            while (candidate >= 0 && (removed[candidate] || !filter.test(candidate))) {
+                                candidate = sameNext[candidate];
+                            }
+                        }
+                        if (candidate >= 0 && (distance < bestDistance || candidate < best)) {
+                            best = candidate;
+                            bestDistance = distance;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    public int findNearest(float x, float y, float z, float tolerance) {
+        return findNearest(x, y, z, tolerance, null);
+    }
+
+    // Квадрат расстояния до точки index; бесконечность, если какая-то координата отличается больше чем на tolerance
+    private double distance(int index, float x, float y, float z, float tolerance) {
+        double dx = points[index * 3] - x;
+        double dy = points[index * 3 + 1] - y;
+        double dz = points[index * 3 + 2] - z;
+        if (Math.abs(dx) > tolerance || Math.abs(dy) > tolerance || Math.abs(dz) > tolerance) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private void grow() {
+        int capacity = group.length + (group.length >> 1);
+        points = Arrays.copyOf(points, capacity * 3);
+        group = Arrays.copyOf(group, capacity);
+        next = Arrays.copyOf(next, capacity);
+        firstAlive = Arrays.copyOf(firstAlive, capacity);
+        last = Arrays.copyOf(last, capacity);
+        sameNext = Arrays.copyOf(sameNext, capacity);
+        removed = Arrays.copyOf(removed, capacity);
+    }
+
+    private void link(int first) {
+        int slot = slot(points[first * 3], points[first * 3 + 1], points[first * 3 + 2]);
+        next[first] = heads[slot];
+        heads[slot] = first;
+    }
+
+    // Группы в слоте идут от последней добавленной к первой, порядок для поиска не важен
+    private void rehash(int tableSize) {
+        heads = new int[tableSize];
+        Arrays.fill(heads, -1);
+        for (int i = 0; i < count; i++) {
+            if (group[i] == i) {
+                link(i);
+            }
+        }
+    }
+
+    private int slot(float x, float y, float z) {
+        return hash(cell(x), cell(y), cell(z)) & (heads.length - 1);
+    }
+
+    private long cell(float coordinate) {
+        return (long) Math.max(-CELL_LIMIT, Math.min(CELL_LIMIT, Math.floor(coordinate * inverseCellSize)));
+    }
+
+    private static void checkFinite(float x, float y, float z) {
+        if (!Float.isFinite(x) || !Float.isFinite(y) || !Float.isFinite(z)) {
+            throw new IllegalArgumentException("Coordinates must be finite");
+        }
+    }
+
+    private static int hash(long x, long y, long z) {
+        long h = x * 0x9E3779B97F4A7C15L ^ y * 0xC2B2AE3D27D4EB4FL ^ z * 0x165667B19E3779F9L;
+        h ^= h >>> 32;
+        h *= 0xFF51AFD7ED558CCDL;
+        return (int) (h ^ (h >>> 29));
+    }
+
+    private static int tableSize(int points) {
+        return Integer.highestOneBit(Math.max(points * 2 - 1, INITIAL_CAPACITY)) << 1;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+        }
+        return index;
+    }
+}
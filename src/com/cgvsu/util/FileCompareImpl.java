@@ -7,4 +7,5 @@ public interface FileCompareImpl {
     boolean areFilesIdentical() throws IOException;
     void printDifferenceSummary() throws IOException;
     void compareFilesContent() throws IOException;
+    void compareGeometry() throws IOException;
 }
\ No newline at end of file
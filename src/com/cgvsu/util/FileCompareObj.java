@@ -1,13 +1,13 @@
 package com.cgvsu.util;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
+import java.util.Locale;
 
 public class FileCompareObj implements FileCompareImpl {
     private Path firstFile;
     private Path secondFile;
+    private FileComparison comparison;
 
     public FileCompareObj(Path firstFile, Path secondFile) {
         this.firstFile = firstFile;
@@ -24,50 +24,45 @@ public class FileCompareObj implements FileCompareImpl {
 
     public void setFirstFile(Path newFile) {
         firstFile = newFile;
+        comparison = null;
     }
 
     public void setSecondFile(Path newFile) {
         secondFile = newFile;
+        comparison = null;
+    }
+
+    // Оба файла читаются один раз, результат запоминается до изменения путей или самих файлов
+    public FileComparison getComparison() throws IOException {
+        if (comparison == null || !comparison.isUpToDate(firstFile, secondFile)) {
+            comparison = FileComparison.compare(firstFile, secondFile);
+        }
+        return comparison;
     }
 
     @Override
     public void compareFiles() throws IOException {
-        List<String> originalLines = Files.readAllLines(firstFile);
-        List<String> generatedLines = Files.readAllLines(secondFile);
+        FileComparison result = getComparison();
+        FileComparison.Statistics first = result.getFirst();
+        FileComparison.Statistics second = result.getSecond();
 
         System.out.println("First file: " + firstFile.getFileName());
         System.out.println("Second file: " + secondFile.getFileName());
-        System.out.println("First file lines: " + originalLines.size());
-        System.out.println("Second file lines: " + generatedLines.size());
-
-        long firstVertices = countElements(originalLines, "v ");
-        long firstTextures = countElements(originalLines, "vt ");
-        long firstNormals = countElements(originalLines, "vn ");
-        long firstFaces = countElements(originalLines, "f ");
-
-        long secondVertices = countElements(generatedLines, "v ");
-        long secondTextures = countElements(generatedLines, "vt ");
-        long secondNormals = countElements(generatedLines, "vn ");
-        long secondFaces = countElements(generatedLines, "f ");
+        System.out.println("First file lines: " + first.getLines());
+        System.out.println("Second file lines: " + second.getLines());
 
         System.out.println("\nElement counts:");
-        printComparison("Vertices", firstVertices, secondVertices);
-        printComparison("Texture vertices", firstTextures, secondTextures);
-        printComparison("Normals", firstNormals, secondNormals);
-        printComparison("Faces", firstFaces, secondFaces);
+        printComparison("Vertices", first.getVertices(), second.getVertices());
+        printComparison("Texture vertices", first.getTextureVertices(), second.getTextureVertices());
+        printComparison("Normals", first.getNormals(), second.getNormals());
+        printComparison("Faces", first.getFaces(), second.getFaces());
 
         // Дополнительная статистика
         System.out.println("\nAdditional statistics:");
-        System.out.println("First file comments: " + countElements(originalLines, "#"));
-        System.out.println("Second file comments: " + countElements(generatedLines, "#"));
-        System.out.println("First file object groups: " + countElements(originalLines, "o "));
-        System.out.println("Second file object groups: " + countElements(generatedLines, "o "));
-    }
-
-    private long countElements(List<String> lines, String prefix) {
-        return lines.stream()
-                .filter(line -> line.startsWith(prefix))
-                .count();
+        System.out.println("First file comments: " + first.getComments());
+        System.out.println("Second file comments: " + second.getComments());
+        System.out.println("First file object groups: " + first.getObjects());
+        System.out.println("Second file object groups: " + second.getObjects());
     }
 
     private void printComparison(String elementName, long firstCount, long secondCount) {
@@ -78,13 +73,11 @@ public class FileCompareObj implements FileCompareImpl {
 
     @Override
     public void printDifferenceSummary() throws IOException {
-        List<String> firstLines = Files.readAllLines(firstFile);
-        List<String> secondLines = Files.readAllLines(secondFile);
-
-        long firstVertices = countElements(firstLines, "v ");
-        long secondVertices = countElements(secondLines, "v ");
-        long firstFaces = countElements(firstLines, "f ");
-        long secondFaces = countElements(secondLines, "f ");
+        FileComparison result = getComparison();
+        long firstVertices = result.getFirst().getVertices();
+        long secondVertices = result.getSecond().getVertices();
+        long firstFaces = result.getFirst().getFaces();
+        long secondFaces = result.getSecond().getFaces();
 
         System.out.println("Vertex difference: " + (secondVertices - firstVertices));
         System.out.println("Face difference: " + (secondFaces - firstFaces));
@@ -98,40 +91,58 @@ public class FileCompareObj implements FileCompareImpl {
 
     @Override
     public boolean areFilesIdentical() throws IOException {
-        String content1 = Files.readString(firstFile);
-        String content2 = Files.readString(secondFile);
-        return content1.equals(content2);
+        return getComparison().isIdentical();
     }
 
     @Override
     public void compareFilesContent() throws IOException {
-        String content1 = Files.readString(firstFile);
-        String content2 = Files.readString(secondFile);
+        FileComparison result = getComparison();
 
-        if (content1.equals(content2)) {
+        if (result.isIdentical()) {
             System.out.println("PERFECT: Files are identical!");
         } else {
             System.out.println("Files are similar but not identical (this is normal due to float formatting)");
 
             // первые несколько различий
-            String[] lines1 = content1.split("\n");
-            String[] lines2 = content2.split("\n");
-
-            int differences = 0;
-            int maxDifferencesToShow = 5;
-
-            for (int i = 0; i < Math.min(lines1.length, lines2.length) && differences < maxDifferencesToShow; i++) {
-                if (!lines1[i].equals(lines2[i])) {
-                    System.out.println("Difference at line " + (i + 1) + ":");
-                    System.out.println("  Original: " + lines1[i]);
-                    System.out.println("  Generated: " + lines2[i]);
-                    differences++;
-                }
+            for (FileComparison.Difference difference : result.getDifferences()) {
+                System.out.println("Difference at line " + difference.getLineNumber() + ":");
+                System.out.println("  Original: " + difference.getFirstLine());
+                System.out.println("  Generated: " + difference.getSecondLine());
             }
 
-            if (differences == maxDifferencesToShow) {
+            if (result.getDifferences().size() == FileComparison.MAX_DIFFERENCES) {
                 System.out.println("... and more differences");
             }
         }
     }
-}
\ No newline at end of file
+
+    // Сравнение по геометрии: порядок элементов и запись чисел не важны
+    @Override
+    public void compareGeometry() throws IOException {
+        GeometryComparison result = GeometryComparison.compare(firstFile, secondFile);
+
+        System.out.println("Geometry comparison (tolerance " + result.getTolerance() + "):");
+        printElements("Vertices", result.getVertices());
+        printElements("Texture vertices", result.getTextureVertices());
+        printElements("Normals", result.getNormals());
+
+        GeometryComparison.Faces faces = result.getFaces();
+        System.out.printf("Faces - matched: %d, flipped: %d, removed: %d, added: %d%n",
+                faces.getMatched(), faces.getFlipped(), faces.getRemoved(), faces.getAdded());
+
+        if (result.isEquivalent()) {
+            System.out.println("✓ Files have the same geometry");
+        } else {
+            System.out.println("✗ Files have different geometry");
+        }
+    }
+
+    private void printElements(String elementName, GeometryComparison.Elements elements) {
+        System.out.printf(Locale.ROOT, "%s - matched: %d, moved: %d, removed: %d, added: %d, max deviation: %g%n",
+                elementName, elements.getMatched(), elements.getMoved(), elements.getRemoved(), elements.getAdded(),
+                elements.getMaxDeviation());
+        if (elements.getMoved() > 0) {
+            System.out.printf(Locale.ROOT, "%s - max move distance: %g%n", elementName, elements.getMaxMoveDistance());
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.cgvsu.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Результат сравнения двух OBJ файлов за один проход: оба файла читаются одновременно кусками по 64 КБ,
+// по ходу считаются элементы, сравниваются строки и запоминаются первые различия.
+// Строки для подсчета элементов делятся как в Files.readAllLines (\n, \r, \r\n),
+// строки для различий - как в String.split("\n"), так же как раньше в FileCompareObj.
+public class FileComparison {
+    public static final int MAX_DIFFERENCES = 5;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Statistics first;
+    private final Statistics second;
+    private final boolean identical;
+    private final List<Difference> differences;
+
+    // Размер и время изменения файлов на момент сравнения, чтобы понять, устарел ли результат
+    private final long firstSize;
+    private final long firstModified;
+    private final long secondSize;
+    private final long secondModified;
+
+    private FileComparison(Statistics first, Statistics second, boolean identical, List<Difference> differences,
+                           BasicFileAttributes firstAttributes, BasicFileAttributes secondAttributes) {
+        this.first = first;
+        this.second = second;
+        this.identical = identical;
+        this.differences = differences;
+        this.firstSize = firstAttributes.size();
+        this.firstModified = firstAttributes.lastModifiedTime().toMillis();
+        this.secondSize = secondAttributes.size();
+        this.secondModified = secondAttributes.lastModifiedTime().toMillis();
+    }
+
+    public static FileComparison compare(Path firstFile, Path secondFile) throws IOException {
+        BasicFileAttributes firstAttributes = Files.readAttributes(firstFile, BasicFileAttributes.class);
+        BasicFileAttributes secondAttributes = Files.readAttributes(secondFile, BasicFileAttributes.class);
+
+        try (FileChannel firstChannel = FileChannel.open(firstFile, StandardOpenOption.READ);
+             FileChannel secondChannel = FileChannel.open(secondFile, StandardOpenOption.READ)) {
+            LineSource firstSource = new LineSource(firstChannel);
+            LineSource secondSource = new LineSource(secondChannel);
+
+            boolean identical = true;
+            List<Difference> differences = new ArrayList<Difference>();
+            int lineIndex = 0;
+            while (true) {
+                boolean hasFirst = firstSource.next();
+                boolean hasSecond = secondSource.next();
+                if (!hasFirst && !hasSecond) {
+                    break;
+                }
+                if (hasFirst && hasSecond) {
+                    if (!firstSource.sameLine(secondSource)) {
+                        identical = false;
+                        if (differences.size() < MAX_DIFFERENCES) {
+                            differences.add(new Difference(lineIndex + 1, firstSource.lineText(), secondSource.lineText()));
+                        }
+                    }
+                } else {
+                    identical = false;
+                }
+                lineIndex++;
+            }
+
+            // split("\n") отбрасывает пустые строки в конце, такие строки раньше не сравнивались
+            int comparedLines = Math.min(firstSource.splitLength(), secondSource.splitLength());
+            differences.removeIf(difference -> difference.getLineNumber() > comparedLines);
+
+            return new FileComparison(firstSource.statistics, secondSource.statistics, identical,
+                    Collections.unmodifiableList(differences), firstAttributes, secondAttributes);
+        }
+    }
+
+    // Совпадают ли размеры и время изменения файлов с теми, что были при сравнении
+    public boolean isUpToDate(Path firstFile, Path secondFile) throws IOException {
+        BasicFileAttributes firstAttributes = Files.readAttributes(firstFile, BasicFileAttributes.class);
+        BasicFileAttributes secondAttributes = Files.readAttributes(secondFile, BasicFileAttributes.class);
+        return firstAttributes.size() == firstSize
+                && firstAttributes.lastModifiedTime().toMillis() == firstModified
+                && secondAttributes.size() == secondSize
+                && secondAttributes.lastModifiedTime().toMillis() == secondModified;
+    }
+
+    public Statistics getFirst() {
+        return first;
+    }
+
+    public Statistics getSecond() {
+        return second;
+    }
+
+    public boolean isIdentical() {
+        return identical;
+    }
+
+    // Не больше MAX_DIFFERENCES первых различающихся строк
+    public List<Difference> getDifferences() {
+        return differences;
+    }
+
+    public static class Statistics {
+        private long lines;
+        private long vertices;
+        private long textureVertices;
+        private long normals;
+        private long faces;
+        private long comments;
+        private long objects;
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getVertices() {
+            return vertices;
+        }
+
+        public long getTextureVertices() {
+            return textureVertices;
+        }
+
+        public long getNormals() {
+            return normals;
+        }
+
+        public long getFaces() {
+            return faces;
+        }
+
+        public long getComments() {
+            return comments;
+        }
+
+        public long getObjects() {
+            return objects;
+        }
+
+        // Строка по первым байтам: "v ", "vt ", "vn ", "f ", "#", "o "
+        private void count(byte[] bytes, int start, int end) {
+            lines++;
+            int length = end - start;
+            if (length == 0) {
+                return;
+            }
+            byte first = bytes[start];
+            byte second = length > 1 ? bytes[start + 1] : 0;
+            byte third = length > 2 ? bytes[start + 2] : 0;
+            if (first == '#') {
+                comments++;
+            } else if (first == 'v') {
+                if (second == ' ') {
+                    vertices++;
+                } else if (second == 't' && third == ' ') {
+                    textureVertices++;
+                } else if (second == 'n' && third == ' ') {
+                    normals++;
+                }
+            } else if (first == 'f' && second == ' ') {
+                faces++;
+            } else if (first == 'o' && second == ' ') {
+                objects++;
+            }
+        }
+    }
+
+    public static class Difference {
+        private final int lineNumber;
+        private final String firstLine;
+        private final String secondLine;
+
+        private Difference(int lineNumber, String firstLine, String secondLine) {
+            this.lineNumber = lineNumber;
+            this.firstLine = firstLine;
+            this.secondLine = secondLine;
+        }
+
+        // Номер строки с единицы
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getFirstLine() {
+            return firstLine;
+        }
+
+        public String getSecondLine() {
+            return secondLine;
+        }
+    }
+
+    // Строки файла, разделенные только '\n', как split("\n", -1): после последнего '\n' идет еще одна строка.
+    // Строка, целиком лежащая в буфере, не копируется; перенесенная через границу буфера собирается в line.
+    private static class LineSource {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final Statistics statistics = new Statistics();
+        private boolean endOfFile;
+        private boolean finished;
+        private long size;
+
+        private byte[] line = new byte[256];
+        private byte[] lineBytes;
+        private int lineStart;
+        private int lineEnd;
+
+        // Количество строк, которое дал бы split("\n"): до последней непустой строки
+        private int lineCount;
+        private int lastNonEmptyLine = -1;
+
+        private LineSource(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        private boolean next() throws IOException {
+            if (finished) {
+                return false;
+            }
+            int length = 0;
+            boolean copied = false;
+            while (true) {
+                if (!buffer.hasRemaining()) {
+                    if (!fill()) {
+                        // Последняя строка без '\n' в конце, возможно пустая
+                        finished = true;
+                        setLine(line, 0, length, true);
+                        return true;
+                    }
+                }
+                byte[] array = buffer.array();
+                int start = buffer.position();
+                int end = buffer.limit();
+                int newline = start;
+                while (newline < end && array[newline] != '\n') {
+                    newline++;
+                }
+                if (newline < end) {
+                    buffer.position(newline + 1);
+                    if (copied) {
+                        length = append(length, array, start, newline);
+                        setLine(line, 0, length, false);
+                    } else {
+                        setLine(array, start, newline, false);
+                    }
+                    return true;
+                }
+                length = append(length, array, start, end);
+                copied = true;
+                buffer.position(end);
+            }
+        }
+
+        private boolean fill() throws IOException {
+            if (endOfFile) {
+                return false;
+            }
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0) {
+                endOfFile = true;
+                return false;
+            }
+            size += read;
+            return true;
+        }
+
+        private int append(int length, byte[] source, int start, int end) {
+            int count = end - start;
+            if (length + count > line.length) {
+                line = Arrays.copyOf(line, Math.max(length + count, line.length * 2));
+            }
+            System.arraycopy(source, start, line, length, count);
+            return length + count;
+        }
+
+        private void setLine(byte[] bytes, int start, int end, boolean last) {
+            lineBytes = bytes;
+            lineStart = start;
+            lineEnd = end;
+            if (end > start) {
+                lastNonEmptyLine = lineCount;
+            }
+            lineCount++;
+            countLines(last);
+        }
+
+        // Деление строки по '\r' для подсчета элементов: "\r\n" - один перевод строки,
+        // пустой остаток в конце файла строкой не считается
+        private void countLines(boolean last) {
+            int segmentStart = lineStart;
+            for (int i = lineStart; i < lineEnd; i++) {
+                if (lineBytes[i] == '\r') {
+                    statistics.count(lineBytes, segmentStart, i);
+                    segmentStart = i + 1;
+                }
+            }
+            boolean endsWithCarriageReturn = segmentStart > lineStart && segmentStart == lineEnd;
+            if (segmentStart < lineEnd || !(last || endsWithCarriageReturn)) {
+                statistics.count(lineBytes, segmentStart, lineEnd);
+            }
+        }
+
+        private boolean sameLine(LineSource other) {
+            return Arrays.equals(lineBytes, lineStart, lineEnd, other.lineBytes, other.lineStart, other.lineEnd);
+        }
+
+        private String lineText() {
+            return new String(lineBytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+        }
+
+        // Для пустого файла split("\n") возвращает одну пустую строку
+        private int splitLength() {
+            return size == 0 ? 1 : lastNonEmptyLine + 1;
+        }
+    }
+}
@@ -0,0 +1,460 @@
+package com.cgvsu.util;
+
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.spatial.SpatialHashGrid;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Сравнение геометрии двух моделей без учета порядка элементов и записи чисел.
+// 1. Вершины сопоставляются по координатам: каждой вершине первой модели - ближайшая свободная вершина второй,
+//    у которой все координаты отличаются не больше чем на tolerance (как Vector3f.equals). Поиск идет
+//    по SpatialHashGrid, поэтому сопоставление линейное.
+// 2. Оставшиеся вершины сопоставляются через полигоны: если у полигона первой модели часть вершин уже
+//    сопоставлена и во второй модели есть полигон с теми же вершинами на тех же местах, то несопоставленные
+//    вершины на остальных местах считаются сдвинутыми (moved).
+// 3. Полигоны сравниваются через полученное соответствие вершин с точностью до циклического сдвига;
+//    полигон с обратным обходом считается перевернутым (flipped).
+// Текстурные координаты и нормали сопоставляются только по значениям.
+public class GeometryComparison {
+    public static final float DEFAULT_TOLERANCE = 1e-5f;
+
+    private final float tolerance;
+    private final Elements vertices = new Elements();
+    private final Elements textureVertices = new Elements();
+    private final Elements normals = new Elements();
+    private final Faces faces = new Faces();
+
+    // Номер вершины второй модели для каждой вершины первой, -1 - нет пары
+    private int[] vertexMapping;
+
+    private GeometryComparison(float tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public static GeometryComparison compare(Path firstFile, Path secondFile) throws IOException {
+        return compare(firstFile, secondFile, DEFAULT_TOLERANCE);
+    }
+
+    public static GeometryComparison compare(Path firstFile, Path secondFile, float tolerance) throws IOException {
+        return compare(ObjReader.readPacked(firstFile), ObjReader.readPacked(secondFile), tolerance);
+    }
+
+    public static GeometryComparison compare(PackedModel first, PackedModel second, float tolerance) {
+        if (first == null || second == null) {
+            throw new IllegalArgumentException("Models cannot be null");
+        }
+        if (!(tolerance > 0) || Float.isInfinite(tolerance)) {
+            throw new IllegalArgumentException("Tolerance must be positive and finite");
+        }
+
+        GeometryComparison result = new GeometryComparison(tolerance);
+        float[] firstVertices = first.toVertexArray();
+        float[] secondVertices = second.toVertexArray();
+        int[] reverseMapping = new int[second.getVertexCount()];
+        result.vertexMapping = matchPoints(firstVertices, secondVertices, 3, tolerance, result.vertices, reverseMapping);
+        matchPoints(first.toTextureVertexArray(), second.toTextureVertexArray(), 2, tolerance,
+                result.textureVertices, new int[second.getTextureVertexCount()]);
+        matchPoints(first.toNormalArray(), second.toNormalArray(), 3, tolerance,
+                result.normals, new int[second.getNormalCount()]);
+
+        Mesh firstMesh = new Mesh(first);
+        Mesh secondMesh = new Mesh(second);
+        result.matchMovedVertices(firstMesh, secondMesh, firstVertices, secondVertices, reverseMapping);
+        result.vertices.removed -= result.vertices.moved;
+        result.vertices.added -= result.vertices.moved;
+        result.matchFaces(firstMesh, secondMesh);
+        return result;
+    }
+
+    public float getTolerance() {
+        return tolerance;
+    }
+
+    public Elements getVertices() {
+        return vertices;
+    }
+
+    public Elements getTextureVertices() {
+        return textureVertices;
+    }
+
+    public Elements getNormals() {
+        return normals;
+    }
+
+    public Faces getFaces() {
+        return faces;
+    }
+
+    // Вершина второй модели, соответствующая вершине firstIndex первой (совпавшая или сдвинутая), или -1
+    public int getMatchedVertex(int firstIndex) {
+        if (firstIndex < 0 || firstIndex >= vertexMapping.length) {
+            throw new IndexOutOfBoundsException("Index " + firstIndex + " out of bounds for length " + vertexMapping.length);
+        }
+        return vertexMapping[firstIndex];
+    }
+
+    // Модели совпадают с точностью до порядка элементов и tolerance
+    public boolean isEquivalent() {
+        return vertices.isEquivalent() && textureVertices.isEquivalent() && normals.isEquivalent()
+                && faces.flipped == 0 && faces.removed == 0 && faces.added == 0;
+    }
+
+    // Вершины, текстурные координаты или нормали
+    public static class Elements {
+        private int matched;
+        private int moved;
+        private int removed;
+        private int added;
+        private double maxDeviation;
+        private double maxMoveDistance;
+
+        public int getMatched() {
+            return matched;
+        }
+
+        // Только для вершин: нет пары по координатам, но есть по связям с соседями
+        public int getMoved() {
+            return moved;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public int getAdded() {
+            return added;
+        }
+
+        // Наибольшее расстояние между сопоставленными по координатам элементами
+        public double getMaxDeviation() {
+            return maxDeviation;
+        }
+
+        public double getMaxMoveDistance() {
+            return maxMoveDistance;
+        }
+
+        private boolean isEquivalent() {
+            return moved == 0 && removed == 0 && added == 0;
+        }
+    }
+
+    public static class Faces {
+        private int matched;
+        private int flipped;
+        private int removed;
+        private int added;
+
+        public int getMatched() {
+            return matched;
+        }
+
+        public int getFlipped() {
+            return flipped;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public int getAdded() {
+            return added;
+        }
+    }
+
+    // Жадное сопоставление точек по ближайшей свободной. Точка с тем же номером и теми же координатами
+    // берется сразу: это частый случай неизмененного порядка
+    private static int[] matchPoints(float[] first, float[] second, int dimension, float tolerance,
+                                     Elements statistics, int[] reverseMapping) {
+        int firstCount = first.length / dimension;
+        int secondCount = second.length / dimension;
+        int[] mapping = new int[firstCount];
+        Arrays.fill(mapping, -1);
+        Arrays.fill(reverseMapping, -1);
+
+        SpatialHashGrid grid = new SpatialHashGrid(tolerance, secondCount);
+        for (int i = 0; i < secondCount; i++) {
+            grid.add(second[i * dimension], second[i * dimension + 1], dimension == 3 ? second[i * 3 + 2] : 0);
+        }
+
+        for (int i = 0; i < firstCount; i++) {
+            float x = first[i * dimension];
+            float y = first[i * dimension + 1];
+            float z = dimension == 3 ? first[i * 3 + 2] : 0;
+
+            int match;
+            if (i < secondCount && reverseMapping[i] < 0 && grid.getX(i) == x && grid.getY(i) == y && grid.getZ(i) == z) {
+                match = i;
+            } else {
+                match = grid.findNearest(x, y, z, tolerance);
+            }
+            if (match < 0) {
+                statistics.removed++;
+                continue;
+            }
+            // Занятая точка убирается из сетки: иначе каждый поиск среди равных точек перебирал бы уже занятые
+            grid.remove(match);
+            mapping[i] = match;
+            reverseMapping[match] = i;
+            statistics.matched++;
+            statistics.maxDeviation = Math.max(statistics.maxDeviation,
+                    distance(grid.getX(match) - x, grid.getY(match) - y, grid.getZ(match) - z));
+        }
+        statistics.added = secondCount - statistics.matched;
+        return mapping;
+    }
+
+    // Распространение соответствия по полигонам: очередь полигонов первой модели, у которых есть
+    // и сопоставленные, и несопоставленные вершины. Когда вершина получает пару, в очередь попадают ее полигоны
+    private void matchMovedVertices(Mesh first, Mesh second, float[] firstVertices, float[] secondVertices,
+                                    int[] reverseMapping) {
+        int[] queue = new int[first.polygonCount + 1];
+        boolean[] queued = new boolean[first.polygonCount];
+        int head = 0;
+        int tail = 0;
+        for (int polygon = 0; polygon < first.polygonCount; polygon++) {
+            if (isPartiallyMapped(first, polygon)) {
+                queue[tail++] = polygon;
+                queued[polygon] = true;
+            }
+        }
+
+        while (head != tail) {
+            int polygon = queue[head];
+            head = head + 1 == queue.length ? 0 : head + 1;
+            queued[polygon] = false;
+            if (!isPartiallyMapped(first, polygon)) {
+                continue;
+            }
+
+            int start = first.offsets[polygon];
+            int size = first.offsets[polygon + 1] - start;
+            int secondPolygon = -1;
+            int shift = 0;
+            for (int corner = 0; corner < size && secondPolygon < 0; corner++) {
+                int mapped = vertexMapping[first.indices[start + corner]];
+                if (mapped < 0) {
+                    continue;
+                }
+                for (int k = second.adjacencyOffsets[mapped]; k < second.adjacencyOffsets[mapped + 1]; k++) {
+                    int candidate = second.adjacency[k];
+                    int candidateShift = findAlignment(first, polygon, second, candidate, corner, mapped, reverseMapping);
+                    if (candidateShift >= 0) {
+                        secondPolygon = candidate;
+                        shift = candidateShift;
+                        break;
+                    }
+                }
+            }
+            if (secondPolygon < 0) {
+                continue;
+            }
+
+            int secondStart = second.offsets[secondPolygon];
+            for (int corner = 0; corner < size; corner++) {
+                int vertex = first.indices[start + corner];
+                if (vertexMapping[vertex] >= 0) {
+                    continue;
+                }
+                int match = second.indices[secondStart + (corner + shift) % size];
+                vertexMapping[vertex] = match;
+                reverseMapping[match] = vertex;
+                vertices.moved++;
+                vertices.maxMoveDistance = Math.max(vertices.maxMoveDistance, distance(
+                        secondVertices[match * 3] - firstVertices[vertex * 3],
+                        secondVertices[match * 3 + 1] - firstVertices[vertex * 3 + 1],
+                        secondVertices[match * 3 + 2] - firstVertices[vertex * 3 + 2]));
+
+                for (int k = first.adjacencyOffsets[vertex]; k < first.adjacencyOffsets[vertex + 1]; k++) {
+                    int neighbour = first.adjacency[k];
+                    if (!queued[neighbour]) {
+                        queued[neighbour] = true;
+                        queue[tail] = neighbour;
+                        tail = tail + 1 == queue.length ? 0 : tail + 1;
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isPartiallyMapped(Mesh mesh, int polygon) {
+        boolean hasMapped = false;
+        boolean hasUnmapped = false;
+        for (int i = mesh.offsets[polygon]; i < mesh.offsets[polygon + 1]; i++) {
+            if (vertexMapping[mesh.indices[i]] >= 0) {
+                hasMapped = true;
+            } else {
+                hasUnmapped = true;
+            }
+        }
+        return hasMapped && hasUnmapped;
+    }
+
+    // Сдвиг, при котором вершина corner полигона первой модели попадает на вершину mapped полигона второй,
+    // а остальные вершины согласованы: сопоставленные - со своими парами, несопоставленные - со свободными
+    // вершинами. -1, если такого сдвига нет
+    private int findAlignment(Mesh first, int polygon, Mesh second, int secondPolygon, int corner, int mapped,
+                              int[] reverseMapping) {
+        int start = first.offsets[polygon];
+        int size = first.offsets[polygon + 1] - start;
+        int secondStart = second.offsets[secondPolygon];
+        if (second.offsets[secondPolygon + 1] - secondStart != size) {
+            return -1;
+        }
+        int position = -1;
+        for (int i = 0; i < size; i++) {
+            if (second.indices[secondStart + i] == mapped) {
+                position = i;
+                break;
+            }
+        }
+        if (position < 0) {
+            return -1;
+        }
+
+        int shift = (position - corner + size) % size;
+        for (int i = 0; i < size; i++) {
+            int vertex = first.indices[start + i];
+            int target = second.indices[secondStart + (i + shift) % size];
+            int expected = vertexMapping[vertex];
+            if (expected >= 0 ? expected != target : reverseMapping[target] >= 0) {
+                return -1;
+            }
+        }
+        return shift;
+    }
+
+    // Полигоны второй модели раскладываются по хешу, не зависящему от порядка вершин;
+    // полигон первой модели ищется по хешу своих вершин после перевода в номера второй модели
+    private void matchFaces(Mesh first, Mesh second) {
+        int tableSize = Integer.highestOneBit(Math.max(second.polygonCount * 2 - 1, 1)) << 1;
+        int[] heads = new int[tableSize];
+        Arrays.fill(heads, -1);
+        int[] next = new int[second.polygonCount];
+        for (int polygon = 0; polygon < second.polygonCount; polygon++) {
+            int slot = (int) faceHash(second.indices, second.offsets[polygon], second.offsets[polygon + 1])
+                    & (tableSize - 1);
+            next[polygon] = heads[slot];
+            heads[slot] = polygon;
+        }
+
+        boolean[] used = new boolean[second.polygonCount];
+        int[] mapped = new int[16];
+        for (int polygon = 0; polygon < first.polygonCount; polygon++) {
+            int start = first.offsets[polygon];
+            int size = first.offsets[polygon + 1] - start;
+            if (mapped.length < size) {
+                mapped = new int[size];
+            }
+            boolean complete = true;
+            for (int i = 0; i < size; i++) {
+                mapped[i] = vertexMapping[first.indices[start + i]];
+                complete &= mapped[i] >= 0;
+            }
+            if (!complete) {
+                faces.removed++;
+                continue;
+            }
+
+            int slot = (int) faceHash(mapped, 0, size) & (tableSize - 1);
+            int match = findFace(second, heads[slot], next, used, mapped, size, false);
+            if (match >= 0) {
+                faces.matched++;
+            } else {
+                match = findFace(second, heads[slot], next, used, mapped, size, true);
+                if (match >= 0) {
+                    faces.flipped++;
+                } else {
+                    faces.removed++;
+                    continue;
+                }
+            }
+            used[match] = true;
+        }
+        faces.added = second.polygonCount - faces.matched - faces.flipped;
+    }
+
+    private static int findFace(Mesh second, int head, int[] next, boolean[] used, int[] face, int size,
+                                boolean reversed) {
+        for (int candidate = head; candidate >= 0; candidate = next[candidate]) {
+            if (!used[candidate] && cyclicEquals(second, candidate, face, size, reversed)) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean cyclicEquals(Mesh mesh, int polygon, int[] face, int size, boolean reversed) {
+        int start = mesh.offsets[polygon];
+        if (mesh.offsets[polygon + 1] - start != size) {
+            return false;
+        }
+        for (int shift = 0; shift < size; shift++) {
+            boolean equal = true;
+            for (int i = 0; i < size && equal; i++) {
+                int corner = reversed ? (shift - i + size) % size : (shift + i) % size;
+                equal = mesh.indices[start + corner] == face[i];
+            }
+            if (equal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Сумма перемешанных индексов: одинакова при любом порядке вершин
+    private static long faceHash(int[] indices, int start, int end) {
+        long hash = end - start;
+        for (int i = start; i < end; i++) {
+            long h = (indices[i] + 1) * 0x9E3779B97F4A7C15L;
+            hash += h ^ (h >>> 31);
+        }
+        hash ^= hash >>> 32;
+        return hash * 0xFF51AFD7ED558CCDL;
+    }
+
+    private static double distance(double dx, double dy, double dz) {
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    // Полигоны модели в CSR и обратный индекс: полигоны, в которые входит каждая вершина
+    private static class Mesh {
+        private final int polygonCount;
+        private final int[] offsets;
+        private final int[] indices;
+        private final int[] adjacencyOffsets;
+        private final int[] adjacency;
+
+        private Mesh(PackedModel model) {
+            polygonCount = model.getPolygons().getPolygonCount();
+            offsets = model.getPolygons().toOffsetArray();
+            indices = model.getPolygons().toVertexIndexArray();
+
+            int vertexCount = model.getVertexCount();
+            adjacencyOffsets = new int[vertexCount + 1];
+            for (int polygon = 0; polygon < polygonCount; polygon++) {
+                for (int i = offsets[polygon]; i < offsets[polygon + 1]; i++) {
+                    if (indices[i] < 0 || indices[i] >= vertexCount) {
+                        throw new IllegalArgumentException("Polygon " + polygon + " references index " + indices[i]
+                                + " out of bounds for length " + vertexCount);
+                    }
+                    adjacencyOffsets[indices[i] + 1]++;
+                }
+            }
+            for (int i = 0; i < vertexCount; i++) {
+                adjacencyOffsets[i + 1] += adjacencyOffsets[i];
+            }
+            adjacency = new int[indices.length];
+            int[] fill = Arrays.copyOf(adjacencyOffsets, vertexCount);
+            for (int polygon = 0; polygon < polygonCount; polygon++) {
+                for (int i = offsets[polygon]; i < offsets[polygon + 1]; i++) {
+                    adjacency[fill[indices[i]]++] = polygon;
+                }
+            }
+        }
+    }
+}
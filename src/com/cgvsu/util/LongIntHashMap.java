@@ -0,0 +1,142 @@
+package com.cgvsu.util;
+
+import java.util.Arrays;
+
+// Хеш-таблица long -> int без упаковки в объекты: открытая адресация с линейным пробированием.
+// Ключ 0 служит признаком пустой ячейки, поэтому его значение хранится отдельно.
+// Удаления нет: таблица рассчитана на построение индексов, где ключи только добавляются.
+public class LongIntHashMap {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public LongIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative");
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return keys[find(key)] == key;
+    }
+
+    public int get(long key, int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+
+    public void put(long key, int value) {
+        if (key == 0) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int slot = find(key);
+        if (keys[slot] == key) {
+            values[slot] = value;
+            return;
+        }
+        insert(slot, key, value);
+    }
+
+    // Значение ключа, а если ключа нет - добавляет его со значением value и возвращает value
+    public int getOrPut(long key, int value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                zeroValue = value;
+            }
+            return zeroValue;
+        }
+        int slot = find(key);
+        if (keys[slot] == key) {
+            return values[slot];
+        }
+        insert(slot, key, value);
+        return value;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+        hasZeroKey = false;
+    }
+
+    // Ячейка с этим ключом или первая пустая на его пути
+    private int find(long key) {
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(int slot, long key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        // Заполнение не больше половины, чтобы цепочки пробирования оставались короткими
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long capacity = Math.max((long) expectedSize * 2, MIN_CAPACITY);
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("Expected size is too large: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) capacity - 1) << 1;
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,69 @@
+package com.cgvsu.binary;
+
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objwriter.ObjWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+public class BinaryModelTest {
+
+    private static final String CONTENT = "v 1 2 3\nv 4 5 6\nv 7 8 9\nv 0 0 1\nvt 0.5 0.25\nvn 0 0 1\n"
+            + "f 1/1/1 2/1/1 3/1/1\nf 1 3 4\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testWriteReadRoundTrip() throws IOException {
+        final PackedModel model = PackedModel.fromModel(ObjReader.read(CONTENT));
+        final Path file = tempDir.resolve("model.objb");
+        BinaryModelWriter.write(model, file);
+
+        final PackedModel result = BinaryModelReader.read(file);
+        Assertions.assertEquals(ObjWriter.packedModelToString(model), ObjWriter.packedModelToString(result));
+        Assertions.assertTrue(result.getPolygons().hasNormals(0));
+        Assertions.assertFalse(result.getPolygons().hasNormals(1));
+    }
+
+    @Test
+    public void testCorruptedFileFailsChecksum() throws IOException {
+        final Path file = tempDir.resolve("model.objb");
+        BinaryModelWriter.write(ObjReader.read(CONTENT), file);
+
+        final byte[] bytes = Files.readAllBytes(file);
+        bytes[BinaryModelFormat.HEADER_SIZE + 5] ^= 1;
+        Files.write(file, bytes);
+
+        BinaryModelException exception = Assertions.assertThrows(BinaryModelException.class,
+                () -> BinaryModelReader.read(file));
+        Assertions.assertEquals("Binary model checksum mismatch", exception.getMessage());
+    }
+
+    @Test
+    public void testCacheFollowsSourceContent() throws IOException {
+        final Path source = tempDir.resolve("model.obj");
+        Files.writeString(source, CONTENT);
+
+        final PackedModel first = BinaryModelCache.load(source);
+        final Path sidecar = BinaryModelCache.sidecarPath(source);
+        Assertions.assertTrue(Files.isRegularFile(sidecar));
+        Assertions.assertEquals(4, BinaryModelCache.load(source).getVertexCount());
+
+        // То же содержимое с другим временем изменения - кэш остается
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 5000));
+        Assertions.assertEquals(ObjWriter.packedModelToString(first),
+                ObjWriter.packedModelToString(BinaryModelCache.load(source)));
+
+        // Новое содержимое того же размера - модель разбирается заново
+        Files.writeString(source, CONTENT.replace("v 4 5 6", "v 4 5 7"));
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 10000));
+        Assertions.assertEquals(7.0f, BinaryModelCache.load(source).getVertexZ(1));
+    }
+}
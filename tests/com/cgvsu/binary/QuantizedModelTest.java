@@ -0,0 +1,160 @@
+package com.cgvsu.binary;
+
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.PackedPolygons;
+import com.cgvsu.objreader.ObjReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class QuantizedModelTest {
+
+    private static final String CONTENT = "v 1 2 3\nv 4 5 6\nv 7 8 9\nv 0 0 1\nvt 0.5 0.25\nvt 1 0\n"
+            + "vn 0 0 1\nvn 0.6 -0.8 0\nf 1/1/1 2/2/2 3/1/1\nf 1 3 4 2\nf 4//2 2//1 1//2\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRoundTripKeepsPolygons() throws IOException {
+        final PackedModel model = PackedModel.fromModel(ObjReader.read(CONTENT));
+        final Path file = tempDir.resolve("model.objq");
+        final QuantizationReport report = QuantizedModelWriter.write(model, file, new QuantizationOptions());
+        Assertions.assertEquals(Files.size(file), report.getByteSize());
+
+        final PackedModel result = QuantizedModelReader.read(file);
+        assertSamePolygons(model.getPolygons(), result.getPolygons());
+        Assertions.assertEquals(4, result.getVertexCount());
+        assertClose(model.toVertexArray(), result.toVertexArray(), report.getMaxPositionError());
+        assertClose(model.toTextureVertexArray(), result.toTextureVertexArray(), report.getMaxTextureVertexError());
+        Assertions.assertArrayEquals(model.toNormalArray(), result.toNormalArray(), 1e-2f);
+        // Нормали вдоль осей восстанавливаются точно
+        Assertions.assertEquals(0f, result.getNormalX(0));
+        Assertions.assertEquals(0f, result.getNormalY(0));
+        Assertions.assertEquals(1f, result.getNormalZ(0));
+    }
+
+    @Test
+    public void testEmptyModelRoundTrip() throws IOException {
+        final Path file = tempDir.resolve("empty.objq");
+        QuantizedModelWriter.write(new PackedModel(), file, new QuantizationOptions());
+
+        final PackedModel result = QuantizedModelReader.read(file);
+        Assertions.assertEquals(0, result.getVertexCount());
+        Assertions.assertEquals(0, result.getTextureVertexCount());
+        Assertions.assertEquals(0, result.getNormalCount());
+        Assertions.assertEquals(0, result.getPolygons().getPolygonCount());
+    }
+
+    @Test
+    public void testErrorFollowsBitDepth() {
+        final Random random = new Random(5);
+        final PackedModel model = new PackedModel();
+        for (int i = 0; i < 1000; i++) {
+            model.addVertex(random.nextFloat() * 100, random.nextFloat(), -random.nextFloat() * 10);
+            final double x = random.nextGaussian();
+            final double y = random.nextGaussian();
+            final double z = random.nextGaussian();
+            final double length = Math.sqrt(x * x + y * y + z * z);
+            model.addNormal((float) (x / length), (float) (y / length), (float) (z / length));
+        }
+
+        final QuantizationOptions options = new QuantizationOptions();
+        options.setPositionBits(10);
+        options.setNormalBits(12);
+        final QuantizationReport report = new QuantizationReport();
+        final PackedModel result = QuantizedModelReader.read(QuantizedModelWriter.toByteBuffer(model, options, report));
+
+        // Половина шага по каждой оси: 100 / 1023 по x, остальные оси меньше
+        final double bound = Math.sqrt(3) * 0.5 * 100 / 1023;
+        Assertions.assertTrue(report.getMaxPositionError() > 0);
+        Assertions.assertTrue(report.getMaxPositionError() <= bound);
+        assertClose(model.toVertexArray(), result.toVertexArray(), report.getMaxPositionError());
+
+        Assertions.assertTrue(report.getMaxNormalError() < 0.1);
+        double maxAngle = 0;
+        for (int i = 0; i < model.getNormalCount(); i++) {
+            final double dot = model.getNormalX(i) * result.getNormalX(i) + model.getNormalY(i) * result.getNormalY(i)
+                    + model.getNormalZ(i) * result.getNormalZ(i);
+            maxAngle = Math.max(maxAngle, Math.toDegrees(Math.acos(Math.min(1, dot))));
+        }
+        Assertions.assertEquals(report.getMaxNormalError(), maxAngle, 1e-3);
+    }
+
+    @Test
+    public void testRealModelIsSmallerThanObj() throws IOException {
+        final Path source = Path.of("data/WrapHead.obj");
+        final PackedModel model = ObjReader.readPacked(source);
+        final Path file = tempDir.resolve("head.objq");
+        final QuantizationReport report = QuantizedModelWriter.write(model, file, new QuantizationOptions());
+        Assertions.assertTrue(Files.size(source) >= 5 * report.getByteSize());
+
+        final PackedModel result = QuantizedModelReader.read(file);
+        assertSamePolygons(model.getPolygons(), result.getPolygons());
+        assertClose(model.toVertexArray(), result.toVertexArray(), report.getMaxPositionError());
+        assertClose(model.toTextureVertexArray(), result.toTextureVertexArray(), report.getMaxTextureVertexError());
+
+        // Без Deflate те же данные
+        final QuantizationOptions options = new QuantizationOptions();
+        options.setCompress(false);
+        final QuantizationReport uncompressed = new QuantizationReport();
+        final PackedModel raw = QuantizedModelReader.read(QuantizedModelWriter.toByteBuffer(model, options, uncompressed));
+        Assertions.assertTrue(uncompressed.getByteSize() > report.getByteSize());
+        Assertions.assertArrayEquals(result.toVertexArray(), raw.toVertexArray());
+        assertSamePolygons(model.getPolygons(), raw.getPolygons());
+    }
+
+    @Test
+    public void testCorruptedFileFailsChecksum() {
+        final PackedModel model = PackedModel.fromModel(ObjReader.read(CONTENT));
+        final ByteBuffer buffer = QuantizedModelWriter.toByteBuffer(model, new QuantizationOptions(), new QuantizationReport());
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        bytes[QuantizedModelFormat.HEADER_SIZE + 3] ^= 1;
+
+        final BinaryModelException exception = Assertions.assertThrows(BinaryModelException.class,
+                () -> QuantizedModelReader.read(ByteBuffer.wrap(bytes)));
+        Assertions.assertEquals("Quantized model checksum mismatch", exception.getMessage());
+        Assertions.assertThrows(BinaryModelException.class, () -> QuantizedModelReader.read(ByteBuffer.wrap(new byte[10])));
+    }
+
+    @Test
+    public void testInvalidInput() {
+        final PackedModel model = new PackedModel();
+        model.addVertex(0, Float.NaN, 0);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> QuantizedModelWriter.toByteBuffer(model, new QuantizationOptions(), new QuantizationReport()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new QuantizationOptions().setPositionBits(25));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new QuantizationOptions().setNormalBits(1));
+    }
+
+    private static void assertSamePolygons(PackedPolygons expected, PackedPolygons actual) {
+        Assertions.assertArrayEquals(expected.toOffsetArray(), actual.toOffsetArray());
+        Assertions.assertArrayEquals(expected.toFlagArray(), actual.toFlagArray());
+        Assertions.assertArrayEquals(expected.toVertexIndexArray(), actual.toVertexIndexArray());
+        for (int polygon = 0; polygon < expected.getPolygonCount(); polygon++) {
+            for (int corner = 0; corner < expected.getPolygonVertexCount(polygon); corner++) {
+                if (expected.hasTextureVertices(polygon)) {
+                    Assertions.assertEquals(expected.getTextureVertexIndex(polygon, corner),
+                            actual.getTextureVertexIndex(polygon, corner));
+                }
+                if (expected.hasNormals(polygon)) {
+                    Assertions.assertEquals(expected.getNormalIndex(polygon, corner), actual.getNormalIndex(polygon, corner));
+                }
+            }
+        }
+    }
+
+    private static void assertClose(float[] expected, float[] actual, double tolerance) {
+        Assertions.assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            Assertions.assertEquals(expected[i], actual[i], tolerance + 1e-6);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.cgvsu.cache;
+
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.objreader.ObjReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ModelCacheTest {
+
+    private static final String CONTENT = "v 1 2 3\nv 4 5 6\nv 7 8 9\nf 1 2 3\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testHitMissAndReload() throws IOException {
+        final Path file = tempDir.resolve("model.obj");
+        Files.writeString(file, CONTENT);
+        final ModelCache cache = new ModelCache(1024 * 1024);
+
+        final PackedModel first = cache.get(file);
+        Assertions.assertSame(first, cache.get(file));
+        Assertions.assertEquals(1, cache.getMissCount());
+        Assertions.assertEquals(1, cache.getHitCount());
+
+        // Новая версия файла загружается заново
+        Files.writeString(file, CONTENT + "v 0 0 0\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        Assertions.assertEquals(4, cache.get(file).getVertexCount());
+        Assertions.assertEquals(2, cache.getMissCount());
+        Assertions.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testCachedModelIsReadOnly() throws IOException {
+        final Path file = tempDir.resolve("model.obj");
+        Files.writeString(file, CONTENT);
+        final PackedModel model = new ModelCache(1024 * 1024).get(file);
+
+        Assertions.assertTrue(model.isReadOnly());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> model.addVertex(0, 0, 0));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> model.setVertex(0, 0, 0, 0));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> model.getPolygons().addPolygon(new int[]{0, 1, 2}, null, null, 3));
+
+        // toModel() дает независимую копию
+        model.toModel().getVertices().clear();
+        Assertions.assertEquals(3, model.getVertexCount());
+    }
+
+    @Test
+    public void testEvictionByByteBudget() throws IOException {
+        final List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Path file = tempDir.resolve("model" + i + ".obj");
+            Files.writeString(file, CONTENT);
+            files.add(file);
+        }
+        final PackedModel loaded = ObjReader.readPacked(files.get(0));
+        loaded.trimToSize();
+        final long modelBytes = loaded.estimateSizeInBytes();
+        final ModelCache cache = new ModelCache(modelBytes * 2);
+
+        cache.get(files.get(0));
+        cache.get(files.get(1));
+        cache.get(files.get(0));
+        cache.get(files.get(2));
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(1, cache.getEvictionCount());
+        Assertions.assertTrue(cache.getSizeInBytes() <= cache.getMaxBytes());
+
+        // Вытеснена давно не использованная модель 1, а модель 0 осталась
+        cache.get(files.get(0));
+        Assertions.assertEquals(1, cache.getHitCount() - 1);
+        cache.get(files.get(1));
+        Assertions.assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws Exception {
+        final Path file = tempDir.resolve("model.obj");
+        Files.writeString(file, CONTENT);
+
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final ModelCache cache = new ModelCache(1024 * 1024, path -> {
+            loads.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ObjReader.readPacked(path);
+        });
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<PackedModel>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> cache.get(file)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            PackedModel model = results.get(0).get();
+            for (Future<PackedModel> result : results) {
+                Assertions.assertSame(model, result.get());
+            }
+            Assertions.assertEquals(1, loads.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLoaderErrorReachesWaitingThreads() throws Exception {
+        final Path file = tempDir.resolve("model.obj");
+        Files.writeString(file, CONTENT);
+
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final ModelCache cache = new ModelCache(1024 * 1024, path -> {
+            if (loads.incrementAndGet() > 1) {
+                return ObjReader.readPacked(path);
+            }
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new Error("loader failed");
+        });
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<PackedModel>> results = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> cache.get(file)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<PackedModel> result : results) {
+                final ExecutionException exception = Assertions.assertThrows(ExecutionException.class, result::get);
+                Assertions.assertEquals("loader failed", exception.getCause().getMessage());
+            }
+            Assertions.assertEquals(1, loads.get());
+        } finally {
+            executor.shutdown();
+        }
+
+        // Ошибка не кэшируется: следующий запрос загружает файл заново
+        Assertions.assertEquals(3, cache.get(file).getVertexCount());
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testOversizedNewVersionDropsOldEntry() throws IOException {
+        final Path file = tempDir.resolve("model.obj");
+        Files.writeString(file, CONTENT);
+        final PackedModel loaded = ObjReader.readPacked(file);
+        loaded.trimToSize();
+        final ModelCache cache = new ModelCache(loaded.estimateSizeInBytes());
+        cache.get(file);
+        Assertions.assertEquals(1, cache.size());
+
+        Files.writeString(file, CONTENT + "v 0 0 0\nv 1 1 1\nf 1 4 5\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        Assertions.assertEquals(5, cache.get(file).getVertexCount());
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(0, cache.getSizeInBytes());
+    }
+}
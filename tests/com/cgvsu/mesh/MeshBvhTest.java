@@ -0,0 +1,117 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.objreader.ObjReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class MeshBvhTest {
+
+    private static final String CUBE =
+            "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nv 0 0 1\nv 1 0 1\nv 1 1 1\nv 0 1 1\n" +
+            "f 1 4 3 2\nf 5 6 7 8\nf 1 2 6 5\nf 2 3 7 6\nf 3 4 8 7\nf 4 1 5 8\n";
+
+    @Test
+    public void testIntersectRay() {
+        final MeshBvh bvh = MeshBvh.build(ObjReader.read(CUBE));
+        Assertions.assertEquals(12, bvh.getTriangleCount());
+
+        final BvhHit hit = bvh.intersectRay(0.25f, 0.5f, 3, 0, 0, -2);
+        Assertions.assertNotNull(hit);
+        Assertions.assertEquals(1, hit.getPolygonIndex());
+        Assertions.assertEquals(2, hit.getDistance(), 1e-6f);
+        Assertions.assertEquals(0.25f, hit.getX(), 1e-6f);
+        Assertions.assertEquals(1, hit.getZ(), 1e-6f);
+
+        // Изнутри луч попадает в дальнюю грань
+        final BvhHit inside = bvh.intersectRay(0.5f, 0.5f, 0.5f, 1, 0, 0);
+        Assertions.assertEquals(3, inside.getPolygonIndex());
+        Assertions.assertEquals(0.5f, inside.getDistance(), 1e-6f);
+
+        Assertions.assertNull(bvh.intersectRay(2, 2, 2, 1, 0, 0));
+        Assertions.assertNull(bvh.intersectRay(0.25f, 0.5f, 3, 0, 0, -1, 1.5f));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bvh.intersectRay(0, 0, 0, 0, 0, 0));
+    }
+
+    @Test
+    public void testRayPassesThroughConcaveNotch() {
+        // Буква L: веер от первой вершины закрыл бы вырез
+        final MeshBvh bvh = MeshBvh.build(ObjReader.read(
+                "v 2 1 0\nv 1 1 0\nv 1 2 0\nv 0 2 0\nv 0 0 0\nv 2 0 0\nf 1 2 3 4 5 6\n"));
+        Assertions.assertNull(bvh.intersectRay(1.5f, 1.5f, 1, 0, 0, -1));
+        Assertions.assertNotNull(bvh.intersectRay(0.5f, 1.5f, 1, 0, 0, -1));
+    }
+
+    @Test
+    public void testFindClosestPoint() {
+        final MeshBvh bvh = MeshBvh.build(ObjReader.read(CUBE));
+
+        final BvhHit face = bvh.findClosestPoint(0.3f, -2, 0.6f);
+        Assertions.assertEquals(2, face.getPolygonIndex());
+        Assertions.assertEquals(2, face.getDistance(), 1e-6f);
+        Assertions.assertEquals(0.3f, face.getX(), 1e-6f);
+        Assertions.assertEquals(0, face.getY(), 1e-6f);
+
+        final BvhHit corner = bvh.findClosestPoint(2, 2, 2);
+        Assertions.assertEquals((float) Math.sqrt(3), corner.getDistance(), 1e-6f);
+        Assertions.assertEquals(1, corner.getX(), 1e-6f);
+
+        Assertions.assertNull(bvh.findClosestPoint(2, 2, 2, 1));
+    }
+
+    @Test
+    public void testFindPolygonsInBox() {
+        final MeshBvh bvh = MeshBvh.build(ObjReader.read(CUBE));
+        Assertions.assertArrayEquals(new int[]{1, 3, 4}, bvh.findPolygonsInBox(0.9f, 0.9f, 0.9f, 2, 2, 2));
+        Assertions.assertArrayEquals(new int[0], bvh.findPolygonsInBox(0.2f, 0.2f, 0.2f, 0.8f, 0.8f, 0.8f));
+        Assertions.assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5}, bvh.findPolygonsInBox(-1, -1, -1, 2, 2, 2));
+    }
+
+    @Test
+    public void testParallelBuildMatchesSequential() throws IOException {
+        final Model model = ObjReader.read(Path.of("data/WrapHead.obj"));
+        final MeshBvh expected = MeshBvh.build(model);
+
+        final BvhOptions options = new BvhOptions();
+        options.setParallel(true);
+        options.setChunkSize(100);
+        options.setPool(new ForkJoinPool(3));
+        try {
+            final MeshBvh actual = MeshBvh.build(model, options);
+            Assertions.assertEquals(expected.getNodeCount(), actual.getNodeCount());
+            Assertions.assertEquals(expected.getDepth(), actual.getDepth());
+
+            final Random random = new Random(7);
+            for (int i = 0; i < 200; i++) {
+                final float x = random.nextFloat() * 20 - 10;
+                final float y = random.nextFloat() * 20 - 10;
+                final float z = random.nextFloat() * 20 - 10;
+                final BvhHit closest = expected.findClosestPoint(x, y, z);
+                Assertions.assertEquals(closest.getDistance(), actual.findClosestPoint(x, y, z).getDistance());
+
+                final BvhHit hit = expected.intersectRay(x, y, z, -x, -y, -z);
+                final BvhHit actualHit = actual.intersectRay(x, y, z, -x, -y, -z);
+                Assertions.assertEquals(hit == null, actualHit == null);
+                if (hit != null) {
+                    Assertions.assertEquals(hit.getDistance(), actualHit.getDistance());
+                }
+            }
+        } finally {
+            options.getPool().shutdown();
+        }
+    }
+
+    @Test
+    public void testEmptyModel() {
+        final MeshBvh bvh = MeshBvh.build(new Model());
+        Assertions.assertEquals(0, bvh.getTriangleCount());
+        Assertions.assertNull(bvh.intersectRay(0, 0, 0, 1, 0, 0));
+        Assertions.assertNull(bvh.findClosestPoint(0, 0, 0));
+        Assertions.assertArrayEquals(new int[0], bvh.findPolygonsInBox(-1, -1, -1, 1, 1, 1));
+    }
+}
@@ -0,0 +1,157 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import com.cgvsu.objreader.ObjReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+public class MeshSimplifierTest {
+
+    // Плоская сетка size x size клеток; при seam средний столбец вершин получает вторые текстурные координаты
+    private static String grid(int size, boolean seam) {
+        StringBuilder builder = new StringBuilder();
+        for (int y = 0; y <= size; y++) {
+            for (int x = 0; x <= size; x++) {
+                builder.append("v ").append(x).append(' ').append(y).append(" 0\n");
+            }
+        }
+        for (int y = 0; y <= size; y++) {
+            for (int x = 0; x <= size; x++) {
+                builder.append("vt ").append(x).append(' ').append(y).append('\n');
+            }
+        }
+        // Копии шва для правой половины лежат после основных координат и сдвинуты по u
+        for (int y = 0; y <= size; y++) {
+            builder.append("vt ").append(size + 1).append(' ').append(y).append('\n');
+        }
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int a = y * (size + 1) + x + 1;
+                int[] corners = {a, a + 1, a + size + 2, a + size + 1};
+                builder.append('f');
+                for (int corner : corners) {
+                    int texture = corner;
+                    int column = (corner - 1) % (size + 1);
+                    if (seam && x >= size / 2 && column == size / 2) {
+                        texture = (size + 1) * (size + 1) + (corner - 1) / (size + 1) + 1;
+                    }
+                    builder.append(' ').append(corner).append('/').append(texture);
+                }
+                builder.append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testPlaneCollapsesToCorners() {
+        final Model model = ObjReader.read(grid(6, false));
+        final SimplifyOptions options = new SimplifyOptions();
+        options.setMaxError(1e-3f);
+
+        final Model result = MeshSimplifier.simplify(model, options);
+        Assertions.assertEquals(2, result.getPolygons().size());
+        Assertions.assertEquals(4, result.getVertices().size());
+        Assertions.assertSame(model.getVertices().get(0), result.getVertices().get(0));
+        Assertions.assertSame(model.getVertices().get(48), result.getVertices().get(3));
+        Assertions.assertEquals(4, result.getTextureVertices().size());
+        for (Polygon polygon : result.getPolygons()) {
+            Assertions.assertEquals(polygon.getVertexIndices(), polygon.getTextureVertexIndices());
+        }
+    }
+
+    @Test
+    public void testSeamIsPreserved() {
+        final Model model = ObjReader.read(grid(6, true));
+        final SimplifyOptions options = new SimplifyOptions();
+        options.setMaxError(1e-3f);
+
+        // Шов делит плоскость на две половины, каждая сводится к двум треугольникам
+        final Model result = MeshSimplifier.simplify(model, options);
+        Assertions.assertEquals(4, result.getPolygons().size());
+        Assertions.assertEquals(6, result.getVertices().size());
+        Assertions.assertEquals(8, result.getTextureVertices().size());
+        for (Polygon polygon : result.getPolygons()) {
+            float minX = Float.POSITIVE_INFINITY;
+            for (int corner = 0; corner < 3; corner++) {
+                minX = Math.min(minX, result.getVertices().get(polygon.getVertexIndices().get(corner)).getX());
+            }
+            // Углы на шве сохраняют текстурные координаты своей половины
+            final float seamU = minX < 3 ? 3 : 7;
+            for (int corner = 0; corner < 3; corner++) {
+                final float x = result.getVertices().get(polygon.getVertexIndices().get(corner)).getX();
+                final float u = result.getTextureVertices().get(polygon.getTextureVertexIndices().get(corner)).getX();
+                Assertions.assertEquals(x == 3 ? seamU : x, u);
+            }
+        }
+    }
+
+    @Test
+    public void testLodChainByFaceCount() throws IOException {
+        final Model model = ObjReader.read(Path.of("data/WrapHead.obj"));
+        final int triangleCount = Triangulator.triangulateIndices(model).length / 3;
+        final int[] faceCounts = {triangleCount / 2, triangleCount / 4, triangleCount / 10};
+
+        final List<Model> lods = MeshSimplifier.buildLods(model, faceCounts);
+        Assertions.assertEquals(3, lods.size());
+        for (int i = 0; i < lods.size(); i++) {
+            final Model lod = lods.get(i);
+            Assertions.assertTrue(lod.getPolygons().size() <= faceCounts[i]);
+            Assertions.assertTrue(lod.getPolygons().size() >= faceCounts[i] - 1);
+            assertValid(lod);
+        }
+
+        // Последний уровень цепочки совпадает с упрощением сразу до того же числа треугольников
+        final SimplifyOptions options = new SimplifyOptions();
+        options.setTargetFaceCount(faceCounts[2]);
+        final Model direct = MeshSimplifier.simplify(model, options);
+        Assertions.assertEquals(lods.get(2).getVertices(), direct.getVertices());
+        Assertions.assertEquals(lods.get(2).getPolygons().size(), direct.getPolygons().size());
+    }
+
+    @Test
+    public void testLodChainByError() throws IOException {
+        final Model model = ObjReader.read(Path.of("data/WrapJaw.obj"));
+        final List<Model> lods = MeshSimplifier.buildLods(model, new float[]{0, 0.01f, 0.1f});
+        Assertions.assertTrue(lods.get(0).getPolygons().size() >= lods.get(1).getPolygons().size());
+        Assertions.assertTrue(lods.get(1).getPolygons().size() > lods.get(2).getPolygons().size());
+        for (Model lod : lods) {
+            assertValid(lod);
+        }
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        final Model model = ObjReader.read(grid(2, false));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MeshSimplifier.simplify(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SimplifyOptions().setTargetFaceCount(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SimplifyOptions().setMaxError(Float.NaN));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MeshSimplifier.buildLods(model, new int[]{4, 6}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> MeshSimplifier.buildLods(model, new float[]{1, 0.5f}));
+    }
+
+    private static void assertValid(Model model) {
+        for (Polygon polygon : model.getPolygons()) {
+            final List<Integer> indices = polygon.getVertexIndices();
+            Assertions.assertEquals(3, indices.size());
+            Assertions.assertNotEquals(indices.get(0), indices.get(1));
+            Assertions.assertNotEquals(indices.get(1), indices.get(2));
+            Assertions.assertNotEquals(indices.get(0), indices.get(2));
+            for (int corner = 0; corner < 3; corner++) {
+                Assertions.assertTrue(indices.get(corner) < model.getVertices().size());
+                if (!polygon.getTextureVertexIndices().isEmpty()) {
+                    Assertions.assertTrue(polygon.getTextureVertexIndices().get(corner) < model.getTextureVertices().size());
+                }
+                if (!polygon.getNormalIndices().isEmpty()) {
+                    Assertions.assertTrue(polygon.getNormalIndices().get(corner) < model.getNormals().size());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import com.cgvsu.objreader.ObjReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class MeshWelderTest {
+
+    @Test
+    public void testWeldMergesDuplicatesAndRemapsPolygons() {
+        final Model model = ObjReader.read(
+                "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 1.0000001 0 0\nv 0 1 0\nv 1 1 0.0000005\n" +
+                "vt 0 0\nvt 1 0\nvt 0 0\n" +
+                "vn 0 0 1\nvn 0 0 1\n" +
+                "f 1/1/1 2/2/1 3/3/2\nf 4/1/2 6/2/1 5/3/2\n");
+
+        final WeldResult result = MeshWelder.weld(model);
+        Assertions.assertEquals(2, result.getMergedVertices());
+        Assertions.assertEquals(1, result.getMergedTextureVertices());
+        Assertions.assertEquals(1, result.getMergedNormals());
+        Assertions.assertEquals(0, result.getRemovedFaces());
+
+        Assertions.assertEquals(4, model.getVertices().size());
+        Assertions.assertEquals(2, model.getTextureVertices().size());
+        Assertions.assertEquals(1, model.getNormals().size());
+        // Оставляется первый из одинаковых элементов
+        Assertions.assertEquals(1.0f, model.getVertices().get(1).getX());
+        Assertions.assertEquals(0.0f, model.getVertices().get(2).getZ());
+
+        Assertions.assertEquals(new ArrayList<>(Arrays.asList(0, 1, 2)), model.getPolygons().get(0).getVertexIndices());
+        Assertions.assertEquals(new ArrayList<>(Arrays.asList(1, 2, 3)), model.getPolygons().get(1).getVertexIndices());
+        Assertions.assertEquals(new ArrayList<>(Arrays.asList(0, 1, 0)), model.getPolygons().get(1).getTextureVertexIndices());
+        Assertions.assertEquals(new ArrayList<>(Arrays.asList(0, 0, 0)), model.getPolygons().get(1).getNormalIndices());
+    }
+
+    @Test
+    public void testWeldRemovesDegenerateFaces() {
+        final Model model = ObjReader.read(
+                "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nv 0 0 0\nv 1 0 0\n" +
+                "f 1 2 3 4\nf 1 2 3 5\nf 1 5 6\nf 5 2 3 4 1\n");
+
+        final WeldResult result = MeshWelder.weld(model);
+        Assertions.assertEquals(2, result.getMergedVertices());
+        Assertions.assertEquals(1, result.getRemovedFaces());
+        Assertions.assertEquals(3, result.getCollapsedCorners());
+
+        Assertions.assertEquals(3, model.getPolygons().size());
+        Assertions.assertEquals(new ArrayList<>(Arrays.asList(0, 1, 2, 3)), model.getPolygons().get(0).getVertexIndices());
+        // Последняя вершина совпала с первой
+        Assertions.assertEquals(new ArrayList<>(Arrays.asList(0, 1, 2)), model.getPolygons().get(1).getVertexIndices());
+        Assertions.assertEquals(new ArrayList<>(Arrays.asList(0, 1, 2, 3)), model.getPolygons().get(2).getVertexIndices());
+    }
+
+    @Test
+    public void testWeldOptions() {
+        final Model model = ObjReader.read("v 0 0 0\nv 0.001 0 0\nv 1 1 0\nvt 0 0\nvt 0 0\nf 1/1 2/2 3/1\n");
+        final WeldOptions options = new WeldOptions();
+        options.setTolerance(0);
+        options.setWeldTextureVertices(false);
+
+        final WeldResult exact = MeshWelder.weld(model, options);
+        Assertions.assertEquals(0, exact.getMergedVertices());
+        Assertions.assertEquals(0, exact.getMergedTextureVertices());
+        Assertions.assertEquals(2, model.getTextureVertices().size());
+
+        options.setTolerance(0.01f);
+        final WeldResult loose = MeshWelder.weld(model, options);
+        Assertions.assertEquals(1, loose.getMergedVertices());
+        Assertions.assertEquals(1, loose.getRemovedFaces());
+        Assertions.assertTrue(model.getPolygons().isEmpty());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> options.setTolerance(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> options.setTolerance(Float.NaN));
+    }
+
+    @Test
+    public void testWeldRejectsInvalidIndicesWithoutChangingModel() {
+        final Model model = new Model();
+        model.getVertices().add(new Vector3f(0, 0, 0));
+        model.getVertices().add(new Vector3f(0, 0, 0));
+        final Polygon polygon = new Polygon();
+        polygon.setVertexIndices(new ArrayList<>(Arrays.asList(0, 1, 5)));
+        model.getPolygons().add(polygon);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MeshWelder.weld(model));
+        Assertions.assertEquals(2, model.getVertices().size());
+        Assertions.assertSame(polygon, model.getPolygons().get(0));
+    }
+
+    @Test
+    public void testWeldHugeAndNonFiniteCoordinates() {
+        final WeldOptions exact = new WeldOptions();
+        exact.setTolerance(0);
+        for (final WeldOptions options : Arrays.asList(new WeldOptions(), exact)) {
+            final Model model = ObjReader.read("v 1e14 0 0\nv 3e38 -0 0\nv 1e14 0 0\nv 3e38 0 0\nv 1.0000001e14 0 0\n"
+                    + "vt 0 -0\nvt 0 0\nf 1/1 2/2 5/1\nf 2 5 4 3\n");
+            final WeldResult result = MeshWelder.weld(model, options);
+            Assertions.assertEquals(2, result.getMergedVertices());
+            Assertions.assertEquals(1, result.getMergedTextureVertices());
+            Assertions.assertEquals(3, model.getVertices().size());
+            Assertions.assertEquals(new ArrayList<>(Arrays.asList(1, 2, 1, 0)), model.getPolygons().get(1).getVertexIndices());
+        }
+
+        final Model infinite = ObjReader.read("v 1e39 0 0\nv 0 0 0\nv 1 0 0\nf 1 2 3\n");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MeshWelder.weld(infinite));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MeshWelder.weld(infinite, exact));
+        Assertions.assertEquals(3, infinite.getVertices().size());
+    }
+}
@@ -0,0 +1,106 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.Polygon;
+import com.cgvsu.objreader.ObjReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+public class NormalGeneratorTest {
+
+    private static final String CUBE =
+            "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nv 0 0 1\nv 1 0 1\nv 1 1 1\nv 0 1 1\n" +
+            "f 1 4 3 2\nf 5 6 7 8\nf 1 2 6 5\nf 2 3 7 6\nf 3 4 8 7\nf 4 1 5 8\n";
+
+    @Test
+    public void testSmoothCube() {
+        final Model model = ObjReader.read(CUBE);
+        Assertions.assertEquals(8, NormalGenerator.generate(model));
+        for (Polygon polygon : model.getPolygons()) {
+            Assertions.assertEquals(polygon.getVertexIndices(), polygon.getNormalIndices());
+        }
+        final float diagonal = (float) (1 / Math.sqrt(3));
+        assertVector(-diagonal, -diagonal, -diagonal, model.getNormals().get(0));
+        assertVector(diagonal, diagonal, diagonal, model.getNormals().get(6));
+    }
+
+    @Test
+    public void testCreaseAngleSplitsCubeCorners() {
+        final Model model = ObjReader.read(CUBE);
+        final NormalOptions options = new NormalOptions();
+        options.setCreaseAngle(60);
+        Assertions.assertEquals(24, NormalGenerator.generate(model, options));
+
+        // Нормаль каждого угла совпадает с нормалью грани
+        final Polygon top = model.getPolygons().get(1);
+        for (int corner = 0; corner < 4; corner++) {
+            assertVector(0, 0, 1, model.getNormals().get(top.getNormalIndices().get(corner)));
+        }
+        final Polygon left = model.getPolygons().get(5);
+        for (int corner = 0; corner < 4; corner++) {
+            assertVector(-1, 0, 0, model.getNormals().get(left.getNormalIndices().get(corner)));
+        }
+    }
+
+    @Test
+    public void testAreaAndAngleWeighting() {
+        // Большой и маленький прямоугольные треугольники с общей вершиной 1
+        final String content = "v 0 0 0\nv 10 0 0\nv 0 10 0\nv 0 1 0\nv 0 0 1\nf 1 2 3\nf 1 4 5\n";
+
+        final Model byArea = ObjReader.read(content);
+        NormalGenerator.generate(byArea);
+        final float length = (float) Math.sqrt(0.5 * 0.5 + 50 * 50);
+        assertVector(0.5f / length, 0, 50 / length, byArea.getNormals().get(0));
+
+        final Model byAngle = ObjReader.read(content);
+        final NormalOptions options = new NormalOptions();
+        options.setAngleWeighted(true);
+        NormalGenerator.generate(byAngle, options);
+        final float half = (float) Math.sqrt(0.5);
+        assertVector(half, 0, half, byAngle.getNormals().get(0));
+    }
+
+    @Test
+    public void testParallelAndPackedMatchSequential() throws IOException {
+        final Path file = Path.of("data/WrapHead.obj");
+        final NormalOptions options = new NormalOptions();
+        options.setCreaseAngle(45);
+        options.setAngleWeighted(true);
+
+        final Model expected = ObjReader.read(file);
+        final int count = NormalGenerator.generate(expected, options);
+
+        options.setParallel(true);
+        options.setChunkSize(100);
+        options.setPool(new ForkJoinPool(3));
+        try {
+            final PackedModel packed = ObjReader.readPacked(file);
+            Assertions.assertEquals(count, NormalGenerator.generate(packed, options));
+            Assertions.assertArrayEquals(PackedModel.fromModel(expected).toNormalArray(), packed.toNormalArray());
+            Assertions.assertArrayEquals(PackedModel.fromModel(expected).getPolygons().toNormalIndexArray(),
+                    packed.getPolygons().toNormalIndexArray());
+        } finally {
+            options.getPool().shutdown();
+        }
+    }
+
+    @Test
+    public void testReadOnlyModelIsNotChanged() {
+        final PackedModel model = PackedModel.fromModel(ObjReader.read(CUBE)).asReadOnly();
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> NormalGenerator.generate(model));
+        Assertions.assertEquals(0, model.getNormalCount());
+        Assertions.assertFalse(model.getPolygons().hasNormals(0));
+    }
+
+    private static void assertVector(float x, float y, float z, Vector3f actual) {
+        Assertions.assertEquals(x, actual.getX(), 1e-5f);
+        Assertions.assertEquals(y, actual.getY(), 1e-5f);
+        Assertions.assertEquals(z, actual.getZ(), 1e-5f);
+    }
+}
@@ -0,0 +1,136 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.Polygon;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objreader.ObjReaderOptions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+public class TriangulatorTest {
+
+    @Test
+    public void testConvexPolygonIsCutIntoFan() {
+        final Model model = ObjReader.read("v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nv 0.5 1.5 0\nf 1 2 3 5 4\n");
+        Assertions.assertArrayEquals(new int[]{0, 1, 2, 0, 2, 4, 0, 4, 3}, Triangulator.triangulateIndices(model));
+    }
+
+    @Test
+    public void testConcavePolygonInTiltedPlane() {
+        // Буква L в плоскости y = z, обход начинается с вершины, из которой веер выходит за полигон
+        final Model model = ObjReader.read(
+                "v 2 1 1\nv 1 1 1\nv 1 2 2\nv 0 2 2\nv 0 0 0\nv 2 0 0\n" +
+                "f 1 2 3 4 5 6\n");
+        final Vector3f normal = triangleNormal(model, 3, 4, 5);
+
+        final int[] indices = Triangulator.triangulateIndices(model);
+        Assertions.assertEquals(12, indices.length);
+        double area = 0;
+        for (int i = 0; i < indices.length; i += 3) {
+            final Vector3f triangle = triangleNormal(model, indices[i], indices[i + 1], indices[i + 2]);
+            // Обход треугольника совпадает с обходом полигона
+            Assertions.assertTrue(triangle.getX() * normal.getX() + triangle.getY() * normal.getY()
+                    + triangle.getZ() * normal.getZ() > 0);
+            area += Math.sqrt(triangle.getX() * triangle.getX() + triangle.getY() * triangle.getY()
+                    + triangle.getZ() * triangle.getZ()) / 2;
+        }
+        Assertions.assertEquals(3 * Math.sqrt(2), area, 1e-5);
+    }
+
+    @Test
+    public void testAttributesFollowCorners() {
+        final Model model = ObjReader.read(
+                "v 2 1 0\nv 1 1 0\nv 1 2 0\nv 0 2 0\nv 0 0 0\nv 2 0 0\n" +
+                "vt 0 0\nvt 0 0\nvt 0 0\nvt 0 0\nvt 0 0\nvt 0 0\n" +
+                "vn 0 0 1\nvn 0 0 1\nvn 0 0 1\nvn 0 0 1\nvn 0 0 1\nvn 0 0 1\n" +
+                "f 1/1/1 2/2/2 3/3/3 4/4/4 5/5/5 6/6/6\nf 1 2 3\n");
+
+        final Model result = Triangulator.triangulate(model);
+        Assertions.assertEquals(5, result.getPolygons().size());
+        Assertions.assertEquals(6, model.getPolygons().get(0).getVertexIndices().size());
+        for (int i = 0; i < 4; i++) {
+            final Polygon polygon = result.getPolygons().get(i);
+            Assertions.assertEquals(polygon.getVertexIndices(), polygon.getTextureVertexIndices());
+            Assertions.assertEquals(polygon.getVertexIndices(), polygon.getNormalIndices());
+        }
+        Assertions.assertNull(result.getPolygons().get(4).getTextureVertexIndices());
+        Assertions.assertNull(result.getPolygons().get(4).getNormalIndices());
+        Assertions.assertSame(model.getVertices().get(0), result.getVertices().get(0));
+
+        final PackedModel packed = Triangulator.triangulate(PackedModel.fromModel(model));
+        Assertions.assertEquals(5, packed.getPolygons().getPolygonCount());
+        Assertions.assertTrue(packed.getPolygons().hasNormals(0));
+        Assertions.assertFalse(packed.getPolygons().hasNormals(4));
+        for (int corner = 0; corner < 3; corner++) {
+            Assertions.assertEquals(packed.getPolygons().getVertexIndex(1, corner),
+                    packed.getPolygons().getTextureVertexIndex(1, corner));
+        }
+    }
+
+    @Test
+    public void testParallelAndPackedMatchSequential() throws IOException {
+        final Path file = Path.of("data/WrapHead.obj");
+        final Model model = ObjReader.read(file);
+        final int[] expected = Triangulator.triangulateIndices(model);
+
+        final TriangulationOptions options = new TriangulationOptions();
+        options.setParallel(true);
+        options.setChunkSize(100);
+        options.setPool(new ForkJoinPool(3));
+        try {
+            Assertions.assertArrayEquals(expected, Triangulator.triangulateIndices(model, options));
+            Assertions.assertArrayEquals(expected, Triangulator.triangulateIndices(ObjReader.readPacked(file), options));
+            final PackedModel packed = Triangulator.triangulate(ObjReader.readPacked(file), options);
+            Assertions.assertArrayEquals(expected, packed.getPolygons().toVertexIndexArray());
+        } finally {
+            options.getPool().shutdown();
+        }
+    }
+
+    @Test
+    public void testReaderOption() throws IOException {
+        final Path file = Path.of("data/WrapJaw.obj");
+        final Model source = ObjReader.read(file);
+        int triangleCount = 0;
+        for (Polygon polygon : source.getPolygons()) {
+            triangleCount += polygon.getVertexIndices().size() - 2;
+        }
+
+        final ObjReaderOptions options = new ObjReaderOptions();
+        options.setTriangulate(true);
+        final Model model = ObjReader.read(file, options);
+        Assertions.assertEquals(triangleCount, model.getPolygons().size());
+        for (Polygon polygon : model.getPolygons()) {
+            Assertions.assertEquals(3, polygon.getVertexIndices().size());
+        }
+        Assertions.assertTrue(Arrays.equals(Triangulator.triangulateIndices(source),
+                Triangulator.triangulateIndices(model)));
+    }
+
+    @Test
+    public void testRejectsInvalidIndices() {
+        final Model model = ObjReader.read("v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nf 1 2 3 4\n");
+        model.getPolygons().get(0).getVertexIndices().set(3, 9);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Triangulator.triangulate(model));
+    }
+
+    private static Vector3f triangleNormal(Model model, int a, int b, int c) {
+        final Vector3f p = model.getVertices().get(a);
+        final Vector3f q = model.getVertices().get(b);
+        final Vector3f r = model.getVertices().get(c);
+        final float ux = q.getX() - p.getX();
+        final float uy = q.getY() - p.getY();
+        final float uz = q.getZ() - p.getZ();
+        final float vx = r.getX() - p.getX();
+        final float vy = r.getY() - p.getY();
+        final float vz = r.getZ() - p.getZ();
+        return new Vector3f(uy * vz - uz * vy, uz * vx - ux * vz, ux * vy - uy * vx);
+    }
+}
@@ -0,0 +1,101 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.objreader.ObjReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+public class VertexBufferBuilderTest {
+
+    @Test
+    public void testBuildDeduplicatesIndexTriples() {
+        final Model model = ObjReader.read(
+                "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\n" +
+                "vt 0 0\nvt 1 0\nvt 1 1\nvt 0 1\nvt 0.5 0.5\n" +
+                "vn 0 0 1\n" +
+                "f 1/1/1 2/2/1 3/3/1 4/4/1\nf 1/1/1 3/3/1 4/5/1\n");
+
+        final VertexBuffer buffer = VertexBufferBuilder.build(model);
+        Assertions.assertEquals(8, buffer.getStride());
+        Assertions.assertEquals(3, buffer.getTextureOffset());
+        Assertions.assertEquals(5, buffer.getNormalOffset());
+        // Вершина 4 встречается с двумя разными текстурными координатами
+        Assertions.assertEquals(5, buffer.getVertexCount());
+        Assertions.assertEquals(3, buffer.getTriangleCount());
+        Assertions.assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3, 0, 2, 4}, buffer.getIndices());
+
+        Assertions.assertEquals(3, buffer.getSourceVertexIndex(4));
+        Assertions.assertEquals(4, buffer.getSourceTextureVertexIndex(4));
+        Assertions.assertEquals(0, buffer.getSourceNormalIndex(4));
+        Assertions.assertArrayEquals(new float[]{0, 1, 0, 0.5f, 0.5f, 0, 0, 1},
+                Arrays.copyOfRange(buffer.getVertices(), 4 * 8, 5 * 8));
+    }
+
+    @Test
+    public void testBuildWithMissingAttributes() {
+        final Model model = ObjReader.read("v 0 0 0\nv 1 0 0\nv 1 1 0\nvn 0 0 1\nf 1 2 3\nf 1//1 2//1 3//1\n");
+
+        final VertexBuffer buffer = VertexBufferBuilder.build(model);
+        Assertions.assertFalse(buffer.hasTextureVertices());
+        Assertions.assertTrue(buffer.hasNormals());
+        Assertions.assertEquals(6, buffer.getStride());
+        Assertions.assertEquals(6, buffer.getVertexCount());
+        Assertions.assertEquals(-1, buffer.getSourceNormalIndex(0));
+        Assertions.assertEquals(-1, buffer.getSourceTextureVertexIndex(3));
+        Assertions.assertEquals(0, buffer.getSourceNormalIndex(3));
+        Assertions.assertEquals(0.0f, buffer.getVertices()[5]);
+        Assertions.assertEquals(1.0f, buffer.getVertices()[3 * 6 + 5]);
+    }
+
+    @Test
+    public void testParallelAndPackedMatchSequential() throws IOException {
+        final Path file = Path.of("data/WrapHead.obj");
+        final VertexBuffer expected = VertexBufferBuilder.build(ObjReader.read(file));
+        final PackedModel packed = ObjReader.readPacked(file);
+
+        final VertexBufferOptions options = new VertexBufferOptions();
+        options.setParallel(true);
+        options.setChunkSize(100);
+        options.setPool(new ForkJoinPool(3));
+        try {
+            for (VertexBuffer actual : new VertexBuffer[]{
+                    VertexBufferBuilder.build(packed), VertexBufferBuilder.build(packed, options)}) {
+                Assertions.assertEquals(expected.getStride(), actual.getStride());
+                Assertions.assertArrayEquals(expected.getIndices(), actual.getIndices());
+                Assertions.assertArrayEquals(expected.getVertices(), actual.getVertices());
+            }
+        } finally {
+            options.getPool().shutdown();
+        }
+    }
+
+    @Test
+    public void testBuildRejectsInvalidIndices() {
+        final Model model = ObjReader.read("v 0 0 0\nv 1 0 0\nv 1 1 0\nf 1 2 3\n");
+        model.getPolygons().get(0).getVertexIndices().set(2, 7);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> VertexBufferBuilder.build(model));
+    }
+
+    @Test
+    public void testBuildRejectsBadVertexIndicesDuringConversion() {
+        final Model model = ObjReader.read("v 0 0 0\nv 1 0 0\nv 1 1 0\nvt 0 0\nf 1 2 3\nf 1/1 2/1 3/1\n");
+        model.getPolygons().get(1).getVertexIndices().set(1, -1);
+        // У первого полигона к тому же неверное число текстурных индексов, но индексы вершин проверяются раньше
+        model.getPolygons().get(0).setTextureVertexIndices(new ArrayList<>(Arrays.asList(0, 0, 0, 0)));
+        final IllegalArgumentException range = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> VertexBufferBuilder.build(model));
+        Assertions.assertEquals("Polygon 1 references index -1 out of bounds for length 3", range.getMessage());
+
+        model.getPolygons().get(1).getVertexIndices().set(1, null);
+        final IllegalArgumentException nullIndex = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> VertexBufferBuilder.build(model));
+        Assertions.assertEquals("Model contains null elements", nullIndex.getMessage());
+    }
+}
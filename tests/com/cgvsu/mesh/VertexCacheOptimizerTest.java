@@ -0,0 +1,124 @@
+package com.cgvsu.mesh;
+
+import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.Polygon;
+import com.cgvsu.objreader.ObjReader;
+import com.cgvsu.objwriter.ObjWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class VertexCacheOptimizerTest {
+
+    @Test
+    public void testShuffledModelIsReordered() throws IOException {
+        final Model model = ObjReader.read(Path.of("data/WrapHead.obj"));
+        final Set<String> faces = faceKeys(model);
+        final ArrayList<Polygon> polygons = new ArrayList<Polygon>(model.getPolygons());
+        Collections.shuffle(polygons, new Random(3));
+        model.setPolygons(polygons);
+
+        final VertexCacheResult result = VertexCacheOptimizer.optimize(model);
+        Assertions.assertTrue(result.getAcmrBefore() > 1.5f);
+        Assertions.assertTrue(result.getAcmrAfter() < 0.8f);
+        Assertions.assertEquals(faces, faceKeys(model));
+
+        // Вершины пронумерованы в порядке первого использования
+        int next = 0;
+        for (Polygon polygon : model.getPolygons()) {
+            for (int index : polygon.getVertexIndices()) {
+                Assertions.assertTrue(index <= next);
+                if (index == next) {
+                    next++;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTripThroughWriter() throws IOException {
+        final Model model = ObjReader.read(Path.of("data/WrapJaw.obj"));
+        VertexCacheOptimizer.optimize(model);
+
+        final Model read = ObjReader.read(ObjWriter.modelToString(model));
+        Assertions.assertEquals(model.getVertices().size(), read.getVertices().size());
+        Assertions.assertEquals(model.getTextureVertices().size(), read.getTextureVertices().size());
+        Assertions.assertEquals(model.getPolygons().size(), read.getPolygons().size());
+        for (int i = 0; i < model.getPolygons().size(); i++) {
+            final Polygon expected = model.getPolygons().get(i);
+            final Polygon actual = read.getPolygons().get(i);
+            Assertions.assertEquals(expected.getVertexIndices(), actual.getVertexIndices());
+            Assertions.assertEquals(expected.getTextureVertexIndices(), actual.getTextureVertexIndices());
+        }
+        Assertions.assertEquals(faceKeys(model), faceKeys(read));
+    }
+
+    @Test
+    public void testOptimizedOrderIsKept() throws IOException {
+        final Model model = ObjReader.read(Path.of("data/WrapJaw.obj"));
+        final VertexCacheResult first = VertexCacheOptimizer.optimize(model);
+        Assertions.assertTrue(first.getAcmrAfter() < first.getAcmrBefore());
+
+        final VertexCacheResult second = VertexCacheOptimizer.optimize(model);
+        Assertions.assertEquals(first.getAcmrAfter(), second.getAcmrBefore(), 1e-6f);
+        Assertions.assertTrue(second.getAcmrAfter() <= second.getAcmrBefore());
+    }
+
+    @Test
+    public void testVerticesKeptWithoutReordering() {
+        final Model model = ObjReader.read(
+                "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nv 5 5 5\nvn 0 0 1\nf 4//1 3//1 1//1\nf 1 3 2\n");
+        final List<Vector3f> vertices = new ArrayList<Vector3f>(model.getVertices());
+        final VertexCacheOptions options = new VertexCacheOptions();
+        options.setReorderVertices(false);
+
+        VertexCacheOptimizer.optimize(model, options);
+        Assertions.assertEquals(vertices, model.getVertices());
+        Assertions.assertEquals(2, model.getPolygons().size());
+
+        // Неиспользуемая вершина остается в конце списка
+        VertexCacheOptimizer.optimize(model);
+        Assertions.assertSame(vertices.get(4), model.getVertices().get(4));
+        Assertions.assertEquals(5, model.getVertices().size());
+        int withoutNormals = 0;
+        for (Polygon polygon : model.getPolygons()) {
+            if (polygon.getNormalIndices() == null) {
+                withoutNormals++;
+            }
+        }
+        Assertions.assertEquals(1, withoutNormals);
+    }
+
+    @Test
+    public void testInvalidModelIsNotChanged() {
+        final Model model = ObjReader.read("v 0 0 0\nv 1 0 0\nv 1 1 0\nvt 0 0\nf 1/1 2/1 3/1\n");
+        model.getPolygons().get(0).getTextureVertexIndices().set(2, 4);
+        final Polygon polygon = model.getPolygons().get(0);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> VertexCacheOptimizer.optimize(model));
+        Assertions.assertSame(polygon, model.getPolygons().get(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new VertexCacheOptions().setCacheSize(2));
+    }
+
+    // Полигоны как последовательности координат вершин, не зависящие от нумерации
+    private static Set<String> faceKeys(Model model) {
+        final Set<String> result = new HashSet<String>();
+        for (Polygon polygon : model.getPolygons()) {
+            final StringBuilder builder = new StringBuilder();
+            for (int index : polygon.getVertexIndices()) {
+                final Vector3f vertex = model.getVertices().get(index);
+                builder.append(vertex.getX()).append(' ').append(vertex.getY()).append(' ').append(vertex.getZ()).append(';');
+            }
+            result.add(builder.toString());
+        }
+        return result;
+    }
+}
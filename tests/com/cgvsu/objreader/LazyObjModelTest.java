@@ -0,0 +1,151 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.PackedPolygons;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class LazyObjModelTest {
+
+    private static final String CONTENT = "# groups\r\nv 0 0 0\r\nv 1 0 0\r\nv 1 1 0\r\nv 0 1 0\r\nvt 0.5 0.5\r\n"
+            + "f 1 2 3\r\ng a\r\nf 1/1 3/1 4/1\r\ng b c\r\nvn 0 0 1\r\nf 2//1 3//1 4//1\r\ng a\r\nf 4 3 2 1\r\nv 2 2 2\r\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testGroupsAndRanges() throws IOException {
+        final Path file = write("groups.obj", CONTENT);
+        try (LazyObjModel model = LazyObjModel.open(file)) {
+            Assertions.assertEquals(5, model.getVertexCount());
+            Assertions.assertEquals(1, model.getTextureVertexCount());
+            Assertions.assertEquals(1, model.getNormalCount());
+            Assertions.assertEquals(4, model.getPolygonCount());
+            Assertions.assertArrayEquals(new float[]{1, 1, 0, 0, 1, 0, 2, 2, 2}, model.readVertices(2, 5));
+            Assertions.assertArrayEquals(new float[]{0, 0, 1}, model.readNormals(0, 1));
+            Assertions.assertEquals(0, model.readVertices(3, 3).length);
+
+            Assertions.assertEquals(List.of("default", "a", "b c"), model.getIndex().getGroupNames());
+            Assertions.assertArrayEquals(new int[]{1, 2, 3, 4}, model.getIndex().getGroupPolygonRanges("a"));
+            Assertions.assertEquals(0, model.getIndex().getGroupPolygonRanges("missing").length);
+
+            // Индексы остаются такими же, как в файле
+            final PackedPolygons group = model.readGroup("a");
+            Assertions.assertEquals(2, group.getPolygonCount());
+            Assertions.assertArrayEquals(new int[]{0, 2, 3, 3, 2, 1, 0}, group.toVertexIndexArray());
+            Assertions.assertTrue(group.hasTextureVertices(0));
+            Assertions.assertFalse(group.hasTextureVertices(1));
+            Assertions.assertEquals(0, model.readGroup("missing").getPolygonCount());
+
+            final PackedPolygons polygons = model.readPolygons(2, 3);
+            Assertions.assertEquals(0, polygons.getNormalIndex(0, 2));
+        }
+    }
+
+    @Test
+    public void testRandomRangesMatchFullRead() throws IOException {
+        final Path file = Files.copy(Path.of("data/WrapHead.obj"), tempDir.resolve("head.obj"));
+        final PackedModel expected = ObjReader.readPacked(file);
+        final float[] vertices = expected.toVertexArray();
+        final float[] textureVertices = expected.toTextureVertexArray();
+        final PackedPolygons polygons = expected.getPolygons();
+
+        try (LazyObjModel model = LazyObjModel.open(file)) {
+            Assertions.assertEquals(expected.getVertexCount(), model.getVertexCount());
+            Assertions.assertEquals(polygons.getPolygonCount(), model.getPolygonCount());
+            Assertions.assertArrayEquals(vertices, model.readVertices(0, model.getVertexCount()));
+
+            final Random random = new Random(11);
+            for (int i = 0; i < 200; i++) {
+                final int from = random.nextInt(model.getVertexCount());
+                final int to = from + random.nextInt(Math.min(300, model.getVertexCount() - from) + 1);
+                Assertions.assertArrayEquals(Arrays.copyOfRange(vertices, from * 3, to * 3), model.readVertices(from, to));
+
+                final int textureFrom = random.nextInt(model.getTextureVertexCount());
+                Assertions.assertArrayEquals(Arrays.copyOfRange(textureVertices, textureFrom * 2, textureFrom * 2 + 2),
+                        model.readTextureVertices(textureFrom, textureFrom + 1));
+
+                final int polygon = random.nextInt(model.getPolygonCount());
+                final PackedPolygons read = model.readPolygons(polygon, polygon + 1);
+                for (int corner = 0; corner < read.getPolygonVertexCount(0); corner++) {
+                    Assertions.assertEquals(polygons.getVertexIndex(polygon, corner), read.getVertexIndex(0, corner));
+                    Assertions.assertEquals(polygons.getTextureVertexIndex(polygon, corner),
+                            read.getTextureVertexIndex(0, corner));
+                }
+            }
+
+            // Группы вместе покрывают все полигоны
+            int total = 0;
+            for (String name : model.getIndex().getGroupNames()) {
+                total += model.readGroup(name).getPolygonCount();
+            }
+            Assertions.assertEquals(model.getPolygonCount(), total);
+        }
+    }
+
+    @Test
+    public void testSidecarIsReusedAndRebuilt() throws IOException {
+        final Path file = write("model.obj", CONTENT);
+        final Path sidecar = ObjIndex.sidecarPath(file);
+        Assertions.assertEquals(tempDir.resolve("model.obj.idx"), sidecar);
+
+        final ObjIndex built = ObjIndex.load(file);
+        Assertions.assertTrue(Files.isRegularFile(sidecar));
+        final FileTime stored = Files.getLastModifiedTime(sidecar);
+        final ObjIndex loaded = ObjIndex.load(file);
+        Assertions.assertEquals(stored, Files.getLastModifiedTime(sidecar));
+        Assertions.assertEquals(built.getGroupNames(), loaded.getGroupNames());
+        Assertions.assertArrayEquals(built.getGroupPolygonRanges("a"), loaded.getGroupPolygonRanges("a"));
+        Assertions.assertEquals(built.getVertexCount(), loaded.getVertexCount());
+
+        // Поврежденный индекс строится заново
+        final byte[] bytes = Files.readAllBytes(sidecar);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(sidecar, bytes);
+        Assertions.assertEquals(5, ObjIndex.load(file).getVertexCount());
+
+        // Измененный исходник тоже
+        Files.writeString(file, CONTENT + "v 3 3 3\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(built.getSourceModified() + 5000));
+        try (LazyObjModel model = LazyObjModel.open(file)) {
+            Assertions.assertEquals(6, model.getVertexCount());
+            Assertions.assertArrayEquals(new float[]{3, 3, 3}, model.readVertices(5, 6));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LazyObjModel.open(file, built));
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            content.append("v ").append(i).append(" 0 0\n");
+        }
+        content.append("v 1 x 0\nf 1 2 3\n");
+        final Path file = write("broken.obj", content.toString());
+
+        try (LazyObjModel model = LazyObjModel.open(file)) {
+            Assertions.assertEquals(201, model.getVertexCount());
+            Assertions.assertArrayEquals(new float[]{199, 0, 0}, model.readVertices(199, 200));
+            final ObjReaderException exception = Assertions.assertThrows(ObjReaderException.class,
+                    () -> model.readVertices(190, 201));
+            Assertions.assertEquals(201, exception.getLineIndex());
+
+            Assertions.assertThrows(IndexOutOfBoundsException.class, () -> model.readVertices(0, 202));
+            Assertions.assertThrows(IndexOutOfBoundsException.class, () -> model.readPolygons(1, 0));
+            Assertions.assertThrows(IndexOutOfBoundsException.class, () -> model.readNormals(-1, 0));
+        }
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(tempDir.resolve(name), content);
+    }
+}
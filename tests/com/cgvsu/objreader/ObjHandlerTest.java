@@ -0,0 +1,129 @@
+package com.cgvsu.objreader;
+
+import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedModel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ObjHandlerTest {
+
+    private static final String CONTENT = "# cube side\nv 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nvt 0 1\nvn 0 0 1\n"
+            + "f 1 2 3\ng side\nf 1/1 3/1 4/1\ng\nf 4//1 3//1 2//1 1//1\nmtllib a.mtl\n";
+
+    @Test
+    public void testEventsInFileOrder() {
+        final List<String> events = new ArrayList<>();
+        ObjReader.parse(CONTENT, new ObjHandler() {
+            @Override
+            public void onVertex(float x, float y, float z) {
+                events.add("v " + x + " " + y + " " + z);
+            }
+
+            @Override
+            public void onTexture(float u, float v) {
+                events.add("vt " + u + " " + v);
+            }
+
+            @Override
+            public void onNormal(float x, float y, float z) {
+                events.add("vn " + x + " " + y + " " + z);
+            }
+
+            @Override
+            public void onFace(int[] v, int[] vt, int[] vn, int count) {
+                events.add("f " + Arrays.toString(Arrays.copyOf(v, count))
+                        + (vt == null ? " -" : " " + Arrays.toString(Arrays.copyOf(vt, count)))
+                        + (vn == null ? " -" : " " + Arrays.toString(Arrays.copyOf(vn, count))));
+            }
+
+            @Override
+            public void onGroup(String name) {
+                events.add("g " + name);
+            }
+        });
+
+        Assertions.assertEquals(List.of(
+                "v 0.0 0.0 0.0", "v 1.0 0.0 0.0", "v 1.0 1.0 0.0", "v 0.0 1.0 0.0", "vt 0.0 1.0", "vn 0.0 0.0 1.0",
+                "f [0, 1, 2] - -",
+                "g side",
+                "f [0, 2, 3] [0, 0, 0] -",
+                "g default",
+                "f [3, 2, 1, 0] - [0, 0, 0, 0]"), events);
+    }
+
+    @Test
+    public void testFaceBuffersAreReused() throws IOException {
+        final List<int[]> arrays = new ArrayList<>();
+        ObjReader.parse(Path.of("data/WrapJaw.obj"), new ObjHandler() {
+            @Override
+            public void onFace(int[] v, int[] vt, int[] vn, int count) {
+                if (arrays.isEmpty() || arrays.get(arrays.size() - 1) != v) {
+                    arrays.add(v);
+                }
+            }
+        });
+        Assertions.assertEquals(1, arrays.size());
+    }
+
+    @Test
+    public void testStatisticsMatchModel() throws IOException {
+        final Path file = Path.of("data/WrapHead.obj");
+        final PackedModel model = ObjReader.readPacked(file);
+        final ObjStatistics statistics = ObjStatistics.collect(file);
+
+        Assertions.assertEquals(model.getVertexCount(), statistics.getVertexCount());
+        Assertions.assertEquals(model.getTextureVertexCount(), statistics.getTextureVertexCount());
+        Assertions.assertEquals(model.getNormalCount(), statistics.getNormalCount());
+        Assertions.assertEquals(model.getPolygons().getPolygonCount(), statistics.getPolygonCount());
+        Assertions.assertEquals(model.getPolygons().getCornerCount(), statistics.getCornerCount());
+        Assertions.assertTrue(statistics.getGroupCount() > 0);
+
+        float minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < model.getVertexCount(); i++) {
+            minY = Math.min(minY, model.getVertexY(i));
+            maxX = Math.max(maxX, model.getVertexX(i));
+        }
+        Assertions.assertEquals(minY, statistics.getMinY());
+        Assertions.assertEquals(maxX, statistics.getMaxX());
+
+        final ObjStatistics stream = new ObjStatistics();
+        ObjReader.parse(new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.UTF_8)), stream);
+        Assertions.assertEquals(3, stream.getPolygonCount());
+        Assertions.assertEquals(4, stream.getTriangleCount());
+        Assertions.assertEquals(2, stream.getGroupCount());
+        Assertions.assertEquals(1f, stream.getMaxY());
+    }
+
+    @Test
+    public void testErrors() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ObjReader.parse(CONTENT, null));
+
+        // Полигон с текстурными координатами не у всех вершин - ошибка с номером строки и для Model
+        final ObjReaderException exception = Assertions.assertThrows(ObjReaderException.class,
+                () -> ObjReader.read("v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nvt 0 0\nf 1/1 2/1 3/1 4\n"));
+        Assertions.assertEquals(6, exception.getLineIndex());
+
+        // Исключение получателя выходит из parse как есть
+        final IllegalStateException stop = new IllegalStateException("stop");
+        Assertions.assertSame(stop, Assertions.assertThrows(IllegalStateException.class,
+                () -> ObjReader.parse(CONTENT, new ObjHandler() {
+                    @Override
+                    public void onNormal(float x, float y, float z) {
+                        throw stop;
+                    }
+                })));
+
+        final Model model = ObjReader.read(CONTENT);
+        Assertions.assertNull(model.getPolygons().get(0).getTextureVertexIndices());
+        Assertions.assertEquals(4, model.getPolygons().get(2).getNormalIndices().size());
+    }
+}
@@ -1,14 +1,33 @@
 package com.cgvsu.objreader;
 
 import com.cgvsu.math.Vector3f;
+import com.cgvsu.model.Model;
+import com.cgvsu.model.OffHeapModel;
+import com.cgvsu.model.PackedModel;
+import com.cgvsu.model.PackedPolygons;
+import com.cgvsu.model.PolygonView;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 
 class ObjReaderTest {
 
+    @TempDir
+    Path tempDir;
+
     @Test
     public void testParseVertex01() {
         final ArrayList<String> wordsInLineWithoutToken = new ArrayList<>(Arrays.asList("1.01", "1.02", "1.03"));
@@ -57,4 +76,287 @@ class ObjReaderTest {
             Assertions.assertEquals(expectedError, exception.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testReadFromStreamMatchesReadFromString() throws IOException {
+        final String content = "# comment\r\nv 1.0 2.0 3.0\r\nv 4 5 6\nv 7 8 9\rvt 0.5 0.25\r\n\r\nvn 0 1 0\nf 1/1/1 2/1/1 3/1/1";
+        final Model expected = ObjReader.read(content);
+        final Model result = ObjReader.read(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals(expected.getVertices(), result.getVertices());
+        Assertions.assertEquals(expected.getTextureVertices(), result.getTextureVertices());
+        Assertions.assertEquals(expected.getNormals(), result.getNormals());
+        Assertions.assertEquals(1, result.getPolygons().size());
+        Assertions.assertEquals(Arrays.asList(0, 1, 2), result.getPolygons().get(0).getVertexIndices());
+    }
+
+    @Test
+    public void testLineReaderWithSmallBuffer() throws IOException {
+        // Строки длиннее буфера и \r\n на границе буфера
+        final String content = "v 1.000000001 2.000000002 3.000000003\r\nv 1 2 3\r\n\r\nf 1 2 1";
+        final ObjLineReader lineReader = new ObjLineReader(
+                Channels.newChannel(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))), 16);
+
+        final ArrayList<String> lines = new ArrayList<>();
+        while (lineReader.nextLine()) {
+            lines.add(new String(lineReader.getBuffer(), lineReader.getLineStart(), lineReader.getLineLength(),
+                    StandardCharsets.UTF_8));
+        }
+        Assertions.assertEquals(Arrays.asList("v 1.000000001 2.000000002 3.000000003", "v 1 2 3", "", "f 1 2 1"), lines);
+    }
+
+    @Test
+    public void testReadErrorLineIndexFromStream() {
+        final String content = "v 1 2 3\r\n\r\nv 1 2\r\n";
+        try {
+            ObjReader.read(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+            Assertions.fail();
+
+        } catch (ObjReaderException | IOException exception) {
+            String expectedError = "Error parsing OBJ file on line: 3. Too few vertex arguments.";
+            Assertions.assertEquals(expectedError, exception.getMessage());
+        }
+    }
+
+    @Test
+    public void testParseFaceFromTokenizer() {
+        final byte[] line = "f 1//3 2//4\t3//5 \r".getBytes(StandardCharsets.UTF_8);
+        final ObjTokenizer tokenizer = new ObjTokenizer();
+        tokenizer.reset(line, 0, line.length);
+
+        Assertions.assertEquals(ObjTokenizer.TOKEN_FACE, tokenizer.firstToken());
+        final ObjFaceBuffer face = new ObjFaceBuffer();
+        ObjReader.parseFace(tokenizer, face, 1);
+        Assertions.assertEquals(3, face.getVertexCount());
+        Assertions.assertEquals(0, face.getTextureVertexCount());
+        Assertions.assertEquals(3, face.getNormalCount());
+        Assertions.assertArrayEquals(new int[] {0, 1, 2}, Arrays.copyOf(face.getVertexIndices(), 3));
+        Assertions.assertArrayEquals(new int[] {2, 3, 4}, Arrays.copyOf(face.getNormalIndices(), 3));
+    }
+
+    @Test
+    public void testParseFaceWordFromBytes() {
+        final byte[] word = "7/8/".getBytes(StandardCharsets.UTF_8);
+        final ObjFaceBuffer face = new ObjFaceBuffer();
+
+        ObjReader.parseFaceWord(word, 0, word.length, face, 1);
+        Assertions.assertEquals(1, face.getVertexCount());
+        Assertions.assertEquals(6, face.getVertexIndices()[0]);
+        Assertions.assertEquals(1, face.getTextureVertexCount());
+        Assertions.assertEquals(7, face.getTextureVertexIndices()[0]);
+        Assertions.assertEquals(0, face.getNormalCount());
+    }
+
+    @Test
+    public void testParseFaceWordFromBytesInvalidSize() {
+        final byte[] word = "1/2/3/4".getBytes(StandardCharsets.UTF_8);
+        try {
+            ObjReader.parseFaceWord(word, 0, word.length, new ObjFaceBuffer(), 4);
+            Assertions.fail();
+
+        } catch (ObjReaderException exception) {
+            String expectedError = "Error parsing OBJ file on line: 4. Invalid element size.";
+            Assertions.assertEquals(expectedError, exception.getMessage());
+        }
+    }
+
+    @Test
+    public void testParseFloatFromBytes() {
+        final String[] values = {"0.679009", "-1.5e-3", "12345.678", "+.5", "1E10", "0.0000001", "-0", "3.4028235e38"};
+        for (String value : values) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            Assertions.assertEquals(Float.parseFloat(value), ObjNumberParser.parseFloat(bytes, 0, bytes.length));
+        }
+    }
+
+    @Test
+    public void testParseIntFromBytes() {
+        final byte[] bytes = "f -2147483648 17 +3 2147483648".getBytes(StandardCharsets.UTF_8);
+        Assertions.assertEquals(Integer.MIN_VALUE, ObjNumberParser.parseInt(bytes, 2, 13));
+        Assertions.assertEquals(17, ObjNumberParser.parseInt(bytes, 14, 16));
+        Assertions.assertEquals(3, ObjNumberParser.parseInt(bytes, 17, 19));
+        Assertions.assertThrows(NumberFormatException.class, () -> ObjNumberParser.parseInt(bytes, 20, bytes.length));
+    }
+
+    @Test
+    public void testParseVertexFromTokenizerInvalidFloat() {
+        final byte[] line = "v 1.0 2.0x 3.0".getBytes(StandardCharsets.UTF_8);
+        final ObjTokenizer tokenizer = new ObjTokenizer();
+        tokenizer.reset(line, 0, line.length);
+        tokenizer.firstToken();
+        try {
+            ObjReader.parseFloatToken(tokenizer, "Too few vertex arguments.", 12);
+            ObjReader.parseFloatToken(tokenizer, "Too few vertex arguments.", 12);
+            Assertions.fail();
+
+        } catch (ObjReaderException exception) {
+            String expectedError = "Error parsing OBJ file on line: 12. Failed to parse float value.";
+            Assertions.assertEquals(expectedError, exception.getMessage());
+        }
+    }
+
+    @Test
+    public void testParallelReadMatchesSequential() throws IOException {
+        final StringBuilder content = new StringBuilder("# parallel\r\n");
+        for (int i = 0; i < 300; i++) {
+            content.append("v ").append(i).append(" 0.5 -").append(i).append("\r\n");
+            content.append("vt 0.").append(i).append(" 1\n");
+        }
+        for (int i = 1; i < 299; i++) {
+            content.append("f ").append(i).append("/").append(i).append(" ")
+                    .append(i + 1).append("/").append(i + 1).append(" ")
+                    .append(i + 2).append("/").append(i + 2).append("\r\n");
+        }
+        final Path file = tempDir.resolve("parallel.obj");
+        Files.writeString(file, content);
+
+        final ObjReaderOptions options = new ObjReaderOptions();
+        options.setParallel(true);
+        options.setChunkSize(256);
+
+        final Model expected = ObjReader.read(file);
+        final Model result = ObjReader.read(file, options);
+        Assertions.assertEquals(expected.getVertices(), result.getVertices());
+        Assertions.assertEquals(expected.getTextureVertices(), result.getTextureVertices());
+        Assertions.assertEquals(expected.getPolygons().size(), result.getPolygons().size());
+        for (int i = 0; i < expected.getPolygons().size(); i++) {
+            Assertions.assertEquals(expected.getPolygons().get(i).getVertexIndices(), result.getPolygons().get(i).getVertexIndices());
+            Assertions.assertEquals(expected.getPolygons().get(i).getTextureVertexIndices(), result.getPolygons().get(i).getTextureVertexIndices());
+        }
+    }
+
+    @Test
+    public void testParallelReadErrorLineIndex() throws IOException {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            content.append("v 1 2 3\n");
+        }
+        content.append("f 1 2\n");
+        for (int i = 0; i < 500; i++) {
+            content.append("v 1 2 3\n");
+        }
+        final Path file = tempDir.resolve("broken.obj");
+        Files.writeString(file, content);
+
+        final ObjReaderOptions options = new ObjReaderOptions();
+        options.setParallel(true);
+        options.setChunkSize(100);
+        try {
+            ObjReader.read(file, options);
+            Assertions.fail();
+
+        } catch (ObjReaderException exception) {
+            String expectedError = "Error parsing OBJ file on line: 501. Polygon must have at least 3 vertices.";
+            Assertions.assertEquals(expectedError, exception.getMessage());
+        }
+    }
+
+    @Test
+    public void testReadPackedMatchesRead() throws IOException {
+        final String content = "v 1 2 3\nv 4 5 6\nv 7 8 9\nvt 0.5 0.25\nvn 0 0 1\nf 1/1/1 2/1/1 3/1/1\n";
+        final Model expected = ObjReader.read(content);
+        final PackedModel result = ObjReader.readPacked(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals(3, result.getVertexCount());
+        Assertions.assertEquals(8.0f, result.getVertexY(2));
+        Assertions.assertEquals(0.25f, result.getTextureVertexV(0));
+        Assertions.assertEquals(1.0f, result.getNormalZ(0));
+
+        final Model converted = result.toModel();
+        Assertions.assertEquals(expected.getVertices(), converted.getVertices());
+        Assertions.assertEquals(expected.getTextureVertices(), converted.getTextureVertices());
+        Assertions.assertEquals(expected.getNormals(), converted.getNormals());
+        Assertions.assertEquals(expected.getPolygons().get(0).getNormalIndices(), converted.getPolygons().get(0).getNormalIndices());
+    }
+
+    @Test
+    public void testReadPackedPolygons() throws IOException {
+        final String content = "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nvt 0 0\nf 1 2 3 4\nf 1/1 2/1 3/1\n";
+        final PackedPolygons polygons = ObjReader.readPacked(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))).getPolygons();
+
+        Assertions.assertEquals(2, polygons.getPolygonCount());
+        Assertions.assertEquals(7, polygons.getCornerCount());
+        Assertions.assertEquals(4, polygons.getPolygonVertexCount(0));
+        Assertions.assertEquals(4, polygons.getPolygonStart(1));
+        Assertions.assertFalse(polygons.hasTextureVertices(0));
+        Assertions.assertTrue(polygons.hasTextureVertices(1));
+        Assertions.assertEquals(3, polygons.getVertexIndex(0, 3));
+        Assertions.assertEquals(0, polygons.getTextureVertexIndex(1, 2));
+
+        final PolygonView view = polygons.get(0);
+        Assertions.assertEquals(new ArrayList<>(Arrays.asList(0, 1, 2, 3)), view.getVertexIndices());
+        Assertions.assertNull(view.getTextureVertexIndices());
+        Assertions.assertNull(polygons.get(1).getNormalIndices());
+    }
+
+    @Test
+    public void testReadPackedMismatchedTextureIndices() throws IOException {
+        final String content = "v 0 0 0\nv 1 0 0\nv 1 1 0\nvt 0 0\nf 1/1 2 3\n";
+        try {
+            ObjReader.readPacked(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+            Assertions.fail();
+
+        } catch (ObjReaderException exception) {
+            String expectedError = "Error parsing OBJ file on line: 5. Texture vertex indices must be given for all polygon vertices or none.";
+            Assertions.assertEquals(expectedError, exception.getMessage());
+        }
+    }
+
+    @Test
+    public void testReadOffHeapBuffers() throws IOException {
+        final String content = "v 1 2 3\nv 4 5 6\nv 7 8 9\nv 0 0 1\nvn 0 0 1\nf 1 2 3\nf 1//1 3//1 4//1\n";
+        final OffHeapModel model = ObjReader.readOffHeap(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+        final FloatBuffer vertices = model.getVertexBuffer().asFloatBuffer();
+        Assertions.assertEquals(12, vertices.remaining());
+        Assertions.assertEquals(6.0f, vertices.get(5));
+
+        final IntBuffer offsets = model.getPolygonOffsetBuffer().asIntBuffer();
+        Assertions.assertEquals(3, offsets.remaining());
+        Assertions.assertEquals(3, offsets.get(1));
+        Assertions.assertEquals(6, offsets.get(2));
+
+        final IntBuffer indices = model.getVertexIndexBuffer().asIntBuffer();
+        Assertions.assertEquals(3, indices.get(5));
+        Assertions.assertNull(model.getTextureVertexIndexBuffer());
+
+        final IntBuffer normalIndices = model.getNormalIndexBuffer().asIntBuffer();
+        Assertions.assertEquals(-1, normalIndices.get(0));
+        Assertions.assertEquals(0, normalIndices.get(3));
+        Assertions.assertFalse(model.hasNormals(0));
+        Assertions.assertTrue(model.hasNormals(1));
+
+        Assertions.assertEquals(ObjReader.read(content).getVertices(), model.toModel().getVertices());
+
+        model.close();
+        Assertions.assertThrows(IllegalStateException.class, model::getVertexBuffer);
+    }
+
+    @Test
+    public void testOffHeapViewsAreUnusableAfterClose() {
+        final OffHeapModel model = new OffHeapModel();
+        model.addVertex(1, 2, 3);
+        final ByteBuffer early = model.getVertexBuffer();
+
+        // Буфер вершин растет, выданное раньше представление остается снимком до close()
+        for (int i = 0; i < 1000; i++) {
+            model.addVertex(i, i, i);
+        }
+        final ByteBuffer late = model.getVertexBuffer();
+        Assertions.assertEquals(2.0f, early.getFloat(Float.BYTES));
+        Assertions.assertEquals(3 * Float.BYTES, early.remaining());
+        Assertions.assertEquals(999.0f, late.getFloat(1000 * 3 * Float.BYTES));
+
+        model.close();
+        Assertions.assertTrue(model.isClosed());
+        for (final ByteBuffer view : new ByteBuffer[]{early, late}) {
+            Assertions.assertEquals(0, view.remaining());
+            Assertions.assertThrows(IndexOutOfBoundsException.class, () -> view.getFloat(0));
+            Assertions.assertThrows(BufferUnderflowException.class, view::getFloat);
+        }
+        Assertions.assertThrows(IllegalStateException.class, model::getVertexBuffer);
+        Assertions.assertThrows(IllegalStateException.class, () -> model.addVertex(0, 0, 0));
+        model.close();
+    }
+}
@@ -3,15 +3,22 @@ package com.cgvsu.objwriter;
 import com.cgvsu.math.Vector2f;
 import com.cgvsu.math.Vector3f;
 import com.cgvsu.model.Model;
+import com.cgvsu.model.PackedModel;
 import com.cgvsu.model.Polygon;
+import com.cgvsu.objreader.ObjReader;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -48,6 +55,37 @@ public class ObjWriterTest {
         assertEquals("0", ObjWriter.formatFloatCompact(0.0f));
     }
 
+    @Test
+    public void testFixedFormattingMatchesStringFormat() {
+        byte[] buffer = new byte[FloatFormatter.MAX_LENGTH];
+        float[] values = {0.0f, -0.0f, -1e-7f, 0.0078125f, 123456.78f, -3.25f, 1e9f, 1e20f, Float.MIN_VALUE};
+        for (float value : values) {
+            String expected = String.format(Locale.ROOT, "%.6f", value).replaceAll("0*$", "").replaceAll("\\.$", "");
+            int length = FloatFormatter.formatFixed(value, buffer, 0);
+            assertEquals(expected, new String(buffer, 0, length, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void testShortestFormattingRoundTrip() {
+        Model model = new Model();
+        model.getVertices().add(new Vector3f(0.1f, 1e-7f, 123456.78f));
+        model.getVertices().add(new Vector3f(-2.5f, Float.MIN_VALUE, 3.4e38f));
+
+        ObjWriterOptions options = new ObjWriterOptions();
+        options.setShortestFloats(true);
+        String result = ObjWriter.modelToString(model, null, options);
+
+        assertTrue(result.startsWith("v 0.1 0.0000001 123456.78\n"));
+        Model readBack = ObjReader.read(result);
+        for (int i = 0; i < model.getVertices().size(); i++) {
+            assertEquals(model.getVertices().get(i).getX(), readBack.getVertices().get(i).getX());
+            assertEquals(model.getVertices().get(i).getY(), readBack.getVertices().get(i).getY());
+            assertEquals(model.getVertices().get(i).getZ(), readBack.getVertices().get(i).getZ());
+        }
+        assertTrue(ObjWriter.modelToString(model, null).startsWith("v 0.1 0 123456.78125\n"));
+    }
+
     // Различные комбинации данных
     @Test
     public void testVertexOnlyOutput() {
@@ -209,4 +247,114 @@ public class ObjWriterTest {
         assertFalse(result.contains("v "), "No vertices in empty model");
         assertFalse(result.contains("f "), "No faces in empty model");
     }
-}
\ No newline at end of file
+
+    // PackedModel пишется в тот же формат, что и Model
+    @Test
+    public void testPackedModelOutputMatchesModel() {
+        Model model = new Model();
+        model.getVertices().add(new Vector3f(1.0f, 2.5f, -3.0f));
+        model.getVertices().add(new Vector3f(0.001f, 0.0f, 0.0f));
+        model.getTextureVertices().add(new Vector2f(0.5f, 0.5f));
+        model.getNormals().add(new Vector3f(0.0f, 1.0f, 0.0f));
+
+        Polygon polygon = new Polygon();
+        polygon.setVertexIndices(new ArrayList<>(Arrays.asList(0, 1, 0)));
+        polygon.setTextureVertexIndices(new ArrayList<>(Arrays.asList(0, 0, 0)));
+        polygon.setNormalIndices(new ArrayList<>(Arrays.asList(0, 0, 0)));
+        model.getPolygons().add(polygon);
+
+        assertEquals(ObjWriter.modelToString(model), ObjWriter.packedModelToString(PackedModel.fromModel(model)));
+    }
+
+    // Потоковая запись через маленький буфер дает те же байты, что и modelToString
+    @Test
+    public void testStreamingOutputMatchesModelToString() throws IOException {
+        Model model = new Model();
+        for (int i = 0; i < 50; i++) {
+            model.getVertices().add(new Vector3f(i * 0.37f, -i * 1.5f, 1e-3f * i));
+        }
+        model.getTextureVertices().add(new Vector2f(0.25f, 0.75f));
+        Polygon polygon = new Polygon();
+        polygon.setVertexIndices(new ArrayList<>(Arrays.asList(0, 25, 49)));
+        polygon.setTextureVertexIndices(new ArrayList<>(Arrays.asList(0, 0, 0)));
+        model.getPolygons().add(polygon);
+
+        String expected = ObjWriter.modelToString(model);
+        ObjWriterOptions options = new ObjWriterOptions();
+        options.setBufferSize(16);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ObjWriter.write(model, stream, options);
+        assertEquals(expected, stream.toString(StandardCharsets.UTF_8));
+
+        StringWriter writer = new StringWriter();
+        ObjWriter.write(model, writer, options);
+        assertEquals(expected, writer.toString());
+
+        Path file = tempDir.resolve("streamed.obj");
+        ObjWriter.write(model, file, options);
+        assertEquals(expected, Files.readString(file));
+    }
+
+    // Ошибка в модели обнаруживается до открытия файла
+    @Test
+    public void testInvalidModelDoesNotTouchFile() throws IOException {
+        Path file = tempDir.resolve("existing.obj");
+        Files.writeString(file, "v 1 2 3\n");
+
+        Model model = new Model();
+        model.getVertices().add(new Vector3f(1.0f, 2.0f, 3.0f));
+        model.getVertices().add(new Vector3f(Float.NaN, 0.0f, 0.0f));
+
+        assertThrows(ObjWriterException.class, () -> ObjWriter.write(model, file.toString()));
+        assertEquals("v 1 2 3\n", Files.readString(file));
+    }
+
+    // Параллельная запись мелкими кусками дает тот же результат, что и последовательная
+    @Test
+    public void testParallelOutputMatchesSequential() throws IOException {
+        Model model = new Model();
+        for (int i = 0; i < 100; i++) {
+            model.getVertices().add(new Vector3f(i * 0.1f, i * -2.0f, i));
+            model.getNormals().add(new Vector3f(0.0f, 0.0f, 1.0f));
+        }
+        for (int i = 0; i + 2 < 100; i++) {
+            Polygon polygon = new Polygon();
+            polygon.setVertexIndices(new ArrayList<>(Arrays.asList(i, i + 1, i + 2)));
+            polygon.setNormalIndices(new ArrayList<>(Arrays.asList(i, i, i)));
+            model.getPolygons().add(polygon);
+        }
+
+        ObjWriterOptions options = new ObjWriterOptions();
+        options.setParallel(true);
+        options.setChunkSize(7);
+        options.setPool(new ForkJoinPool(4));
+
+        String expected = ObjWriter.modelToString(model);
+        assertEquals(expected, ObjWriter.modelToString(model, "Exported by Lapin Nikita ObjWriter", options));
+        assertEquals(expected, ObjWriter.packedModelToString(PackedModel.fromModel(model), "Exported by Lapin Nikita ObjWriter", options));
+
+        Path file = tempDir.resolve("parallel.obj");
+        ObjWriter.write(model, file, options);
+        assertEquals(expected, Files.readString(file));
+    }
+
+    // Ошибка сообщается для первого неверного элемента по порядку файла
+    @Test
+    public void testParallelValidationReportsFirstError() {
+        Model model = new Model();
+        for (int i = 0; i < 50; i++) {
+            model.getVertices().add(new Vector3f(i, i, i));
+        }
+        model.getVertices().set(23, new Vector3f(Float.NaN, 0.0f, 0.0f));
+        model.getVertices().set(41, new Vector3f(Float.POSITIVE_INFINITY, 0.0f, 0.0f));
+
+        ObjWriterOptions options = new ObjWriterOptions();
+        options.setParallel(true);
+        options.setChunkSize(5);
+
+        ObjWriterException exception = assertThrows(ObjWriterException.class,
+                () -> ObjWriter.modelToString(model, null, options));
+        assertEquals("Vertex at index 23 contains NaN values", exception.getMessage());
+    }
+}
@@ -0,0 +1,141 @@
+package com.cgvsu.spatial;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class SpatialHashGridTest {
+
+    @Test
+    public void testFindNearestMatchesBruteForce() {
+        final Random random = new Random(7);
+        final float[] points = new float[3000 * 3];
+        // Начальная емкость меньше числа точек, чтобы таблица перестраивалась
+        final SpatialHashGrid grid = new SpatialHashGrid(0.05f, 4);
+        for (int i = 0; i < points.length / 3; i++) {
+            points[i * 3] = random.nextFloat() - 0.5f;
+            points[i * 3 + 1] = random.nextFloat() - 0.5f;
+            points[i * 3 + 2] = random.nextFloat() - 0.5f;
+            Assertions.assertEquals(i, grid.add(points[i * 3], points[i * 3 + 1], points[i * 3 + 2]));
+        }
+
+        for (int query = 0; query < 500; query++) {
+            final float x = random.nextFloat() - 0.5f;
+            final float y = random.nextFloat() - 0.5f;
+            final float z = random.nextFloat() - 0.5f;
+            final float tolerance = query % 2 == 0 ? 0.05f : 0.12f;
+
+            int expected = -1;
+            double expectedDistance = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < points.length / 3; i++) {
+                final double dx = points[i * 3] - x;
+                final double dy = points[i * 3 + 1] - y;
+                final double dz = points[i * 3 + 2] - z;
+                if (Math.abs(dx) <= tolerance && Math.abs(dy) <= tolerance && Math.abs(dz) <= tolerance
+                        && dx * dx + dy * dy + dz * dz < expectedDistance) {
+                    expected = i;
+                    expectedDistance = dx * dx + dy * dy + dz * dz;
+                }
+            }
+            Assertions.assertEquals(expected, grid.findNearest(x, y, z, tolerance));
+        }
+    }
+
+    @Test
+    public void testFindNearestWithFilter() {
+        final SpatialHashGrid grid = new SpatialHashGrid(1e-5f);
+        grid.add(1, 2, 3);
+        grid.add(1, 2, 3);
+        grid.add(1, 2, 3.000005f);
+        grid.add(-1, -2, -3);
+
+        Assertions.assertEquals(0, grid.findNearest(1, 2, 3, 1e-5f));
+        Assertions.assertEquals(1, grid.findNearest(1, 2, 3, 1e-5f, index -> index != 0));
+        Assertions.assertEquals(2, grid.findNearest(1, 2, 3, 1e-5f, index -> index > 1));
+        Assertions.assertEquals(-1, grid.findNearest(1, 2, 3, 1e-6f, index -> index > 1));
+        Assertions.assertEquals(3, grid.findNearest(-1, -2, -3, 0));
+        Assertions.assertEquals(-1, grid.findNearest(5, 5, 5, 1e-5f));
+    }
+
+    @Test
+    public void testRemovedDuplicatesAreSkippedInConstantTime() {
+        // Две группы равных точек вперемешку - как повторяющиеся нормали модели
+        final SpatialHashGrid grid = new SpatialHashGrid(0.01f);
+        final int count = 20000;
+        for (int i = 0; i < count; i++) {
+            grid.add(i % 2 == 0 ? 0 : 1, 0, i % 2 == 0 ? 1 : 0);
+        }
+
+        // Запросы в сдвинутом порядке: каждый берет наименьшую свободную точку группы и убирает ее
+        final int[] filterCalls = new int[1];
+        final int[] taken = new int[2];
+        for (int query = 0; query < count; query++) {
+            final int kind = (query + 1) % 2;
+            final int match = grid.findNearest(kind == 0 ? 0 : 1, 0, kind == 0 ? 1 : 0, 0.01f, index -> {
+                filterCalls[0]++;
+                return true;
+            });
+            Assertions.assertEquals(taken[kind]++ * 2 + kind, match);
+            grid.remove(match);
+            Assertions.assertTrue(grid.isRemoved(match));
+        }
+        // Одна проверка фильтра на запрос, занятые точки не перебираются
+        Assertions.assertEquals(count, filterCalls[0]);
+        Assertions.assertEquals(-1, grid.findNearest(0, 0, 1, 0.01f));
+        Assertions.assertEquals(count, grid.size());
+
+        // -0 и 0 равны и попадают в одну группу
+        final SpatialHashGrid zeros = new SpatialHashGrid(1);
+        zeros.add(0, 0, 0);
+        zeros.add(-0f, 0, 0);
+        zeros.add(0, 0, 0);
+        zeros.remove(0);
+        Assertions.assertEquals(1, zeros.findNearest(0, 0, 0, 0));
+        Assertions.assertEquals(2, zeros.findNearest(0, 0, 0, 0, index -> index != 1));
+        zeros.remove(2);
+        zeros.remove(2);
+        Assertions.assertEquals(1, zeros.findNearest(0, 0, 0, 0));
+        zeros.add(-0f, 0, 0);
+        zeros.remove(1);
+        Assertions.assertEquals(3, zeros.findNearest(0, 0, 0, 0));
+    }
+
+    @Test
+    public void testHugeCoordinates() {
+        // Номера ячеек таких точек не помещаются в long - поиск не должен зацикливаться
+        final SpatialHashGrid grid = new SpatialHashGrid(1e-6f);
+        Assertions.assertEquals(0, grid.add(1e14f, 0, 0));
+        Assertions.assertEquals(1, grid.add(Float.MAX_VALUE, 0, 0));
+        Assertions.assertEquals(2, grid.add(-Float.MAX_VALUE, 1, 0));
+        Assertions.assertEquals(0, grid.findNearest(1e14f, 0, 0, 1e-6f));
+        Assertions.assertEquals(1, grid.findNearest(Float.MAX_VALUE, 0, 0, 0));
+        Assertions.assertEquals(2, grid.findNearest(-Float.MAX_VALUE, 1, 0, 1e-6f));
+        Assertions.assertEquals(-1, grid.findNearest(Float.MAX_VALUE, 1, 0, 1e-6f));
+        Assertions.assertEquals(0, grid.findNearest(1e14f, 0, 0, 1e30f));
+        Assertions.assertEquals(0, grid.findNearest(0, 0, 0, Float.POSITIVE_INFINITY));
+
+        // Далекие точки в крайних ячейках и точки рядом с началом координат - в одной сетке
+        final SpatialHashGrid mixed = new SpatialHashGrid(0.5f, 4);
+        for (int i = 0; i < 100; i++) {
+            mixed.add(i, 0, 0);
+            mixed.add(1e30f + i * 1e24f, 0, 0);
+        }
+        Assertions.assertEquals(20, mixed.findNearest(10.1f, 0, 0, 0.5f));
+        Assertions.assertEquals(21, mixed.findNearest(1e30f + 10 * 1e24f, 0, 0, 0.5f));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> grid.add(Float.POSITIVE_INFINITY, 0, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> grid.add(0, Float.NaN, 0));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> grid.findNearest(0, 0, Float.NEGATIVE_INFINITY, 1));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SpatialHashGrid(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SpatialHashGrid(Float.NaN));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SpatialHashGrid(1, -1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SpatialHashGrid(1).findNearest(0, 0, 0, -1));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> new SpatialHashGrid(1).getX(0));
+    }
+}
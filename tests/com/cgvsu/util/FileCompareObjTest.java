@@ -0,0 +1,168 @@
+package com.cgvsu.util;
+
+import com.cgvsu.model.PackedModel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+public class FileCompareObjTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCountsWithMixedLineEndings() throws IOException {
+        final Path first = tempDir.resolve("first.obj");
+        final Path second = tempDir.resolve("second.obj");
+        Files.writeString(first, "# comment\nv 1 2 3\r\nvt 0 1\rvn 0 0 1\no cube\nf 1 2 3\r");
+        Files.writeString(second, "v 1 2 3\nv 4 5 6\n\nf 1 2 3\nvx 1\n");
+
+        final FileComparison result = FileComparison.compare(first, second);
+        final FileComparison.Statistics firstStatistics = result.getFirst();
+        Assertions.assertEquals(6, firstStatistics.getLines());
+        Assertions.assertEquals(1, firstStatistics.getVertices());
+        Assertions.assertEquals(1, firstStatistics.getTextureVertices());
+        Assertions.assertEquals(1, firstStatistics.getNormals());
+        Assertions.assertEquals(1, firstStatistics.getFaces());
+        Assertions.assertEquals(1, firstStatistics.getComments());
+        Assertions.assertEquals(1, firstStatistics.getObjects());
+
+        final FileComparison.Statistics secondStatistics = result.getSecond();
+        Assertions.assertEquals(5, secondStatistics.getLines());
+        Assertions.assertEquals(2, secondStatistics.getVertices());
+        Assertions.assertEquals(1, secondStatistics.getFaces());
+        Assertions.assertFalse(result.isIdentical());
+    }
+
+    @Test
+    public void testDifferencesAcrossBufferBoundary() throws IOException {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            content.append("v ").append(i).append(" 0 0\n");
+        }
+        final Path first = tempDir.resolve("first.obj");
+        final Path second = tempDir.resolve("second.obj");
+        Files.writeString(first, content);
+        Files.writeString(second, content.toString().replace("v 12345 0 0", "v 12345 0 1"));
+
+        final FileCompareObj comparator = new FileCompareObj(first, second);
+        Assertions.assertFalse(comparator.areFilesIdentical());
+        final List<FileComparison.Difference> differences = comparator.getComparison().getDifferences();
+        Assertions.assertEquals(1, differences.size());
+        Assertions.assertEquals(12346, differences.get(0).getLineNumber());
+        Assertions.assertEquals("v 12345 0 0", differences.get(0).getFirstLine());
+        Assertions.assertEquals("v 12345 0 1", differences.get(0).getSecondLine());
+
+        comparator.setSecondFile(first);
+        Assertions.assertTrue(comparator.areFilesIdentical());
+        Assertions.assertEquals(20000, comparator.getComparison().getFirst().getVertices());
+    }
+
+    @Test
+    public void testResultIsCachedUntilFileChanges() throws IOException {
+        final Path first = tempDir.resolve("first.obj");
+        final Path second = tempDir.resolve("second.obj");
+        Files.writeString(first, "v 1 2 3\n");
+        Files.writeString(second, "v 1 2 3\n");
+
+        final FileCompareObj comparator = new FileCompareObj(first, second);
+        final FileComparison result = comparator.getComparison();
+        Assertions.assertTrue(result.isIdentical());
+        Assertions.assertSame(result, comparator.getComparison());
+
+        Files.writeString(second, "v 1 2 4\n");
+        Files.setLastModifiedTime(second, FileTime.fromMillis(Files.getLastModifiedTime(second).toMillis() + 2000));
+        Assertions.assertNotSame(result, comparator.getComparison());
+        Assertions.assertFalse(comparator.areFilesIdentical());
+    }
+
+    @Test
+    public void testGeometryIgnoresOrderAndFormatting() throws IOException {
+        final Path first = tempDir.resolve("first.obj");
+        final Path second = tempDir.resolve("second.obj");
+        Files.writeString(first, "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nvt 0 0\nvt 1 1\nf 1/1 2/2 3/1\nf 1 3 4\n");
+        // Вершины переставлены, числа записаны иначе, полигоны начинаются с другой вершины
+        Files.writeString(second, "v 0.0 1.000001 0\nv 1 1 0.0\nv 0 0 0\nv 1.0 0 0\nvt 1 1\nvt 0 0\nf 3 2 1\nf 4/2 2/1 3/2\n");
+
+        final GeometryComparison result = GeometryComparison.compare(first, second);
+        Assertions.assertTrue(result.isEquivalent());
+        Assertions.assertEquals(4, result.getVertices().getMatched());
+        Assertions.assertEquals(2, result.getTextureVertices().getMatched());
+        Assertions.assertEquals(2, result.getFaces().getMatched());
+        Assertions.assertEquals(2, result.getMatchedVertex(0));
+        Assertions.assertEquals(1e-6, result.getVertices().getMaxDeviation(), 1e-7);
+    }
+
+    @Test
+    public void testGeometryReportsMovedFlippedAndRemoved() throws IOException {
+        final Path first = tempDir.resolve("first.obj");
+        final Path second = tempDir.resolve("second.obj");
+        Files.writeString(first, "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nv 2 0 0\nv 5 5 5\n"
+                + "f 1 2 3\nf 1 3 4\nf 2 5 3\nf 6 6 6\n");
+        // Вершина 4 сдвинута, полигон 2 5 3 перевернут, вырожденный полигон удален, вершина 6 не используется
+        Files.writeString(second, "v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1.5 0\nv 2 0 0\nv 9 9 9\n"
+                + "f 1 2 3\nf 1 3 4\nf 3 5 2\n");
+
+        final GeometryComparison result = GeometryComparison.compare(first, second);
+        Assertions.assertFalse(result.isEquivalent());
+        Assertions.assertEquals(4, result.getVertices().getMatched());
+        Assertions.assertEquals(1, result.getVertices().getMoved());
+        Assertions.assertEquals(0.5, result.getVertices().getMaxMoveDistance(), 1e-6);
+        Assertions.assertEquals(1, result.getVertices().getRemoved());
+        Assertions.assertEquals(1, result.getVertices().getAdded());
+        Assertions.assertEquals(3, result.getMatchedVertex(3));
+        Assertions.assertEquals(-1, result.getMatchedVertex(5));
+
+        Assertions.assertEquals(2, result.getFaces().getMatched());
+        Assertions.assertEquals(1, result.getFaces().getFlipped());
+        Assertions.assertEquals(1, result.getFaces().getRemoved());
+        Assertions.assertEquals(0, result.getFaces().getAdded());
+    }
+
+    @Test
+    public void testGeometryWithHugeCoordinatesAndBadIndices() throws IOException {
+        final Path first = tempDir.resolve("first.obj");
+        final Path second = tempDir.resolve("second.obj");
+        Files.writeString(first, "v 1e14 0 0\nv 3e38 0 0\nv 0 1 0\nf 1 2 3\n");
+        Files.writeString(second, "v 0 1 0\nv 3e38 0 0\nv 1e14 0 0\nf 2 1 3\n");
+        final GeometryComparison result = GeometryComparison.compare(first, second);
+        Assertions.assertTrue(result.isEquivalent());
+        Assertions.assertEquals(2, result.getMatchedVertex(0));
+
+        Files.writeString(second, "v 1e39 0 0\nv 0 1 0\nv 1e14 0 0\nf 1 2 3\n");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GeometryComparison.compare(first, second));
+
+        Files.writeString(second, "v 1e14 0 0\nv 3e38 0 0\nv 0 1 0\nf 1 2 9\n");
+        final IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> GeometryComparison.compare(first, second));
+        Assertions.assertTrue(exception.getMessage().startsWith("Polygon 0 references index 8"));
+    }
+
+    @Test
+    public void testGeometryMatchesRepeatedNormalsInShiftedOrder() {
+        // Две разные нормали по 20000 раз, во второй модели порядок сдвинут на одну: сопоставление линейное
+        final PackedModel first = new PackedModel();
+        final PackedModel second = new PackedModel();
+        final int count = 40000;
+        for (int i = 0; i < count; i++) {
+            first.addNormal(0, 0, i % 2 == 0 ? 1 : -1);
+            second.addNormal(0, 0, i % 2 == 0 ? -1 : 1);
+            first.addTextureVertex(i % 2, 0);
+            second.addTextureVertex((i + 1) % 2, 0);
+        }
+        second.addNormal(0, 1, 0);
+
+        final GeometryComparison result = GeometryComparison.compare(first, second, GeometryComparison.DEFAULT_TOLERANCE);
+        Assertions.assertEquals(count, result.getNormals().getMatched());
+        Assertions.assertEquals(0, result.getNormals().getRemoved());
+        Assertions.assertEquals(1, result.getNormals().getAdded());
+        Assertions.assertEquals(count, result.getTextureVertices().getMatched());
+        Assertions.assertEquals(0.0, result.getNormals().getMaxDeviation());
+    }
+}
@@ -0,0 +1,41 @@
+package com.cgvsu.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class LongIntHashMapTest {
+
+    @Test
+    public void testMatchesHashMap() {
+        final Random random = new Random(11);
+        final LongIntHashMap map = new LongIntHashMap(4);
+        final Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            // Небольшой диапазон, чтобы ключи повторялись; 0 и отрицательные тоже встречаются
+            final long key = random.nextInt(50000) - 1000L;
+            if (i % 3 == 0) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                final Integer previous = expected.putIfAbsent(key, i);
+                Assertions.assertEquals(previous == null ? i : previous, map.getOrPut(key, i));
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            Assertions.assertTrue(map.containsKey(entry.getKey()));
+            Assertions.assertEquals((int) entry.getValue(), map.get(entry.getKey(), -1));
+        }
+        Assertions.assertEquals(-1, map.get(Long.MAX_VALUE, -1));
+        Assertions.assertFalse(map.containsKey(Long.MIN_VALUE));
+
+        map.clear();
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertFalse(map.containsKey(0));
+    }
+}